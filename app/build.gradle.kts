@@ -14,10 +14,16 @@ android {
         versionCode = 1
         versionName = "1.0"
         testInstrumentationRunner = "androidx.test.runner.AndroidJUnitRunner"
+
+        // TraceLog: messages below TRACE_LEVEL are compiled out, spans go to android.os.Trace
+        buildConfigField("int", "TRACE_LEVEL", "android.util.Log.DEBUG")
+        buildConfigField("boolean", "TRACE_SPANS", "true")
     }
 
     buildTypes {
         release {
+            // Warnings and errors only; turn spans stay on for production traces
+            buildConfigField("int", "TRACE_LEVEL", "android.util.Log.WARN")
             isMinifyEnabled = false
             proguardFiles(
                 getDefaultProguardFile("proguard-android-optimize.txt"),
@@ -31,9 +37,23 @@ android {
     }
     buildFeatures {
         viewBinding = true
+        buildConfig = true
+    }
+    sourceSets {
+        // The emulator tests load the deployed database rules, copied in by copyDatabaseRules
+        getByName("androidTest").assets.srcDir(layout.buildDirectory.dir("generated/databaseRules"))
     }
 }
 
+val copyDatabaseRules = tasks.register<Copy>("copyDatabaseRules") {
+    from(rootProject.file("database.rules.json"))
+    into(layout.buildDirectory.dir("generated/databaseRules"))
+}
+
+tasks.named("preBuild") {
+    dependsOn(copyDatabaseRules)
+}
+
 dependencies {
     implementation("androidx.appcompat:appcompat:1.6.1")
     implementation("com.google.android.material:material:1.11.0")
@@ -55,6 +75,8 @@ dependencies {
     implementation("androidx.recyclerview:recyclerview:1.3.2")
     
     testImplementation("junit:junit:4.13.2")
+    // The android.jar org.json is only stubbed for local unit tests
+    testImplementation(libs.org.json)
     androidTestImplementation("androidx.test.ext:junit:1.1.5")
     androidTestImplementation("androidx.test.espresso:espresso-core:3.5.1")
 }
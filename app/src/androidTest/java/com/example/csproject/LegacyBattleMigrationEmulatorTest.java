@@ -0,0 +1,213 @@
+package com.example.csproject;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs the legacy battle migration against the local Auth and Realtime Database emulators,
+ * under the rules in database.rules.json. Start them from the project root with
+ * {@code firebase emulators:start --only auth,database} before running.
+ * <p>
+ * The test signs in through the auth emulator, loads the rules into a namespace of its
+ * own, and seeds and checks data over REST as the emulator's owner, which rules don't apply to.
+ */
+@RunWith(AndroidJUnit4.class)
+public class LegacyBattleMigrationEmulatorTest {
+
+    private static final long TIMEOUT_SECONDS = 10;
+    private static final String HOST = "10.0.2.2";
+    private static final String NAMESPACE = "csproject-migration-test";
+    private static final String OTHER_USER = "bob";
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+    private static FirebaseDatabase database;
+    private static FirebaseAuth auth;
+    private final Executor decoder = Executors.newSingleThreadExecutor();
+    private final OkHttpClient http = new OkHttpClient();
+
+    private DatabaseReference root;
+    private String userId;
+
+    @Before
+    public void setUp() throws Exception {
+        synchronized (LegacyBattleMigrationEmulatorTest.class) {
+            if (database == null) {
+                auth = FirebaseAuth.getInstance();
+                auth.useEmulator(HOST, 9099);
+                database = FirebaseDatabase.getInstance("https://" + NAMESPACE + ".firebaseio.com");
+                database.useEmulator(HOST, 9000);
+            }
+        }
+        ownerRequest("PUT", ".settings/rules", readRules());
+        if (auth.getCurrentUser() == null) {
+            Tasks.await(auth.signInAnonymously(), TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        }
+        userId = auth.getCurrentUser().getUid();
+        root = database.getReference();
+
+        JSONObject seed = new JSONObject();
+        JSONObject shared = new JSONObject();
+        shared.put("-a1", battle(userId, 1000L));
+        shared.put("-a2", battle(userId, 2000L));
+        shared.put("-b1", battle(OTHER_USER, 3000L));
+        seed.put("battles", shared);
+        JSONObject userBattles = new JSONObject();
+        userBattles.put("-a3", battle(userId, 4000L));
+        seed.put("users", new JSONObject().put(userId, new JSONObject().put("battles", userBattles)));
+        // Replaces everything left by an earlier run
+        ownerRequest("PUT", "", seed.toString());
+    }
+
+    private static JSONObject battle(String userId, long timestamp) throws JSONException {
+        JSONObject battle = new JSONObject();
+        battle.put("userId", userId);
+        battle.put("opponentName", "Red");
+        battle.put("outcome", "loss");
+        battle.put("timestamp", timestamp);
+        battle.put("battleLog", "Gyarados used Waterfall!\n");
+        return battle;
+    }
+
+    /**
+     * The rules file, copied into the test's assets from the project root at build time
+     */
+    private static String readRules() throws IOException {
+        try (InputStream in = InstrumentationRegistry.getInstrumentation().getContext()
+                .getAssets().open("database.rules.json")) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                bytes.write(buffer, 0, read);
+            }
+            return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Call the emulator's REST API with owner access, past the rules
+     * @param path Database path, without a leading slash
+     * @param json Body for a write, or null to read
+     * @return The response body
+     */
+    private String ownerRequest(String method, String path, String json) throws IOException {
+        Request request = new Request.Builder()
+                .url("http://" + HOST + ":9000/" + path + ".json?ns=" + NAMESPACE)
+                .header("Authorization", "Bearer owner")
+                .method(method, json != null ? RequestBody.create(json, JSON) : null)
+                .build();
+        try (Response response = http.newCall(request).execute()) {
+            String body = response.body() != null ? response.body().string() : "";
+            assertTrue(method + " " + path + " failed: " + body, response.isSuccessful());
+            return body;
+        }
+    }
+
+    private boolean ownerExists(String path) throws IOException {
+        return !"null".equals(ownerRequest("GET", path, null).trim());
+    }
+
+    private int migrate(LegacyBattleMigration migration) throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicInteger moved = new AtomicInteger(-1);
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        migration.migrate(userId, new LegacyBattleMigration.Callback() {
+            @Override
+            public void onMigrated(int battleCount) {
+                moved.set(battleCount);
+                done.countDown();
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                failure.set(e);
+                done.countDown();
+            }
+        });
+        assertTrue(done.await(TIMEOUT_SECONDS, TimeUnit.SECONDS));
+        if (failure.get() != null) throw failure.get();
+        return moved.get();
+    }
+
+    private DataSnapshot read(String path) throws Exception {
+        return Tasks.await(root.child(path).get(), TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private void assertDenied(String what, Task<?> task) throws Exception {
+        try {
+            Tasks.await(task, TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            fail(what + " was allowed");
+        } catch (ExecutionException expected) {
+            // Permission denied by the rules
+        }
+    }
+
+    @Test
+    public void migrate_movesOnlyTheUsersBattlesOnce() throws Exception {
+        assertEquals(3, migrate(new LegacyBattleMigration(root, decoder)));
+
+        String userPath = "users/" + userId + "/";
+        assertEquals(3, read(userPath + "battleSummaries").getChildrenCount());
+        assertEquals(3, read(userPath + "battleDetails").getChildrenCount());
+        assertEquals(4000L, read(userPath + "battleSummaries/-a3/timestamp").getValue());
+        assertFalse(read(userPath + "battles").exists());
+        assertFalse(ownerExists("battles/-a1"));
+        // Other users' battles are left for them
+        assertTrue(ownerExists("battles/-b1"));
+
+        // A new process reads the flag and moves nothing
+        assertEquals(0, migrate(new LegacyBattleMigration(root, decoder)));
+        assertEquals(3, read(userPath + "battleSummaries").getChildrenCount());
+    }
+
+    @Test
+    public void rules_keepTheSharedBattlesPrivate() throws Exception {
+        // Only the query on the user's own ID may read the shared node
+        assertDenied("Reading all battles", root.child("battles").get());
+        assertDenied("Reading another user's battles",
+                root.child("battles").orderByChild("userId").equalTo(OTHER_USER).get());
+        assertDenied("Reading another user's data", root.child("users").child(OTHER_USER).get());
+
+        // A shared battle may only be deleted, and only by its owner
+        Map<String, Object> changed = new HashMap<>();
+        changed.put("outcome", "win");
+        assertDenied("Changing a shared battle", root.child("battles/-a1").updateChildren(changed));
+        assertDenied("Deleting another user's battle", root.child("battles/-b1").removeValue());
+        assertTrue(ownerExists("battles/-a1"));
+        assertTrue(ownerExists("battles/-b1"));
+    }
+}
@@ -0,0 +1,293 @@
+package com.example.csproject;
+
+import android.content.Context;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * Optional offline pack of Showdown sprites, cries, music and backgrounds in one indexed file.
+ *
+ * Entries are keyed by their path on play.pokemonshowdown.com ("sprites/ani/pikachu.gif",
+ * "audio/cries/pikachu.mp3"), so a URL maps straight to a key. The file is memory-mapped:
+ * Glide decodes entries from slices of the mapping and MediaPlayer plays them from the
+ * file descriptor at the entry's offset, so nothing is copied. Anything not in the pack is
+ * fetched from the network as before.
+ *
+ * Layout, big-endian: magic "CSAP", version, entry count, then one index record per entry
+ * sorted by key (UTF-8 key length as a short, the key, data offset as a long, data length as
+ * an int), then the data. A pack can be at most 2 GB. scripts/build_asset_pack.py builds a
+ * pack from a directory laid out like the server.
+ */
+public final class AssetPack implements Closeable {
+    private static final String TAG = "AssetPack";
+
+    static final String FILE_NAME = "assets.pack";
+    static final String HOST_URL = "https://play.pokemonshowdown.com/";
+
+    private static final int MAGIC = 0x43534150; // "CSAP"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 12;
+
+    private static final AssetPack EMPTY = new AssetPack();
+
+    private static volatile AssetPack instance;
+
+    private final RandomAccessFile file;
+    private final MappedByteBuffer data;
+    private final String[] keys;
+    private final long[] offsets;
+    private final int[] lengths;
+
+    private AssetPack() {
+        file = null;
+        data = null;
+        keys = new String[0];
+        offsets = new long[0];
+        lengths = new int[0];
+    }
+
+    private AssetPack(RandomAccessFile file, MappedByteBuffer data, String[] keys, long[] offsets, int[] lengths) {
+        this.file = file;
+        this.data = data;
+        this.keys = keys;
+        this.offsets = offsets;
+        this.lengths = lengths;
+    }
+
+    /**
+     * Get the installed pack, opening it on first use
+     * @param context Any context, only its files directory is used
+     * @return The pack; empty if none is installed or it can't be read
+     */
+    public static AssetPack getInstance(Context context) {
+        AssetPack pack = instance;
+        if (pack == null) {
+            synchronized (AssetPack.class) {
+                pack = instance;
+                if (pack == null) {
+                    pack = openInstalled(packFile(context));
+                    instance = pack;
+                }
+            }
+        }
+        return pack;
+    }
+
+    private static File packFile(Context context) {
+        return new File(context.getFilesDir(), FILE_NAME);
+    }
+
+    private static AssetPack openInstalled(File packFile) {
+        if (!packFile.exists()) return EMPTY;
+        try {
+            AssetPack pack = open(packFile);
+            TraceLog.d(TAG, "Opened asset pack with {} entries", pack.size());
+            return pack;
+        } catch (IOException e) {
+            TraceLog.e(TAG, "Error opening asset pack", e);
+            return EMPTY;
+        }
+    }
+
+    /**
+     * Install a downloaded or locally built pack, replacing the current one
+     * @param context Any context
+     * @param in The pack's bytes; not closed
+     * @throws IOException if the pack can't be written or isn't valid
+     */
+    public static void install(Context context, InputStream in) throws IOException {
+        File target = packFile(context);
+        File temp = new File(target.getPath() + ".tmp");
+        try (OutputStream out = new FileOutputStream(temp)) {
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        }
+        // Reject a broken pack before it replaces a working one
+        open(temp).close();
+
+        synchronized (AssetPack.class) {
+            AssetPack old = instance;
+            if (!temp.renameTo(target)) {
+                temp.delete();
+                throw new IOException("Couldn't replace " + target);
+            }
+            instance = openInstalled(target);
+            // Mapped slices handed out earlier stay valid after the file is closed
+            if (old != null) old.close();
+        }
+    }
+
+    /**
+     * Open and index a pack file
+     * @throws IOException if the file can't be read or isn't a valid pack
+     */
+    public static AssetPack open(File packFile) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(packFile, "r");
+        try {
+            FileChannel channel = file.getChannel();
+            MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            data.order(ByteOrder.BIG_ENDIAN);
+            if (data.remaining() < HEADER_BYTES || data.getInt() != MAGIC) {
+                throw new IOException("Not an asset pack: " + packFile);
+            }
+            int version = data.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported asset pack version " + version);
+            }
+            int count = data.getInt();
+            if (count < 0) throw new IOException("Bad asset pack entry count " + count);
+
+            String[] keys = new String[count];
+            long[] offsets = new long[count];
+            int[] lengths = new int[count];
+            long size = data.capacity();
+            byte[] keyBytes = new byte[256];
+            for (int i = 0; i < count; i++) {
+                int keyLength = data.getShort() & 0xffff;
+                if (keyLength > keyBytes.length) keyBytes = new byte[keyLength];
+                data.get(keyBytes, 0, keyLength);
+                keys[i] = new String(keyBytes, 0, keyLength, StandardCharsets.UTF_8);
+                offsets[i] = data.getLong();
+                lengths[i] = data.getInt();
+                if (offsets[i] < 0 || lengths[i] < 0 || offsets[i] + lengths[i] > size) {
+                    throw new IOException("Asset pack entry out of bounds: " + keys[i]);
+                }
+                if (i > 0 && keys[i - 1].compareTo(keys[i]) >= 0) {
+                    throw new IOException("Asset pack index not sorted at " + keys[i]);
+                }
+            }
+            return new AssetPack(file, data, keys, offsets, lengths);
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e instanceof IOException ? (IOException) e : new IOException("Bad asset pack: " + packFile, e);
+        }
+    }
+
+    /**
+     * Write a pack. Used to build packs locally and in tests.
+     * @param out The file to write
+     * @param entries Entry data by key
+     */
+    static void write(File out, SortedMap<String, byte[]> entries) throws IOException {
+        byte[][] keyBytes = new byte[entries.size()][];
+        long indexBytes = 0;
+        int i = 0;
+        for (String key : entries.keySet()) {
+            keyBytes[i] = key.getBytes(StandardCharsets.UTF_8);
+            indexBytes += 2 + keyBytes[i].length + 8 + 4;
+            i++;
+        }
+
+        try (DataOutputStream stream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(out)))) {
+            stream.writeInt(MAGIC);
+            stream.writeInt(VERSION);
+            stream.writeInt(entries.size());
+            long offset = HEADER_BYTES + indexBytes;
+            i = 0;
+            for (byte[] value : entries.values()) {
+                stream.writeShort(keyBytes[i].length);
+                stream.write(keyBytes[i]);
+                stream.writeLong(offset);
+                stream.writeInt(value.length);
+                offset += value.length;
+                i++;
+            }
+            for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                stream.write(entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * @param url A URL on play.pokemonshowdown.com
+     * @return The pack key for it, or null for other hosts
+     */
+    public static String keyFor(String url) {
+        if (url == null || !url.startsWith(HOST_URL)) return null;
+        return url.substring(HOST_URL.length());
+    }
+
+    /**
+     * @param key The entry's path on the server
+     * @return The entry number, or -1 if the pack doesn't have it
+     */
+    public int find(String key) {
+        if (key == null) return -1;
+        int low = 0;
+        int high = keys.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = keys[mid].compareTo(key);
+            if (cmp < 0) low = mid + 1;
+            else if (cmp > 0) high = mid - 1;
+            else return mid;
+        }
+        return -1;
+    }
+
+    /**
+     * @param url A URL on play.pokemonshowdown.com
+     * @return The entry number, or -1 if the pack doesn't have it
+     */
+    public int findUrl(String url) {
+        return keys.length == 0 ? -1 : find(keyFor(url));
+    }
+
+    /**
+     * @return A read-only view of an entry's bytes, backed by the mapping
+     */
+    public ByteBuffer read(int entry) {
+        ByteBuffer slice = data.duplicate();
+        slice.limit((int) (offsets[entry] + lengths[entry]));
+        slice.position((int) offsets[entry]);
+        return slice.slice().asReadOnlyBuffer();
+    }
+
+    /**
+     * The pack file's descriptor, for MediaPlayer.setDataSource(fd, offset, length)
+     */
+    public FileDescriptor getFileDescriptor() throws IOException {
+        if (file == null) throw new IOException("No asset pack installed");
+        return file.getFD();
+    }
+
+    public long getOffset(int entry) {
+        return offsets[entry];
+    }
+
+    public int getLength(int entry) {
+        return lengths[entry];
+    }
+
+    public String getKey(int entry) {
+        return keys[entry];
+    }
+
+    public int size() {
+        return keys.length;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (file != null) file.close();
+    }
+}
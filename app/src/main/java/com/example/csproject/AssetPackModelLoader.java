@@ -0,0 +1,95 @@
+package com.example.csproject;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+
+import com.bumptech.glide.Priority;
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.Options;
+import com.bumptech.glide.load.data.DataFetcher;
+import com.bumptech.glide.load.model.ModelLoader;
+import com.bumptech.glide.load.model.ModelLoaderFactory;
+import com.bumptech.glide.load.model.MultiModelLoaderFactory;
+import com.bumptech.glide.signature.ObjectKey;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Serves Showdown image URLs from the installed {@link AssetPack}. URLs the pack doesn't
+ * have are left to Glide's network loader.
+ */
+final class AssetPackModelLoader implements ModelLoader<String, ByteBuffer> {
+    private final Context context;
+
+    AssetPackModelLoader(Context context) {
+        this.context = context;
+    }
+
+    @Override
+    public boolean handles(@NonNull String url) {
+        return AssetPack.getInstance(context).findUrl(url) >= 0;
+    }
+
+    @Override
+    public LoadData<ByteBuffer> buildLoadData(@NonNull String url, int width, int height, @NonNull Options options) {
+        AssetPack pack = AssetPack.getInstance(context);
+        int entry = pack.findUrl(url);
+        if (entry < 0) return null;
+        return new LoadData<>(new ObjectKey(url), new Fetcher(pack, entry));
+    }
+
+    private static final class Fetcher implements DataFetcher<ByteBuffer> {
+        private final AssetPack pack;
+        private final int entry;
+
+        Fetcher(AssetPack pack, int entry) {
+            this.pack = pack;
+            this.entry = entry;
+        }
+
+        @Override
+        public void loadData(@NonNull Priority priority, @NonNull DataCallback<? super ByteBuffer> callback) {
+            callback.onDataReady(pack.read(entry));
+        }
+
+        @Override
+        public void cleanup() {
+            // The slice belongs to the mapping, there's nothing to release
+        }
+
+        @Override
+        public void cancel() {
+        }
+
+        @NonNull
+        @Override
+        public Class<ByteBuffer> getDataClass() {
+            return ByteBuffer.class;
+        }
+
+        @NonNull
+        @Override
+        public DataSource getDataSource() {
+            return DataSource.LOCAL;
+        }
+    }
+
+    static final class Factory implements ModelLoaderFactory<String, ByteBuffer> {
+        private final Context context;
+
+        Factory(Context context) {
+            this.context = context.getApplicationContext();
+        }
+
+        @NonNull
+        @Override
+        public ModelLoader<String, ByteBuffer> build(@NonNull MultiModelLoaderFactory multiFactory) {
+            return new AssetPackModelLoader(context);
+        }
+
+        @Override
+        public void teardown() {
+        }
+    }
+}
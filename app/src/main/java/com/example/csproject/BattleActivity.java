@@ -2,11 +2,9 @@ package com.example.csproject;
 
 import android.content.Context;
 import android.content.SharedPreferences;
-import android.graphics.drawable.Drawable;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
-import android.util.Log;
 import android.util.TypedValue;
 import android.view.View;
 import android.view.ViewGroup;
@@ -16,32 +14,33 @@ import android.widget.FrameLayout;
 import android.widget.ImageButton;
 import android.widget.ImageView;
 import android.widget.ProgressBar;
-import android.widget.ScrollView;
 import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.appcompat.app.AppCompatDelegate;
 import androidx.fragment.app.FragmentTransaction;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
 import com.bumptech.glide.load.resource.drawable.DrawableTransitionOptions;
-import com.bumptech.glide.load.engine.GlideException;
-import com.bumptech.glide.request.RequestListener;
-import com.bumptech.glide.load.DataSource;
-import com.bumptech.glide.request.target.Target;
 
-import androidx.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Future;
 
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
 
 public class BattleActivity extends AppCompatActivity implements ShowdownWebSocketClient.BattleDataCallback {
     private static final String TAG = "BattleActivity";
     
-    private ScrollView scrollLog;
-    private TextView battleLog;
+    // Lines of the log kept on screen; the whole log goes to the log file
+    private static final int LOG_CAPACITY = 500;
+    private static final String LOG_FILE_NAME = "battle_log.txt";
+
+    private RecyclerView battleLogList;
+    private BattleLogFile logFile;
+    private BattleLogBuffer logBuffer;
     private FrameLayout controlsContainer;
     private View viewControls, viewFightOpts, viewPartyOpts;
     private ShowdownWebSocketClient socketClient;
@@ -72,6 +71,10 @@ public class BattleActivity extends AppCompatActivity implements ShowdownWebSock
     private boolean isFormChangeActive = false; // Whether form change is toggled on
     private String opponentSwitchInName = null;
 
+    // Battle state as delivered to the callbacks; only touched on the main thread
+    private RequestSnapshot currentRequest;
+    private int playerSlot = -1;
+
     // Flag to track if navigation to main menu is already in progress
     private boolean isNavigatingToMainMenu = false;
 
@@ -87,8 +90,17 @@ public class BattleActivity extends AppCompatActivity implements ShowdownWebSock
         
         setContentView(R.layout.activity_battle);
 
-        scrollLog = findViewById(R.id.scrollLogContainer);
-        battleLog = findViewById(R.id.battleLog);
+        battleLogList = findViewById(R.id.recyclerViewBattleLog);
+        BattleLogRing logRing = new BattleLogRing(LOG_CAPACITY);
+        BattleLogAdapter logAdapter = new BattleLogAdapter(logRing);
+        battleLogList.setLayoutManager(new LinearLayoutManager(this));
+        battleLogList.setAdapter(logAdapter);
+        logFile = new BattleLogFile(new File(getCacheDir(), LOG_FILE_NAME));
+        // Lines are moved into the list once per frame, with one scroll to the bottom
+        logBuffer = new BattleLogBuffer(logRing, logFile, (removed, inserted) -> {
+            logAdapter.onEntriesChanged(removed, inserted);
+            battleLogList.scrollToPosition(logRing.size() - 1);
+        });
         controlsContainer = findViewById(R.id.controlsContainer);
         playerSprite = findViewById(R.id.playerSprite);
         opponentSprite = findViewById(R.id.opponentSprite);
@@ -180,7 +192,7 @@ public class BattleActivity extends AppCompatActivity implements ShowdownWebSock
             String moveText = ((Button)v).getText().toString().split("\n")[0];
             
             // Log this action
-            Log.d(TAG, "Move selected: " + moveText + " (index: " + idx + ")");
+            TraceLog.d(TAG, "Move selected: {} (index: {})", moveText, idx);
             
             // Show waiting overlay BEFORE sending the command
             showWaitingOverlay("You chose: " + moveText);
@@ -206,18 +218,9 @@ public class BattleActivity extends AppCompatActivity implements ShowdownWebSock
                 isFormChangeActive = !isFormChangeActive;
                 
                 // Update button text based on the new state
-                JSONObject requestJson = socketClient.getLastRequestJson();
-                if (requestJson != null && requestJson.has("active") && !requestJson.isNull("active")) {
-                    try {
-                        JSONArray active = requestJson.getJSONArray("active");
-                        if (active.length() > 0) {
-                            JSONObject activePokemon = active.getJSONObject(0);
-                            updateFormChangeButtonText(formChangeButton, activePokemon);
-                        }
-                    } catch (JSONException e) {
-                        Log.e(TAG, "Error processing form change", e);
-                        formChangeButton.setText(isFormChangeActive ? "Form Change ON" : "Form Change");
-                    }
+                RequestSnapshot request = currentRequest;
+                if (request != null && request.hasActive()) {
+                    updateFormChangeButtonText(formChangeButton, request);
                 } else {
                     formChangeButton.setText(isFormChangeActive ? "Form Change ON" : "Form Change");
                 }
@@ -242,7 +245,7 @@ public class BattleActivity extends AppCompatActivity implements ShowdownWebSock
             String pokemonName = ((Button)v).getText().toString();
             
             // Log this action
-            Log.d(TAG, "Switch selected: " + pokemonName + " (index: " + oneBased + ")");
+            TraceLog.d(TAG, "Switch selected: {} (index: {})", pokemonName, oneBased);
             
             // Show waiting overlay BEFORE sending the command
             showWaitingOverlay("You switched to: " + pokemonName);
@@ -286,220 +289,91 @@ public class BattleActivity extends AppCompatActivity implements ShowdownWebSock
      * Check if form change is available for the current active Pokémon
      */
     private void checkFormChangeAvailability() {
-        JSONObject requestJson = socketClient.getLastRequestJson();
-        if (requestJson == null) {
+        RequestSnapshot request = currentRequest;
+        Button formChangeButton = viewFightOpts.findViewById(R.id.buttonFormChange);
+        
+        // Check if we have active Pokemon data with form change options
+        if (request == null || !request.hasActive()) {
             isFormToggleEnabled = false;
-            Button formChangeButton = viewFightOpts.findViewById(R.id.buttonFormChange);
             formChangeButton.setText("Form Change Unavailable");
             formChangeButton.setVisibility(View.VISIBLE);
             return;
         }
         
-        try {
-            // Check if we have active Pokemon data with form change options
-            if (requestJson.has("active") && !requestJson.isNull("active")) {
-                JSONArray active = requestJson.getJSONArray("active");
-                if (active.length() > 0) {
-                    JSONObject activePokemon = active.getJSONObject(0);
-                    
-                    // Check for terastallize specifically
-                    boolean canTerastallize = false;
-                    if (activePokemon.has("canTerastallize") && !activePokemon.isNull("canTerastallize")) {
-                        canTerastallize = true;
-                    }
-                    
-                    // Also check for other form changes
-                    boolean canMegaEvo = false;
-                    boolean canDynamax = false;
-                    boolean canZMove = false;
-                    if (activePokemon.has("canMegaEvo") && !activePokemon.isNull("canMegaEvo")) {
-                        canMegaEvo = activePokemon.getBoolean("canMegaEvo");
-                    }
-                    if (activePokemon.has("canDynamax") && !activePokemon.isNull("canDynamax")) {
-                        canDynamax = activePokemon.getBoolean("canDynamax");
-                    }
-                    if (activePokemon.has("canGigantamax") && !activePokemon.isNull("canGigantamax")) {
-                        canDynamax = canDynamax || activePokemon.getBoolean("canGigantamax");
-                    }
-                    if (activePokemon.has("canZMove") && !activePokemon.isNull("canZMove")) {
-                        canZMove = true;
-                    }
-                    
-                    isFormToggleEnabled = canTerastallize || canMegaEvo || canDynamax || canZMove;
-                    
-                    // Update button text based on available form change
-                    Button formChangeButton = viewFightOpts.findViewById(R.id.buttonFormChange);
-                    
-                    // Only update the text if form change is available
-                    if (isFormToggleEnabled) {
-                        updateFormChangeButtonText(formChangeButton, activePokemon);
-                    } else {
-                        formChangeButton.setText("Form Change Unavailable");
-                    }
-                    
-                    // Always show the button
-                    formChangeButton.setVisibility(View.VISIBLE);
-                    
-                    Log.d(TAG, "Form change available: " + isFormToggleEnabled);
-                }
-            } else {
-                isFormToggleEnabled = false;
-                Button formChangeButton = viewFightOpts.findViewById(R.id.buttonFormChange);
-                formChangeButton.setText("Form Change Unavailable");
-                formChangeButton.setVisibility(View.VISIBLE);
-            }
-        } catch (JSONException e) {
-            Log.e(TAG, "Error checking form change availability", e);
-            isFormToggleEnabled = false;
-            Button formChangeButton = viewFightOpts.findViewById(R.id.buttonFormChange);
+        isFormToggleEnabled = request.isFormChangeAvailable();
+        
+        // Only update the text if form change is available
+        if (isFormToggleEnabled) {
+            updateFormChangeButtonText(formChangeButton, request);
+        } else {
             formChangeButton.setText("Form Change Unavailable");
-            formChangeButton.setVisibility(View.VISIBLE);
         }
+        
+        // Always show the button
+        formChangeButton.setVisibility(View.VISIBLE);
+        
+        TraceLog.d(TAG, "Form change available: {}", isFormToggleEnabled);
     }
     
     /**
      * Update the form change button text based on the current state
      */
-    private void updateFormChangeButtonText(Button formChangeButton, JSONObject activePokemon) {
-        if (isFormChangeActive) {
-            // Form change is active, show "On" state
-            if (activePokemon.has("canTerastallize") && !activePokemon.isNull("canTerastallize")) {
-                try {
-                    String teraType = activePokemon.getString("canTerastallize");
-                    formChangeButton.setText("Terastallize (" + teraType + ") ON");
-                } catch (JSONException e) {
-                    Log.e(TAG, "Error getting terastallize type", e);
-                    formChangeButton.setText("Form Change ON");
-                }
-            } else if (activePokemon.has("canMegaEvo") && !activePokemon.isNull("canMegaEvo")) {
-                formChangeButton.setText("Mega Evolve ON");
-            } else if (activePokemon.has("canDynamax") && !activePokemon.isNull("canDynamax")) {
-                formChangeButton.setText("Dynamax ON");
-            } else if (activePokemon.has("canGigantamax") && !activePokemon.isNull("canGigantamax")) {
-                formChangeButton.setText("Gigantamax ON");
-            } else if (activePokemon.has("canZMove") && !activePokemon.isNull("canZMove")) {
-                formChangeButton.setText("Z Move ON");
-            } else {
-                formChangeButton.setText("Form Change ON");
-            }
-        } else {
-            // Form change is not active, show normal state
-            if (activePokemon.has("canTerastallize") && !activePokemon.isNull("canTerastallize")) {
-                try {
-                    String teraType = activePokemon.getString("canTerastallize");
-                    formChangeButton.setText("Terastallize (" + teraType + ")");
-                } catch (JSONException e) {
-                    Log.e(TAG, "Error getting terastallize type", e);
-                    formChangeButton.setText("Form Change");
-                }
-            } else if (activePokemon.has("canMegaEvo") && !activePokemon.isNull("canMegaEvo")) {
-                formChangeButton.setText("Mega Evolve");
-            } else if (activePokemon.has("canDynamax") && !activePokemon.isNull("canDynamax")) {
-                formChangeButton.setText("Dynamax");
-            } else if (activePokemon.has("canGigantamax") && !activePokemon.isNull("canGigantamax")) {
-                formChangeButton.setText("Gigantamax");
-            } else if (activePokemon.has("canZMove") && !activePokemon.isNull("canZMove")) {
-                formChangeButton.setText("Z Move");
-            } else {
-                formChangeButton.setText("Form Change");
-            }
-        }
+    private void updateFormChangeButtonText(Button formChangeButton, RequestSnapshot request) {
+        String label = request.getFormChangeLabel();
+        formChangeButton.setText(isFormChangeActive ? label + " ON" : label);
     }
     
     /**
      * Refresh the move buttons with the latest battle data
      */
     private void refreshMoveButtons() {
-        JSONObject requestJson = socketClient.getLastRequestJson();
-        if (requestJson == null) {
+        RequestSnapshot request = currentRequest;
+        if (request == null || !request.hasActive()) {
             return;
         }
 
-        try {
-            // Get active Pokemon data
-            if (requestJson.has("active") && !requestJson.isNull("active")) {
-                JSONArray active = requestJson.getJSONArray("active");
-                if (active.length() > 0) {
-                    JSONObject activePokemon = active.getJSONObject(0);
-
-                    // Check form change availability
-                    checkFormChangeAvailability();
+        // Check form change availability
+        checkFormChangeAvailability();
+        
+        // Get move buttons
+        Button[] moveButtons = new Button[4];
+        moveButtons[0] = viewFightOpts.findViewById(R.id.move1);
+        moveButtons[1] = viewFightOpts.findViewById(R.id.move2);
+        moveButtons[2] = viewFightOpts.findViewById(R.id.move3);
+        moveButtons[3] = viewFightOpts.findViewById(R.id.move4);
+
+        // Update each move button
+        for (int i = 0; i < 4; i++) {
+            if (i < request.getMoveCount()) {
+                RequestSnapshot.MoveSlot move = request.getMove(i);
+
+                // Set button text and enabled state
+                moveButtons[i].setText(move.getName() + "\nPP: " + move.getPp() + "/" + move.getMaxPp());
+                moveButtons[i].setEnabled(!move.isDisabled());
+                moveButtons[i].setVisibility(View.VISIBLE);
+
+                // Set click listener
+                final int moveIndex = i;
+                final String finalMoveName = move.getName();
+                moveButtons[i].setOnClickListener(v -> {
+                    // Determine if we need to add a form change command
+                    String command = "/choose move " + (moveIndex + 1);
                     
-                    // Setup move buttons
-                    if (activePokemon.has("moves") && !activePokemon.isNull("moves")) {
-                        JSONArray moves = activePokemon.getJSONArray("moves");
-                        
-                        // Get move buttons
-                        Button[] moveButtons = new Button[4];
-                        moveButtons[0] = viewFightOpts.findViewById(R.id.move1);
-                        moveButtons[1] = viewFightOpts.findViewById(R.id.move2);
-                        moveButtons[2] = viewFightOpts.findViewById(R.id.move3);
-                        moveButtons[3] = viewFightOpts.findViewById(R.id.move4);
-
-                        // Update each move button
-                        for (int i = 0; i < 4; i++) {
-                            if (i < moves.length()) {
-                                JSONObject move = moves.getJSONObject(i);
-                                String moveName = "";
-                                int pp = 0;
-                                int maxpp = 0;
-                                boolean disabled = false;
-                                try {
-                                    moveName = move.getString("move");
-                                    pp = move.getInt("pp");
-                                    maxpp = move.getInt("maxpp");
-                                    disabled = move.getBoolean("disabled");
-                                } catch (JSONException e) {
-                                    Log.e(TAG, "Error getting move data", e);
-                                }
-
-                                // Set button text and enabled state
-                                moveButtons[i].setText(moveName + "\nPP: " + pp + "/" + maxpp);
-                                moveButtons[i].setEnabled(!disabled);
-                                moveButtons[i].setVisibility(View.VISIBLE);
-
-                                // Set click listener
-                                final int moveIndex = i;
-                                final String finalMoveName = moveName;
-                                moveButtons[i].setOnClickListener(v -> {
-                                    // Determine if we need to add a form change command
-                                    String command = "/choose move " + (moveIndex + 1);
-                                    
-                                    // Add form change command if toggled
-                                    if (isFormChangeActive) {
-                                        if (activePokemon.has("canTerastallize") && !activePokemon.isNull("canTerastallize")) {
-                                            command += " terastallize";
-                                            Log.d(TAG, "Adding terastallize to command: " + command);
-                                        } else if (activePokemon.has("canMegaEvo") && !activePokemon.isNull("canMegaEvo")) {
-                                            command += " mega";
-                                            Log.d(TAG, "Adding mega evolution to command: " + command);
-                                        } else if (activePokemon.has("canDynamax") && !activePokemon.isNull("canDynamax")) {
-                                            command += " dynamax";
-                                            Log.d(TAG, "Adding dynamax to command: " + command);
-                                        } else if (activePokemon.has("canGigantamax") && !activePokemon.isNull("canGigantamax")) {
-                                            command += " gigantamax";
-                                            Log.d(TAG, "Adding gigantamax to command: " + command);
-                                        } else if (activePokemon.has("canZMove") && !activePokemon.isNull("canZMove")) {
-                                            command += " zmove";
-                                            Log.d(TAG, "Adding Z-Move to command: " + command);
-                                        }
-                                    }
-                                    
-                                    // Show waiting overlay BEFORE sending the command
-                                    showWaitingOverlay("You chose: " + finalMoveName);
-                                    
-                                    // Send the command
-                                    socketClient.send(command);
-                                });
-                            } else {
-                                moveButtons[i].setVisibility(View.GONE);
-                            }
-                        }
+                    // Add form change command if toggled
+                    if (isFormChangeActive) {
+                        command += request.getFormChangeCommand();
+                        TraceLog.d(TAG, "Adding form change to command: {}", command);
                     }
-                }
+                    
+                    // Show waiting overlay BEFORE sending the command
+                    showWaitingOverlay("You chose: " + finalMoveName);
+                    
+                    // Send the command
+                    socketClient.send(command);
+                });
+            } else {
+                moveButtons[i].setVisibility(View.GONE);
             }
-        } catch (JSONException e) {
-            Log.e(TAG, "Error refreshing move buttons", e);
         }
     }
     
@@ -507,129 +381,94 @@ public class BattleActivity extends AppCompatActivity implements ShowdownWebSock
      * Refresh the switch buttons with the latest data from the battle
      */
     private void refreshSwitchButtons() {
-        JSONObject requestJson = socketClient.getLastRequestJson();
-        if (requestJson == null) {
+        RequestSnapshot request = currentRequest;
+        if (request == null) {
             return;
         }
         
-        try {
-            // Check if we have team data
-            if (requestJson.has("side") && !requestJson.isNull("side")) {
-                JSONObject side = requestJson.getJSONObject("side");
-                
-                if (side.has("pokemon") && !side.isNull("pokemon")) {
-                    JSONArray pokemon = side.getJSONArray("pokemon");
+        // Check if we have team data
+        if (request.getPartySize() > 0) {
+            // Get the switch buttons
+            Button[] switchButtons = new Button[6];
+            switchButtons[0] = viewPartyOpts.findViewById(R.id.party1);
+            switchButtons[1] = viewPartyOpts.findViewById(R.id.party2);
+            switchButtons[2] = viewPartyOpts.findViewById(R.id.party3);
+            switchButtons[3] = viewPartyOpts.findViewById(R.id.party4);
+            switchButtons[4] = viewPartyOpts.findViewById(R.id.party5);
+            switchButtons[5] = viewPartyOpts.findViewById(R.id.party6);
+            
+            // Check if we're waiting for an opponent
+            boolean isWaitingForOpponent = request.isWait();
+            
+            // Log the waiting state for debugging
+            TraceLog.d(TAG, "Waiting for opponent: {}", isWaitingForOpponent);
+            
+            // Update each switch button
+            for (int i = 0; i < switchButtons.length; i++) {
+                if (i < request.getPartySize()) {
+                    RequestSnapshot.PartyMember poke = request.getPartyMember(i);
+                    String pokeName = poke.getName();
+                    boolean isActive = poke.isActive();
+                    boolean isFainted = poke.isFainted();
                     
-                    // Get the switch buttons
-                    Button[] switchButtons = new Button[6];
-                    switchButtons[0] = viewPartyOpts.findViewById(R.id.party1);
-                    switchButtons[1] = viewPartyOpts.findViewById(R.id.party2);
-                    switchButtons[2] = viewPartyOpts.findViewById(R.id.party3);
-                    switchButtons[3] = viewPartyOpts.findViewById(R.id.party4);
-                    switchButtons[4] = viewPartyOpts.findViewById(R.id.party5);
-                    switchButtons[5] = viewPartyOpts.findViewById(R.id.party6);
-                    
-                    // Check if we're waiting for an opponent
-                    boolean isWaitingForOpponent = socketClient.isWaitingForOpponent();
-                    
-                    // Log the waiting state for debugging
-                    Log.d(TAG, "Waiting for opponent: " + isWaitingForOpponent);
-                    
-                    // Update each switch button
-                    for (int i = 0; i < switchButtons.length; i++) {
-                        if (i < pokemon.length()) {
-                            JSONObject poke = pokemon.getJSONObject(i);
-                            String pokeName = "";
-                            boolean isActive = false;
-                            boolean isFainted = false;
-                            try {
-                                pokeName = poke.getString("ident").split(":")[1];
-                                isActive = poke.getBoolean("active");
-                                if (poke.has("condition") && !poke.isNull("condition")) {
-                                    isFainted = poke.getString("condition").equals("0 fnt");
-                                }
-                            } catch (JSONException e) {
-                                Log.e("BattleActivity", "Error getting Pokemon data", e);
-                            }
-                            
-                            // Set the button text with level information or "Waiting for Opponent" if waiting
-                            if (isWaitingForOpponent) {
-                                // When waiting for opponent, show "Waiting for Opponent" instead of level
-                                switchButtons[i].setText(pokeName + " (Waiting for Opponent)");
-                            } else {
-                                // Normal display with level information
-                                int level = 100; // Default level
-                                
-                                // Extract level from details if available
-                                if (poke.has("details") && !poke.isNull("details")) {
-                                    String details = poke.getString("details");
-                                    if (details.contains(", L")) {
-                                        try {
-                                            int levelIndex = details.indexOf(", L") + 3;
-                                            int endIndex = details.indexOf(",", levelIndex);
-                                            if (endIndex == -1) endIndex = details.length();
-                                            String levelStr = details.substring(levelIndex, endIndex);
-                                            level = Integer.parseInt(levelStr);
-                                        } catch (Exception e) {
-                                            Log.e(TAG, "Error parsing level from details: " + details, e);
-                                        }
-                                    }
-                                }
-                                
-                                // Set the button text with the level information
-                                if (isActive) {
-                                    switchButtons[i].setText(pokeName + " Lv." + level + " (active)");
-                                } else {
-                                    switchButtons[i].setText(pokeName + " Lv." + level);
-                                }
-                            }
-                            
-                            // Disable the button if the Pokemon is active or fainted
-                            switchButtons[i].setEnabled(!isActive && !isFainted);
-                            
-                            // Gray out fainted Pokémon
-                            if (isFainted) {
-                                switchButtons[i].setAlpha(0.5f);
-                                switchButtons[i].setTextColor(getResources().getColor(android.R.color.darker_gray));
-                            } else {
-                                switchButtons[i].setAlpha(1.0f);
-                                switchButtons[i].setTextColor(getResources().getColor(android.R.color.black));
-                            }
-                            
-                            // Show the button
-                            switchButtons[i].setVisibility(View.VISIBLE);
-                            
-                            // Set up the click listener with the proper tag for identification
-                            switchButtons[i].setTag(i);
-                            final int pokeIndex = i;
-                            final Button currentButton = switchButtons[i];
-                            
-                            // Set the click listener to use our main switchClick handler
-                            currentButton.setOnClickListener(v -> {
-                                int zeroBased = pokeIndex;
-                                int oneBased = zeroBased + 1;
-                                String pokemonName = currentButton.getText().toString();
-                                
-                                // Log this action
-                                Log.d(TAG, "Switch selected: " + pokemonName + " (index: " + oneBased + ")");
-                                
-                                // Show waiting overlay BEFORE sending the command
-                                showWaitingOverlay("You switched to: " + pokemonName);
-                                
-                                // Send the command to the server
-                                socketClient.send("/choose switch " + oneBased);
-                            });
+                    // Set the button text with level information or "Waiting for Opponent" if waiting
+                    if (isWaitingForOpponent) {
+                        // When waiting for opponent, show "Waiting for Opponent" instead of level
+                        switchButtons[i].setText(pokeName + " (Waiting for Opponent)");
+                    } else {
+                        // Normal display with level information
+                        int level = poke.getLevel();
+                        
+                        // Set the button text with the level information
+                        if (isActive) {
+                            switchButtons[i].setText(pokeName + " Lv." + level + " (active)");
                         } else {
-                            // Hide unused buttons
-                            switchButtons[i].setVisibility(View.GONE);
+                            switchButtons[i].setText(pokeName + " Lv." + level);
                         }
                     }
                     
-                    Log.d("BattleActivity", "Updated switch buttons with " + pokemon.length() + " Pokemon");
+                    // Disable the button if the Pokemon is active or fainted
+                    switchButtons[i].setEnabled(!isActive && !isFainted);
+                    
+                    // Gray out fainted Pokémon
+                    if (isFainted) {
+                        switchButtons[i].setAlpha(0.5f);
+                        switchButtons[i].setTextColor(getResources().getColor(android.R.color.darker_gray));
+                    } else {
+                        switchButtons[i].setAlpha(1.0f);
+                        switchButtons[i].setTextColor(getResources().getColor(android.R.color.black));
+                    }
+                    
+                    // Show the button
+                    switchButtons[i].setVisibility(View.VISIBLE);
+                    
+                    // Set up the click listener with the proper tag for identification
+                    switchButtons[i].setTag(i);
+                    final int pokeIndex = i;
+                    final Button currentButton = switchButtons[i];
+                    
+                    // Set the click listener to use our main switchClick handler
+                    currentButton.setOnClickListener(v -> {
+                        int zeroBased = pokeIndex;
+                        int oneBased = zeroBased + 1;
+                        String pokemonName = currentButton.getText().toString();
+                        
+                        // Log this action
+                        TraceLog.d(TAG, "Switch selected: {} (index: {})", pokemonName, oneBased);
+                        
+                        // Show waiting overlay BEFORE sending the command
+                        showWaitingOverlay("You switched to: " + pokemonName);
+                        
+                        // Send the command to the server
+                        socketClient.send("/choose switch " + oneBased);
+                    });
+                } else {
+                    // Hide unused buttons
+                    switchButtons[i].setVisibility(View.GONE);
                 }
             }
-        } catch (JSONException e) {
-            Log.e("BattleActivity", "Error parsing switch data", e);
+            
+            TraceLog.d("BattleActivity", "Updated switch buttons with {} Pokemon", request.getPartySize());
         }
     }
 
@@ -677,34 +516,22 @@ public class BattleActivity extends AppCompatActivity implements ShowdownWebSock
     }
 
     private void initWebSocket() {
+        // A new battle: prefetch the team from its first request even if we've seen the species
+        SpriteLoader.getInstance(this).reset();
+
         socketClient = new ShowdownWebSocketClient(this, message -> {
-            runOnUiThread(() -> {
-                battleLog.append(message + "\n");
-                // Scroll to the bottom when new messages are added
-                scrollLog.post(() -> scrollLog.fullScroll(ScrollView.FOCUS_DOWN));
-                
-                // Try to load Pokemon sprites when they're mentioned
-                if (message.contains("switched in")) {
-                    String pokemonName = extractPokemonName(message);
-                    if (pokemonName != null) {
-                        if (message.contains("You switched in")) {
-                            loadPokemonSprite(pokemonName, true);
-                        } else if (message.contains("Opponent switched in")) {
-                            loadPokemonSprite(pokemonName, false);
-                        }
-                    }
-                }
-                
-                // Hide waiting overlay when it's our turn again
-                if (message.contains("What will") && message.contains("do?")) {
-                    hideWaitingOverlay();
-                }
-                
-                // Hide finding opponent overlay when battle is found
-                if (message.contains("Battle started")) {
-                    hideFindingOpponentOverlay();
-                }
-            });
+            // Messages are delivered on the main thread in batches by the client
+            logBuffer.append(message);
+            
+            // Hide waiting overlay when it's our turn again
+            if (message.contains("What will") && message.contains("do?")) {
+                hideWaitingOverlay();
+            }
+            
+            // Hide finding opponent overlay when battle is found
+            if (message.contains("Battle started")) {
+                hideFindingOpponentOverlay();
+            }
         });
         
         // Set the battle data callback
@@ -721,7 +548,7 @@ public class BattleActivity extends AppCompatActivity implements ShowdownWebSock
      */
     private void showFindingOpponentOverlay() {
         runOnUiThread(() -> {
-            Log.d(TAG, "Showing finding opponent overlay");
+            TraceLog.d(TAG, "Showing finding opponent overlay");
             
             // Make sure all control panels are hidden
             viewControls.setVisibility(View.GONE);
@@ -738,8 +565,7 @@ public class BattleActivity extends AppCompatActivity implements ShowdownWebSock
             updatePokemonInfoForWaiting(true);
             
             // Log the action
-            battleLog.append("Searching for an opponent...\n");
-            scrollLog.post(() -> scrollLog.fullScroll(ScrollView.FOCUS_DOWN));
+            logBuffer.append(BattleLogRing.EntryType.LOCAL, "Searching for an opponent...");
             
             // Force layout pass to ensure overlay is visible
             controlsContainer.requestLayout();
@@ -752,7 +578,7 @@ public class BattleActivity extends AppCompatActivity implements ShowdownWebSock
      */
     private void hideFindingOpponentOverlay() {
         runOnUiThread(() -> {
-            Log.d(TAG, "Hiding finding opponent overlay");
+            TraceLog.d(TAG, "Hiding finding opponent overlay");
             
             if (findingOverlay != null && findingOverlay.isShowing()) {
                 findingOverlay.hide();
@@ -780,116 +606,6 @@ public class BattleActivity extends AppCompatActivity implements ShowdownWebSock
         hideFindingOpponentOverlay();
     }
 
-    private String extractPokemonName(String message) {
-        // Extract Pokemon name from battle log message
-        if (message.contains("switched in")) {
-            int startIndex = message.indexOf("switched in") + "switched in".length();
-            String pokemonName = message.substring(startIndex).trim();
-            // Remove any trailing characters like "!"
-            if (pokemonName.endsWith("!")) {
-                pokemonName = pokemonName.substring(0, pokemonName.length() - 1);
-            }
-            return pokemonName;
-        }
-        return null;
-    }
-    
-    private void loadPokemonSprite(String pokemonName, boolean isPlayer) {
-        if (pokemonName == null || pokemonName.isEmpty()) return;
-        
-
-
-        // Try loading animated sprite first from gen 8 animations
-        String animatedUrl = isPlayer
-            ? "https://play.pokemonshowdown.com/sprites/ani-back/"  + ".gif"
-            : "https://play.pokemonshowdown.com/sprites/ani/"  + ".gif";
-
-        // Fallback to static sprite if animated fails
-        String staticUrl = isPlayer
-            ? "https://play.pokemonshowdown.com/sprites/gen5-back/"  + ".png"
-            : "https://play.pokemonshowdown.com/sprites/gen5/"  + ".png";
-
-        // Second fallback for newer Pokémon (Gen 9) that might only be in dex sprites
-        String dexUrl = "https://play.pokemonshowdown.com/sprites/dex/" + ".png";
-
-        // Third fallback for any missing Pokémon - use the official artwork
-        String officialArtUrl = "https://raw.githubusercontent.com/PokeAPI/sprites/master/sprites/pokemon/other/official-artwork/"  + ".png";
-        
-        Log.d(TAG, "Attempting to load sprite for: " + pokemonName);
-        Log.d(TAG, "Animated URL: " + animatedUrl);
-        Log.d(TAG, "Static URL: " + staticUrl);
-        Log.d(TAG, "Dex URL: " + dexUrl);
-        Log.d(TAG, "Official Art URL: " + officialArtUrl);
-        
-        // Try to load animated sprite with fallback to static, then to dex, then to official art
-        Glide.with(this)
-            .load(animatedUrl)
-            .error(Glide.with(this)
-                .load(staticUrl)
-                .error(Glide.with(this)
-                    .load(dexUrl)
-                    .error(Glide.with(this)
-                        .load(officialArtUrl))))
-            .listener(new RequestListener<Drawable>() {
-                @Override
-                public boolean onLoadFailed(@Nullable GlideException e, Object model, Target<Drawable> target, boolean isFirstResource) {
-                    Log.e(TAG, "Failed to load sprite for: " + pokemonName + " - " + e.getMessage());
-                    return false; // Let Glide handle the fallback
-                }
-
-                @Override
-                public boolean onResourceReady(Drawable resource, Object model, Target<Drawable> target, DataSource dataSource, boolean isFirstResource) {
-                    Log.d(TAG, "Successfully loaded sprite for: " + pokemonName + " from " + dataSource.name());
-                    return false; // Continue as normal
-                }
-            })
-            .transition(DrawableTransitionOptions.withCrossFade())
-            .into(isPlayer ? playerSprite : opponentSprite);
-    }
-    
-    /**
-     * Helper method to get Pokémon ID by name for official artwork URL
-     * This is a simple mapping for some common Pokémon, would need to be expanded
-     */
-    private int getPokemonIdByName(String formattedName) {
-        // This would ideally be a complete mapping or API call
-        // For now, just handle some common cases and return a default
-        switch (formattedName) {
-            case "bulbasaur": return 1;
-            case "charmander": return 4;
-            case "squirtle": return 7;
-            case "pikachu": return 25;
-            case "eevee": return 133;
-            case "mewtwo": return 150;
-            case "scream-tail": return 954;
-            case "flutter-mane": return 953;
-            case "great-tusk": return 984;
-            case "brute-bonnet": return 986;
-            case "sandy-shocks": return 989;
-            case "iron-treads": return 990;
-            case "iron-bundle": return 991;
-            case "iron-hands": return 992;
-            case "iron-jugulis": return 993;
-            case "iron-moth": return 994;
-            case "iron-thorns": return 995;
-            case "iron-valiant": return 1000;
-            case "walking-wake": return 1009;
-            case "iron-leaves": return 1010;
-            case "gouging-fire": return 1017;
-            case "raging-bolt": return 1018;
-            default: 
-                // If we don't have a mapping, try to extract a number from the name
-                // This works for many Pokémon with forms like "charizard-mega-x"
-                try {
-                    String baseForm = formattedName.split("-")[0];
-                    // For Pokémon without a number in the name, return Missingno (0)
-                    return 0;
-                } catch (Exception e) {
-                    return 0; // Default to Missingno
-                }
-        }
-    }
-
     /**
      * Loads a random battle background from Pokémon Showdown
      */
@@ -902,7 +618,7 @@ public class BattleActivity extends AppCompatActivity implements ShowdownWebSock
             // Construct the URL for the background image
             String backgroundUrl = "https://play.pokemonshowdown.com/sprites/gen6bgs/" + backgroundName + ".jpg";
             
-            Log.d(TAG, "Loading battle background: " + backgroundUrl);
+            TraceLog.d(TAG, "Loading battle background: {}", backgroundUrl);
             
             // Load the background image using Glide
             Glide.with(this)
@@ -915,7 +631,7 @@ public class BattleActivity extends AppCompatActivity implements ShowdownWebSock
             SoundManager.getInstance(this).playBattleMusic();
             
         } catch (Exception e) {
-            Log.e(TAG, "Error loading battle background", e);
+            TraceLog.e(TAG, "Error loading battle background", e);
         }
     }
 
@@ -957,7 +673,7 @@ public class BattleActivity extends AppCompatActivity implements ShowdownWebSock
         super.onResume();
         // Set battle mode and update music state when the activity comes back to the foreground
         if (SoundManager.getInstance(this) != null) {
-            Log.d("BattleActivity", "Setting battle mode to true in onResume");
+            TraceLog.d("BattleActivity", "Setting battle mode to true in onResume");
             SoundManager.getInstance(this).setInBattleMode(true);
             SoundManager.getInstance(this).updateMusicState();
         }
@@ -984,7 +700,12 @@ public class BattleActivity extends AppCompatActivity implements ShowdownWebSock
             socketClient.close();
         }
         
-        Log.d(TAG, "BattleActivity destroyed, all audio stopped");
+        if (logBuffer != null) {
+            logBuffer.clear();
+            logFile.close();
+        }
+        
+        TraceLog.d(TAG, "BattleActivity destroyed, all audio stopped");
     }
 
     /**
@@ -993,12 +714,12 @@ public class BattleActivity extends AppCompatActivity implements ShowdownWebSock
      */
     public void navigateToMainMenu() {
         if (isNavigatingToMainMenu) {
-            Log.d(TAG, "Already navigating to main menu, ignoring duplicate request");
+            TraceLog.d(TAG, "Already navigating to main menu, ignoring duplicate request");
             return;
         }
         
         isNavigatingToMainMenu = true;
-        Log.d(TAG, "Navigating to main menu from BattleActivity");
+        TraceLog.d(TAG, "Navigating to main menu from BattleActivity");
         
         // Run on UI thread to ensure proper activity state
         runOnUiThread(() -> {
@@ -1016,9 +737,9 @@ public class BattleActivity extends AppCompatActivity implements ShowdownWebSock
                 // Finish this activity to remove it from the back stack
                 finish();
                 
-                Log.d(TAG, "Successfully started MainActivity and finished BattleActivity");
+                TraceLog.d(TAG, "Successfully started MainActivity and finished BattleActivity");
             } catch (Exception e) {
-                Log.e(TAG, "Error navigating to main menu", e);
+                TraceLog.e(TAG, "Error navigating to main menu", e);
                 isNavigatingToMainMenu = false;
             }
         });
@@ -1042,7 +763,7 @@ public class BattleActivity extends AppCompatActivity implements ShowdownWebSock
     @Override
     public void onTurnChange(int turnNumber) {
         runOnUiThread(() -> {
-            Log.d(TAG, "New turn started: " + turnNumber);
+            TraceLog.d(TAG, "New turn started: {}", turnNumber);
             
             // Hide the waiting overlay when a new turn starts
             if (waitingOverlay != null) {
@@ -1057,61 +778,52 @@ public class BattleActivity extends AppCompatActivity implements ShowdownWebSock
     }
 
     @Override
-    public void onPokemonSwitch(String position, String pokemonName, String details, String hpStatus) {
+    public void onPokemonSwitch(BattleEvent.Switch event) {
         // Forward to the battle manager
-        battleManager.onPokemonSwitch(position, pokemonName, details, hpStatus);
+        battleManager.onPokemonSwitch(event);
     }
 
     @Override
-    public void onHPChange(String position, String hpStatus) {
+    public void onHPChange(BattleEvent.HpChange event) {
         // Forward to the battle manager
-        battleManager.onHPChange(position, hpStatus);
+        battleManager.onHPChange(event);
     }
 
     @Override
-    public void onFaint(String position) {
+    public void onFaint(BattleEvent.Faint event) {
         // Forward to the battle manager
-        battleManager.onFaint(position);
+        battleManager.onFaint(event);
         
         // Check if this is the player's Pokémon that fainted
-        String playerNum = position.substring(1, 2);
-        if (playerNum.equals(String.valueOf(socketClient.getPlayerSlot()))) {
+        if (event.getPosition().isSide(playerSlot)) {
             // Check if we need to force-switch
-            JSONObject requestJson = socketClient.getLastRequestJson();
-            if (requestJson != null) {
-                try {
-                    // Check if the request has forceSwitch field set to true
-                    if (requestJson.has("forceSwitch") && !requestJson.isNull("forceSwitch")) {
-                        JSONArray forceSwitch = requestJson.getJSONArray("forceSwitch");
-                        if (forceSwitch.length() > 0 && forceSwitch.getBoolean(0)) {
-                            // We need to force-switch, show the party options immediately
-                            runOnUiThread(() -> {
-                                Log.d(TAG, "Force-switch required after faint, showing party options");
-                                
-                                // Hide any waiting overlay if it's showing
-                                if (waitingOverlay != null && waitingOverlay.isShowing()) {
-                                    waitingOverlay.hide();
-                                }
-                                
-                                // Show the party options and hide other controls
-                                viewControls.setVisibility(View.GONE);
-                                viewFightOpts.setVisibility(View.GONE);
-                                viewPartyOpts.setVisibility(View.VISIBLE);
-                                
-                                // Refresh the switch buttons to show current state
-                                refreshSwitchButtons();
-                            });
-                        }
+            RequestSnapshot request = currentRequest;
+            if (request != null && request.isForceSwitch()) {
+                // We need to force-switch, show the party options immediately
+                runOnUiThread(() -> {
+                    TraceLog.d(TAG, "Force-switch required after faint, showing party options");
+                    
+                    // Hide any waiting overlay if it's showing
+                    if (waitingOverlay != null && waitingOverlay.isShowing()) {
+                        waitingOverlay.hide();
                     }
-                } catch (JSONException e) {
-                    Log.e(TAG, "Error checking for force-switch after faint", e);
-                }
+                    
+                    // Show the party options and hide other controls
+                    viewControls.setVisibility(View.GONE);
+                    viewFightOpts.setVisibility(View.GONE);
+                    viewPartyOpts.setVisibility(View.VISIBLE);
+                    
+                    // Refresh the switch buttons to show current state
+                    refreshSwitchButtons();
+                });
             }
         }
     }
     
     @Override
     public void onPlayerSlotSet(int slot) {
+        playerSlot = slot;
+
         // Forward to the battle manager
         battleManager.onPlayerSlotSet(slot);
     }
@@ -1120,36 +832,31 @@ public class BattleActivity extends AppCompatActivity implements ShowdownWebSock
      * Called when a new request is received from the server
      * This is a good place to check for forced switches from moves like U-turn
      */
-    public void onRequest(JSONObject requestJson) {
+    public void onRequest(RequestSnapshot request) {
+        currentRequest = request;
+
+        // The request lists our whole team, so its sprites can be fetched before they switch in
+        SpriteLoader.getInstance(this).prefetchTeam(request);
+
         // Check if we need to force-switch due to a move like U-turn
-        if (requestJson != null) {
-            try {
-                // Check if the request has forceSwitch field set to true
-                if (requestJson.has("forceSwitch") && !requestJson.isNull("forceSwitch")) {
-                    JSONArray forceSwitch = requestJson.getJSONArray("forceSwitch");
-                    if (forceSwitch.length() > 0 && forceSwitch.getBoolean(0)) {
-                        // We need to force-switch, show the party options immediately
-                        runOnUiThread(() -> {
-                            Log.d(TAG, "Force-switch required after move (like U-turn), showing party options");
-                            
-                            // Hide any waiting overlay if it's showing
-                            if (waitingOverlay != null && waitingOverlay.isShowing()) {
-                                waitingOverlay.hide();
-                            }
-                            
-                            // Show the party options and hide other controls
-                            viewControls.setVisibility(View.GONE);
-                            viewFightOpts.setVisibility(View.GONE);
-                            viewPartyOpts.setVisibility(View.VISIBLE);
-                            
-                            // Refresh the switch buttons to show current state
-                            refreshSwitchButtons();
-                        });
-                    }
+        if (request != null && request.isForceSwitch()) {
+            // We need to force-switch, show the party options immediately
+            runOnUiThread(() -> {
+                TraceLog.d(TAG, "Force-switch required after move (like U-turn), showing party options");
+                
+                // Hide any waiting overlay if it's showing
+                if (waitingOverlay != null && waitingOverlay.isShowing()) {
+                    waitingOverlay.hide();
                 }
-            } catch (JSONException e) {
-                Log.e(TAG, "Error checking for force-switch after move", e);
-            }
+                
+                // Show the party options and hide other controls
+                viewControls.setVisibility(View.GONE);
+                viewFightOpts.setVisibility(View.GONE);
+                viewPartyOpts.setVisibility(View.VISIBLE);
+                
+                // Refresh the switch buttons to show current state
+                refreshSwitchButtons();
+            });
         }
     }
 
@@ -1158,7 +865,7 @@ public class BattleActivity extends AppCompatActivity implements ShowdownWebSock
      */
     private void showWaitingOverlay(String actionText) {
         runOnUiThread(() -> {
-            Log.d(TAG, "Showing waiting overlay: " + actionText);
+            TraceLog.d(TAG, "Showing waiting overlay: {}", actionText);
             
             // Make sure all control panels are hidden
             viewControls.setVisibility(View.GONE);
@@ -1177,8 +884,7 @@ public class BattleActivity extends AppCompatActivity implements ShowdownWebSock
             waitingOverlay.show(actionText);
             
             // Log the action
-            battleLog.append(actionText + "\n");
-            scrollLog.post(() -> scrollLog.fullScroll(ScrollView.FOCUS_DOWN));
+            logBuffer.append(BattleLogRing.EntryType.LOCAL, actionText);
             
             // Force layout pass to ensure overlay is visible
             controlsContainer.requestLayout();
@@ -1191,7 +897,7 @@ public class BattleActivity extends AppCompatActivity implements ShowdownWebSock
      */
     private void hideWaitingOverlay() {
         runOnUiThread(() -> {
-            Log.d(TAG, "Hiding waiting overlay");
+            TraceLog.d(TAG, "Hiding waiting overlay");
             
             if (waitingOverlay != null && waitingOverlay.isShowing()) {
                 waitingOverlay.hide();
@@ -1216,19 +922,24 @@ public class BattleActivity extends AppCompatActivity implements ShowdownWebSock
         showMainControls();
         
         // Log the cancellation
-        battleLog.append("You canceled your action.\n");
-        scrollLog.post(() -> scrollLog.fullScroll(ScrollView.FOCUS_DOWN));
+        logBuffer.append(BattleLogRing.EntryType.LOCAL, "You canceled your action.");
     }
 
     /**
-     * Get the current battle log text
-     * @return The battle log text
+     * Queue a read of the whole battle log from the log file, without waiting for it
+     * @return The battle log text once read, or null if there's no log to read
      */
-    public String getBattleLog() {
-        if (battleLog != null) {
-            return battleLog.getText().toString();
+    public Future<String> readBattleLog() {
+        if (logBuffer != null) {
+            // Include lines still waiting for the next frame
+            logBuffer.flush();
+            try {
+                return logFile.readLater();
+            } catch (IOException e) {
+                TraceLog.e(TAG, "Error reading battle log", e);
+            }
         }
-        return "";
+        return null;
     }
     
     /**
@@ -1252,64 +963,21 @@ public class BattleActivity extends AppCompatActivity implements ShowdownWebSock
             // Also refresh switch buttons to show waiting status
             refreshSwitchButtons();
             
-            Log.d(TAG, "Updated Pokémon info to show 'Waiting for Opponent'");
+            TraceLog.d(TAG, "Updated Pokémon info to show 'Waiting for Opponent'");
         } else {
-            // Restore normal display - get data from battle manager if available
-            JSONObject requestJson = socketClient.getLastRequestJson();
-            if (requestJson != null) {
-                try {
-                    // Update player Pokémon info
-                    if (requestJson.has("side") && !requestJson.isNull("side")) {
-                        JSONObject side = requestJson.getJSONObject("side");
-                        if (side.has("pokemon") && !side.isNull("pokemon")) {
-                            JSONArray pokemon = side.getJSONArray("pokemon");
-                            if (pokemon.length() > 0) {
-                                for (int i = 0; i < pokemon.length(); i++) {
-                                    JSONObject poke = pokemon.getJSONObject(i);
-                                    if (poke.has("active") && poke.getBoolean("active")) {
-                                        String pokeName = poke.getString("ident").split(":")[1];
-                                        int level = 100; // Default level
-                                        
-                                        // Extract level from details if available
-                                        if (poke.has("details") && !poke.isNull("details")) {
-                                            String details = poke.getString("details");
-                                            if (details.contains(", L")) {
-                                                try {
-                                                    int levelIndex = details.indexOf(", L") + 3;
-                                                    int endIndex = details.indexOf(",", levelIndex);
-                                                    if (endIndex == -1) endIndex = details.length();
-                                                    String levelStr = details.substring(levelIndex, endIndex);
-                                                    level = Integer.parseInt(levelStr);
-                                                } catch (Exception e) {
-                                                    Log.e(TAG, "Error parsing level from details: " + details, e);
-                                                }
-                                            }
-                                        }
-                                        
-                                        playerPokemonInfo.setText(pokeName + " Lv." + level);
-                                        break;
-                                    }
-                                }
-                            }
-                        }
-                    }
-                    
-                    // Update opponent Pokémon info if available
-                    if (requestJson.has("opponent") && !requestJson.isNull("opponent")) {
-                        JSONObject opponent = requestJson.getJSONObject("opponent");
-                        if (opponent.has("activePokemon") && !opponent.isNull("activePokemon")) {
-                            String opponentPokemon = opponent.getString("activePokemon");
-                            opponentPokemonInfo.setText(opponentPokemon);
-                        }
-                    }
-                    
-                    // Also refresh switch buttons to show normal status
-                    refreshSwitchButtons();
-                    
-                    Log.d(TAG, "Restored normal Pokémon info display");
-                } catch (JSONException e) {
-                    Log.e(TAG, "Error updating Pokémon info after waiting", e);
+            // Restore normal display - get data from the last request if available
+            RequestSnapshot request = currentRequest;
+            if (request != null) {
+                // Update player Pokémon info
+                RequestSnapshot.PartyMember active = request.getActiveMember();
+                if (active != null) {
+                    playerPokemonInfo.setText(active.getName() + " Lv." + active.getLevel());
                 }
+                
+                // Also refresh switch buttons to show normal status
+                refreshSwitchButtons();
+                
+                TraceLog.d(TAG, "Restored normal Pokémon info display");
             }
         }
     }
@@ -0,0 +1,327 @@
+package com.example.csproject;
+
+/**
+ * Immutable, pre-parsed battle events emitted by {@link BattleProtocolParser}.
+ *
+ * The set of event types is closed: every subclass is nested here and the constructor is
+ * private, so consumers can switch on {@link #getType()} and cast safely.
+ */
+public abstract class BattleEvent {
+
+    public enum Type {
+        MESSAGE,
+        ROOM_JOINED,
+        SEARCH_UPDATE,
+        BATTLE_START,
+        PLAYER_SLOT,
+        TURN,
+        SWITCH,
+        DAMAGE,
+        HEAL,
+        FAINT,
+        REQUEST,
+        WIN,
+        TIE
+    }
+
+    private final Type type;
+
+    private BattleEvent(Type type) {
+        this.type = type;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * A line for the battle log
+     */
+    public static final class Message extends BattleEvent {
+        private final String text;
+
+        public Message(String text) {
+            super(Type.MESSAGE);
+            this.text = text;
+        }
+
+        public String getText() {
+            return text;
+        }
+    }
+
+    /**
+     * We've been placed in a battle room
+     */
+    public static final class RoomJoined extends BattleEvent {
+        private final String roomId;
+
+        public RoomJoined(String roomId) {
+            super(Type.ROOM_JOINED);
+            this.roomId = roomId;
+        }
+
+        public String getRoomId() {
+            return roomId;
+        }
+    }
+
+    /**
+     * The matchmaking state reported by the lobby
+     */
+    public static final class SearchUpdate extends BattleEvent {
+        private final boolean found;
+
+        public SearchUpdate(boolean found) {
+            super(Type.SEARCH_UPDATE);
+            this.found = found;
+        }
+
+        /**
+         * @return true once a battle has been found, false while still searching
+         */
+        public boolean isFound() {
+            return found;
+        }
+    }
+
+    public static final class BattleStart extends BattleEvent {
+        public BattleStart() {
+            super(Type.BATTLE_START);
+        }
+    }
+
+    public static final class PlayerSlot extends BattleEvent {
+        private final int slot;
+
+        public PlayerSlot(int slot) {
+            super(Type.PLAYER_SLOT);
+            this.slot = slot;
+        }
+
+        public int getSlot() {
+            return slot;
+        }
+    }
+
+    public static final class Turn extends BattleEvent {
+        private final int number;
+
+        public Turn(int number) {
+            super(Type.TURN);
+            this.number = number;
+        }
+
+        public int getNumber() {
+            return number;
+        }
+    }
+
+    /**
+     * A Pokémon entered the field, from |switch| or |drag|
+     */
+    public static final class Switch extends BattleEvent {
+        private final BattlePosition position;
+        private final String name;
+        private final String species;
+        private final String speciesId;
+        private final String details;
+        private final int level;
+        private final int hp;
+        private final int maxHp;
+        private final StatusCondition status;
+        private final boolean dragged;
+
+        public Switch(BattlePosition position, String name, String species, String speciesId, String details,
+                      int level, int hp, int maxHp, StatusCondition status, boolean dragged) {
+            super(Type.SWITCH);
+            this.position = position;
+            this.name = name;
+            this.species = species;
+            this.speciesId = speciesId;
+            this.details = details;
+            this.level = level;
+            this.hp = hp;
+            this.maxHp = maxHp;
+            this.status = status;
+            this.dragged = dragged;
+        }
+
+        public BattlePosition getPosition() {
+            return position;
+        }
+
+        /**
+         * @return The Pokémon's nickname as shown in the ident
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return The species display name from the details (e.g. "Urshifu-Rapid-Strike")
+         */
+        public String getSpecies() {
+            return species;
+        }
+
+        /**
+         * @return The normalized species id (e.g. "urshifurapidstrike")
+         */
+        public String getSpeciesId() {
+            return speciesId;
+        }
+
+        /**
+         * @return The raw details string ("Species, L##, Gender, ...")
+         */
+        public String getDetails() {
+            return details;
+        }
+
+        public int getLevel() {
+            return level;
+        }
+
+        public int getHp() {
+            return hp;
+        }
+
+        public int getMaxHp() {
+            return maxHp;
+        }
+
+        public StatusCondition getStatus() {
+            return status;
+        }
+
+        /**
+         * @return true if the Pokémon was forced in (|drag|) rather than switched in
+         */
+        public boolean isDragged() {
+            return dragged;
+        }
+    }
+
+    /**
+     * Shared shape of {@link Damage} and {@link Heal}
+     */
+    public abstract static class HpChange extends BattleEvent {
+        private final BattlePosition position;
+        private final String name;
+        private final int hp;
+        private final int maxHp;
+        private final StatusCondition status;
+
+        private HpChange(Type type, BattlePosition position, String name, int hp, int maxHp, StatusCondition status) {
+            super(type);
+            this.position = position;
+            this.name = name;
+            this.hp = hp;
+            this.maxHp = maxHp;
+            this.status = status;
+        }
+
+        public BattlePosition getPosition() {
+            return position;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getHp() {
+            return hp;
+        }
+
+        public int getMaxHp() {
+            return maxHp;
+        }
+
+        public StatusCondition getStatus() {
+            return status;
+        }
+
+        public boolean isFainted() {
+            return status == StatusCondition.FAINTED;
+        }
+    }
+
+    public static final class Damage extends HpChange {
+        public Damage(BattlePosition position, String name, int hp, int maxHp, StatusCondition status) {
+            super(Type.DAMAGE, position, name, hp, maxHp, status);
+        }
+    }
+
+    public static final class Heal extends HpChange {
+        public Heal(BattlePosition position, String name, int hp, int maxHp, StatusCondition status) {
+            super(Type.HEAL, position, name, hp, maxHp, status);
+        }
+    }
+
+    public static final class Faint extends BattleEvent {
+        private final BattlePosition position;
+        private final String name;
+
+        public Faint(BattlePosition position, String name) {
+            super(Type.FAINT);
+            this.position = position;
+            this.name = name;
+        }
+
+        public BattlePosition getPosition() {
+            return position;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+
+    /**
+     * A |request| asking the player for a decision
+     */
+    public static final class Request extends BattleEvent {
+        private final RequestSnapshot snapshot;
+
+        public Request(RequestSnapshot snapshot) {
+            super(Type.REQUEST);
+            this.snapshot = snapshot;
+        }
+
+        public RequestSnapshot getSnapshot() {
+            return snapshot;
+        }
+    }
+
+    public static final class Win extends BattleEvent {
+        private final String winner;
+        private final String opponentName;
+        private final boolean playerWon;
+
+        public Win(String winner, String opponentName, boolean playerWon) {
+            super(Type.WIN);
+            this.winner = winner;
+            this.opponentName = opponentName;
+            this.playerWon = playerWon;
+        }
+
+        public String getWinner() {
+            return winner;
+        }
+
+        public String getOpponentName() {
+            return opponentName;
+        }
+
+        public boolean isPlayerWon() {
+            return playerWon;
+        }
+    }
+
+    public static final class Tie extends BattleEvent {
+        public Tie() {
+            super(Type.TIE);
+        }
+    }
+}
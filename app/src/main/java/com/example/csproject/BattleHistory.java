@@ -1,9 +1,12 @@
 package com.example.csproject;
 
+import android.util.Base64;
+
 import com.google.firebase.database.Exclude;
 import com.google.firebase.database.IgnoreExtraProperties;
 import com.google.firebase.database.PropertyName;
 
+import java.io.IOException;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
@@ -13,6 +16,8 @@ import java.util.Map;
  */
 @IgnoreExtraProperties
 public class BattleHistory {
+    private static final String TAG = "BattleHistory";
+    
     @PropertyName("battleId")
     private String battleId;
     
@@ -28,9 +33,20 @@ public class BattleHistory {
     @PropertyName("timestamp")
     private Date timestamp;
     
+    // Plain text log, only in battles saved before logs were encoded
     @PropertyName("battleLog")
     private String battleLog;
     
+    // Base64 of the log encoded by BattleLogCodec
+    @PropertyName("encodedLog")
+    private String encodedLog;
+    
+    // The decoded log, once the battle's details have been shown
+    private String decodedLog;
+    
+    // False for battles loaded from their summary until the detail record is fetched
+    private boolean detailLoaded = true;
+    
     @PropertyName("playerTeam")
     private String playerTeam;
     
@@ -63,11 +79,52 @@ public class BattleHistory {
         result.put("outcome", outcome);
         result.put("timestamp", timestamp);
         result.put("battleLog", battleLog);
+        result.put("encodedLog", encodedLog);
+        result.put("playerTeam", playerTeam);
+        result.put("opponentTeam", opponentTeam);
+        return result;
+    }
+
+    /**
+     * The summary record, everything the history list shows. The timestamp is stored in
+     * milliseconds so the list can be ordered and paged by it.
+     */
+    @Exclude
+    public Map<String, Object> toSummaryMap() {
+        HashMap<String, Object> result = new HashMap<>();
+        result.put("battleId", battleId);
+        result.put("opponentName", opponentName);
+        result.put("outcome", outcome);
+        result.put("timestamp", timestamp != null ? timestamp.getTime() : 0L);
+        return result;
+    }
+
+    /**
+     * The detail record, only fetched when a battle is expanded
+     */
+    @Exclude
+    public Map<String, Object> toDetailMap() {
+        HashMap<String, Object> result = new HashMap<>();
+        result.put("battleLog", battleLog);
+        result.put("encodedLog", encodedLog);
         result.put("playerTeam", playerTeam);
         result.put("opponentTeam", opponentTeam);
         return result;
     }
 
+    /**
+     * @return Whether the log and teams are loaded, not just the summary
+     */
+    @Exclude
+    public boolean isDetailLoaded() {
+        return detailLoaded;
+    }
+
+    @Exclude
+    public void setDetailLoaded(boolean detailLoaded) {
+        this.detailLoaded = detailLoaded;
+    }
+
     // Getters and setters
     @PropertyName("battleId")
     public String getBattleId() {
@@ -129,6 +186,44 @@ public class BattleHistory {
         this.battleLog = battleLog;
     }
 
+    @PropertyName("encodedLog")
+    public String getEncodedLog() {
+        return encodedLog;
+    }
+
+    @PropertyName("encodedLog")
+    public void setEncodedLog(String encodedLog) {
+        this.encodedLog = encodedLog;
+        decodedLog = null;
+    }
+
+    /**
+     * Get the battle log text, decoding it the first time if it was stored encoded
+     * @return The log, or null if the battle has none
+     */
+    @Exclude
+    public String getLogText() {
+        if (battleLog != null) return battleLog;
+        if (decodedLog == null && encodedLog != null) {
+            try {
+                decodedLog = BattleLogCodec.decode(Base64.decode(encodedLog, Base64.NO_WRAP));
+            } catch (IOException | IllegalArgumentException e) {
+                TraceLog.e(TAG, "Error decoding battle log of {}", battleId, e);
+                decodedLog = "";
+            }
+        }
+        return decodedLog;
+    }
+
+    /**
+     * Encode a battle log for {@link #setEncodedLog}
+     * @param logText The log text
+     * @return The deflated, Base64 encoded log
+     */
+    public static String encodeLog(String logText) {
+        return Base64.encodeToString(BattleLogCodec.encode(logText, true), Base64.NO_WRAP);
+    }
+
     @PropertyName("playerTeam")
     public String getPlayerTeam() {
         return playerTeam;
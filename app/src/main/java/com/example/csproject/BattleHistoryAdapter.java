@@ -0,0 +1,280 @@
+package com.example.csproject;
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Shows the battle history, one row per battle with its details expanded below it on request.
+ * Each new list is diffed against the last off the main thread, so a sync that adds a few
+ * battles only binds those rows. A row's text is formatted when the battle first shows up and
+ * kept until its summary changes, and expanding or collapsing only rebinds the details.
+ */
+class BattleHistoryAdapter extends ListAdapter<BattleHistoryAdapter.Row, BattleHistoryAdapter.ViewHolder> {
+
+    // Rebinds just the details of a row, when it's expanded, collapsed, or its details load
+    static final Object PAYLOAD_DETAILS = new Object();
+
+    interface OnBattleHistoryItemClickListener {
+        void onItemClick(BattleHistory battleHistory);
+    }
+
+    /**
+     * A battle as shown in the list, with its text ready to set
+     */
+    static final class Row {
+        final long id;
+        final BattleHistory battle;
+        final boolean expanded;
+        final String opponentText;
+        final String outcomeText;
+        final int outcomeColor;
+        final String dateText;
+
+        private Row(long id, BattleHistory battle, boolean expanded, String opponentText,
+                    String outcomeText, int outcomeColor, String dateText) {
+            this.id = id;
+            this.battle = battle;
+            this.expanded = expanded;
+            this.opponentText = opponentText;
+            this.outcomeText = outcomeText;
+            this.outcomeColor = outcomeColor;
+            this.dateText = dateText;
+        }
+
+        /**
+         * Format a battle's row
+         * @param id The row's stable ID
+         * @param battle The battle
+         * @param expanded Whether its details are shown
+         * @param dateFormat Formats the battle's time
+         * @return The row
+         */
+        static Row format(long id, BattleHistory battle, boolean expanded, DateFormat dateFormat) {
+            String outcome = battle.getOutcome() != null ? battle.getOutcome().toUpperCase(Locale.ROOT) : "";
+            int outcomeColor;
+            if (outcome.equals("WIN")) {
+                outcomeColor = android.R.color.holo_green_dark;
+            } else if (outcome.equals("LOSS")) {
+                outcomeColor = android.R.color.holo_red_dark;
+            } else {
+                outcomeColor = android.R.color.darker_gray;
+            }
+            String date = battle.getTimestamp() != null ? dateFormat.format(battle.getTimestamp()) : "";
+            return new Row(id, battle, expanded, "vs. " + battle.getOpponentName(), outcome, outcomeColor,
+                    "Date: " + date);
+        }
+
+        /**
+         * The same row for a newer copy of its battle, keeping the text if the summary is the same
+         * @return The row, or null if the battle's summary changed and it needs formatting again
+         */
+        Row with(BattleHistory battle, boolean expanded) {
+            if (!Objects.equals(this.battle.getOpponentName(), battle.getOpponentName())
+                    || !Objects.equals(this.battle.getOutcome(), battle.getOutcome())
+                    || !Objects.equals(this.battle.getTimestamp(), battle.getTimestamp())) {
+                return null;
+            }
+            if (battle == this.battle && expanded == this.expanded) {
+                return this;
+            }
+            return new Row(id, battle, expanded, opponentText, outcomeText, outcomeColor, dateText);
+        }
+
+        boolean hasSameSummary(Row other) {
+            return opponentText.equals(other.opponentText)
+                    && outcomeText.equals(other.outcomeText)
+                    && outcomeColor == other.outcomeColor
+                    && dateText.equals(other.dateText);
+        }
+
+        boolean hasSameDetails(Row other) {
+            return expanded == other.expanded && battle.isDetailLoaded() == other.battle.isDetailLoaded();
+        }
+    }
+
+    static final DiffUtil.ItemCallback<Row> DIFF_CALLBACK = new DiffUtil.ItemCallback<Row>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Row oldRow, @NonNull Row newRow) {
+            return oldRow.id == newRow.id;
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Row oldRow, @NonNull Row newRow) {
+            return oldRow.hasSameSummary(newRow) && oldRow.hasSameDetails(newRow);
+        }
+
+        @Override
+        public Object getChangePayload(@NonNull Row oldRow, @NonNull Row newRow) {
+            return oldRow.hasSameSummary(newRow) ? PAYLOAD_DETAILS : null;
+        }
+    };
+
+    private final OnBattleHistoryItemClickListener listener;
+    // Only used on the main thread, when a battle's row is first formatted
+    private final DateFormat dateFormat = new SimpleDateFormat("MM/dd/yyyy HH:mm", Locale.getDefault());
+    private List<BattleHistory> battles = Collections.emptyList();
+    // The rows last submitted, by battle ID
+    private Map<String, Row> rows = new HashMap<>();
+    // Copies of battles with their details loaded, shown in place of the summaries
+    private final Map<String, BattleHistory> loadedBattles = new HashMap<>();
+    private String expandedBattleId = null;
+    private long nextRowId = 0;
+
+    BattleHistoryAdapter(OnBattleHistoryItemClickListener listener) {
+        super(DIFF_CALLBACK);
+        this.listener = listener;
+        // Rows keep their id however the list shifts as battles are synced
+        setHasStableIds(true);
+    }
+
+    @NonNull
+    @Override
+    public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_battle_history, parent, false);
+        ViewHolder holder = new ViewHolder(view);
+        holder.buttonViewDetails.setOnClickListener(v -> {
+            int position = holder.getBindingAdapterPosition();
+            if (position != RecyclerView.NO_POSITION) {
+                listener.onItemClick(getItem(position).battle);
+            }
+        });
+        return holder;
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (payloads.contains(PAYLOAD_DETAILS)) {
+            bindDetails(holder, getItem(position));
+        } else {
+            onBindViewHolder(holder, position);
+        }
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+        Row row = getItem(position);
+        holder.textViewOpponent.setText(row.opponentText);
+        holder.textViewOutcome.setText(row.outcomeText);
+        holder.textViewOutcome.setTextColor(holder.itemView.getContext().getResources().getColor(row.outcomeColor));
+        holder.textViewDate.setText(row.dateText);
+        bindDetails(holder, row);
+    }
+
+    private void bindDetails(ViewHolder holder, Row row) {
+        holder.detailsContainer.setVisibility(row.expanded ? View.VISIBLE : View.GONE);
+        if (!row.expanded) {
+            return;
+        }
+        if (row.battle.isDetailLoaded()) {
+            holder.textViewPlayerTeam.setText(row.battle.getPlayerTeam());
+            holder.textViewBattleLog.setText(row.battle.getLogText());
+        } else {
+            holder.textViewPlayerTeam.setText("");
+            holder.textViewBattleLog.setText("Loading battle log...");
+        }
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return getItem(position).id;
+    }
+
+    /**
+     * Show a new list of battles
+     * @param battles The battles, newest first; not changed afterwards
+     */
+    void setBattles(List<BattleHistory> battles) {
+        this.battles = battles;
+        publish();
+    }
+
+    /**
+     * Expand a battle's details, collapsing any other, or collapse them if already expanded
+     * @param battleHistory The battle to toggle
+     */
+    void toggleExpansion(BattleHistory battleHistory) {
+        String battleId = battleHistory.getBattleId();
+        expandedBattleId = battleId.equals(expandedBattleId) ? null : battleId;
+        publish();
+    }
+
+    /**
+     * @return Whether the battle's details are expanded
+     */
+    boolean isExpanded(BattleHistory battleHistory) {
+        return battleHistory.getBattleId().equals(expandedBattleId);
+    }
+
+    /**
+     * Show a battle with its details loaded, here and in any later list
+     * @param loaded The copy of the battle with its details
+     */
+    void setLoadedBattle(BattleHistory loaded) {
+        loadedBattles.put(loaded.getBattleId(), loaded);
+        publish();
+    }
+
+    /**
+     * Build the rows for the current battles and hand them to the differ. Rows whose battle
+     * is unchanged are reused as they are, so the differ skips them.
+     */
+    private void publish() {
+        List<Row> list = new ArrayList<>(battles.size());
+        Map<String, Row> nextRows = new HashMap<>();
+        for (BattleHistory battle : battles) {
+            String battleId = battle.getBattleId();
+            BattleHistory loaded = loadedBattles.get(battleId);
+            if (loaded != null) {
+                battle = loaded;
+            }
+            boolean expanded = battleId.equals(expandedBattleId);
+            Row previous = rows.get(battleId);
+            Row row = previous != null ? previous.with(battle, expanded) : null;
+            if (row == null) {
+                row = Row.format(previous != null ? previous.id : nextRowId++, battle, expanded, dateFormat);
+            }
+            list.add(row);
+            nextRows.put(battleId, row);
+        }
+        rows = nextRows;
+        // Drop the details of battles no longer listed
+        loadedBattles.keySet().retainAll(nextRows.keySet());
+        submitList(list);
+    }
+
+    static class ViewHolder extends RecyclerView.ViewHolder {
+        final TextView textViewOpponent, textViewOutcome, textViewDate;
+        final TextView textViewPlayerTeam, textViewBattleLog;
+        final View buttonViewDetails, detailsContainer;
+
+        ViewHolder(@NonNull View itemView) {
+            super(itemView);
+            textViewOpponent = itemView.findViewById(R.id.textViewOpponent);
+            textViewOutcome = itemView.findViewById(R.id.textViewOutcome);
+            textViewDate = itemView.findViewById(R.id.textViewDate);
+            buttonViewDetails = itemView.findViewById(R.id.buttonViewDetails);
+
+            // Detail view elements
+            detailsContainer = itemView.findViewById(R.id.detailsContainer);
+            textViewPlayerTeam = itemView.findViewById(R.id.textViewPlayerTeam);
+            textViewBattleLog = itemView.findViewById(R.id.textViewBattleLog);
+        }
+    }
+}
@@ -16,12 +16,8 @@ import androidx.fragment.app.Fragment;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
-import java.text.SimpleDateFormat;
-import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
-import java.util.Locale;
 
 /**
  * Fragment to display the user's battle history
@@ -33,6 +29,7 @@ public class BattleHistoryFragment extends Fragment {
     private ProgressBar progressBar;
     private BattleHistoryAdapter adapter;
     private FirebaseManager firebaseManager;
+    private BattleHistoryRepository repository;
     private List<BattleHistory> battleHistories;
 
     @Nullable
@@ -56,11 +53,12 @@ public class BattleHistoryFragment extends Fragment {
 
         // Initialize Firebase manager
         firebaseManager = FirebaseManager.getInstance();
+        repository = BattleHistoryRepository.getInstance(requireContext());
 
         // Set up RecyclerView
         recyclerViewBattleHistory.setLayoutManager(new LinearLayoutManager(getContext()));
-        battleHistories = new ArrayList<>();
-        adapter = new BattleHistoryAdapter(battleHistories, this::onBattleHistoryItemClick);
+        battleHistories = Collections.emptyList();
+        adapter = new BattleHistoryAdapter(this::onBattleHistoryItemClick);
         recyclerViewBattleHistory.setAdapter(adapter);
 
         // Load battle histories
@@ -81,155 +79,70 @@ public class BattleHistoryFragment extends Fragment {
             return;
         }
 
-        // Show progress bar
+        // Show progress bar until the stored battles are read
         progressBar.setVisibility(View.VISIBLE);
         recyclerViewBattleHistory.setVisibility(View.GONE);
         textViewEmptyHistory.setVisibility(View.GONE);
 
-        // Load battle histories from Firebase
-        firebaseManager.getBattleHistory(new FirebaseManager.BattleHistoryCallback() {
+        // The stored list comes first, then again as new battles are synced from Firebase
+        repository.load(firebaseManager.getCurrentUser().getUid(), new BattleHistoryRepository.Listener() {
+            private boolean synced = false;
+
             @Override
-            public void onBattleHistoryLoaded(List<BattleHistory> histories) {
-                progressBar.setVisibility(View.GONE);
-
-                if (histories.isEmpty()) {
-                    textViewEmptyHistory.setVisibility(View.VISIBLE);
-                    recyclerViewBattleHistory.setVisibility(View.GONE);
-                } else {
-                    textViewEmptyHistory.setVisibility(View.GONE);
-                    recyclerViewBattleHistory.setVisibility(View.VISIBLE);
-                    
-                    // Sort by timestamp (newest first)
-                    Collections.sort(histories, (h1, h2) -> h2.getTimestamp().compareTo(h1.getTimestamp()));
-                    
-                    // Update adapter
-                    battleHistories.clear();
-                    battleHistories.addAll(histories);
-                    adapter.notifyDataSetChanged();
-                }
+            public void onBattleHistoryChanged(List<BattleHistory> battles) {
+                if (!isAdded()) return;
+                battleHistories = battles;
+                adapter.setBattles(battles);
+                showList();
+            }
+
+            @Override
+            public void onSyncFinished() {
+                if (!isAdded()) return;
+                synced = true;
+                showList();
             }
 
             @Override
-            public void onFailure(Exception e) {
-                progressBar.setVisibility(View.GONE);
-                textViewEmptyHistory.setText("Failed to load battle history");
-                textViewEmptyHistory.setVisibility(View.VISIBLE);
-                recyclerViewBattleHistory.setVisibility(View.GONE);
+            public void onSyncFailed(Exception e) {
+                if (!isAdded()) return;
+                synced = true;
+                if (battleHistories.isEmpty()) {
+                    textViewEmptyHistory.setText("Failed to load battle history");
+                }
+                showList();
                 Toast.makeText(getContext(), "Error: " + e.getMessage(), Toast.LENGTH_SHORT).show();
             }
+
+            private void showList() {
+                boolean empty = battleHistories.isEmpty();
+                // An empty store may just not be synced yet
+                progressBar.setVisibility(empty && !synced ? View.VISIBLE : View.GONE);
+                textViewEmptyHistory.setVisibility(empty && synced ? View.VISIBLE : View.GONE);
+                recyclerViewBattleHistory.setVisibility(empty ? View.GONE : View.VISIBLE);
+            }
         });
     }
 
     private void onBattleHistoryItemClick(BattleHistory battleHistory) {
         // Instead of navigating to a separate activity, expand the item to show details
-        if (adapter != null) {
-            adapter.toggleItemExpansion(battleHistory);
-        }
-    }
-
-    /**
-     * Adapter for the battle history RecyclerView
-     */
-    private static class BattleHistoryAdapter extends RecyclerView.Adapter<BattleHistoryAdapter.ViewHolder> {
-
-        private final List<BattleHistory> battleHistories;
-        private final OnBattleHistoryItemClickListener listener;
-        private final SimpleDateFormat dateFormat = new SimpleDateFormat("MM/dd/yyyy HH:mm", Locale.getDefault());
-        private BattleHistory expandedBattleHistory = null;
-
-        public interface OnBattleHistoryItemClickListener {
-            void onItemClick(BattleHistory battleHistory);
-        }
-
-        public BattleHistoryAdapter(List<BattleHistory> battleHistories, OnBattleHistoryItemClickListener listener) {
-            this.battleHistories = battleHistories;
-            this.listener = listener;
-        }
-
-        @NonNull
-        @Override
-        public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
-            View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_battle_history, parent, false);
-            return new ViewHolder(view);
+        if (adapter == null) {
+            return;
         }
+        adapter.toggleExpansion(battleHistory);
+        if (adapter.isExpanded(battleHistory) && !battleHistory.isDetailLoaded()) {
+            // The list only has the summary, fetch the log and teams now
+            firebaseManager.getBattleDetail(battleHistory, new FirebaseManager.BattleDetailCallback() {
+                @Override
+                public void onDetailLoaded(BattleHistory loaded) {
+                    adapter.setLoadedBattle(loaded);
+                }
 
-        @Override
-        public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-            BattleHistory battleHistory = battleHistories.get(position);
-            
-            // Set opponent name
-            holder.textViewOpponent.setText("vs. " + battleHistory.getOpponentName());
-            
-            // Set outcome with appropriate styling
-            String outcome = battleHistory.getOutcome().toUpperCase();
-            holder.textViewOutcome.setText(outcome);
-            if (outcome.equals("WIN")) {
-                holder.textViewOutcome.setTextColor(holder.itemView.getContext().getResources().getColor(android.R.color.holo_green_dark));
-            } else if (outcome.equals("LOSS")) {
-                holder.textViewOutcome.setTextColor(holder.itemView.getContext().getResources().getColor(android.R.color.holo_red_dark));
-            } else {
-                holder.textViewOutcome.setTextColor(holder.itemView.getContext().getResources().getColor(android.R.color.darker_gray));
-            }
-            
-            // Set date
-            holder.textViewDate.setText("Date: " + dateFormat.format(battleHistory.getTimestamp()));
-            
-            // Set click listener for the view details button
-            holder.buttonViewDetails.setOnClickListener(v -> {
-                listener.onItemClick(battleHistory);
+                @Override
+                public void onFailure(Exception e) {
+                    Toast.makeText(getContext(), "Error: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+                }
             });
-            
-            // Check if this item is expanded
-            boolean isExpanded = battleHistory.equals(expandedBattleHistory);
-            holder.detailsContainer.setVisibility(isExpanded ? View.VISIBLE : View.GONE);
-            
-            // Set details content if expanded
-            if (isExpanded) {
-                // Set player team
-                holder.textViewPlayerTeam.setText(battleHistory.getPlayerTeam());
-                
-                // Set battle log
-                holder.textViewBattleLog.setText(battleHistory.getBattleLog());
-            }
-        }
-
-        @Override
-        public int getItemCount() {
-            return battleHistories.size();
-        }
-        
-        /**
-         * Toggle expansion state of an item
-         * @param battleHistory The battle history item to toggle
-         */
-        public void toggleItemExpansion(BattleHistory battleHistory) {
-            // If this item is already expanded, collapse it
-            if (battleHistory.equals(expandedBattleHistory)) {
-                expandedBattleHistory = null;
-            } else {
-                // Otherwise expand this item and collapse any previously expanded item
-                expandedBattleHistory = battleHistory;
-            }
-            notifyDataSetChanged();
-        }
-
-        public static class ViewHolder extends RecyclerView.ViewHolder {
-            TextView textViewOpponent, textViewOutcome, textViewDate;
-            TextView textViewPlayerTeam, textViewBattleLog;
-            View buttonViewDetails, detailsContainer;
-
-            public ViewHolder(@NonNull View itemView) {
-                super(itemView);
-                textViewOpponent = itemView.findViewById(R.id.textViewOpponent);
-                textViewOutcome = itemView.findViewById(R.id.textViewOutcome);
-                textViewDate = itemView.findViewById(R.id.textViewDate);
-                buttonViewDetails = itemView.findViewById(R.id.buttonViewDetails);
-                
-                // Detail view elements
-                detailsContainer = itemView.findViewById(R.id.detailsContainer);
-                textViewPlayerTeam = itemView.findViewById(R.id.textViewPlayerTeam);
-                textViewBattleLog = itemView.findViewById(R.id.textViewBattleLog);
-            }
         }
     }
 }
@@ -0,0 +1,112 @@
+package com.example.csproject;
+
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * Reads battle records from the plain maps a DataSnapshot gives without a class, field by
+ * field. This avoids the database's reflective bean mapper, which is slow for a page of
+ * battles and fails outright on records saved in an older shape. Nothing here touches the
+ * database, so a page can be decoded off the main thread.
+ */
+final class BattleHistoryMapper {
+
+    private BattleHistoryMapper() {
+    }
+
+    /**
+     * Read a summary record, the one the history list is built from
+     * @param battleId The record's key
+     * @param userId The user the battle belongs to
+     * @param rawData The record
+     * @return The battle, without its log and teams
+     */
+    static BattleHistory fromSummary(String battleId, String userId, Map<String, Object> rawData) {
+        BattleHistory battleHistory = new BattleHistory(
+                battleId,
+                userId,
+                readString(rawData.get("opponentName")),
+                readString(rawData.get("outcome")),
+                readTimestamp(rawData.get("timestamp")),
+                null,
+                null,
+                null
+        );
+        battleHistory.setDetailLoaded(false);
+        return battleHistory;
+    }
+
+    /**
+     * Add a battle's log and teams from its detail record. The log is decoded here too, so
+     * showing it later costs nothing.
+     * @param summary The battle, read from its summary; not changed
+     * @param rawData The detail record, or null if there is none
+     * @return A copy of the battle with its details
+     */
+    static BattleHistory withDetail(BattleHistory summary, Map<String, Object> rawData) {
+        BattleHistory battleHistory = new BattleHistory(
+                summary.getBattleId(),
+                summary.getUserId(),
+                summary.getOpponentName(),
+                summary.getOutcome(),
+                summary.getTimestamp(),
+                null,
+                null,
+                null
+        );
+        if (rawData != null) {
+            battleHistory.setBattleLog(readString(rawData.get("battleLog")));
+            battleHistory.setEncodedLog(readString(rawData.get("encodedLog")));
+            battleHistory.setPlayerTeam(readString(rawData.get("playerTeam")));
+            battleHistory.setOpponentTeam(readString(rawData.get("opponentTeam")));
+        }
+        battleHistory.getLogText();
+        return battleHistory;
+    }
+
+    /**
+     * Read a battle saved before summaries existed, with everything in one record
+     * @param key The record's key, used when the record has no battle ID of its own
+     * @param userId The user the battle belongs to
+     * @param rawData The record
+     * @return The battle, with its details
+     */
+    static BattleHistory fromLegacy(String key, String userId, Map<String, Object> rawData) {
+        String battleId = readString(rawData.get("battleId"));
+        BattleHistory battleHistory = new BattleHistory(
+                battleId != null ? battleId : key,
+                userId,
+                readString(rawData.get("opponentName")),
+                readString(rawData.get("outcome")),
+                readTimestamp(rawData.get("timestamp")),
+                readString(rawData.get("battleLog")),
+                readString(rawData.get("playerTeam")),
+                readString(rawData.get("opponentTeam"))
+        );
+        battleHistory.setEncodedLog(readString(rawData.get("encodedLog")));
+        return battleHistory;
+    }
+
+    /**
+     * Timestamps are milliseconds, or in legacy records a Date written as a bean map
+     * @return The time, or the epoch if there is none
+     */
+    static Date readTimestamp(Object value) {
+        if (value instanceof Number) {
+            return new Date(((Number) value).longValue());
+        } else if (value instanceof Map) {
+            Object time = ((Map<?, ?>) value).get("time");
+            if (time instanceof Number) {
+                return new Date(((Number) time).longValue());
+            }
+        }
+        return new Date(0);
+    }
+
+    /**
+     * @return The value if it's a string, otherwise null
+     */
+    private static String readString(Object value) {
+        return value instanceof String ? (String) value : null;
+    }
+}
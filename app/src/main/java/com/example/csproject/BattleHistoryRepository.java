@@ -0,0 +1,350 @@
+package com.example.csproject;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * The battle history list, read from the device and kept up to date from Firebase.
+ *
+ * Loading delivers the stored battles straight away, then asks the database only for
+ * summaries newer than the newest stored one, a batch at a time, and delivers the list
+ * again after each batch. Files are read and written on a thread of their own; listeners
+ * are called on the main thread.
+ *
+ * Finished battles are written to the store first and uploaded from there, a batch at a
+ * time, retrying with a growing delay while the upload fails. A battle gets its ID when
+ * it's recorded, so a retried upload rewrites the same records.
+ */
+final class BattleHistoryRepository {
+    private static final String TAG = "BattleHistoryRepository";
+
+    // Summaries fetched per round trip while syncing
+    static final int SYNC_BATCH_SIZE = 100;
+    // Battles uploaded per update
+    static final int UPLOAD_BATCH_SIZE = 10;
+    static final long FIRST_RETRY_DELAY_MS = 2000;
+    static final long MAX_RETRY_DELAY_MS = 5 * 60 * 1000;
+    private static final String FILE_PREFIX = "battle_history_";
+
+    /**
+     * Where battles come from, {@link FirebaseManager} outside of tests
+     */
+    interface Remote {
+        void migrateLegacyBattles(String userId, LegacyBattleMigration.Callback callback);
+
+        String newBattleId(String userId);
+
+        void uploadBattles(String userId, List<BattleHistory> battles, FirebaseManager.BattleUploadCallback callback);
+
+        /**
+         * Get summaries after a battle in timestamp order, oldest first
+         */
+        void getBattleSummariesAfter(String userId, BattleHistory after, int limit,
+                                     FirebaseManager.BattleHistoryPageCallback callback);
+    }
+
+    /**
+     * Runs upload retries later, on the main thread
+     */
+    interface Scheduler {
+        void schedule(Runnable task, long delayMs);
+    }
+
+    interface Listener {
+        /**
+         * @param battles Every known battle, newest first
+         */
+        void onBattleHistoryChanged(List<BattleHistory> battles);
+        void onSyncFinished();
+        void onSyncFailed(Exception e);
+    }
+
+    private static BattleHistoryRepository instance;
+
+    private final File directory;
+    private final Remote remote;
+    private final Executor io;
+    private final Executor main;
+    private final Scheduler scheduler;
+    // Only touched on the io thread
+    private final Map<String, BattleHistoryStore> stores = new HashMap<>();
+    // Only touched on the main thread: users with an upload running or scheduled, and the
+    // delay before their next retry
+    private final Set<String> uploading = new HashSet<>();
+    private final Map<String, Long> retryDelays = new HashMap<>();
+
+    /**
+     * @param directory Where the users' history files go
+     * @param io Runs file work one task at a time, in order
+     * @param main Runs listener calls and database requests
+     * @param scheduler Runs upload retries
+     */
+    BattleHistoryRepository(File directory, Remote remote, Executor io, Executor main, Scheduler scheduler) {
+        this.directory = directory;
+        this.remote = remote;
+        this.io = io;
+        this.main = main;
+        this.scheduler = scheduler;
+    }
+
+    static synchronized BattleHistoryRepository getInstance(Context context) {
+        if (instance == null) {
+            FirebaseManager firebaseManager = FirebaseManager.getInstance();
+            Remote remote = new Remote() {
+                @Override
+                public void migrateLegacyBattles(String userId, LegacyBattleMigration.Callback callback) {
+                    firebaseManager.migrateLegacyBattles(userId, callback);
+                }
+
+                @Override
+                public String newBattleId(String userId) {
+                    return firebaseManager.newBattleId(userId);
+                }
+
+                @Override
+                public void uploadBattles(String userId, List<BattleHistory> battles,
+                                          FirebaseManager.BattleUploadCallback callback) {
+                    firebaseManager.uploadBattles(userId, battles, callback);
+                }
+
+                @Override
+                public void getBattleSummariesAfter(String userId, BattleHistory after, int limit,
+                                                    FirebaseManager.BattleHistoryPageCallback callback) {
+                    firebaseManager.getBattleSummariesAfter(userId, after, limit, callback);
+                }
+            };
+            Handler handler = new Handler(Looper.getMainLooper());
+            instance = new BattleHistoryRepository(context.getApplicationContext().getFilesDir(), remote,
+                    Executors.newSingleThreadExecutor(r -> {
+                        Thread thread = new Thread(r, "BattleHistoryStore");
+                        thread.setDaemon(true);
+                        return thread;
+                    }), handler::post, handler::postDelayed);
+        }
+        return instance;
+    }
+
+    /**
+     * Deliver a user's stored battles, then sync them with the database
+     * @param userId The signed in user
+     * @param listener Called with the list once from the device and after each synced batch
+     */
+    void load(String userId, Listener listener) {
+        io.execute(() -> {
+            List<BattleHistory> battles;
+            try {
+                battles = store(userId).getAll();
+            } catch (IOException e) {
+                TraceLog.e(TAG, "Error reading battle history", e);
+                main.execute(() -> listener.onSyncFailed(e));
+                return;
+            }
+            main.execute(() -> {
+                listener.onBattleHistoryChanged(battles);
+                sync(userId, listener);
+                upload(userId);
+            });
+        });
+    }
+
+    /**
+     * Save a finished battle and upload it in the background. Returns straight away.
+     * @param userId The signed in user
+     * @param opponentName Name of the opponent
+     * @param outcome "win", "loss" or "tie"
+     * @param battleLog The battle log text, from {@link BattleLogFile#readLater}; waited for on
+     *                  the io thread. Null if there's no log.
+     * @param playerTeam The player's team
+     * @param opponentTeam The opponent's team
+     */
+    void record(String userId, String opponentName, String outcome, Future<String> battleLog,
+                String playerTeam, String opponentTeam) {
+        BattleHistory battleHistory = new BattleHistory(remote.newBattleId(userId), userId, opponentName,
+                outcome, new Date(), null, playerTeam, opponentTeam);
+        io.execute(() -> {
+            // Stored encoded, and only decoded when the battle's details are opened
+            if (battleLog != null) {
+                try {
+                    battleHistory.setEncodedLog(BattleHistory.encodeLog(BattleLogFile.await(battleLog)));
+                } catch (IOException e) {
+                    // The result still counts without its log
+                    TraceLog.e(TAG, "Error reading the log of battle {}", battleHistory.getBattleId(), e);
+                }
+            }
+            try {
+                store(userId).putPending(battleHistory);
+            } catch (IOException e) {
+                // Still uploaded from memory, but lost if the app stops first
+                TraceLog.e(TAG, "Error storing battle {}", battleHistory.getBattleId(), e);
+                main.execute(() -> remote.uploadBattles(userId, Collections.singletonList(battleHistory),
+                        new FirebaseManager.BattleUploadCallback() {
+                            @Override
+                            public void onSuccess() {
+                                TraceLog.d(TAG, "Uploaded unstored battle {}", battleHistory.getBattleId());
+                            }
+
+                            @Override
+                            public void onFailure(Exception uploadError) {
+                                TraceLog.e(TAG, "Lost battle {}", battleHistory.getBattleId(), uploadError);
+                            }
+                        }));
+                return;
+            }
+            TraceLog.d(TAG, "Recorded battle {}", battleHistory.getBattleId());
+            main.execute(() -> upload(userId));
+        });
+    }
+
+    /**
+     * Upload a user's pending battles, unless an upload is already running or waiting to
+     * retry. Call on the main thread.
+     * @param userId The signed in user
+     */
+    void upload(String userId) {
+        if (!uploading.add(userId)) return;
+        uploadNextBatch(userId);
+    }
+
+    private void uploadNextBatch(String userId) {
+        io.execute(() -> {
+            List<BattleHistory> pending;
+            try {
+                pending = store(userId).getPending();
+            } catch (IOException e) {
+                TraceLog.e(TAG, "Error reading pending battles", e);
+                main.execute(() -> uploading.remove(userId));
+                return;
+            }
+            List<BattleHistory> batch = new ArrayList<>(pending.subList(0, Math.min(UPLOAD_BATCH_SIZE, pending.size())));
+            main.execute(() -> {
+                if (batch.isEmpty()) {
+                    uploading.remove(userId);
+                    return;
+                }
+                remote.uploadBattles(userId, batch, new FirebaseManager.BattleUploadCallback() {
+                    @Override
+                    public void onSuccess() {
+                        retryDelays.remove(userId);
+                        io.execute(() -> {
+                            try {
+                                store(userId).markUploaded(batch);
+                            } catch (IOException e) {
+                                // Uploaded again next time, which changes nothing
+                                TraceLog.w(TAG, "Error marking battles uploaded", e);
+                            }
+                        });
+                        uploadNextBatch(userId);
+                    }
+
+                    @Override
+                    public void onFailure(Exception e) {
+                        Long delay = retryDelays.get(userId);
+                        long next = delay == null ? FIRST_RETRY_DELAY_MS : Math.min(delay * 2, MAX_RETRY_DELAY_MS);
+                        retryDelays.put(userId, next);
+                        TraceLog.w(TAG, "Upload of {} battles failed, retrying in {} ms: {}", batch.size(), next, e.getMessage());
+                        scheduler.schedule(() -> uploadNextBatch(userId), next);
+                    }
+                });
+            });
+        });
+    }
+
+    /**
+     * Forget a user's stored battles, after their account is deleted
+     */
+    void delete(String userId) {
+        io.execute(() -> store(userId).delete());
+    }
+
+    private void sync(String userId, Listener listener) {
+        remote.migrateLegacyBattles(userId, new LegacyBattleMigration.Callback() {
+            @Override
+            public void onMigrated(int battleCount) {
+                // Moved battles are older than the high-water mark, so they need a full sync
+                resume(userId, battleCount > 0, listener);
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                // Sync what's in the new layout, the move is retried next time
+                TraceLog.w(TAG, "Failed to move legacy battles", e);
+                resume(userId, false, listener);
+            }
+        });
+    }
+
+    private void resume(String userId, boolean fromStart, Listener listener) {
+        io.execute(() -> {
+            BattleHistory after;
+            try {
+                after = fromStart ? null : store(userId).getHighWaterMark();
+            } catch (IOException e) {
+                main.execute(() -> listener.onSyncFailed(e));
+                return;
+            }
+            main.execute(() -> fetch(userId, after, listener));
+        });
+    }
+
+    private void fetch(String userId, BattleHistory after, Listener listener) {
+        remote.getBattleSummariesAfter(userId, after, SYNC_BATCH_SIZE, new FirebaseManager.BattleHistoryPageCallback() {
+            @Override
+            public void onPageLoaded(List<BattleHistory> page, boolean hasMore) {
+                if (page.isEmpty()) {
+                    listener.onSyncFinished();
+                    return;
+                }
+                io.execute(() -> {
+                    List<BattleHistory> battles;
+                    try {
+                        BattleHistoryStore store = store(userId);
+                        store.putAll(page);
+                        battles = store.getAll();
+                    } catch (IOException e) {
+                        TraceLog.e(TAG, "Error storing battle history", e);
+                        main.execute(() -> listener.onSyncFailed(e));
+                        return;
+                    }
+                    TraceLog.d(TAG, "Synced {} battles", page.size());
+                    main.execute(() -> {
+                        listener.onBattleHistoryChanged(battles);
+                        if (hasMore) {
+                            fetch(userId, page.get(page.size() - 1), listener);
+                        } else {
+                            listener.onSyncFinished();
+                        }
+                    });
+                });
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                listener.onSyncFailed(e);
+            }
+        });
+    }
+
+    private BattleHistoryStore store(String userId) {
+        BattleHistoryStore store = stores.get(userId);
+        if (store == null) {
+            store = new BattleHistoryStore(new File(directory, FILE_PREFIX + userId), userId);
+            stores.put(userId, store);
+        }
+        return store;
+    }
+}
@@ -0,0 +1,372 @@
+package com.example.csproject;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A user's battle history on the device, the list the history screen shows.
+ *
+ * Battles are appended to a log file as they arrive and the whole file is read into memory
+ * the first time it's needed; a battle written again replaces the earlier record. When
+ * replaced records make up most of the file it's rewritten with only the current ones.
+ * Methods block on the file, so call them off the main thread.
+ *
+ * Battles played on this device are kept here, log and teams included, until they're
+ * uploaded; everything else is only a summary synced from the database. Battles from this
+ * device stay marked as local until a sync brings them back, so they never move the point
+ * syncing resumes from past battles other devices saved.
+ *
+ * Layout, big-endian: magic "CSBH" and version, then one record per battle as its length
+ * followed by battle ID, opponent, outcome (each UTF-8 with an int length, -1 for null),
+ * timestamp in milliseconds and a flags byte (pending, local). Pending battles go on with
+ * the plain log, encoded log, player team and opponent team. A record cut short by a crash
+ * is dropped on the next open. Version 2 files, which didn't mark local battles, are read
+ * with every battle counted as local, so the next sync starts over.
+ */
+final class BattleHistoryStore {
+    private static final String TAG = "BattleHistoryStore";
+
+    private static final int MAGIC = 0x43534248; // "CSBH"
+    private static final int VERSION = 3;
+    // The last version without the local flag
+    private static final int VERSION_UNMARKED_LOCAL = 2;
+    private static final int HEADER_BYTES = 8;
+    // Replaced records allowed before the file is rewritten, beyond one per battle
+    private static final int COMPACT_SLACK = 64;
+    // Longer records can only be damage
+    private static final int MAX_RECORD_BYTES = 1024 * 1024;
+    private static final int FLAG_PENDING = 1;
+    private static final int FLAG_LOCAL = 2;
+
+    /**
+     * Newest first, ties broken by battle ID the way the database orders them
+     */
+    static final Comparator<BattleHistory> NEWEST_FIRST = (h1, h2) -> {
+        int order = Long.compare(h2.getTimestamp().getTime(), h1.getTimestamp().getTime());
+        return order != 0 ? order : h2.getBattleId().compareTo(h1.getBattleId());
+    };
+
+    private final File file;
+    private final String userId;
+    private final Map<String, BattleHistory> battles = new HashMap<>();
+    // IDs of the battles not uploaded yet
+    private final Set<String> pending = new HashSet<>();
+    // IDs of the battles saved from this device and not synced back yet, pending included
+    private final Set<String> local = new HashSet<>();
+    // Sorted view of battles, rebuilt after a change
+    private List<BattleHistory> sorted;
+    private int recordCount = 0;
+    private boolean loaded = false;
+    private DataOutputStream out;
+
+    /**
+     * @param file The user's history file, created on the first write
+     * @param userId The user the battles belong to
+     */
+    BattleHistoryStore(File file, String userId) {
+        this.file = file;
+        this.userId = userId;
+    }
+
+    /**
+     * @return Every stored battle, newest first
+     */
+    synchronized List<BattleHistory> getAll() throws IOException {
+        load();
+        if (sorted == null) {
+            List<BattleHistory> list = new ArrayList<>(battles.values());
+            Collections.sort(list, NEWEST_FIRST);
+            sorted = Collections.unmodifiableList(list);
+        }
+        return sorted;
+    }
+
+    /**
+     * @return The newest battle stored by a sync, where the next sync picks up from; null if
+     *         there are none
+     */
+    synchronized BattleHistory getHighWaterMark() throws IOException {
+        for (BattleHistory battleHistory : getAll()) {
+            // A battle from this device may be newer than ones other devices have saved
+            if (!local.contains(battleHistory.getBattleId())) return battleHistory;
+        }
+        return null;
+    }
+
+    /**
+     * @return The battles waiting to be uploaded, oldest first
+     */
+    synchronized List<BattleHistory> getPending() throws IOException {
+        List<BattleHistory> all = getAll();
+        List<BattleHistory> result = new ArrayList<>(pending.size());
+        for (int i = all.size() - 1; i >= 0; i--) {
+            if (pending.contains(all.get(i).getBattleId())) result.add(all.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Add battles from the database, replacing any stored with the same IDs
+     * @param added The battles, at least their summaries
+     */
+    synchronized void putAll(List<BattleHistory> added) throws IOException {
+        write(added, 0);
+    }
+
+    /**
+     * Add a battle played on this device, to be kept with its details until it's uploaded
+     * @param battleHistory The battle, with its log and teams
+     */
+    synchronized void putPending(BattleHistory battleHistory) throws IOException {
+        write(Collections.singletonList(battleHistory), FLAG_PENDING | FLAG_LOCAL);
+    }
+
+    /**
+     * Record that battles are in the database, so only their summaries need keeping. They
+     * stay local until a sync returns them.
+     * @param uploaded The uploaded battles
+     */
+    synchronized void markUploaded(List<BattleHistory> uploaded) throws IOException {
+        load();
+        List<BattleHistory> current = new ArrayList<>(uploaded.size());
+        for (BattleHistory battleHistory : uploaded) {
+            BattleHistory stored = battles.get(battleHistory.getBattleId());
+            if (stored != null && pending.contains(stored.getBattleId())) current.add(stored);
+        }
+        write(current, FLAG_LOCAL);
+    }
+
+    private void write(List<BattleHistory> added, int flags) throws IOException {
+        load();
+        if (added.isEmpty()) return;
+        if (out == null) {
+            out = openForAppend();
+        }
+        for (BattleHistory battleHistory : added) {
+            writeRecord(out, battleHistory, flags);
+            battles.put(battleHistory.getBattleId(), battleHistory);
+            setFlags(battleHistory.getBattleId(), flags);
+            recordCount++;
+        }
+        out.flush();
+        sorted = null;
+
+        if (recordCount > battles.size() * 2 + COMPACT_SLACK) {
+            compact();
+        }
+    }
+
+    private void setFlags(String battleId, int flags) {
+        if ((flags & FLAG_PENDING) != 0) {
+            pending.add(battleId);
+        } else {
+            pending.remove(battleId);
+        }
+        if ((flags & FLAG_LOCAL) != 0) {
+            local.add(battleId);
+        } else {
+            local.remove(battleId);
+        }
+    }
+
+    private int flagsOf(String battleId) {
+        return (pending.contains(battleId) ? FLAG_PENDING : 0) | (local.contains(battleId) ? FLAG_LOCAL : 0);
+    }
+
+    /**
+     * Remove the file and everything in it
+     */
+    synchronized void delete() {
+        closeOutput();
+        battles.clear();
+        pending.clear();
+        local.clear();
+        sorted = null;
+        recordCount = 0;
+        loaded = true;
+        if (file.exists() && !file.delete()) {
+            TraceLog.w(TAG, "Could not delete {}", file);
+        }
+    }
+
+    private void load() throws IOException {
+        if (loaded) return;
+        if (file.exists()) {
+            try {
+                read();
+            } catch (IOException e) {
+                battles.clear();
+                pending.clear();
+                local.clear();
+                recordCount = 0;
+                throw e;
+            }
+        }
+        loaded = true;
+    }
+
+    private void read() throws IOException {
+        long goodLength = HEADER_BYTES;
+        boolean upgrade = false;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            int version = file.length() < HEADER_BYTES || in.readInt() != MAGIC ? -1 : in.readInt();
+            upgrade = version == VERSION_UNMARKED_LOCAL;
+            if (version != VERSION && !upgrade) {
+                // Only ever a copy of the database, start over and sync again
+                TraceLog.w(TAG, "Discarding battle history in an unknown format");
+                closeOutput();
+                file.delete();
+                return;
+            }
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException end) {
+                    break;
+                }
+                if (length < 0 || length > MAX_RECORD_BYTES) {
+                    throw new EOFException("Bad record length " + length);
+                }
+                byte[] record = new byte[length];
+                in.readFully(record);
+                readRecord(record, upgrade);
+                recordCount++;
+                goodLength += 4 + length;
+            }
+        } catch (EOFException e) {
+            // Cut short by a crash mid-write; keep what came before it
+            TraceLog.w(TAG, "Dropping a partial record at offset {} of {}", goodLength, file);
+            try (RandomAccessFile truncate = new RandomAccessFile(file, "rw")) {
+                truncate.setLength(goodLength);
+            }
+        }
+        TraceLog.d(TAG, "Loaded {} battles from {} records", battles.size(), recordCount);
+        if (upgrade) {
+            // Rewritten in the current version, keeping pending battles
+            compact();
+        }
+    }
+
+    private DataOutputStream openForAppend() throws IOException {
+        boolean fresh = !file.exists() || file.length() == 0;
+        DataOutputStream stream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)));
+        if (fresh) {
+            stream.writeInt(MAGIC);
+            stream.writeInt(VERSION);
+        }
+        return stream;
+    }
+
+    private void compact() throws IOException {
+        File temp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream stream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            stream.writeInt(MAGIC);
+            stream.writeInt(VERSION);
+            for (BattleHistory battleHistory : battles.values()) {
+                writeRecord(stream, battleHistory, flagsOf(battleHistory.getBattleId()));
+            }
+        }
+        closeOutput();
+        if (!temp.renameTo(file)) {
+            temp.delete();
+            throw new IOException("Could not replace " + file);
+        }
+        TraceLog.d(TAG, "Compacted {} records to {}", recordCount, battles.size());
+        recordCount = battles.size();
+    }
+
+    private void closeOutput() {
+        if (out == null) return;
+        try {
+            out.close();
+        } catch (IOException e) {
+            TraceLog.w(TAG, "Error closing battle history", e);
+        }
+        out = null;
+    }
+
+    private static void writeRecord(DataOutputStream stream, BattleHistory battleHistory, int flags) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(96);
+        DataOutputStream record = new DataOutputStream(bytes);
+        writeString(record, battleHistory.getBattleId());
+        writeString(record, battleHistory.getOpponentName());
+        writeString(record, battleHistory.getOutcome());
+        record.writeLong(battleHistory.getTimestamp().getTime());
+        record.writeByte(flags);
+        if ((flags & FLAG_PENDING) != 0) {
+            writeString(record, battleHistory.getBattleLog());
+            writeString(record, battleHistory.getEncodedLog());
+            writeString(record, battleHistory.getPlayerTeam());
+            writeString(record, battleHistory.getOpponentTeam());
+        }
+        stream.writeInt(bytes.size());
+        bytes.writeTo(stream);
+    }
+
+    private void readRecord(byte[] record, boolean unmarkedLocal) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+        String battleId = readString(in);
+        String opponentName = readString(in);
+        String outcome = readString(in);
+        Date timestamp = new Date(in.readLong());
+        int flags = in.readByte();
+        if (unmarkedLocal) {
+            // Which battles came from a sync wasn't kept, so trust none of them
+            flags |= FLAG_LOCAL;
+        }
+        boolean isPending = (flags & FLAG_PENDING) != 0;
+        BattleHistory battleHistory = new BattleHistory(battleId, userId, opponentName, outcome,
+                timestamp, null, null, null);
+        if (isPending) {
+            battleHistory.setBattleLog(readString(in));
+            battleHistory.setEncodedLog(readString(in));
+            battleHistory.setPlayerTeam(readString(in));
+            battleHistory.setOpponentTeam(readString(in));
+        } else {
+            // The log and teams are fetched when the battle is expanded
+            battleHistory.setDetailLoaded(false);
+        }
+        setFlags(battleId, flags);
+        battles.put(battleId, battleHistory);
+    }
+
+    private static void writeString(DataOutputStream stream, String value) throws IOException {
+        if (value == null) {
+            stream.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        stream.writeInt(bytes.length);
+        stream.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) return null;
+        if (length > in.available()) throw new EOFException("Bad string length " + length);
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
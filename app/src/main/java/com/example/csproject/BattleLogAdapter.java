@@ -0,0 +1,69 @@
+package com.example.csproject;
+
+import android.graphics.Typeface;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * Shows the battle log ring in a RecyclerView, one row per line, so only the lines on
+ * screen are laid out however long the battle runs.
+ */
+class BattleLogAdapter extends RecyclerView.Adapter<BattleLogAdapter.ViewHolder> {
+
+    private final BattleLogRing ring;
+
+    BattleLogAdapter(BattleLogRing ring) {
+        this.ring = ring;
+        // Entries keep their id while older ones scroll out of the ring
+        setHasStableIds(true);
+    }
+
+    @NonNull
+    @Override
+    public ViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_battle_log, parent, false);
+        return new ViewHolder(view);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
+        holder.textViewLine.setText(ring.getText(position));
+        // The app's own lines are set apart from the battle's
+        boolean local = ring.getType(position) == BattleLogRing.EntryType.LOCAL;
+        holder.textViewLine.setTypeface(null, local ? Typeface.ITALIC : Typeface.NORMAL);
+        holder.textViewLine.setTextColor(holder.itemView.getContext().getResources().getColor(
+                local ? R.color.battle_ui_text_secondary : R.color.battle_ui_text_primary));
+    }
+
+    @Override
+    public int getItemCount() {
+        return ring.size();
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return ring.getId(position);
+    }
+
+    /**
+     * Tell the list what a {@link BattleLogBuffer} flush changed
+     */
+    void onEntriesChanged(int removed, int inserted) {
+        if (removed > 0) notifyItemRangeRemoved(0, removed);
+        notifyItemRangeInserted(ring.size() - inserted, inserted);
+    }
+
+    static class ViewHolder extends RecyclerView.ViewHolder {
+        final TextView textViewLine;
+
+        ViewHolder(@NonNull View itemView) {
+            super(itemView);
+            textViewLine = itemView.findViewById(R.id.textViewLogLine);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.csproject;
+
+import android.view.Choreographer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects battle log lines and moves them into the log at most once per display frame.
+ *
+ * A busy turn adds dozens of lines within a frame; updating the log list for each one
+ * relays it out every time. Lines added here are moved into the {@link BattleLogRing} and
+ * the {@link BattleLogFile} together on the next frame, and the list is told once. The ring
+ * only changes during that flush, so the list never sees entries it wasn't told about.
+ * Main thread only.
+ */
+final class BattleLogBuffer {
+
+    /**
+     * Updates the log list after a flush
+     */
+    interface Sink {
+        /**
+         * @param removed Entries dropped from the start of the ring
+         * @param inserted Entries added at the end of the ring
+         */
+        void onEntriesChanged(int removed, int inserted);
+    }
+
+    /**
+     * Runs a flush on the next display frame
+     */
+    interface FrameScheduler {
+        void schedule(Runnable flush);
+
+        void cancel(Runnable flush);
+    }
+
+    /**
+     * Schedules on the main thread's Choreographer
+     */
+    private static final class ChoreographerScheduler implements FrameScheduler {
+        private Runnable flush;
+        private final Choreographer.FrameCallback frameCallback = frameTimeNanos -> flush.run();
+
+        @Override
+        public void schedule(Runnable flush) {
+            this.flush = flush;
+            Choreographer.getInstance().postFrameCallback(frameCallback);
+        }
+
+        @Override
+        public void cancel(Runnable flush) {
+            Choreographer.getInstance().removeFrameCallback(frameCallback);
+        }
+    }
+
+    private final BattleLogRing ring;
+    private final BattleLogFile file;
+    private final Sink sink;
+    private final FrameScheduler scheduler;
+    private final List<String> pendingTexts = new ArrayList<>();
+    private final List<BattleLogRing.EntryType> pendingTypes = new ArrayList<>();
+    private final StringBuilder fileLines = new StringBuilder(1024);
+    private final Runnable flushFrame = this::flush;
+    private boolean scheduled = false;
+
+    BattleLogBuffer(BattleLogRing ring, BattleLogFile file, Sink sink) {
+        this(ring, file, sink, new ChoreographerScheduler());
+    }
+
+    BattleLogBuffer(BattleLogRing ring, BattleLogFile file, Sink sink, FrameScheduler scheduler) {
+        this.ring = ring;
+        this.file = file;
+        this.sink = sink;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Add a battle message, moved into the log on the next frame
+     * @param line The line, without a trailing newline
+     */
+    void append(String line) {
+        append(BattleLogRing.EntryType.BATTLE, line);
+    }
+
+    /**
+     * Add a line, moved into the log on the next frame
+     * @param type Where the line came from
+     * @param line The line, without a trailing newline
+     */
+    void append(BattleLogRing.EntryType type, String line) {
+        pendingTexts.add(line);
+        pendingTypes.add(type);
+        if (!scheduled) {
+            scheduled = true;
+            scheduler.schedule(flushFrame);
+        }
+    }
+
+    /**
+     * Move any pending lines into the log now, e.g. before reading the whole log
+     */
+    void flush() {
+        if (scheduled) {
+            scheduled = false;
+            scheduler.cancel(flushFrame);
+        }
+        int count = pendingTexts.size();
+        if (count == 0) return;
+
+        TraceLog.beginSection("flushBattleLog");
+        try {
+            int oldSize = ring.size();
+            for (int i = 0; i < count; i++) {
+                String text = pendingTexts.get(i);
+                ring.add(pendingTypes.get(i), text);
+                fileLines.append(text).append('\n');
+            }
+            file.append(fileLines);
+            fileLines.setLength(0);
+
+            // More lines than the ring holds push out some of their own batch as well
+            int inserted = Math.min(count, ring.getCapacity());
+            int removed = oldSize + inserted - ring.size();
+            sink.onEntriesChanged(removed, inserted);
+        } finally {
+            TraceLog.endSection();
+        }
+        pendingTexts.clear();
+        pendingTypes.clear();
+    }
+
+    /**
+     * Drop pending lines without writing them, e.g. when the activity is destroyed
+     */
+    void clear() {
+        if (scheduled) {
+            scheduled = false;
+            scheduler.cancel(flushFrame);
+        }
+        pendingTexts.clear();
+        pendingTypes.clear();
+    }
+}
@@ -0,0 +1,372 @@
+package com.example.csproject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compact binary form of a battle log, for storing it with the battle's history.
+ *
+ * The log is almost entirely lines the parser builds from a few dozen templates, such as
+ * "⚡ {} used {}!". Each line is stored as the template's opcode followed by its arguments,
+ * and lines that don't fit a template are stored whole under opcode 0. Arguments are
+ * mostly Pokémon and move names that repeat all battle, so each distinct string is written
+ * once and then referred to by its index in the log's dictionary; numbers are written as
+ * varints. The result can be deflated as well when that makes it smaller.
+ *
+ * Layout: a version byte, a flags byte, then the (possibly deflated) body: the line count
+ * and the lines, all as unsigned LEB128 varints. Each argument starts with a varint whose
+ * low two bits say what follows:
+ * <ul>
+ *     <li>0: a new string, the rest is its UTF-8 length, followed by the bytes</li>
+ *     <li>1: the rest is the dictionary index of a string seen before</li>
+ *     <li>2: the rest is a non-negative number written in decimal in the text</li>
+ * </ul>
+ * Decoding gives back exactly the text that was encoded.
+ */
+final class BattleLogCodec {
+    static final int VERSION = 1;
+    static final int FLAG_DEFLATED = 1;
+
+    private static final int KIND_NEW = 0;
+    private static final int KIND_REF = 1;
+    private static final int KIND_NUMBER = 2;
+
+    // The longest number written as a varint; longer digit runs are kept as strings
+    private static final int MAX_NUMBER_DIGITS = 18;
+
+    // Opcode n is TEMPLATES[n - 1]. Append only, the opcodes are stored.
+    // Where two templates can match a line, the more specific one comes first.
+    private static final String[] TEMPLATES = {
+        "⏱️ Turn {}",
+        "⚡ {} used {}!",
+        "🔄 Go! {}!",
+        "🔄 {} was dragged out!",
+        "🔄 The opposing {} was sent out!",
+        "✨ {} terastallized into {} type!",
+        "💢 {} took damage! ({}% damage)",
+        "💢 {} took damage!",
+        "☠️ {} was hurt by poison! ({}% damage)",
+        "☠️ {} was hurt by poison!",
+        "🔥 {} was hurt by its burn! ({}% damage)",
+        "🔥 {} was hurt by its burn!",
+        "😵 {} hurt itself in confusion! ({}% damage)",
+        "😵 {} hurt itself in confusion!",
+        "💥 {} was damaged by the recoil! ({}% damage)",
+        "💥 {} was damaged by the recoil!",
+        "💊 {} restored a little HP using its Leftovers!",
+        "💚 {} restored its health!",
+        "💀 {} fainted!",
+        "⚠️ A critical hit!",
+        "✨ It's super effective!",
+        "🛡️ It's not very effective...",
+        "🛑 It doesn't affect {}...",
+        "❌ The attack missed!",
+        "{} protected itself!",
+        "But it failed!",
+        "⌛ Waiting for opponent...",
+        "🏆 You won the battle against {}!",
+        "😔 You lost the battle against {}!",
+        "🤝 The battle ended in a tie!",
+        "🏆 {}",
+        "🎮 [{}]",
+        "🎮 Battle started in lobby: {}",
+        "🎮 Found a battle! Waiting for it to start...",
+        "🔍 Searching for a battle...",
+        "⭐ Rated battle",
+        "📜 {}",
+        "🚀 Battle started between you and your opponent!",
+        "🚀 Battle started between your opponent and you!",
+        "⏰ Battle timer is ON: {}",
+        // Lines the app adds itself
+        "You chose: {}",
+        "You switched to: {}",
+        "Searching for an opponent...",
+        "You canceled your action.",
+    };
+
+    // Each template split around its "{}"s
+    private static final String[][] SEGMENTS = new String[TEMPLATES.length][];
+    static {
+        for (int i = 0; i < TEMPLATES.length; i++) {
+            SEGMENTS[i] = TEMPLATES[i].split("\\{}", -1);
+        }
+    }
+
+    private BattleLogCodec() {
+    }
+
+    /**
+     * Encode a log
+     * @param log The log text, lines separated by '\n'
+     * @param deflate Whether to deflate the body if that makes it smaller
+     * @return The encoded log
+     */
+    static byte[] encode(String log, boolean deflate) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream(log.length() / 4 + 16);
+        Map<String, Integer> dictionary = new HashMap<>();
+        String[] args = new String[maxArgs()];
+
+        // Keeps a trailing empty line, so a final '\n' survives the round trip
+        String[] lines = log.split("\n", -1);
+        writeVarint(body, lines.length);
+        for (String line : lines) {
+            int opcode = match(line, args);
+            writeVarint(body, opcode);
+            if (opcode == 0) {
+                writeArg(body, line, dictionary);
+            } else {
+                int argCount = SEGMENTS[opcode - 1].length - 1;
+                for (int i = 0; i < argCount; i++) {
+                    writeArg(body, args[i], dictionary);
+                }
+            }
+        }
+
+        byte[] bodyBytes = body.toByteArray();
+        int flags = 0;
+        if (deflate) {
+            byte[] deflated = deflate(bodyBytes);
+            if (deflated.length < bodyBytes.length) {
+                bodyBytes = deflated;
+                flags |= FLAG_DEFLATED;
+            }
+        }
+
+        byte[] out = new byte[bodyBytes.length + 2];
+        out[0] = (byte) VERSION;
+        out[1] = (byte) flags;
+        System.arraycopy(bodyBytes, 0, out, 2, bodyBytes.length);
+        return out;
+    }
+
+    /**
+     * Decode a log made by {@link #encode}
+     * @return The log text
+     * @throws IOException if the data is truncated, corrupt or from a newer version
+     */
+    static String decode(byte[] data) throws IOException {
+        if (data.length < 2) throw new EOFException("Missing header");
+        if (data[0] != VERSION) throw new IOException("Unsupported battle log version " + data[0]);
+
+        byte[] bodyBytes;
+        if ((data[1] & FLAG_DEFLATED) != 0) {
+            bodyBytes = inflate(data, 2);
+        } else {
+            bodyBytes = new byte[data.length - 2];
+            System.arraycopy(data, 2, bodyBytes, 0, bodyBytes.length);
+        }
+
+        Reader in = new Reader(bodyBytes);
+        List<String> dictionary = new ArrayList<>();
+        int lineCount = in.readCount();
+        StringBuilder log = new StringBuilder(lineCount * 32);
+        for (int line = 0; line < lineCount; line++) {
+            if (line > 0) log.append('\n');
+            long opcode = in.readVarint();
+            if (opcode == 0) {
+                readArg(in, dictionary, log);
+            } else if (opcode > 0 && opcode <= TEMPLATES.length) {
+                String[] segments = SEGMENTS[(int) opcode - 1];
+                log.append(segments[0]);
+                for (int i = 1; i < segments.length; i++) {
+                    readArg(in, dictionary, log);
+                    log.append(segments[i]);
+                }
+            } else {
+                throw new IOException("Unknown battle log opcode " + opcode);
+            }
+        }
+        if (in.remaining() != 0) throw new IOException("Trailing bytes after battle log");
+        return log.toString();
+    }
+
+    private static int maxArgs() {
+        int max = 1;
+        for (String[] segments : SEGMENTS) {
+            max = Math.max(max, segments.length - 1);
+        }
+        return max;
+    }
+
+    /**
+     * Find the first template that fits a line
+     * @param args Receives the template's arguments
+     * @return The opcode, or 0 if no template fits
+     */
+    private static int match(String line, String[] args) {
+        for (int t = 0; t < SEGMENTS.length; t++) {
+            if (matchTemplate(line, SEGMENTS[t], args)) return t + 1;
+        }
+        return 0;
+    }
+
+    private static boolean matchTemplate(String line, String[] segments, String[] args) {
+        String first = segments[0];
+        String last = segments[segments.length - 1];
+        if (segments.length == 1) return line.equals(first);
+        if (line.length() < first.length() + last.length()) return false;
+        if (!line.startsWith(first) || !line.endsWith(last)) return false;
+
+        int end = line.length() - last.length();
+        int pos = first.length();
+        for (int i = 1; i < segments.length - 1; i++) {
+            int found = line.indexOf(segments[i], pos);
+            if (found < 0 || found + segments[i].length() > end) return false;
+            args[i - 1] = line.substring(pos, found);
+            pos = found + segments[i].length();
+        }
+        args[segments.length - 2] = line.substring(pos, end);
+        return true;
+    }
+
+    private static void writeArg(ByteArrayOutputStream out, String arg, Map<String, Integer> dictionary) {
+        if (isNumber(arg)) {
+            writeVarint(out, (Long.parseLong(arg) << 2) | KIND_NUMBER);
+            return;
+        }
+        Integer index = dictionary.get(arg);
+        if (index != null) {
+            writeVarint(out, ((long) index << 2) | KIND_REF);
+            return;
+        }
+        dictionary.put(arg, dictionary.size());
+        byte[] bytes = arg.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, ((long) bytes.length << 2) | KIND_NEW);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static void readArg(Reader in, List<String> dictionary, StringBuilder log) throws IOException {
+        long header = in.readVarint();
+        long value = header >>> 2;
+        switch ((int) (header & 3)) {
+            case KIND_NEW:
+                String text = in.readString(value);
+                dictionary.add(text);
+                log.append(text);
+                break;
+            case KIND_REF:
+                if (value >= dictionary.size()) throw new IOException("Bad dictionary index " + value);
+                log.append(dictionary.get((int) value));
+                break;
+            case KIND_NUMBER:
+                log.append(value);
+                break;
+            default:
+                throw new IOException("Bad argument kind in " + header);
+        }
+    }
+
+    /**
+     * @return Whether the text is a number that prints back the same, without a sign or
+     * leading zeros
+     */
+    private static boolean isNumber(String text) {
+        int length = text.length();
+        if (length == 0 || length > MAX_NUMBER_DIGITS) return false;
+        if (length > 1 && text.charAt(0) == '0') return false;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') return false;
+        }
+        return true;
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static byte[] deflate(byte[] bytes) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+        try {
+            deflater.setInput(bytes);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 2 + 16);
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                int count = deflater.deflate(buffer);
+                out.write(buffer, 0, count);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] data, int offset) throws IOException {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(data, offset, data.length - offset);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length * 4);
+            byte[] buffer = new byte[4096];
+            while (!inflater.finished()) {
+                int count = inflater.inflate(buffer);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new EOFException("Truncated battle log");
+                }
+                out.write(buffer, 0, count);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt battle log", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Reads varints and strings from the body
+     */
+    private static final class Reader {
+        private final byte[] bytes;
+        private int pos = 0;
+
+        Reader(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        long readVarint() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                if (pos >= bytes.length) throw new EOFException("Truncated battle log");
+                int b = bytes[pos++];
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return value;
+            }
+            throw new IOException("Varint too long");
+        }
+
+        /**
+         * A varint counting things that take at least a byte each, so it can't be larger
+         * than the body
+         */
+        int readCount() throws IOException {
+            long value = readVarint();
+            if (value < 0 || value > bytes.length) throw new IOException("Bad count " + value);
+            return (int) value;
+        }
+
+        String readString(long length) throws IOException {
+            if (length > remaining()) throw new EOFException("Truncated battle log");
+            String text = new String(bytes, pos, (int) length, StandardCharsets.UTF_8);
+            pos += (int) length;
+            return text;
+        }
+
+        int remaining() {
+            return bytes.length - pos;
+        }
+    }
+}
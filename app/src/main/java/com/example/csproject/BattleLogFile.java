@@ -0,0 +1,144 @@
+package com.example.csproject;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * The complete battle log on disk, for saving the battle to history once it's over.
+ *
+ * The log view only keeps the latest entries in memory, so every line is also appended
+ * here. Writes happen in order on a background thread; {@link #readLater} queues a read
+ * behind the ones already queued, so the main thread never waits on the file. The file is
+ * started over for each battle.
+ */
+final class BattleLogFile {
+    private static final String TAG = "BattleLogFile";
+
+    private final File file;
+    private final Executor io;
+    // Only touched on the io thread
+    private Writer writer;
+    // After a write error
+    private boolean stopped = false;
+    // Set by close() on the calling thread
+    private volatile boolean closed = false;
+
+    /**
+     * Start a log in a file, writing on a thread of its own
+     */
+    BattleLogFile(File file) {
+        this(file, Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "BattleLogFile");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    /**
+     * @param io Runs the writes one at a time, in order
+     */
+    BattleLogFile(File file, Executor io) {
+        this.file = file;
+        this.io = io;
+    }
+
+    /**
+     * Queue lines to be appended
+     * @param lines One or more lines, each ending in '\n'
+     */
+    void append(CharSequence lines) {
+        if (closed) return;
+        String text = lines.toString();
+        io.execute(() -> write(text));
+    }
+
+    /**
+     * Read the whole log, after any appends already queued. Blocks until they're written.
+     * @return The log text
+     */
+    String read() throws IOException {
+        return await(readLater());
+    }
+
+    /**
+     * Queue a read of the whole log, after any appends already queued. Returns straight
+     * away, and the read still happens if the log is closed before it runs.
+     * @return The log text, once read; wait for it with {@link #await}
+     */
+    Future<String> readLater() throws IOException {
+        if (closed) throw new IOException("Battle log is closed");
+        FutureTask<String> task = new FutureTask<>(() -> {
+            // Nothing written yet; the file still holds the previous battle
+            if (writer == null) return "";
+            writer.flush();
+            return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        });
+        io.execute(task);
+        return task;
+    }
+
+    /**
+     * Wait for a read queued by {@link #readLater}. Blocks, so not on the main thread.
+     * @return The log text
+     */
+    static String await(Future<String> read) throws IOException {
+        try {
+            return read.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            throw new IOException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted reading the battle log", e);
+        }
+    }
+
+    /**
+     * Finish writing and close the file. Lines appended afterwards are dropped, and the log
+     * can't be read anymore.
+     */
+    void close() {
+        if (closed) return;
+        closed = true;
+        io.execute(() -> {
+            if (writer == null) return;
+            try {
+                writer.close();
+            } catch (IOException e) {
+                TraceLog.e(TAG, "Error closing battle log", e);
+            }
+            writer = null;
+        });
+        if (io instanceof ExecutorService) {
+            ((ExecutorService) io).shutdown();
+        }
+    }
+
+    private void write(String text) {
+        if (stopped) return;
+        try {
+            if (writer == null) {
+                // Replaces the previous battle's log
+                writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8));
+            }
+            writer.write(text);
+        } catch (IOException e) {
+            // Losing the saved log shouldn't interrupt the battle, so stop writing and move on
+            TraceLog.e(TAG, "Error writing battle log", e);
+            stopped = true;
+        }
+    }
+}
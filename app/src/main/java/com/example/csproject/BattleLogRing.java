@@ -0,0 +1,86 @@
+package com.example.csproject;
+
+/**
+ * The most recent battle log entries, in a fixed-size ring.
+ *
+ * Adding to a full ring overwrites the oldest entry, so a long battle keeps a constant
+ * amount of log in memory; the complete log is in the {@link BattleLogFile}. Every entry
+ * gets an id from a running count, which stays the same while it moves up the ring and is
+ * never reused, for the log list's stable ids. Main thread only.
+ */
+final class BattleLogRing {
+
+    /**
+     * Where an entry came from, which decides how it's shown
+     */
+    enum EntryType {
+        // A message from the battle
+        BATTLE,
+        // Something the app or the player did, e.g. "Searching for an opponent..."
+        LOCAL
+    }
+
+    private final String[] texts;
+    private final EntryType[] types;
+    // Entries ever added; the newest is at (added - 1) % capacity
+    private long added = 0;
+
+    BattleLogRing(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive");
+        texts = new String[capacity];
+        types = new EntryType[capacity];
+    }
+
+    /**
+     * Add an entry after the newest one
+     * @return true if the oldest entry was dropped to make room
+     */
+    boolean add(EntryType type, String text) {
+        int index = (int) (added % texts.length);
+        texts[index] = text;
+        types[index] = type;
+        added++;
+        return added > texts.length;
+    }
+
+    /**
+     * @return The number of entries held, at most the capacity
+     */
+    int size() {
+        return (int) Math.min(added, texts.length);
+    }
+
+    int getCapacity() {
+        return texts.length;
+    }
+
+    /**
+     * @param position 0 for the oldest entry held
+     */
+    String getText(int position) {
+        return texts[index(position)];
+    }
+
+    EntryType getType(int position) {
+        return types[index(position)];
+    }
+
+    /**
+     * @return The entry's id, its number in the whole log counting from 0
+     */
+    long getId(int position) {
+        checkPosition(position);
+        return added - size() + position;
+    }
+
+    private int index(int position) {
+        checkPosition(position);
+        return (int) ((added - size() + position) % texts.length);
+    }
+
+    private void checkPosition(int position) {
+        if (position < 0 || position >= size()) {
+            throw new IndexOutOfBoundsException("position " + position + ", size " + size());
+        }
+    }
+}
@@ -2,11 +2,6 @@ package com.example.csproject;
 
 import android.animation.ValueAnimator;
 import android.app.Activity;
-import android.content.Context;
-import android.graphics.drawable.Drawable;
-import android.os.Handler;
-import android.os.Looper;
-import android.util.Log;
 import android.view.Choreographer;
 import android.view.View;
 import android.view.animation.AccelerateDecelerateInterpolator;
@@ -16,20 +11,9 @@ import android.widget.ProgressBar;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
-import androidx.annotation.Nullable;
 
-import com.bumptech.glide.Glide;
-import com.bumptech.glide.load.DataSource;
-import com.bumptech.glide.load.engine.GlideException;
 import com.bumptech.glide.load.resource.drawable.DrawableTransitionOptions;
-import com.bumptech.glide.request.RequestListener;
 import com.bumptech.glide.request.RequestOptions;
-import com.bumptech.glide.request.target.Target;
-
-import java.util.HashMap;
-import java.util.Map;
-
-import org.json.JSONObject;
 
 /**
  * Manager class for handling battle state and UI updates
@@ -47,8 +31,7 @@ public class BattleManager implements ShowdownWebSocketClient.BattleDataCallback
     private final Activity activity;
     
     // Battle data
-    private final Map<String, PokemonBattleData> activePokemon = new HashMap<>();
-    private int playerSlot = 1; // Default to p1, will be updated based on the request JSON
+    private final BattleState state = new BattleState();
     
     /**
      * Create a new BattleManager
@@ -78,8 +61,8 @@ public class BattleManager implements ShowdownWebSocketClient.BattleDataCallback
      */
     @Override
     public void onPlayerSlotSet(int slot) {
-        Log.d(TAG, "Player slot set to: " + slot);
-        this.playerSlot = slot;
+        TraceLog.d(TAG, "Player slot set to: {}", slot);
+        state.setPlayerSlot(slot);
         // Update UI immediately in case we already have Pokemon data
         updateUI();
     }
@@ -96,18 +79,17 @@ public class BattleManager implements ShowdownWebSocketClient.BattleDataCallback
     
     /**
      * Handle a Pokémon switch event
-     * @param position The position identifier (e.g., "p1a", "p2a")
-     * @param pokemonName The Pokémon's name
-     * @param details The details string from the protocol
-     * @param hpStatus The HP status string from the protocol
+     * @param event The switch event with the Pokémon's details and HP already parsed
      */
     @Override
-    public void onPokemonSwitch(String position, String pokemonName, String details, String hpStatus) {
-        Log.d(TAG, "Switch: " + position + " " + pokemonName + " " + details + " " + hpStatus);
+    public void onPokemonSwitch(BattleEvent.Switch event) {
+        TraceLog.d(TAG, "Switch: {} {} {}", event.getPosition(), event.getName(), event.getDetails());
+        
+        // Play the Pokémon's cry when it's switched in
+        SoundManager.getInstance(activity).playPokemonCry(event.getSpeciesId(), event.getSpecies());
         
         // Create or update the Pokémon data
-        PokemonBattleData pokemon = new PokemonBattleData(position, pokemonName, details, hpStatus);
-        activePokemon.put(position, pokemon);
+        state.applySwitch(event);
         
         // Update UI based on whether this is the player's or opponent's Pokémon
         updateUI();
@@ -115,26 +97,28 @@ public class BattleManager implements ShowdownWebSocketClient.BattleDataCallback
     
     /**
      * Handle an HP change event
-     * @param position The position identifier (e.g., "p1a", "p2a")
-     * @param hpStatus The HP status string from the protocol
+     * @param event The damage or heal event
      */
     @Override
-    public void onHPChange(String position, String hpStatus) {
-        Log.d(TAG, "HP Change: " + position + " " + hpStatus);
+    public void onHPChange(BattleEvent.HpChange event) {
+        BattlePosition position = event.getPosition();
+        if (TraceLog.isDebugEnabled()) {
+            TraceLog.d(TAG, "HP Change: {} {}/{}", position, event.getHp(), event.getMaxHp());
+        }
         
-        PokemonBattleData pokemon = activePokemon.get(position);
+        PokemonBattleData pokemon = state.getPokemon(position);
         if (pokemon != null) {
             // Store old HP percentage for animation
             int oldHPPercentage = pokemon.getHPPercentage();
             
             // Update HP
-            pokemon.updateHP(hpStatus);
+            state.applyHPChange(event);
             
             // Get new HP percentage
             int newHPPercentage = pokemon.getHPPercentage();
             
             // Check if this is the player's Pokémon and if health is now low
-            boolean isPlayerPokemon = position.startsWith("p" + playerSlot);
+            boolean isPlayerPokemon = position.isSide(state.getPlayerSlot());
             if (isPlayerPokemon && oldHPPercentage > 20 && newHPPercentage <= 20) {
                 // Play low health sound when health becomes critical
                 SoundManager soundManager = SoundManager.getInstance(activity);
@@ -142,38 +126,31 @@ public class BattleManager implements ShowdownWebSocketClient.BattleDataCallback
             
             updateUI(oldHPPercentage, position);
         } else {
-            Log.w(TAG, "Tried to update HP for unknown Pokemon at position: " + position);
+            TraceLog.w(TAG, "Tried to update HP for unknown Pokemon at position: {}", position);
         }
     }
     
     /**
      * Handle a faint event
-     * @param position The position identifier (e.g., "p1a", "p2a")
+     * @param event The faint event
      */
     @Override
-    public void onFaint(String position) {
-        Log.d(TAG, "Pokémon fainted at position: " + position);
+    public void onFaint(BattleEvent.Faint event) {
+        BattlePosition position = event.getPosition();
+        TraceLog.d(TAG, "Pokémon fainted at position: {}", position);
         
-        // Update the battle data to reflect the fainted Pokémon
-        if (activePokemon.containsKey(position)) {
-            PokemonBattleData pokemon = activePokemon.get(position);
-            if (pokemon != null) {
-                // Mark the Pokémon as fainted
-                pokemon.setFainted();
-                
-                // Play faint sound effect
-                SoundManager soundManager = SoundManager.getInstance(activity);
+        // Mark the Pokémon as fainted
+        PokemonBattleData pokemon = state.applyFaint(event);
+        if (pokemon != null) {
+            // Play faint sound effect
+            SoundManager soundManager = SoundManager.getInstance(activity);
 
-                // Play the Pokémon's cry by its name
-                String pokemonName = pokemon.getName();
-                if (pokemonName != null && !pokemonName.isEmpty()) {
-                    soundManager.playPokemonCryByName(pokemonName);
-                    Log.d(TAG, "Playing fainted cry for: " + pokemonName);
-                }
-                
-                // Update the UI to reflect the fainted Pokémon
-                activity.runOnUiThread(this::updateUI);
-            }
+            // Play the Pokémon's cry by its species
+            soundManager.playPokemonCry(pokemon.getSpeciesId(), pokemon.getSpecies());
+            TraceLog.d(TAG, "Playing fainted cry for: {}", pokemon.getSpecies());
+            
+            // Update the UI to reflect the fainted Pokémon
+            activity.runOnUiThread(this::updateUI);
         }
     }
     
@@ -182,10 +159,10 @@ public class BattleManager implements ShowdownWebSocketClient.BattleDataCallback
      */
     @Override
     public void onBattleStart() {
-        Log.d(TAG, "Battle started!");
+        TraceLog.d(TAG, "Battle started!");
         
         // Clear any existing battle data
-        activePokemon.clear();
+        state.reset();
         
         // Update UI to show battle is starting
         activity.runOnUiThread(() -> {
@@ -222,20 +199,19 @@ public class BattleManager implements ShowdownWebSocketClient.BattleDataCallback
     @Override
     public void onTurnChange(int turnNumber) {
         // Handle turn changes in the battle manager
-        Log.d(TAG, "Turn changed to: " + turnNumber);
-        
-        // We can add any battle state updates needed for turn changes here
+        TraceLog.d(TAG, "Turn changed to: {}", turnNumber);
+        state.setTurn(turnNumber);
     }
     
     /**
      * Called when a new request is received from the server
-     * @param requestJson The JSON object containing the request data
+     * @param request The decoded request
      */
     @Override
-    public void onRequest(org.json.JSONObject requestJson) {
+    public void onRequest(RequestSnapshot request) {
         // BattleManager doesn't need to handle requests directly
         // The BattleActivity handles the request processing
-        Log.d(TAG, "Request received in BattleManager, forwarding to BattleActivity");
+        TraceLog.d(TAG, "Request received in BattleManager, forwarding to BattleActivity");
     }
     
     /**
@@ -250,24 +226,25 @@ public class BattleManager implements ShowdownWebSocketClient.BattleDataCallback
      * @param oldHPPercentage The previous HP percentage for animation, or -1 if no animation
      * @param changedPosition The position that changed, or null if not applicable
      */
-    private void updateUI(int oldHPPercentage, String changedPosition) {
+    private void updateUI(int oldHPPercentage, BattlePosition changedPosition) {
         // Find player and opponent Pokémon
-        final PokemonBattleData playerPokemon = findPokemonByPosition("p" + playerSlot + "a");
-        final PokemonBattleData opponentPokemon = findPokemonByPosition("p" + (3 - playerSlot) + "a");
+        final int playerSlot = state.getPlayerSlot();
+        final PokemonBattleData playerPokemon = state.getPlayerPokemon();
+        final PokemonBattleData opponentPokemon = state.getOpponentPokemon();
         
-        Log.d(TAG, "Updating UI - Player slot: " + playerSlot);
-        Log.d(TAG, "Active Pokemon: " + activePokemon.keySet());
+        TraceLog.d(TAG, "Updating UI - Player slot: {}", playerSlot);
+        TraceLog.d(TAG, "Active Pokemon: {}", state.getActivePositions());
         
         // Run UI updates on the main thread
         activity.runOnUiThread(() -> {
             // Update player Pokémon info
             if (playerPokemon != null) {
-                Log.d(TAG, "Player Pokemon: " + playerPokemon.getName() + " HP: " + playerPokemon.getHPPercentage() + "%");
+                TraceLog.d(TAG, "Player Pokemon: {} HP: {}%", playerPokemon.getName(), playerPokemon.getHPPercentage());
                 playerPokemonInfo.setText(playerPokemon.getName() + " Lv." + playerPokemon.getLevel());
                 
                 // Determine if this Pokémon's HP changed
                 boolean animatePlayerHP = changedPosition != null && 
-                                         changedPosition.startsWith("p" + playerSlot) && 
+                                         changedPosition.isSide(playerSlot) && 
                                          oldHPPercentage >= 0;
                 
                 // Update health bar color based on health percentage
@@ -281,22 +258,22 @@ public class BattleManager implements ShowdownWebSocketClient.BattleDataCallback
                 }
                 
                 // Only load player sprite if the ImageView is empty or if this is a new Pokémon
-                if (playerSprite.getTag() == null || !playerPokemon.getName().equals(playerSprite.getTag().toString())) {
-                    loadPokemonSprite(playerPokemon.getName(), true);
-                    playerSprite.setTag(playerPokemon.getName());
+                if (playerSprite.getTag() == null || !playerPokemon.getSpeciesId().equals(playerSprite.getTag().toString())) {
+                    loadPokemonSprite(playerPokemon, true);
+                    playerSprite.setTag(playerPokemon.getSpeciesId());
                 }
             } else {
-                Log.d(TAG, "No player Pokemon found at position p" + playerSlot + "a");
+                TraceLog.d(TAG, "No player Pokemon found at position p{}a", playerSlot);
             }
             
             // Update opponent Pokémon info
             if (opponentPokemon != null) {
-                Log.d(TAG, "Opponent Pokemon: " + opponentPokemon.getName() + " HP: " + opponentPokemon.getHPPercentage() + "%");
+                TraceLog.d(TAG, "Opponent Pokemon: {} HP: {}%", opponentPokemon.getName(), opponentPokemon.getHPPercentage());
                 opponentPokemonInfo.setText(opponentPokemon.getName() + " Lv." + opponentPokemon.getLevel());
                 
                 // Determine if this Pokémon's HP changed
                 boolean animateOpponentHP = changedPosition != null && 
-                                           changedPosition.startsWith("p" + (3 - playerSlot)) && 
+                                           changedPosition.isSide(3 - playerSlot) && 
                                            oldHPPercentage >= 0;
                 
                 // Update health bar color based on health percentage
@@ -310,159 +287,25 @@ public class BattleManager implements ShowdownWebSocketClient.BattleDataCallback
                 }
                 
                 // Only load opponent sprite if the ImageView is empty or if this is a new Pokémon
-                if (opponentSprite.getTag() == null || !opponentPokemon.getName().equals(opponentSprite.getTag().toString())) {
-                    loadPokemonSprite(opponentPokemon.getName(), false);
-                    opponentSprite.setTag(opponentPokemon.getName());
+                if (opponentSprite.getTag() == null || !opponentPokemon.getSpeciesId().equals(opponentSprite.getTag().toString())) {
+                    loadPokemonSprite(opponentPokemon, false);
+                    opponentSprite.setTag(opponentPokemon.getSpeciesId());
                 }
             } else {
-                Log.d(TAG, "No opponent Pokemon found at position p" + (3 - playerSlot) + "a");
+                TraceLog.d(TAG, "No opponent Pokemon found at position p{}a", (3 - playerSlot));
             }
         });
     }
     
-    /**
-     * Find a Pokémon by its position
-     * @param positionPrefix The position prefix to search for
-     * @return The Pokémon at the specified position, or null if not found
-     */
-    private PokemonBattleData findPokemonByPosition(String positionPrefix) {
-        // Direct lookup first
-        PokemonBattleData pokemon = activePokemon.get(positionPrefix);
-        if (pokemon != null) {
-            return pokemon;
-        }
-        
-        // If direct lookup fails, try to match by prefix
-        for (Map.Entry<String, PokemonBattleData> entry : activePokemon.entrySet()) {
-            String key = entry.getKey();
-            // Check if the key starts with the position prefix (p1a or p2a)
-            // or if it's a variant with extra characters (p1aa or p2aa)
-            if (key.startsWith(positionPrefix) || 
-                (positionPrefix.length() == 3 && key.startsWith(positionPrefix.substring(0, 2)) && key.contains(positionPrefix.substring(2)))) {
-                return entry.getValue();
-            }
-        }
-        
-        return null;
-    }
-    
     /**
      * Load a Pokémon sprite into the appropriate ImageView
-     * @param pokemonName The name of the Pokémon
+     * @param pokemon The Pokémon, looked up by its stored species id
      * @param isPlayer Whether this is the player's Pokémon or not
      */
-    public void loadPokemonSprite(String pokemonName, boolean isPlayer) {
-        if (pokemonName == null || pokemonName.isEmpty()) {
-            return;
-        }
-        
-        Context context = activity.getApplicationContext();
+    public void loadPokemonSprite(PokemonBattleData pokemon, boolean isPlayer) {
         ImageView targetView = isPlayer ? playerSprite : opponentSprite;
-        
-        // Format the Pokémon name for the URL
-        String formattedName = pokemonName.toLowerCase()
-                .replace(" ", "")
-                .replace("-", "")
-                .replace(".", "")
-                .replace("'", "")
-                .replace(":", "");
-        
-        // Special handling for paradox Pokémon
-        if (pokemonName.contains("Walking Wake") || pokemonName.contains("WalkingWake")) {
-            formattedName = "walkingwake";
-        } else if (pokemonName.contains("Iron Leaves") || pokemonName.contains("IronLeaves")) {
-            formattedName = "ironleaves";
-        } else if (pokemonName.contains("Iron Moth") || pokemonName.contains("IronMoth")) {
-            formattedName = "ironmoth";
-        } else if (pokemonName.contains("Iron Hands") || pokemonName.contains("IronHands")) {
-            formattedName = "ironhands";
-        } else if (pokemonName.contains("Iron Jugulis") || pokemonName.contains("IronJugulis")) {
-            formattedName = "ironjugulis";
-        } else if (pokemonName.contains("Iron Thorns") || pokemonName.contains("IronThorns")) {
-            formattedName = "ironthorns";
-        } else if (pokemonName.contains("Iron Bundle") || pokemonName.contains("IronBundle")) {
-            formattedName = "ironbundle";
-        } else if (pokemonName.contains("Iron Valiant") || pokemonName.contains("IronValiant")) {
-            formattedName = "ironvaliant";
-        } else if (pokemonName.contains("Roaring Moon") || pokemonName.contains("RoaringMoon")) {
-            formattedName = "roaringmoon";
-        } else if (pokemonName.contains("Great Tusk") || pokemonName.contains("GreatTusk")) {
-            formattedName = "greattusk";
-        } else if (pokemonName.contains("Scream Tail") || pokemonName.contains("ScreamTail")) {
-            formattedName = "screamtail";
-        } else if (pokemonName.contains("Brute Bonnet") || pokemonName.contains("BruteBonnet")) {
-            formattedName = "brutebonnet";
-        } else if (pokemonName.contains("Flutter Mane") || pokemonName.contains("FlutterMane")) {
-            formattedName = "fluttermane";
-        } else if (pokemonName.contains("Slither Wing") || pokemonName.contains("SlitherWing")) {
-            formattedName = "slitherwing";
-        } else if (pokemonName.contains("Sandy Shocks") || pokemonName.contains("SandyShocks")) {
-            formattedName = "sandyshocks";
-        }
-        
-        Log.d(TAG, "Loading sprite for " + (isPlayer ? "player" : "opponent") + ": " + pokemonName + " (formatted: " + formattedName + ")");
-        
-        // Construct the sprite URL - player sprites are back view, opponent sprites are front view
-        String spriteUrl = isPlayer ? 
-                "https://play.pokemonshowdown.com/sprites/ani-back/" + formattedName + ".gif" : 
-                "https://play.pokemonshowdown.com/sprites/ani/" + formattedName + ".gif";
-        
-        String finalSpriteUrl = spriteUrl;
-        String finalFormattedName = formattedName;
-        
-        // Use a handler for posting to the main thread
-        final Handler mainHandler = new Handler(Looper.getMainLooper());
-        
-        Glide.with(context)
-            .load(spriteUrl)
-            .listener(new RequestListener<Drawable>() {
-                @Override
-                public boolean onLoadFailed(@Nullable GlideException e, Object model, Target<Drawable> target, boolean isFirstResource) {
-                    Log.e("BattleManager", "Failed to load sprite from " + finalSpriteUrl + ": " + (e != null ? e.getMessage() : "unknown error"));
-                    
-                    // Try a backup URL with a different format - use Handler to post to main thread
-                    mainHandler.post(() -> {
-                        // Try gen5 sprites first (they have better support for newer Pokémon)
-                        String backupUrl = isPlayer ?
-                                "https://play.pokemonshowdown.com/sprites/gen5-back/" + finalFormattedName + ".png" :
-                                "https://play.pokemonshowdown.com/sprites/gen5/" + finalFormattedName + ".png";
-                        
-                        Glide.with(context)
-                            .load(backupUrl)
-                            .listener(new RequestListener<Drawable>() {
-                                @Override
-                                public boolean onLoadFailed(@Nullable GlideException e, Object model, Target<Drawable> target, boolean isFirstResource) {
-                                    Log.e("BattleManager", "Failed to load gen5 sprite, trying dex sprites: " + backupUrl);
-                                    
-                                    // Try dex sprites as a last resort
-                                    String dexUrl = "https://play.pokemonshowdown.com/sprites/dex/" + finalFormattedName + ".png";
-                                    
-                                    Glide.with(context)
-                                        .load(dexUrl)
-                                        .error(R.drawable.ic_launcher_foreground) // Final fallback
-                                        .into(targetView);
-                                    
-                                    return true;
-                                }
-
-                                @Override
-                                public boolean onResourceReady(Drawable resource, Object model, Target<Drawable> target, DataSource dataSource, boolean isFirstResource) {
-                                    return false; // Let Glide handle the resource
-                                }
-                            })
-                            .into(targetView);
-                    });
-                    
-                    return true;
-                }
-
-                @Override
-                public boolean onResourceReady(Drawable resource, Object model, Target<Drawable> target, DataSource dataSource, boolean isFirstResource) {
-                    return false; // Let Glide handle the resource
-                }
-            })
-            .error(R.drawable.ic_launcher_foreground) // Fallback if loading fails
-            .into(targetView);
+        // Player sprites are back view, opponent sprites are front view
+        SpriteLoader.getInstance(activity).load(pokemon, isPlayer, targetView);
     }
     
     /**
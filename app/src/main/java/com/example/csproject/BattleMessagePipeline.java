@@ -0,0 +1,257 @@
+package com.example.csproject;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Staged pipeline for Showdown protocol frames.
+ *
+ * Raw frames from the socket reader are pushed onto a bounded queue, a single parser
+ * thread drains the queue into {@link BattleEvent}s, and the events are delivered on the
+ * main looper in one batch per display frame.
+ */
+public class BattleMessagePipeline {
+    private static final String TAG = "BattleMessagePipeline";
+
+    // Enough headroom for a full battle burst; the reader blocks if the parser falls this far behind
+    private static final int QUEUE_CAPACITY = 256;
+
+    // How long stop() waits for the parser to finish the frame it's working on
+    private static final long STOP_TIMEOUT_MS = 500;
+
+    /**
+     * Parses a single raw frame on the parser thread
+     */
+    public interface FrameParser {
+        void parseFrame(String frame);
+    }
+
+    /**
+     * Receives each event on the main thread, in the order it was published
+     */
+    public interface EventHandler {
+        void onEvent(BattleEvent event);
+    }
+
+    private final FrameParser parser;
+    private final EventHandler handler;
+    private final boolean directDelivery;
+    private final BlockingQueue<String> frames = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Double-buffered events: the parser fills one list while the main thread drains the other
+    private final Object batchLock = new Object();
+    private List<BattleEvent> pendingBatch = new ArrayList<>();
+    private List<BattleEvent> deliveringBatch = new ArrayList<>();
+    private boolean dispatchScheduled = false;
+    private int batchCount = 0;
+
+    // Frames enqueued but not fully parsed yet, guarded by idleLock. running only changes
+    // while holding it too, so a frame can't be counted after stop() has reset the count.
+    private final Object idleLock = new Object();
+    private int framesInFlight = 0;
+
+    private volatile Thread parserThread;
+    private volatile boolean running = false;
+
+    private final Choreographer.FrameCallback deliverFrame = frameTimeNanos -> deliverBatch();
+    private final Runnable scheduleFrame = () -> Choreographer.getInstance().postFrameCallback(deliverFrame);
+
+    public BattleMessagePipeline(FrameParser parser, EventHandler handler) {
+        this(parser, handler, false);
+    }
+
+    /**
+     * @param directDelivery If true, the events of each frame are handed to the handler on the
+     *                       parser thread as soon as the frame is parsed instead of waiting for
+     *                       the next display frame. Used when replaying recorded battles
+     *                       without a main looper. Events published from other threads go
+     *                       out with the next parsed frame.
+     */
+    BattleMessagePipeline(FrameParser parser, EventHandler handler, boolean directDelivery) {
+        this.parser = parser;
+        this.handler = handler;
+        this.directDelivery = directDelivery;
+    }
+
+    /**
+     * Start the parser thread if it isn't already running
+     */
+    public synchronized void start() {
+        if (running) return;
+        frames.clear();
+        synchronized (idleLock) {
+            running = true;
+        }
+        Thread thread = new Thread(this::parseLoop, "ShowdownParser");
+        thread.setDaemon(true);
+        parserThread = thread;
+        thread.start();
+    }
+
+    /**
+     * Stop the parser thread and drop any frames or events that haven't been delivered yet.
+     * Waits briefly for the frame being parsed, so nothing from this run reaches the handler
+     * after a restart.
+     */
+    public synchronized void stop() {
+        synchronized (idleLock) {
+            running = false;
+        }
+        Thread thread = parserThread;
+        parserThread = null;
+        if (thread != null) {
+            thread.interrupt();
+            if (thread != Thread.currentThread()) {
+                try {
+                    thread.join(STOP_TIMEOUT_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+        frames.clear();
+        synchronized (batchLock) {
+            pendingBatch.clear();
+            dispatchScheduled = false;
+        }
+        synchronized (idleLock) {
+            framesInFlight = 0;
+            idleLock.notifyAll();
+        }
+        if (!directDelivery) {
+            mainHandler.removeCallbacks(scheduleFrame);
+            Choreographer.getInstance().removeFrameCallback(deliverFrame);
+        }
+    }
+
+    /**
+     * Queue a raw frame for parsing. Called from the socket reader thread; blocks if the
+     * queue is full so a slow parser applies backpressure instead of growing memory.
+     * @param frame The raw frame text
+     */
+    public void enqueue(String frame) {
+        synchronized (idleLock) {
+            if (!running) return;
+            framesInFlight++;
+        }
+        try {
+            frames.put(frame);
+        } catch (InterruptedException e) {
+            frameDone();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Wait until every frame enqueued so far has been parsed
+     * @param timeoutMs Maximum time to wait
+     * @return true if the pipeline is idle, false if the timeout elapsed first
+     */
+    public boolean awaitIdle(long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        synchronized (idleLock) {
+            while (framesInFlight > 0) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) return false;
+                idleLock.wait(remaining);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Publish an event for the main thread. Everything published before the next frame
+     * is delivered together in a single dispatch. Dropped once the pipeline is stopped.
+     * @param event The event to deliver
+     */
+    public void publish(BattleEvent event) {
+        if (!running) return;
+
+        synchronized (batchLock) {
+            pendingBatch.add(event);
+            if (directDelivery || dispatchScheduled) return;
+            dispatchScheduled = true;
+        }
+        // Choreographer must be used from a looper thread, so hop to main before scheduling
+        mainHandler.post(scheduleFrame);
+    }
+
+    /**
+     * @return The number of non-empty batches handed to the handler so far
+     */
+    int getBatchCount() {
+        synchronized (batchLock) {
+            return batchCount;
+        }
+    }
+
+    private void parseLoop() {
+        Thread self = Thread.currentThread();
+        // A restart replaces parserThread, so an old thread still finishing a frame exits
+        while (running && parserThread == self) {
+            String frame;
+            try {
+                frame = frames.take();
+            } catch (InterruptedException e) {
+                break;
+            }
+
+            try {
+                parser.parseFrame(frame);
+                if (directDelivery) deliverBatch();
+            } catch (Exception e) {
+                TraceLog.e(TAG, "Error parsing frame", e);
+            } finally {
+                frameDone();
+            }
+        }
+    }
+
+    private void frameDone() {
+        synchronized (idleLock) {
+            if (framesInFlight > 0 && --framesInFlight == 0) {
+                idleLock.notifyAll();
+            }
+        }
+    }
+
+    private void deliverBatch() {
+        List<BattleEvent> batch;
+        synchronized (batchLock) {
+            batch = pendingBatch;
+            pendingBatch = deliveringBatch;
+            deliveringBatch = batch;
+            dispatchScheduled = false;
+            if (!running || batch.isEmpty()) {
+                batch.clear();
+                return;
+            }
+            batchCount++;
+        }
+
+        TraceLog.beginSection("deliverBatch");
+        try {
+            for (int i = 0; i < batch.size(); i++) {
+                deliver(batch.get(i));
+            }
+        } finally {
+            TraceLog.endSection();
+        }
+        batch.clear();
+    }
+
+    private void deliver(BattleEvent event) {
+        try {
+            handler.onEvent(event);
+        } catch (Exception e) {
+            TraceLog.e(TAG, "Error delivering battle update", e);
+        }
+    }
+}
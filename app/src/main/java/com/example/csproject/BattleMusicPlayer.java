@@ -0,0 +1,316 @@
+package com.example.csproject;
+
+import android.content.Context;
+import android.media.AudioAttributes;
+import android.media.AudioManager;
+import android.media.MediaPlayer;
+import android.os.Build;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Plays a rotation of battle music tracks without gaps between them.
+ *
+ * Tracks are played from the asset pack or the {@link MusicCache}, downloading them first
+ * if needed. While one track plays, the next is downloaded and prepared on a second player
+ * and chained with {@link MediaPlayer#setNextMediaPlayer}, so it starts the moment the first
+ * one ends. Main thread only.
+ */
+final class BattleMusicPlayer {
+    private static final String TAG = "BattleMusicPlayer";
+
+    // Tracks in a row that can fail to load before we stop trying, e.g. when offline
+    private static final int MAX_FAILURES = 3;
+
+    /**
+     * Chooses the track to play after another
+     */
+    interface TrackPicker {
+        /**
+         * @param previous The track that's playing, or null
+         */
+        String next(String previous);
+    }
+
+    /**
+     * Receives a prepared player
+     */
+    private interface PreparedCallback {
+        void onPrepared(MediaPlayer player);
+    }
+
+    /**
+     * Points a player at a track
+     */
+    private interface Source {
+        void setOn(MediaPlayer player) throws IOException;
+    }
+
+    private final Context context;
+    private final String baseUrl;
+    private final MusicCache cache;
+    private final TrackPicker picker;
+
+    private MediaPlayer current;
+    private String currentTrack;
+    private MediaPlayer next;
+    private String nextTrack;
+    // The current track ended before the next one was ready
+    private boolean waitingForNext = false;
+    private boolean paused = false;
+    private float volume = 1f;
+    private int failures = 0;
+    // Bumped on every play and stop, so loads for an older rotation are dropped
+    private int generation = 0;
+
+    /**
+     * @param baseUrl The URL tracks are downloaded from, ending in '/'
+     */
+    BattleMusicPlayer(Context context, String baseUrl, MusicCache cache, TrackPicker picker) {
+        this.context = context;
+        this.baseUrl = baseUrl;
+        this.cache = cache;
+        this.picker = picker;
+    }
+
+    /**
+     * Start the rotation with a track, stopping whatever was playing
+     */
+    void play(String track) {
+        stop();
+        paused = false;
+        currentTrack = track;
+        cache.pin(track);
+        int playGeneration = generation;
+        load(track, playGeneration, player -> {
+            current = player;
+            if (!paused) player.start();
+            TraceLog.d(TAG, "Background music started: {}", currentTrack);
+            prepareNext(playGeneration);
+        });
+    }
+
+    /**
+     * Stop and release both players
+     */
+    void stop() {
+        generation++;
+        current = release(current, currentTrack);
+        currentTrack = null;
+        next = release(next, nextTrack);
+        nextTrack = null;
+        waitingForNext = false;
+        failures = 0;
+    }
+
+    void pause() {
+        paused = true;
+        if (current != null && current.isPlaying()) current.pause();
+    }
+
+    /**
+     * Resume after {@link #pause}
+     * @return false if there's no rotation to resume
+     */
+    boolean resume() {
+        if (currentTrack == null) return false;
+        paused = false;
+        if (current != null && !current.isPlaying()) current.start();
+        return true;
+    }
+
+    void setVolume(float volume) {
+        this.volume = volume;
+        if (current != null) current.setVolume(volume, volume);
+        if (next != null) next.setVolume(volume, volume);
+    }
+
+    boolean isPlaying() {
+        return current != null && current.isPlaying();
+    }
+
+    /**
+     * @return Whether a rotation has been started and not stopped, even if paused or loading
+     */
+    boolean isActive() {
+        return currentTrack != null;
+    }
+
+    String getCurrentTrack() {
+        return currentTrack;
+    }
+
+    private void prepareNext(int playGeneration) {
+        String track = picker.next(currentTrack);
+        nextTrack = track;
+        cache.pin(track);
+        load(track, playGeneration, player -> {
+            next = player;
+            if (waitingForNext) {
+                // The current track already ended, so there's nothing to chain onto
+                advance();
+                if (!paused) player.start();
+            } else {
+                current.setNextMediaPlayer(player);
+            }
+        });
+    }
+
+    /**
+     * The current track ended and the next one took over
+     */
+    private void onTrackCompleted(MediaPlayer player) {
+        if (player != current) return;
+        if (next == null) {
+            TraceLog.d(TAG, "Track ended before the next one was ready: {}", currentTrack);
+            waitingForNext = true;
+            return;
+        }
+        advance();
+    }
+
+    /**
+     * Make the next player current and start preparing the one after it
+     */
+    private void advance() {
+        release(current, currentTrack);
+        current = next;
+        currentTrack = nextTrack;
+        next = null;
+        nextTrack = null;
+        waitingForNext = false;
+        TraceLog.d(TAG, "Background music now playing: {}", currentTrack);
+        prepareNext(generation);
+    }
+
+    /**
+     * Get a track onto a prepared player, downloading it first if needed
+     */
+    private void load(String track, int playGeneration, PreparedCallback callback) {
+        String url = baseUrl + track + MusicCache.EXTENSION;
+        AssetPack pack = AssetPack.getInstance(context);
+        int entry = pack.findUrl(url);
+        if (entry >= 0) {
+            prepare(track, playGeneration, callback, player ->
+                    player.setDataSource(pack.getFileDescriptor(), pack.getOffset(entry), pack.getLength(entry)));
+            return;
+        }
+
+        File file = cache.get(track);
+        if (file != null) {
+            prepare(track, playGeneration, callback, player -> player.setDataSource(file.getAbsolutePath()));
+            return;
+        }
+
+        TraceLog.d(TAG, "Downloading background music: {}", url);
+        DownloadEngine.getInstance().fetch(url, cache.fileFor(track), downloaded -> {
+            if (downloaded != null) cache.add(track);
+            if (playGeneration != generation) return;
+            if (downloaded == null) {
+                onLoadFailed(track, playGeneration, callback);
+            } else {
+                prepare(track, playGeneration, callback, player -> player.setDataSource(downloaded.getAbsolutePath()));
+            }
+        });
+    }
+
+    private void prepare(String track, int playGeneration, PreparedCallback callback, Source source) {
+        MediaPlayer player = new MediaPlayer();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            player.setAudioAttributes(new AudioAttributes.Builder()
+                    .setUsage(AudioAttributes.USAGE_GAME)
+                    .setContentType(AudioAttributes.CONTENT_TYPE_MUSIC)
+                    .build());
+        } else {
+            player.setAudioStreamType(AudioManager.STREAM_MUSIC);
+        }
+        player.setVolume(volume, volume);
+        player.setOnPreparedListener(mp -> {
+            if (playGeneration != generation) {
+                mp.release();
+                return;
+            }
+            failures = 0;
+            callback.onPrepared(mp);
+        });
+        player.setOnCompletionListener(this::onTrackCompleted);
+        player.setOnErrorListener((mp, what, extra) -> {
+            TraceLog.e(TAG, "Media player error on {}: {}, {}", track, what, extra);
+            onPlayerError(mp, track, playGeneration, callback);
+            return true;
+        });
+
+        try {
+            source.setOn(player);
+            // The file is local, but decoding the header still shouldn't block the UI
+            player.prepareAsync();
+        } catch (IOException | IllegalStateException e) {
+            TraceLog.e(TAG, "Error preparing background music {}", track, e);
+            player.release();
+            onLoadFailed(track, playGeneration, callback);
+        }
+    }
+
+    private void onPlayerError(MediaPlayer player, String track, int playGeneration, PreparedCallback callback) {
+        if (playGeneration != generation) {
+            player.release();
+            return;
+        }
+        if (player == current) {
+            // Skip to the next track if it's ready, otherwise wait for it
+            current = release(current, null);
+            if (next != null) {
+                advance();
+                if (!paused) current.start();
+            } else {
+                waitingForNext = true;
+            }
+        } else if (player == next) {
+            next = release(next, nextTrack);
+            if (current != null) current.setNextMediaPlayer(null);
+            nextTrack = null;
+            prepareNext(playGeneration);
+        } else {
+            // Failed while preparing
+            player.release();
+            onLoadFailed(track, playGeneration, callback);
+        }
+    }
+
+    /**
+     * Try another track in place of one that couldn't be loaded
+     */
+    private void onLoadFailed(String track, int playGeneration, PreparedCallback callback) {
+        cache.unpin(track);
+        if (++failures >= MAX_FAILURES) {
+            TraceLog.w(TAG, "Giving up on background music after {} failures", failures);
+            return;
+        }
+        String replacement = picker.next(track);
+        if (track.equals(currentTrack) && current == null) {
+            currentTrack = replacement;
+        } else if (track.equals(nextTrack)) {
+            nextTrack = replacement;
+        }
+        cache.pin(replacement);
+        load(replacement, playGeneration, callback);
+    }
+
+    /**
+     * Release a player if there is one and unpin its track
+     * @return null, to clear the field holding the player
+     */
+    private MediaPlayer release(MediaPlayer player, String track) {
+        if (track != null) cache.unpin(track);
+        if (player != null) {
+            try {
+                if (player.isPlaying()) player.stop();
+            } catch (IllegalStateException e) {
+                // Not started or already in the error state; release still works
+            }
+            player.release();
+        }
+        return null;
+    }
+}
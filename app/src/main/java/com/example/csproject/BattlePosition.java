@@ -0,0 +1,90 @@
+package com.example.csproject;
+
+/**
+ * A field position from the Showdown protocol, e.g. "p1a" is player 1's first active slot
+ */
+public enum BattlePosition {
+    P1A(1, 'a'), P1B(1, 'b'), P1C(1, 'c'),
+    P2A(2, 'a'), P2B(2, 'b'), P2C(2, 'c'),
+    P3A(3, 'a'), P3B(3, 'b'), P3C(3, 'c'),
+    P4A(4, 'a'), P4B(4, 'b'), P4C(4, 'c');
+
+    private static final BattlePosition[] VALUES = values();
+
+    private final int side;
+    private final char slot;
+    private final String id;
+
+    BattlePosition(int side, char slot) {
+        this.side = side;
+        this.slot = slot;
+        this.id = "p" + side + slot;
+    }
+
+    /**
+     * @return The side number (1-4)
+     */
+    public int getSide() {
+        return side;
+    }
+
+    /**
+     * @return The active slot letter ('a', 'b' or 'c')
+     */
+    public char getSlot() {
+        return slot;
+    }
+
+    /**
+     * @return The protocol id of this position (e.g. "p1a")
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Check whether this position belongs to the given side
+     * @param side The side number (1-4)
+     * @return true if this position is on that side
+     */
+    public boolean isSide(int side) {
+        return this.side == side;
+    }
+
+    /**
+     * Get the first active slot of a side
+     * @param side The side number (1-4)
+     * @return The position, or null if the side is out of range
+     */
+    public static BattlePosition active(int side) {
+        return of(side, 'a');
+    }
+
+    /**
+     * @param side The side number (1-4)
+     * @param slot The slot letter ('a'-'c')
+     * @return The position, or null if either part is out of range
+     */
+    public static BattlePosition of(int side, char slot) {
+        if (side < 1 || side > 4 || slot < 'a' || slot > 'c') return null;
+        return VALUES[(side - 1) * 3 + (slot - 'a')];
+    }
+
+    /**
+     * Parse a protocol position like "p2a". A position without a slot letter ("p2")
+     * refers to the side's first active slot.
+     * @param text The position text
+     * @return The position, or null if the text is not a position
+     */
+    public static BattlePosition parse(CharSequence text) {
+        if (text == null || text.length() < 2 || text.length() > 3 || text.charAt(0) != 'p') return null;
+        int side = text.charAt(1) - '0';
+        char slot = text.length() == 3 ? text.charAt(2) : 'a';
+        return of(side, slot);
+    }
+
+    @Override
+    public String toString() {
+        return id;
+    }
+}
@@ -0,0 +1,605 @@
+package com.example.csproject;
+
+/**
+ * Turns raw Showdown frames into {@link BattleEvent}s.
+ *
+ * The parser keeps the protocol state it needs (our slot, the battle room, the last request)
+ * and is driven from a single thread. It has no Android UI dependencies so it can also be
+ * fed recorded frames.
+ */
+public class BattleProtocolParser {
+    private static final String TAG = "ShowdownClient";
+
+    /**
+     * Receives every event produced while parsing a frame
+     */
+    public interface EventSink {
+        void emit(BattleEvent event);
+    }
+
+    // Battle commands handled by processBattleMessage
+    private static final ProtocolTokenizer.Vocabulary BATTLE_COMMANDS = new ProtocolTokenizer.Vocabulary(
+            "init", "title", "tier", "rated", "rule", "start", "turn", "inactive", "player",
+            "switch", "drag", "move", "-terastallize", "damage", "-damage", "heal", "-heal",
+            "faint", "request", "-crit", "-supereffective", "-resisted", "-immune", "-miss",
+            "-fail", "win", "tie");
+
+    private final EventSink sink;
+
+    // Reused for every frame so protocol lines can be parsed without allocating
+    private final ProtocolTokenizer tokenizer = new ProtocolTokenizer();
+    private final RequestDecoder requestDecoder = new RequestDecoder();
+
+    // Fields below are written on the parser thread and read from the UI
+    private volatile String battleRoomId;
+    private volatile RequestSnapshot lastRequest;
+    private volatile int mySlot = -1;
+    private volatile boolean waitingForOpponent = false;
+    private boolean waitingMessageSent = false;
+
+    // Track the opponent's Pokémon in case we only learn about it from a move
+    private String opponentPokemonName = null;
+    private String opponentPokemonDetails = null;
+    private String opponentPokemonCondition = null;
+
+    // Output of parseHpStatus, reused to avoid allocating a result per line
+    private int parsedHp;
+    private int parsedMaxHp;
+    private StatusCondition parsedStatus = StatusCondition.NONE;
+
+    // Open from one |turn| to the next, so each turn shows up as a span in traces
+    private TraceLog.Span turnSpan;
+
+    public BattleProtocolParser(EventSink sink) {
+        this.sink = sink;
+    }
+
+    public String getBattleRoomId() {
+        return battleRoomId;
+    }
+
+    /**
+     * @return The most recent request, decoded, or null if none has been received
+     */
+    public RequestSnapshot getLastRequest() {
+        return lastRequest;
+    }
+
+    /**
+     * @return The player's slot, or -1 if not set yet
+     */
+    public int getPlayerSlot() {
+        return mySlot;
+    }
+
+    public boolean isWaitingForOpponent() {
+        return waitingForOpponent;
+    }
+
+    /**
+     * Mark that a new search has started
+     */
+    public void setWaitingForOpponent(boolean waiting) {
+        this.waitingForOpponent = waiting;
+    }
+
+    private void message(String text) {
+        sink.emit(new BattleEvent.Message(text));
+    }
+
+    /**
+     * Parse one raw frame from the server
+     * @param frame The raw frame text
+     */
+    public void parseFrame(String frame) {
+        TraceLog.beginSection("parseFrame");
+        try {
+            parseLines(frame);
+        } finally {
+            TraceLog.endSection();
+        }
+    }
+
+    private void parseLines(String frame) {
+        ProtocolTokenizer lines = tokenizer.beginFrame(frame);
+        boolean inBattleRoom = false;
+        String currentRoom = null;
+
+        while (lines.nextLine()) {
+            char first = lines.lineFirstChar();
+            if (first == '>') {
+                inBattleRoom = lines.lineStartsWith(1, "battle-");
+                // The room name is only needed until we've joined a battle
+                currentRoom = inBattleRoom && battleRoomId == null ? lines.lineString(1) : null;
+            } else if (first == '|') {
+                if (inBattleRoom) {
+                    // We're in a battle room, process battle messages
+                    if (battleRoomId == null) {
+                        // First time seeing this battle room
+                        battleRoomId = currentRoom;
+                        sink.emit(new BattleEvent.RoomJoined(currentRoom));
+
+                        // Log the battle room ID when we first discover it
+                        message("🎮 Battle started in lobby: " + currentRoom);
+                    }
+                    processBattleMessage(lines);
+                } else {
+                    // We're in the lobby or another room
+                    handleLobbyUpdate(lines);
+                }
+            }
+        }
+    }
+
+    private void endTurnSpan() {
+        TraceLog.endSpan(turnSpan);
+        turnSpan = null;
+    }
+
+    private void handleLobbyUpdate(ProtocolTokenizer update) {
+        // Check if we're still searching for a battle
+        if (update.lineContains("\"searching\":false") && update.lineContains("\"games\":{")) {
+            // No longer in the finding opponent state, but we're now waiting for the battle to start
+            waitingForOpponent = true;
+
+            sink.emit(new BattleEvent.SearchUpdate(true));
+            message("🎮 Found a battle! Waiting for it to start...");
+        } else if (update.lineContains("\"searching\":true")) {
+            // Still searching
+            waitingForOpponent = true;
+            sink.emit(new BattleEvent.SearchUpdate(false));
+            message("🔍 Searching for a battle...");
+        }
+    }
+
+    /**
+     * Process a battle message
+     * @param parts Tokenizer positioned on the line to process
+     */
+    private void processBattleMessage(ProtocolTokenizer parts) {
+        TraceLog.d(TAG, "Processing battle message: {}", parts.line());
+
+        try {
+            int fieldCount = parts.tokenize();
+            if (fieldCount < 2) return;
+
+            String command = BATTLE_COMMANDS.lookup(parts.field(1));
+            if (command == null) {
+                // Not a command we handle
+                return;
+            }
+
+            // Handle various battle commands
+            switch (command) {
+                case "init":
+                    if (fieldCount >= 3 && parts.fieldEquals(2, "battle")) {
+                        // Battle has started
+                        sink.emit(new BattleEvent.BattleStart());
+                    }
+                    break;
+                case "title":
+                    if (fieldCount >= 3) {
+                        message("🏆 " + parts.field(2));
+                    }
+                    break;
+                case "tier":
+                    if (fieldCount >= 3) {
+                        message("🎮 [" + parts.field(2) + "]");
+                    }
+                    break;
+                case "rated":
+                    message("⭐ Rated battle");
+                    break;
+                case "rule":
+                    if (fieldCount >= 3) {
+                        message("📜 " + parts.field(2));
+                    }
+                    break;
+                case "start":
+                    message("🚀 Battle started between " +
+                        (mySlot == 1 ? "you and your opponent!" : "your opponent and you!"));
+                    break;
+                case "turn":
+                    if (fieldCount >= 3) {
+                        int turnNumber = parts.fieldInt(2, 0);
+                        // Reset waiting status at the start of a new turn
+                        waitingForOpponent = false;
+                        waitingMessageSent = false;
+                        message("⏱️ Turn " + turnNumber);
+                        TraceLog.endSpan(turnSpan);
+                        turnSpan = TraceLog.beginSpan("battle turn", turnNumber);
+                        sink.emit(new BattleEvent.Turn(turnNumber));
+                    }
+                    break;
+                case "inactive":
+                    if (fieldCount >= 3) {
+                        message("⏰ Battle timer is ON: " + parts.field(2));
+                    }
+                    break;
+                case "player":
+                    if (fieldCount >= 4) {
+                        CharSequence playerSlot = parts.field(2);
+                        TraceLog.d(TAG, "Player: {} = {}", playerSlot, parts.field(3));
+
+                        // Check if this is the current user's name
+                        // We need to identify if this is the player by checking if the name contains "Guest"
+                        // which is how we're connecting in the onOpen method
+                        if (parts.fieldContains(3, "Guest")) {
+                            // This is our player
+                            mySlot = ProtocolTokenizer.parseInt(playerSlot, 1, playerSlot.length());
+                            sink.emit(new BattleEvent.PlayerSlot(mySlot));
+                            TraceLog.d(TAG, "Set my slot to: {}", mySlot);
+                        }
+                    }
+                    break;
+                case "switch":
+                case "drag":
+                    // Format: |switch|POKEMON_IDENT|DETAILS|HP_STATUS
+                    if (fieldCount >= 5 && parts.isIdent(2)) {
+                        BattlePosition position = BattlePosition.parse(parts.identPosition(2));
+                        if (position == null) break;
+                        String pokemonName = parts.identName(2).toString();
+                        String details = parts.fieldString(3);
+                        String condition = parts.fieldString(4);
+                        boolean dragged = command.equals("drag");
+
+                        TraceLog.d(TAG, "Switch: {} {} {} {}", position, pokemonName, details, condition);
+
+                        sink.emit(switchEvent(position, pokemonName, details, condition, dragged));
+
+                        // Check if this is the player's Pokémon or the opponent's
+                        int playerNum = position.getSide();
+                        if (playerNum == mySlot) {
+                            if (!dragged) {
+                                message("🔄 Go! " + pokemonName + "!");
+                            } else {
+                                message("🔄 " + pokemonName + " was dragged out!");
+                            }
+                        } else if (playerNum == 3 - mySlot) {
+                            // This is the opponent's Pokémon
+                            if (!dragged) {
+                                message("🔄 The opposing " + pokemonName + " was sent out!");
+                            } else {
+                                message("🔄 The opposing " + pokemonName + " was dragged out!");
+                            }
+
+                            // Update our opponent data
+                            opponentPokemonName = pokemonName;
+                            opponentPokemonDetails = details;
+                            opponentPokemonCondition = condition;
+                        }
+                    }
+                    break;
+                case "move":
+                    // Format: |move|POKEMON_IDENT|MOVE_NAME|TARGET
+                    if (fieldCount >= 4 && parts.isIdent(2)) {
+                        CharSequence position = parts.identPosition(2);
+                        CharSequence pokemonName = parts.identName(2);
+                        CharSequence moveName = parts.field(3);
+
+                        TraceLog.d(TAG, "Move: {} {} used {}", position, pokemonName, moveName);
+
+                        // Check if this is the player's Pokémon or the opponent's
+                        if (parts.identSide(2) == mySlot) {
+                            message("⚡ " + pokemonName + " used " + moveName + "!");
+                        } else {
+                            message("⚡ The opposing " + pokemonName + " used " + moveName + "!");
+                        }
+
+                        // If this is the first time we're seeing the opponent's Pokémon in action,
+                        // update the battle manager
+                        int opponentSlot = 3 - mySlot;
+                        if (position.length() == 2 && parts.identSide(2) == opponentSlot) {
+                            // Check if we have a placeholder for the opponent
+                            if (opponentPokemonName == null || opponentPokemonName.contains("Unknown")) {
+                                // Update with the real Pokémon name
+                                opponentPokemonName = pokemonName.toString();
+
+                                // Use default values if we don't have details
+                                if (opponentPokemonDetails == null) {
+                                    opponentPokemonDetails = opponentPokemonName + ", L50";
+                                }
+
+                                if (opponentPokemonCondition == null) {
+                                    opponentPokemonCondition = "100/100";
+                                }
+
+                                // Notify the battle manager
+                                sink.emit(switchEvent(BattlePosition.active(opponentSlot), opponentPokemonName,
+                                        opponentPokemonDetails, opponentPokemonCondition, false));
+                            }
+                        }
+                    }
+                    break;
+                case "-terastallize":
+                    // Format: |-terastallize|POKEMON_IDENT|TYPE
+                    if (fieldCount >= 4 && parts.isIdent(2)) {
+                        CharSequence pokemonName = parts.identName(2);
+                        CharSequence teraType = parts.field(3);
+
+                        TraceLog.d(TAG, "Terastallize: {} {} to {} type", parts.identPosition(2), pokemonName, teraType);
+
+                        // Check if this is the player's Pokémon or the opponent's
+                        boolean isPlayer = parts.identSide(2) == mySlot;
+                        String pokemonDisplay = isPlayer ? pokemonName.toString() : "The opposing " + pokemonName;
+
+                        message("✨ " + pokemonDisplay + " terastallized into " + teraType + " type!");
+                    }
+                    break;
+                case "damage":
+                case "-damage":
+                case "heal":
+                case "-heal":
+                    // Format: |damage|POKEMON_IDENT|HP_STATUS
+                    // or: |-damage|POKEMON_IDENT|HP_STATUS
+                    if (fieldCount >= 4 && parts.isIdent(2)) {
+                        BattlePosition position = BattlePosition.parse(parts.identPosition(2));
+                        CharSequence pokemonName = parts.identName(2);
+                        CharSequence hpStatus = parts.field(3);
+                        boolean heal = command.equals("heal") || command.equals("-heal");
+
+                        TraceLog.d(TAG, "HP Change: {} {}", position, hpStatus);
+
+                        boolean parsed = parseHpStatus(hpStatus);
+                        if (parsed && position != null) {
+                            String name = pokemonName.toString();
+                            sink.emit(heal
+                                    ? new BattleEvent.Heal(position, name, parsedHp, parsedMaxHp, parsedStatus)
+                                    : new BattleEvent.Damage(position, name, parsedHp, parsedMaxHp, parsedStatus));
+                        }
+
+                        // Calculate damage percentage if possible
+                        String damageMsg = "";
+                        if (parsed && parsedMaxHp > 0) {
+                            int percentage = (int) (((double) parsedHp / parsedMaxHp) * 100);
+                            damageMsg = " (" + (100 - percentage) + "% damage)";
+                        }
+
+                        // Check if this is the player's Pokémon or the opponent's
+                        boolean isPlayer = parts.identSide(2) == mySlot;
+                        String pokemonDisplay = isPlayer ? pokemonName.toString() : "The opposing " + pokemonName;
+
+                        if (!heal) {
+                            if (parts.fieldContains(4, "poison")) {
+                                message("☠️ " + pokemonDisplay + " was hurt by poison!" + damageMsg);
+                            } else if (parts.fieldContains(4, "burn")) {
+                                message("🔥 " + pokemonDisplay + " was hurt by its burn!" + damageMsg);
+                            } else if (parts.fieldContains(4, "confusion")) {
+                                message("😵 " + pokemonDisplay + " hurt itself in confusion!" + damageMsg);
+                            } else if (parts.fieldContains(4, "recoil")) {
+                                message("💥 " + pokemonDisplay + " was damaged by the recoil!" + damageMsg);
+                            } else {
+                                message("💢 " + pokemonDisplay + " took damage!" + damageMsg);
+                            }
+                        } else {
+                            if (parts.fieldContains(4, "leftovers")) {
+                                message("💊 " + pokemonDisplay + " restored a little HP using its Leftovers!");
+                            } else {
+                                message("💚 " + pokemonDisplay + " restored its health!");
+                            }
+                        }
+                    }
+                    break;
+                case "faint":
+                    // Format: |faint|POKEMON_IDENT
+                    if (fieldCount >= 3 && parts.isIdent(2)) {
+                        BattlePosition position = BattlePosition.parse(parts.identPosition(2));
+                        String pokemonName = parts.identName(2).toString();
+
+                        TraceLog.d(TAG, "Faint: {} {}", position, pokemonName);
+
+                        if (position != null) {
+                            sink.emit(new BattleEvent.Faint(position, pokemonName));
+                        }
+
+                        // Check if this is the player's Pokémon or the opponent's
+                        boolean isPlayer = parts.identSide(2) == mySlot;
+                        String pokemonDisplay = isPlayer ? pokemonName : "The opposing " + pokemonName;
+
+                        message("💀 " + pokemonDisplay + " fainted!");
+                    }
+                    break;
+                case "request":
+                    // Format: |request|JSON_DATA
+                    if (fieldCount >= 3) {
+                        try {
+                            // Decode once here, straight from the frame, so the UI never has to walk the JSON
+                            RequestSnapshot request = requestDecoder.decode(parts.rest(2));
+                            lastRequest = request;
+
+                            // Check if we're waiting for the opponent's move
+                            waitingForOpponent = request.isWait();
+
+                            // Only send the waiting message once
+                            if (waitingForOpponent && !waitingMessageSent) {
+                                message("⌛ Waiting for opponent...");
+                                waitingMessageSent = true;
+                            } else if (!waitingForOpponent) {
+                                waitingMessageSent = false;
+                            }
+
+                            // Log that we received a new request
+                            TraceLog.d(TAG, "New request received, player can now make a move");
+
+                            sink.emit(new BattleEvent.Request(request));
+                        } catch (IllegalStateException | IllegalArgumentException e) {
+                            TraceLog.e(TAG, "Error parsing request JSON", e);
+                        }
+                    }
+                    break;
+                case "-crit":
+                    // Format: |-crit|POKEMON_IDENT
+                    if (fieldCount >= 3) {
+                        message("⚠️ A critical hit!");
+                    }
+                    break;
+                case "-supereffective":
+                    // Format: |-supereffective|POKEMON_IDENT
+                    if (fieldCount >= 3) {
+                        message("✨ It's super effective!");
+                    }
+                    break;
+                case "-resisted":
+                    // Format: |-resisted|POKEMON_IDENT
+                    if (fieldCount >= 3) {
+                        message("🛡️ It's not very effective...");
+                    }
+                    break;
+                case "-immune":
+                    // Format: |-immune|POKEMON_IDENT
+                    if (fieldCount >= 3) {
+                        if (parts.isIdent(2)) {
+                            message("🛑 It doesn't affect " + parts.identName(2) + "...");
+                        } else {
+                            message("🛑 It doesn't affect the target...");
+                        }
+                    }
+                    break;
+                case "-miss":
+                    // Format: |-miss|SOURCE_IDENT|TARGET_IDENT
+                    if (fieldCount >= 3) {
+                        message("❌ The attack missed!");
+                    }
+                    break;
+                case "-fail":
+                    // Format: |-fail|POKEMON_IDENT|MOVE|REASON
+                    if (fieldCount >= 3) {
+                        if (parts.isIdent(2) && parts.fieldEquals(3, "Protect")) {
+                            message(parts.identName(2) + " protected itself!");
+                        } else {
+                            message("But it failed!");
+                        }
+                    }
+                    break;
+                case "win":
+                    // Format: |win|PLAYER_NAME
+                    endTurnSpan();
+                    if (fieldCount >= 3) {
+                        String winner = parts.fieldString(2);
+
+                        // Check if the player won or lost
+                        if (winner.contains("Guest")) {
+                            // When player wins, we need to get the opponent name from the battleRoomId
+                            String opponentName = opponentFromRoomId(battleRoomId);
+                            message("🏆 You won the battle against " + opponentName + "!");
+                            sink.emit(new BattleEvent.Win(winner, opponentName, true));
+                        } else {
+                            // Winner is the opponent
+                            message("😔 You lost the battle against " + winner + "!");
+                            sink.emit(new BattleEvent.Win(winner, winner, false));
+                        }
+                    }
+                    break;
+                case "tie":
+                    // Format: |tie
+                    endTurnSpan();
+                    message("🤝 The battle ended in a tie!");
+                    sink.emit(new BattleEvent.Tie());
+                    break;
+            }
+        } catch (Exception e) {
+            TraceLog.e(TAG, "Error processing battle message", e);
+        }
+    }
+
+    /**
+     * Build a switch event, decoding the details and HP status once
+     */
+    private BattleEvent.Switch switchEvent(BattlePosition position, String name, String details,
+                                           String condition, boolean dragged) {
+        String species = parseSpecies(details);
+
+        int hp = 0;
+        int maxHp = 0;
+        StatusCondition status = StatusCondition.NONE;
+        if (parseHpStatus(condition)) {
+            hp = parsedHp;
+            maxHp = parsedMaxHp;
+            status = parsedStatus;
+        }
+
+        return new BattleEvent.Switch(position, name, species, ShowdownIds.toId(species), details,
+                parseLevel(details), hp, maxHp, status, dragged);
+    }
+
+    /**
+     * Parse an HP status ("45/100", "45/100 par", "0 fnt") into parsedHp, parsedMaxHp and parsedStatus
+     * @param hpStatus The HP status from the protocol
+     * @return true if the status could be parsed
+     */
+    private boolean parseHpStatus(CharSequence hpStatus) {
+        int length = hpStatus.length();
+        if (length == 0) return false;
+
+        int space = ProtocolTokenizer.indexOf(hpStatus, ' ', 0, length);
+        int hpEnd = space < 0 ? length : space;
+        parsedStatus = space < 0 ? StatusCondition.NONE : StatusCondition.fromCode(hpStatus, space + 1, length);
+
+        try {
+            int slash = ProtocolTokenizer.indexOf(hpStatus, '/', 0, hpEnd);
+            if (slash < 0) {
+                // Fainted Pokémon report "0 fnt" without a max
+                parsedHp = ProtocolTokenizer.parseInt(hpStatus, 0, hpEnd);
+                parsedMaxHp = 0;
+            } else {
+                parsedHp = ProtocolTokenizer.parseInt(hpStatus, 0, slash);
+                parsedMaxHp = ProtocolTokenizer.parseInt(hpStatus, slash + 1, hpEnd);
+            }
+        } catch (NumberFormatException e) {
+            TraceLog.e(TAG, "Error parsing HP status: {}", hpStatus, e);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Parse the species display name from a details string ("Species, L##, Gender, ...")
+     * @return The species, e.g. "Urshifu-Rapid-Strike"
+     */
+    static String parseSpecies(String details) {
+        int speciesEnd = details.indexOf(',');
+        return (speciesEnd < 0 ? details : details.substring(0, speciesEnd)).trim();
+    }
+
+    /**
+     * Parse the level from a details string ("Species, L##, Gender, ...")
+     * @return The level, or 100 if no level is given
+     */
+    static int parseLevel(String details) {
+        int levelIndex = details.indexOf(", L");
+        if (levelIndex < 0) return 100;
+        levelIndex += 3;
+        int endIndex = details.indexOf(',', levelIndex);
+        if (endIndex < 0) endIndex = details.length();
+        try {
+            return ProtocolTokenizer.parseInt(details, levelIndex, endIndex);
+        } catch (NumberFormatException e) {
+            return 100;
+        }
+    }
+
+    /**
+     * Guess the opponent's name from the battle room id
+     * @param roomId Room id, typically battle-gen9randombattle-username1-username2
+     * @return The opponent's name, or "Opponent" if it can't be determined
+     */
+    private static String opponentFromRoomId(String roomId) {
+        String opponentName = "Opponent"; // Default fallback
+
+        if (roomId != null && roomId.contains("-")) {
+            String[] roomParts = roomId.split("-");
+
+            // Skip "battle" and "gen9randombattle" parts
+            for (int i = 2; i < roomParts.length; i++) {
+                if (!roomParts[i].equalsIgnoreCase("battle") &&
+                    !roomParts[i].contains("Guest") &&
+                    !roomParts[i].contains("randombattle") &&
+                    !roomParts[i].isEmpty()) {
+                    opponentName = roomParts[i];
+                    break;
+                }
+            }
+        }
+        return opponentName;
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.csproject;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Battle state built up from {@link BattleEvent}s: the player's slot, the turn and the
+ * Pokémon currently on the field.
+ *
+ * This has no Android UI dependencies, so {@link BattleManager} keeps its state here and
+ * recorded battles can be replayed against it on a plain JVM.
+ */
+public class BattleState {
+
+    private final Map<BattlePosition, PokemonBattleData> activePokemon = new EnumMap<>(BattlePosition.class);
+    private int playerSlot = 1; // Default to p1, will be updated by a PLAYER_SLOT event
+    private int turn = 0;
+
+    /**
+     * Forget the Pokémon on the field, e.g. when a new battle starts
+     */
+    public void reset() {
+        activePokemon.clear();
+        turn = 0;
+    }
+
+    public int getPlayerSlot() {
+        return playerSlot;
+    }
+
+    public void setPlayerSlot(int playerSlot) {
+        this.playerSlot = playerSlot;
+    }
+
+    public int getTurn() {
+        return turn;
+    }
+
+    public void setTurn(int turn) {
+        this.turn = turn;
+    }
+
+    /**
+     * Put a Pokémon on the field, replacing whatever was at its position
+     * @param event The switch event
+     * @return The new Pokémon data
+     */
+    public PokemonBattleData applySwitch(BattleEvent.Switch event) {
+        PokemonBattleData pokemon = new PokemonBattleData(event);
+        activePokemon.put(event.getPosition(), pokemon);
+        return pokemon;
+    }
+
+    /**
+     * Apply a damage or heal event
+     * @param event The HP change event
+     * @return The updated Pokémon, or null if nothing is known at that position
+     */
+    public PokemonBattleData applyHPChange(BattleEvent.HpChange event) {
+        PokemonBattleData pokemon = activePokemon.get(event.getPosition());
+        if (pokemon != null) {
+            pokemon.updateHP(event);
+        }
+        return pokemon;
+    }
+
+    /**
+     * Mark the Pokémon at the event's position as fainted
+     * @param event The faint event
+     * @return The fainted Pokémon, or null if nothing is known at that position
+     */
+    public PokemonBattleData applyFaint(BattleEvent.Faint event) {
+        PokemonBattleData pokemon = activePokemon.get(event.getPosition());
+        if (pokemon != null) {
+            pokemon.setFainted();
+        }
+        return pokemon;
+    }
+
+    /**
+     * @return The Pokémon at a position, or null if none is known
+     */
+    public PokemonBattleData getPokemon(BattlePosition position) {
+        return activePokemon.get(position);
+    }
+
+    /**
+     * @return The player's Pokémon in the first active slot, or null
+     */
+    public PokemonBattleData getPlayerPokemon() {
+        return activePokemon.get(BattlePosition.active(playerSlot));
+    }
+
+    /**
+     * @return The opponent's Pokémon in the first active slot, or null
+     */
+    public PokemonBattleData getOpponentPokemon() {
+        return activePokemon.get(BattlePosition.active(3 - playerSlot));
+    }
+
+    public Set<BattlePosition> getActivePositions() {
+        return activePokemon.keySet();
+    }
+}
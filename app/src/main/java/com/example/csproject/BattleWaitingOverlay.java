@@ -3,7 +3,6 @@ package com.example.csproject;
 import android.content.Context;
 import android.os.Handler;
 import android.os.Looper;
-import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -104,8 +103,8 @@ public class BattleWaitingOverlay {
         }
         
         // Log visibility state
-        Log.d("BattleWaitingOverlay", "Showing overlay with text: " + actionText);
-        Log.d("BattleWaitingOverlay", "Overlay visibility: " + (overlayView.getVisibility() == View.VISIBLE ? "VISIBLE" : "NOT VISIBLE"));
+        TraceLog.d("BattleWaitingOverlay", "Showing overlay with text: {}", actionText);
+        TraceLog.d("BattleWaitingOverlay", "Overlay visibility: {}", (overlayView.getVisibility() == View.VISIBLE ? "VISIBLE" : "NOT VISIBLE"));
         
         isShowing = true;
         
@@ -127,7 +126,7 @@ public class BattleWaitingOverlay {
         isShowing = false;
         
         // Log visibility state
-        Log.d("BattleWaitingOverlay", "Hiding overlay");
+        TraceLog.d("BattleWaitingOverlay", "Hiding overlay");
     }
     
     /**
@@ -0,0 +1,150 @@
+package com.example.csproject;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cries loaded into a SoundPool, by cry slug, least recently played first.
+ *
+ * The cache is bounded by the size of the cry files. Decoded samples grow roughly in
+ * proportion, so this keeps a long session from holding every cry it has heard in memory.
+ * Evicted samples are handed to the {@link Unloader}.
+ */
+final class CrySampleCache {
+
+    /**
+     * Releases a sample that fell out of the cache
+     */
+    interface Unloader {
+        void unload(int sampleId);
+    }
+
+    /**
+     * One loaded (or loading) cry
+     */
+    static final class Sample {
+        private final String slug;
+        private final int sampleId;
+        private final long bytes;
+        private boolean ready = false;
+        private boolean playWhenReady = false;
+
+        Sample(String slug, int sampleId, long bytes) {
+            this.slug = slug;
+            this.sampleId = sampleId;
+            this.bytes = bytes;
+        }
+
+        String getSlug() {
+            return slug;
+        }
+
+        int getSampleId() {
+            return sampleId;
+        }
+
+        boolean isReady() {
+            return ready;
+        }
+    }
+
+    private final long maxBytes;
+    private final Unloader unloader;
+    private final LinkedHashMap<String, Sample> samples = new LinkedHashMap<>(32, 0.75f, true);
+    private final Map<Integer, Sample> bySampleId = new HashMap<>();
+    private long totalBytes = 0;
+
+    CrySampleCache(long maxBytes, Unloader unloader) {
+        this.maxBytes = maxBytes;
+        this.unloader = unloader;
+    }
+
+    /**
+     * Get a cry and mark it as the most recently used
+     * @return The sample, or null if it isn't loaded or loading
+     */
+    synchronized Sample get(String slug) {
+        return samples.get(slug);
+    }
+
+    /**
+     * Add a cry the pool has started loading, evicting the least recently used ones that no
+     * longer fit. The new cry is kept even if it alone is over the bound.
+     * @param slug The cry slug
+     * @param sampleId The pool's sample id
+     * @param bytes The size of the cry file
+     * @param playWhenReady Whether to play it as soon as it has loaded
+     * @return The sample
+     */
+    synchronized Sample add(String slug, int sampleId, long bytes, boolean playWhenReady) {
+        Sample old = samples.remove(slug);
+        if (old != null) discard(old);
+
+        Sample sample = new Sample(slug, sampleId, bytes);
+        sample.playWhenReady = playWhenReady;
+        samples.put(slug, sample);
+        bySampleId.put(sampleId, sample);
+        totalBytes += bytes;
+
+        Iterator<Sample> eldest = samples.values().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            Sample candidate = eldest.next();
+            if (candidate == sample) break;
+            eldest.remove();
+            discard(candidate);
+        }
+        return sample;
+    }
+
+    /**
+     * Ask for a cry that is still loading to be played once it has loaded
+     */
+    synchronized void playWhenReady(Sample sample) {
+        sample.playWhenReady = true;
+    }
+
+    /**
+     * Record that the pool finished loading a sample
+     * @param sampleId The pool's sample id
+     * @param success Whether it decoded; failed cries are dropped so they can be retried
+     * @return true if the cry should be played now
+     */
+    synchronized boolean onLoaded(int sampleId, boolean success) {
+        Sample sample = bySampleId.get(sampleId);
+        if (sample == null) return false;
+        if (!success) {
+            samples.remove(sample.slug);
+            discard(sample);
+            return false;
+        }
+        sample.ready = true;
+        boolean play = sample.playWhenReady;
+        sample.playWhenReady = false;
+        return play;
+    }
+
+    /**
+     * Forget every sample without unloading them, for when the pool itself is released
+     */
+    synchronized void clear() {
+        samples.clear();
+        bySampleId.clear();
+        totalBytes = 0;
+    }
+
+    synchronized int size() {
+        return samples.size();
+    }
+
+    synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    private void discard(Sample sample) {
+        bySampleId.remove(sample.sampleId);
+        totalBytes -= sample.bytes;
+        unloader.unload(sample.sampleId);
+    }
+}
@@ -0,0 +1,312 @@
+package com.example.csproject;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * Downloads files into a cache on a small, bounded pool of threads.
+ *
+ * Requests for the same target file are coalesced into one download while it runs, each
+ * host only gets a few connections at a time, and failed attempts are retried with backoff
+ * when the failure may pass: I/O errors, server errors, request timeouts (408) and rate
+ * limits (429), waiting as long as the server's Retry-After asks within reason. Other client
+ * errors, like a missing file, fail straight away. Files are written to a temporary file next
+ * to the target and renamed into place, so a cached file is always complete.
+ */
+public final class DownloadEngine {
+    private static final String TAG = "DownloadEngine";
+
+    private static final int THREADS = 4;
+    private static final int PER_HOST = 2;
+    private static final int ATTEMPTS = 3;
+    private static final long RETRY_DELAY_MS = 500;
+    // Longest Retry-After honoured; the download holds a connection slot while it waits
+    static final long MAX_RETRY_AFTER_MS = 10_000;
+
+    /**
+     * Receives the downloaded file, or null if it couldn't be downloaded
+     */
+    public interface Callback {
+        void onComplete(File file);
+    }
+
+    private static DownloadEngine instance;
+
+    private final OkHttpClient client;
+    private final ThreadPoolExecutor executor;
+    private final Executor callbackExecutor;
+    private final int perHost;
+    private final int attempts;
+    private final long retryDelayMs;
+
+    // Both guarded by lock
+    private final Object lock = new Object();
+    private final Map<String, List<Callback>> inFlight = new HashMap<>();
+    private final Map<String, HostQueue> hosts = new HashMap<>();
+
+    /**
+     * Downloads waiting for a connection to their host
+     */
+    private static final class HostQueue {
+        int running = 0;
+        final ArrayDeque<Runnable> waiting = new ArrayDeque<>();
+    }
+
+    /**
+     * Get the shared engine, which delivers callbacks on the main thread
+     */
+    public static synchronized DownloadEngine getInstance() {
+        if (instance == null) {
+            Handler mainHandler = new Handler(Looper.getMainLooper());
+            instance = new DownloadEngine(new OkHttpClient(), THREADS, PER_HOST, ATTEMPTS,
+                    RETRY_DELAY_MS, mainHandler::post);
+        }
+        return instance;
+    }
+
+    /**
+     * @param threads Downloads running at once across all hosts
+     * @param perHost Downloads running at once against one host
+     * @param attempts Tries per download, including the first
+     * @param retryDelayMs Wait before the first retry, doubled for each further one
+     * @param callbackExecutor Where callbacks run
+     */
+    DownloadEngine(OkHttpClient client, int threads, int perHost, int attempts, long retryDelayMs,
+                   Executor callbackExecutor) {
+        this.client = client;
+        this.perHost = perHost;
+        this.attempts = attempts;
+        this.retryDelayMs = retryDelayMs;
+        this.callbackExecutor = callbackExecutor;
+
+        AtomicInteger count = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "Download-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Get a file into the cache, downloading it unless it's already there
+     * @param url Where to download it from
+     * @param target The cache file
+     * @param callback Gets the target, or null if the download failed
+     */
+    public void fetch(String url, File target, Callback callback) {
+        if (target.exists()) {
+            callbackExecutor.execute(() -> callback.onComplete(target));
+            return;
+        }
+
+        HttpUrl httpUrl = HttpUrl.parse(url);
+        if (httpUrl == null) {
+            TraceLog.w(TAG, "Not an http(s) URL: {}", url);
+            callbackExecutor.execute(() -> callback.onComplete(null));
+            return;
+        }
+
+        String key = target.getAbsolutePath();
+        synchronized (lock) {
+            List<Callback> waiting = inFlight.get(key);
+            if (waiting != null) {
+                // Already downloading this file
+                waiting.add(callback);
+                return;
+            }
+            waiting = new ArrayList<>(2);
+            waiting.add(callback);
+            inFlight.put(key, waiting);
+        }
+
+        String host = httpUrl.host();
+        schedule(host, () -> {
+            boolean success = false;
+            try {
+                success = download(httpUrl, target);
+            } finally {
+                finish(host);
+                complete(key, success ? target : null);
+            }
+        });
+    }
+
+    /**
+     * Number of downloads started or waiting, for tests
+     */
+    int getInFlightCount() {
+        synchronized (lock) {
+            return inFlight.size();
+        }
+    }
+
+    private void schedule(String host, Runnable download) {
+        synchronized (lock) {
+            HostQueue queue = hosts.get(host);
+            if (queue == null) {
+                queue = new HostQueue();
+                hosts.put(host, queue);
+            }
+            if (queue.running >= perHost) {
+                queue.waiting.add(download);
+                return;
+            }
+            queue.running++;
+        }
+        executor.execute(download);
+    }
+
+    /**
+     * Hand the finished download's connection slot to the next one waiting for its host
+     */
+    private void finish(String host) {
+        Runnable next;
+        synchronized (lock) {
+            HostQueue queue = hosts.get(host);
+            next = queue.waiting.poll();
+            if (next == null) {
+                queue.running--;
+                if (queue.running == 0) hosts.remove(host);
+            }
+        }
+        if (next != null) executor.execute(next);
+    }
+
+    private void complete(String key, File result) {
+        List<Callback> callbacks;
+        synchronized (lock) {
+            callbacks = inFlight.remove(key);
+        }
+        for (Callback callback : callbacks) {
+            callbackExecutor.execute(() -> callback.onComplete(result));
+        }
+    }
+
+    /**
+     * The outcome of one request
+     */
+    private static final class Attempt {
+        final int status;
+        // Wait the server asked for before the next try, or -1
+        final long retryAfterMs;
+
+        Attempt(int status, long retryAfterMs) {
+            this.status = status;
+            this.retryAfterMs = retryAfterMs;
+        }
+    }
+
+    /**
+     * Download with retries. Runs on a pool thread.
+     * @return true if the target now exists
+     */
+    private boolean download(HttpUrl url, File target) {
+        long delay = retryDelayMs;
+        for (int attempt = 1; attempt <= attempts; attempt++) {
+            long wait = delay;
+            try {
+                Attempt result = downloadOnce(url, target);
+                if (result.status == 200) return true;
+                // Such as a missing file; asking again won't change that
+                if (!isRetryable(result.status)) {
+                    TraceLog.w(TAG, "Download failed with {}: {}", result.status, url);
+                    return false;
+                }
+                TraceLog.w(TAG, "Download attempt {} failed with {}: {}", attempt, result.status, url);
+                if (result.retryAfterMs >= 0) wait = Math.min(result.retryAfterMs, MAX_RETRY_AFTER_MS);
+            } catch (IOException e) {
+                TraceLog.w(TAG, "Download attempt {} failed: {}", attempt, e.getMessage());
+            }
+            if (attempt < attempts) {
+                try {
+                    Thread.sleep(wait);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+                delay *= 2;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return Whether a request that failed with this status may succeed if tried again
+     */
+    static boolean isRetryable(int status) {
+        return status >= 500 || status == 408 || status == 429;
+    }
+
+    /**
+     * Read a Retry-After header given in seconds. The HTTP date form isn't used by the
+     * servers we download from, so it's treated as missing.
+     * @return The wait in milliseconds, or -1 if there's none
+     */
+    static long parseRetryAfter(String header) {
+        if (header == null) return -1;
+        try {
+            long seconds = Long.parseLong(header.trim());
+            return seconds < 0 ? -1 : TimeUnit.SECONDS.toMillis(seconds);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * @return The HTTP status, 200 if the target was written, and any Retry-After
+     */
+    private Attempt downloadOnce(HttpUrl url, File target) throws IOException {
+        File dir = target.getParentFile();
+        if (dir != null && !dir.exists()) dir.mkdirs();
+
+        Request request = new Request.Builder().url(url).build();
+        try (Response response = client.newCall(request).execute()) {
+            if (response.code() != 200) {
+                return new Attempt(response.code(), parseRetryAfter(response.header("Retry-After")));
+            }
+            ResponseBody body = response.body();
+            if (body == null) throw new IOException("Empty response");
+
+            File temp = File.createTempFile(target.getName(), ".part", dir);
+            try {
+                try (InputStream in = body.byteStream(); OutputStream out = new FileOutputStream(temp)) {
+                    byte[] buffer = new byte[16 * 1024];
+                    int read;
+                    while ((read = in.read(buffer)) != -1) {
+                        out.write(buffer, 0, read);
+                    }
+                }
+                if (!temp.renameTo(target)) {
+                    throw new IOException("Couldn't move download to " + target);
+                }
+                return new Attempt(200, -1);
+            } finally {
+                // Still there only if something went wrong
+                temp.delete();
+            }
+        }
+    }
+}
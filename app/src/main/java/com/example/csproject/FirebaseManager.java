@@ -2,7 +2,8 @@ package com.example.csproject;
 
 import android.content.Context;
 import android.app.Activity;
-import android.util.Log;
+import android.os.Handler;
+import android.os.Looper;
 
 import androidx.annotation.NonNull;
 
@@ -22,9 +23,11 @@ import com.google.firebase.database.ValueEventListener;
 import com.google.firebase.auth.ActionCodeSettings;
 
 import java.util.ArrayList;
-import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
 /**
  * Manager class for handling all Firebase operations
@@ -38,6 +41,14 @@ public class FirebaseManager {
     // Firebase instances
     private final FirebaseAuth mAuth;
     private final DatabaseReference mDatabase;
+    private final LegacyBattleMigration mMigration;
+    // Decodes snapshots off the main thread; results are posted back to it
+    private final Executor mDecoder = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "FirebaseDecoder");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
     private Context mContext;
     
     // Interface for authentication callbacks
@@ -46,9 +57,21 @@ public class FirebaseManager {
         void onFailure(Exception e);
     }
     
-    // Interface for battle history callbacks
-    public interface BattleHistoryCallback {
-        void onBattleHistoryLoaded(List<BattleHistory> battleHistories);
+    // Interface for battle summary page callbacks
+    public interface BattleHistoryPageCallback {
+        void onPageLoaded(List<BattleHistory> page, boolean hasMore);
+        void onFailure(Exception e);
+    }
+    
+    // Interface for battle upload callbacks
+    public interface BattleUploadCallback {
+        void onSuccess();
+        void onFailure(Exception e);
+    }
+    
+    // Interface for battle detail callbacks
+    public interface BattleDetailCallback {
+        void onDetailLoaded(BattleHistory battleHistory);
         void onFailure(Exception e);
     }
     
@@ -64,7 +87,7 @@ public class FirebaseManager {
                 defaultApp = FirebaseApp.getInstance();
             } catch (IllegalStateException e) {
                 // Firebase not initialized yet
-                Log.d(TAG, "Firebase not initialized yet, initializing now");
+                TraceLog.d(TAG, "Firebase not initialized yet, initializing now");
             }
             
             // Get Firebase Auth instance
@@ -75,7 +98,7 @@ public class FirebaseManager {
             if (BuildConfig.DEBUG) {
                 // Use emulator for authentication in debug builds
                 auth.useEmulator("10.0.2.2", 9099);
-                Log.d(TAG, "Using Firebase Auth emulator at 10.0.2.2:9099");
+                TraceLog.d(TAG, "Using Firebase Auth emulator at 10.0.2.2:9099");
             }
             
             // Set the database URL explicitly
@@ -86,7 +109,7 @@ public class FirebaseManager {
                 firebaseDatabase.setPersistenceEnabled(true);
             } catch (Exception e) {
                 // Persistence might already be enabled, which throws an exception
-                Log.d(TAG, "Firebase persistence already enabled or error: " + e.getMessage());
+                TraceLog.d(TAG, "Firebase persistence already enabled or error: {}", e.getMessage());
             }
             
             // Use the specific database URL from your Firebase project
@@ -97,15 +120,15 @@ public class FirebaseManager {
                 // We're NOT connecting to the Firebase Database emulator
                 // This ensures battle history is saved to and retrieved from the real database
                 
-                Log.d(TAG, "Connected to Firebase database at: " + databaseUrl);
+                TraceLog.d(TAG, "Connected to Firebase database at: {}", databaseUrl);
             } catch (Exception e) {
-                Log.e(TAG, "Error connecting to Firebase database: " + e.getMessage());
+                TraceLog.e(TAG, "Error connecting to Firebase database: {}", e.getMessage());
             }
             
             database = firebaseDatabase.getReference();
-            Log.d(TAG, "Firebase Manager initialized successfully");
+            TraceLog.d(TAG, "Firebase Manager initialized successfully");
         } catch (Exception e) {
-            Log.e(TAG, "Error initializing Firebase Manager: " + e.getMessage());
+            TraceLog.e(TAG, "Error initializing Firebase Manager: {}", e.getMessage());
             // Initialize with defaults to avoid null pointer exceptions
             if (auth == null) {
                 auth = FirebaseAuth.getInstance();
@@ -118,6 +141,7 @@ public class FirebaseManager {
         // Assign to final fields
         mAuth = auth;
         mDatabase = database;
+        mMigration = new LegacyBattleMigration(database, mDecoder);
     }
     
     // Get singleton instance
@@ -131,7 +155,7 @@ public class FirebaseManager {
     // Initialize with context
     public void initialize(Context context) {
         this.mContext = context.getApplicationContext();
-        Log.d(TAG, "Firebase Manager initialized with context");
+        TraceLog.d(TAG, "Firebase Manager initialized with context");
     }
     
     /**
@@ -160,10 +184,10 @@ public class FirebaseManager {
         mAuth.signInWithEmailAndPassword(email, password)
             .addOnCompleteListener(task -> {
                 if (task.isSuccessful()) {
-                    Log.d(TAG, "signInWithEmail:success");
+                    TraceLog.d(TAG, "signInWithEmail:success");
                     callback.onSuccess(mAuth.getCurrentUser());
                 } else {
-                    Log.w(TAG, "signInWithEmail:failure", task.getException());
+                    TraceLog.w(TAG, "signInWithEmail:failure", task.getException());
                     callback.onFailure(task.getException());
                 }
             });
@@ -179,10 +203,10 @@ public class FirebaseManager {
         mAuth.createUserWithEmailAndPassword(email, password)
             .addOnCompleteListener(task -> {
                 if (task.isSuccessful()) {
-                    Log.d(TAG, "createUserWithEmail:success");
+                    TraceLog.d(TAG, "createUserWithEmail:success");
                     callback.onSuccess(mAuth.getCurrentUser());
                 } else {
-                    Log.w(TAG, "createUserWithEmail:failure", task.getException());
+                    TraceLog.w(TAG, "createUserWithEmail:failure", task.getException());
                     callback.onFailure(task.getException());
                 }
             });
@@ -196,283 +220,126 @@ public class FirebaseManager {
     }
     
     /**
-     * Save battle history to Firebase
-     * @param opponentName name of the opponent
-     * @param outcome result of the battle ("win", "loss", or "tie")
-     * @param battleLog complete battle log text
-     * @param playerTeam player's team information
-     * @param opponentTeam opponent's team information
-     * @return true if user is signed in and battle can be saved, false otherwise
+     * Make an ID for a new battle. IDs are made on the device, so a battle keeps its ID
+     * however many times its upload is retried.
+     * @param userId the user who played the battle
+     * @return a push ID, ordered by creation time
+     */
+    public String newBattleId(String userId) {
+        return mDatabase.child("users").child(userId).child("battleSummaries").push().getKey();
+    }
+    
+    /**
+     * Upload battles played on this device in one update. Each battle is written as its
+     * summary and detail records under its own ID, so uploading a battle again changes
+     * nothing.
+     * @param userId the user who played the battles
+     * @param battles the battles, with their logs and teams
+     * @param callback callback to handle success or failure
      */
-    public boolean saveBattleHistory(String opponentName, String outcome, String battleLog, 
-                                  String playerTeam, String opponentTeam) {
-        FirebaseUser currentUser = mAuth.getCurrentUser();
-        if (currentUser == null) {
-            Log.d(TAG, "Cannot save battle history: User not signed in");
-            return false;
+    public void uploadBattles(String userId, List<BattleHistory> battles, BattleUploadCallback callback) {
+        Map<String, Object> updates = new HashMap<>();
+        for (BattleHistory battleHistory : battles) {
+            String battleId = battleHistory.getBattleId();
+            // The list only reads the small summary, the log and teams are fetched on expand
+            updates.put("users/" + userId + "/battleSummaries/" + battleId, battleHistory.toSummaryMap());
+            updates.put("users/" + userId + "/battleDetails/" + battleId, battleHistory.toDetailMap());
         }
+        TraceLog.d(TAG, "Uploading {} battles for user ID: {}", battles.size(), userId);
         
-        String userId = currentUser.getUid();
-        Log.d(TAG, "Saving battle history for user ID: " + userId);
-        
-        // Generate a unique battle ID
-        String battleId = mDatabase.child("users").child(userId).child("battles").push().getKey();
-        Log.d(TAG, "Generated battle ID: " + battleId);
-        
-        BattleHistory battleHistory = new BattleHistory(
-                battleId,
-                userId,
-                opponentName,
-                outcome,
-                new Date(),
-                battleLog,
-                playerTeam,
-                opponentTeam
-        );
-        
-        // Save battle under the user's ID for easier retrieval
-        String dbPath = "users/" + userId + "/battles/" + battleId;
-        Log.d(TAG, "Saving battle to path: " + dbPath);
-        
-        mDatabase.child("users").child(userId).child("battles").child(battleId).setValue(battleHistory)
+        mDatabase.updateChildren(updates)
                 .addOnSuccessListener(aVoid -> {
-                    Log.d(TAG, "Battle history saved successfully to Firebase at " + dbPath);
-                    // Log the actual data that was saved
-                    Log.d(TAG, "Battle data: opponent=" + opponentName + ", outcome=" + outcome + 
-                          ", userId=" + userId + ", timestamp=" + new Date());
+                    TraceLog.d(TAG, "Uploaded {} battles", battles.size());
+                    callback.onSuccess();
                 })
-                .addOnFailureListener(e -> Log.w(TAG, "Error saving battle history", e));
-        
-        return true;
+                .addOnFailureListener(e -> {
+                    TraceLog.w(TAG, "Error uploading battles", e);
+                    callback.onFailure(e);
+                });
     }
     
     /**
-     * Get battle history for current user
-     * @param callback callback to handle loaded battle histories
+     * Move the user's battles saved in the old layouts, once
+     * @param userId the signed in user
+     * @param callback callback to handle the result
      */
-    public void getBattleHistory(BattleHistoryCallback callback) {
-        FirebaseUser currentUser = mAuth.getCurrentUser();
-        if (currentUser == null) {
-            Log.d(TAG, "Cannot get battle history: User not signed in");
-            callback.onFailure(new Exception("User not signed in"));
-            return;
-        }
-        
-        String userId = currentUser.getUid();
-        Log.d(TAG, "Getting battle history for user ID: " + userId);
-        
-        // First, check the new path structure
-        DatabaseReference userBattlesRef = mDatabase.child("users").child(userId).child("battles");
-        Log.d(TAG, "Checking new database path: " + userBattlesRef.toString());
-        
-        userBattlesRef.addListenerForSingleValueEvent(new ValueEventListener() {
-            @Override
-            public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
-                Log.d(TAG, "New path data snapshot received, has children: " + dataSnapshot.hasChildren() + ", child count: " + dataSnapshot.getChildrenCount());
-                
-                // If we have data in the new path, use it
-                if (dataSnapshot.hasChildren()) {
-                    processBattleHistorySnapshot(dataSnapshot, userId, callback);
-                } else {
-                    // Otherwise, check the old path
-                    Log.d(TAG, "No battle history found in new path, checking old path");
-                    checkOldBattlePath(userId, callback);
-                }
-            }
-            
-            @Override
-            public void onCancelled(@NonNull DatabaseError databaseError) {
-                Log.e(TAG, "Failed to load battle histories from new path: " + databaseError.getMessage());
-                // Try the old path as a fallback
-                checkOldBattlePath(userId, callback);
-            }
-        });
+    void migrateLegacyBattles(String userId, LegacyBattleMigration.Callback callback) {
+        mMigration.migrate(userId, callback);
     }
     
     /**
-     * Check the old database path for battle history
+     * Get battle summaries saved after a given battle, oldest first. Only the summary
+     * records are read, use {@link #getBattleDetail} for a battle's log and teams.
+     * @param userId the signed in user
+     * @param after the newest battle already known, or null to start from the oldest
+     * @param limit the most battles to load
+     * @param callback callback to handle the loaded battles
      */
-    private void checkOldBattlePath(String userId, BattleHistoryCallback callback) {
-        // Instead of using a query which requires an index, get all battles and filter manually
-        DatabaseReference battlesRef = mDatabase.child("battles");
-        Log.d(TAG, "Checking old database path: " + battlesRef.toString());
-        
-        battlesRef.addListenerForSingleValueEvent(new ValueEventListener() {
+    public void getBattleSummariesAfter(String userId, BattleHistory after, int limit, BattleHistoryPageCallback callback) {
+        Query query = mDatabase.child("users").child(userId).child("battleSummaries").orderByChild("timestamp");
+        if (after != null) {
+            // The key breaks ties between battles saved in the same millisecond
+            query = query.startAfter(after.getTimestamp().getTime(), after.getBattleId());
+        }
+        query.limitToFirst(limit).addListenerForSingleValueEvent(new ValueEventListener() {
             @Override
             public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
-                Log.d(TAG, "Old path data snapshot received, has children: " + dataSnapshot.hasChildren() + ", child count: " + dataSnapshot.getChildrenCount());
-                
-                List<BattleHistory> battleHistories = new ArrayList<>();
-                
-                // Log all the keys found
-                StringBuilder keysFound = new StringBuilder("All battle keys found: ");
-                for (DataSnapshot snapshot : dataSnapshot.getChildren()) {
-                    keysFound.append(snapshot.getKey()).append(", ");
-                    
-                    try {
-                        // Check if this battle belongs to the current user
-                        Map<String, Object> rawData = (Map<String, Object>) snapshot.getValue();
-                        if (rawData != null && userId.equals(rawData.get("userId"))) {
-                            Log.d(TAG, "Found battle belonging to current user: " + snapshot.getKey());
-                            
-                            // Try to convert to BattleHistory object
-                            BattleHistory battleHistory = snapshot.getValue(BattleHistory.class);
-                            if (battleHistory != null) {
-                                Log.d(TAG, "Successfully parsed battle history: " + battleHistory.getBattleId() + ", opponent: " + battleHistory.getOpponentName());
-                                battleHistories.add(battleHistory);
-                            } else {
-                                Log.w(TAG, "Failed to parse battle history, creating manually");
-                                
-                                // Manually create a BattleHistory object from the raw data
-                                try {
-                                    String battleId = (String) rawData.get("battleId");
-                                    String opponentName = (String) rawData.get("opponentName");
-                                    String outcome = (String) rawData.get("outcome");
-                                    Object timestampObj = rawData.get("timestamp");
-                                    Date timestamp = null;
-                                    if (timestampObj instanceof Long) {
-                                        timestamp = new Date((Long) timestampObj);
-                                    } else if (timestampObj instanceof Map) {
-                                        // Handle Firebase server timestamp
-                                        Map<String, Object> timestampMap = (Map<String, Object>) timestampObj;
-                                        if (timestampMap.containsKey("time")) {
-                                            timestamp = new Date((Long) timestampMap.get("time"));
-                                        }
-                                    }
-                                    if (timestamp == null) {
-                                        timestamp = new Date(); // Fallback
-                                    }
-                                    
-                                    String battleLog = (String) rawData.get("battleLog");
-                                    String playerTeam = (String) rawData.get("playerTeam");
-                                    String opponentTeam = (String) rawData.get("opponentTeam");
-                                    
-                                    BattleHistory manualBattleHistory = new BattleHistory(
-                                            battleId,
-                                            userId,
-                                            opponentName,
-                                            outcome,
-                                            timestamp,
-                                            battleLog,
-                                            playerTeam,
-                                            opponentTeam
-                                    );
-                                    
-                                    Log.d(TAG, "Manually created battle history: " + manualBattleHistory.getBattleId());
-                                    battleHistories.add(manualBattleHistory);
-                                } catch (Exception e) {
-                                    Log.e(TAG, "Error creating battle history from raw data", e);
-                                }
-                            }
+                boolean hasMore = dataSnapshot.getChildrenCount() >= limit;
+                mDecoder.execute(() -> {
+                    List<BattleHistory> page = new ArrayList<>();
+                    for (DataSnapshot snapshot : dataSnapshot.getChildren()) {
+                        Object value = snapshot.getValue();
+                        if (value instanceof Map) {
+                            page.add(BattleHistoryMapper.fromSummary(snapshot.getKey(), userId, (Map<String, Object>) value));
+                        } else {
+                            TraceLog.w(TAG, "Skipping malformed battle summary {}", snapshot.getKey());
                         }
-                    } catch (Exception e) {
-                        Log.e(TAG, "Error processing battle: " + e.getMessage(), e);
                     }
-                }
-                
-                Log.d(TAG, keysFound.toString());
-                Log.d(TAG, "Loaded " + battleHistories.size() + " battle histories from old path");
-                callback.onBattleHistoryLoaded(battleHistories);
+                    TraceLog.d(TAG, "Loaded {} battle summaries", page.size());
+                    // The whole page in one go
+                    mMainHandler.post(() -> callback.onPageLoaded(page, hasMore));
+                });
             }
             
             @Override
             public void onCancelled(@NonNull DatabaseError databaseError) {
-                Log.e(TAG, "Failed to load battle histories from old path: " + databaseError.getMessage());
+                TraceLog.e(TAG, "Failed to load battle summaries: {}", databaseError.getMessage());
                 callback.onFailure(databaseError.toException());
             }
         });
     }
     
     /**
-     * Process a data snapshot containing battle history
+     * Load the log and teams of a battle loaded from its summary. Battles that already
+     * have them are delivered straight away.
+     * @param battleHistory the battle to fill in
+     * @param callback callback to handle a copy of the battle with its details
      */
-    private void processBattleHistorySnapshot(DataSnapshot dataSnapshot, String userId, BattleHistoryCallback callback) {
-        List<BattleHistory> battleHistories = new ArrayList<>();
-        
-        for (DataSnapshot snapshot : dataSnapshot.getChildren()) {
-            Log.d(TAG, "Processing battle snapshot with key: " + snapshot.getKey());
-            try {
-                BattleHistory battleHistory = snapshot.getValue(BattleHistory.class);
-                if (battleHistory != null) {
-                    Log.d(TAG, "Successfully parsed battle history: " + battleHistory.getBattleId() + ", opponent: " + battleHistory.getOpponentName());
-                    battleHistories.add(battleHistory);
-                } else {
-                    Log.w(TAG, "Failed to parse battle history, snapshot value is null");
-                    // Try to get the raw data to see what's there
-                    Map<String, Object> rawData = (Map<String, Object>) snapshot.getValue();
-                    if (rawData != null) {
-                        Log.d(TAG, "Raw data: " + rawData.toString());
-                        
-                        // Try to manually create a BattleHistory object from the raw data
-                        try {
-                            String battleId = (String) rawData.get("battleId");
-                            String opponentName = (String) rawData.get("opponentName");
-                            String outcome = (String) rawData.get("outcome");
-                            Object timestampObj = rawData.get("timestamp");
-                            Date timestamp = null;
-                            if (timestampObj instanceof Long) {
-                                timestamp = new Date((Long) timestampObj);
-                            } else if (timestampObj instanceof Map) {
-                                // Handle Firebase server timestamp
-                                Map<String, Object> timestampMap = (Map<String, Object>) timestampObj;
-                                if (timestampMap.containsKey("time")) {
-                                    timestamp = new Date((Long) timestampMap.get("time"));
-                                }
-                            }
-                            if (timestamp == null) {
-                                timestamp = new Date(); // Fallback
-                            }
-                            
-                            String battleLog = (String) rawData.get("battleLog");
-                            String playerTeam = (String) rawData.get("playerTeam");
-                            String opponentTeam = (String) rawData.get("opponentTeam");
-                            
-                            BattleHistory manualBattleHistory = new BattleHistory(
-                                    battleId,
-                                    userId,
-                                    opponentName,
-                                    outcome,
-                                    timestamp,
-                                    battleLog,
-                                    playerTeam,
-                                    opponentTeam
-                            );
-                            
-                            Log.d(TAG, "Manually created battle history: " + manualBattleHistory.getBattleId());
-                            battleHistories.add(manualBattleHistory);
-                        } catch (Exception e) {
-                            Log.e(TAG, "Error creating battle history from raw data", e);
-                        }
-                    }
-                }
-            } catch (Exception e) {
-                Log.e(TAG, "Error parsing battle history: " + e.getMessage(), e);
-            }
+    public void getBattleDetail(BattleHistory battleHistory, BattleDetailCallback callback) {
+        if (battleHistory.isDetailLoaded()) {
+            callback.onDetailLoaded(battleHistory);
+            return;
         }
         
-        Log.d(TAG, "Loaded " + battleHistories.size() + " battle histories");
-        callback.onBattleHistoryLoaded(battleHistories);
-    }
-    
-    /**
-     * Get a specific battle by ID
-     * @param battleId ID of the battle to retrieve
-     * @param callback callback to handle the loaded battle
-     */
-    public void getBattleById(String battleId, BattleHistoryCallback callback) {
-        mDatabase.child("battles").child(battleId).addListenerForSingleValueEvent(new ValueEventListener() {
+        mDatabase.child("users").child(battleHistory.getUserId()).child("battleDetails")
+                .child(battleHistory.getBattleId())
+                .addListenerForSingleValueEvent(new ValueEventListener() {
             @Override
             public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
-                BattleHistory battleHistory = dataSnapshot.getValue(BattleHistory.class);
-                List<BattleHistory> result = new ArrayList<>();
-                if (battleHistory != null) {
-                    result.add(battleHistory);
-                }
-                callback.onBattleHistoryLoaded(result);
+                mDecoder.execute(() -> {
+                    Object value = dataSnapshot.getValue();
+                    if (!(value instanceof Map)) {
+                        TraceLog.w(TAG, "No details stored for battle {}", battleHistory.getBattleId());
+                    }
+                    BattleHistory loaded = BattleHistoryMapper.withDetail(battleHistory,
+                            value instanceof Map ? (Map<String, Object>) value : null);
+                    mMainHandler.post(() -> callback.onDetailLoaded(loaded));
+                });
             }
             
             @Override
             public void onCancelled(@NonNull DatabaseError databaseError) {
+                TraceLog.e(TAG, "Failed to load battle details: {}", databaseError.getMessage());
                 callback.onFailure(databaseError.toException());
             }
         });
@@ -0,0 +1,387 @@
+package com.example.csproject;
+
+/**
+ * Minimal pull reader for JSON text held in a CharSequence.
+ *
+ * Modelled on android.util.JsonReader but pure Java, so the request decoder can also run
+ * in plain JVM tests and benchmarks. Object names can be matched against a
+ * {@link ProtocolTokenizer.Vocabulary} without allocating, and values the caller doesn't
+ * need are skipped in place instead of being built into a tree.
+ */
+public final class JsonPullReader {
+
+    public enum Token {
+        BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY, NAME, STRING, NUMBER, BOOLEAN, NULL, END_DOCUMENT
+    }
+
+    // Maximum nesting depth we track; Showdown requests are about 5 levels deep
+    private static final int MAX_DEPTH = 32;
+
+    private static final int SCOPE_EMPTY_OBJECT = 0;
+    private static final int SCOPE_OBJECT = 1;        // inside an object, after a value
+    private static final int SCOPE_DANGLING_NAME = 2; // inside an object, after a name
+    private static final int SCOPE_EMPTY_ARRAY = 3;
+    private static final int SCOPE_ARRAY = 4;         // inside an array, after a value
+    private static final int SCOPE_DOCUMENT = 5;
+
+    private CharSequence in;
+    private int pos;
+    private int end;
+
+    private final int[] scopes = new int[MAX_DEPTH];
+    private int depth;
+
+    // Token computed by peek() but not consumed yet
+    private Token peeked;
+
+    // Range of the last name, for Vocabulary lookups
+    private final NameView nameView = new NameView();
+
+    private final StringBuilder scratch = new StringBuilder();
+
+    /**
+     * Start reading a new document
+     * @param json The JSON text
+     * @param from Start of the document in json
+     * @param to End of the document in json
+     * @return this reader
+     */
+    public JsonPullReader reset(CharSequence json, int from, int to) {
+        this.in = json;
+        this.pos = from;
+        this.end = to;
+        this.depth = 1;
+        this.scopes[0] = SCOPE_DOCUMENT;
+        this.peeked = null;
+        return this;
+    }
+
+    public JsonPullReader reset(CharSequence json) {
+        return reset(json, 0, json.length());
+    }
+
+    /**
+     * @return The type of the next token without consuming it
+     */
+    public Token peek() {
+        if (peeked != null) return peeked;
+
+        int scope = scopes[depth - 1];
+        int c = nextNonWhitespace();
+
+        switch (scope) {
+            case SCOPE_EMPTY_OBJECT:
+            case SCOPE_OBJECT:
+                if (c == '}') return peeked = Token.END_OBJECT;
+                if (scope == SCOPE_OBJECT) {
+                    if (c != ',') throw syntaxError("Expected ',' or '}'");
+                    pos++;
+                    c = nextNonWhitespace();
+                }
+                if (c != '"') throw syntaxError("Expected name");
+                scopes[depth - 1] = SCOPE_DANGLING_NAME;
+                return peeked = Token.NAME;
+            case SCOPE_DANGLING_NAME:
+                if (c != ':') throw syntaxError("Expected ':'");
+                pos++;
+                scopes[depth - 1] = SCOPE_OBJECT;
+                return peeked = valueToken(nextNonWhitespace());
+            case SCOPE_EMPTY_ARRAY:
+            case SCOPE_ARRAY:
+                if (c == ']') return peeked = Token.END_ARRAY;
+                if (scope == SCOPE_ARRAY) {
+                    if (c != ',') throw syntaxError("Expected ',' or ']'");
+                    pos++;
+                    c = nextNonWhitespace();
+                }
+                scopes[depth - 1] = SCOPE_ARRAY;
+                return peeked = valueToken(c);
+            default:
+                if (c == -1) return peeked = Token.END_DOCUMENT;
+                return peeked = valueToken(c);
+        }
+    }
+
+    private Token valueToken(int c) {
+        switch (c) {
+            case '{': return Token.BEGIN_OBJECT;
+            case '[': return Token.BEGIN_ARRAY;
+            case '"': return Token.STRING;
+            case 't':
+            case 'f': return Token.BOOLEAN;
+            case 'n': return Token.NULL;
+            case -1: throw syntaxError("Unexpected end of input");
+            default: return Token.NUMBER;
+        }
+    }
+
+    public void beginObject() {
+        expect(Token.BEGIN_OBJECT);
+        pos++;
+        push(SCOPE_EMPTY_OBJECT);
+    }
+
+    public void endObject() {
+        expect(Token.END_OBJECT);
+        pos++;
+        depth--;
+    }
+
+    public void beginArray() {
+        expect(Token.BEGIN_ARRAY);
+        pos++;
+        push(SCOPE_EMPTY_ARRAY);
+    }
+
+    public void endArray() {
+        expect(Token.END_ARRAY);
+        pos++;
+        depth--;
+    }
+
+    /**
+     * @return true if the current object or array has more elements
+     */
+    public boolean hasNext() {
+        Token token = peek();
+        return token != Token.END_OBJECT && token != Token.END_ARRAY && token != Token.END_DOCUMENT;
+    }
+
+    /**
+     * Consume the next name and match it against a vocabulary without allocating
+     * @param names The names the caller cares about
+     * @return The canonical name, or null if the name isn't in the vocabulary
+     */
+    public String nextName(ProtocolTokenizer.Vocabulary names) {
+        expect(Token.NAME);
+        int start = pos + 1;
+        int close = skipString();
+        // Escaped names never occur in requests; treat them as unknown
+        if (ProtocolTokenizer.indexOf(in, '\\', start, close) >= 0) return null;
+        nameView.set(in, start, close);
+        return names.lookup(nameView);
+    }
+
+    /**
+     * Consume the next name as a String
+     */
+    public String nextName() {
+        expect(Token.NAME);
+        return readString();
+    }
+
+    /**
+     * Consume a string value. Numbers and booleans are returned as their literal text.
+     */
+    public String nextString() {
+        Token token = peek();
+        if (token == Token.STRING) {
+            peeked = null;
+            return readString();
+        }
+        if (token == Token.NUMBER || token == Token.BOOLEAN) {
+            peeked = null;
+            int start = pos;
+            skipLiteral();
+            return in.subSequence(start, pos).toString();
+        }
+        throw syntaxError("Expected a string but was " + token);
+    }
+
+    public boolean nextBoolean() {
+        expect(Token.BOOLEAN);
+        boolean value = in.charAt(pos) == 't';
+        skipLiteral();
+        return value;
+    }
+
+    public int nextInt() {
+        Token token = peek();
+        if (token == Token.STRING) {
+            // Lenient like android.util.JsonReader: "12" is accepted as a number
+            peeked = null;
+            int start = pos + 1;
+            int close = skipString();
+            return ProtocolTokenizer.parseInt(in, start, close);
+        }
+        expect(Token.NUMBER);
+        int start = pos;
+        skipLiteral();
+        return ProtocolTokenizer.parseInt(in, start, pos);
+    }
+
+    public void nextNull() {
+        expect(Token.NULL);
+        skipLiteral();
+    }
+
+    /**
+     * Skip the next value, including any nested objects or arrays
+     */
+    public void skipValue() {
+        int nesting = 0;
+        do {
+            Token token = peek();
+            switch (token) {
+                case BEGIN_OBJECT:
+                    beginObject();
+                    nesting++;
+                    break;
+                case BEGIN_ARRAY:
+                    beginArray();
+                    nesting++;
+                    break;
+                case END_OBJECT:
+                    endObject();
+                    nesting--;
+                    break;
+                case END_ARRAY:
+                    endArray();
+                    nesting--;
+                    break;
+                case NAME:
+                case STRING:
+                    peeked = null;
+                    skipString();
+                    break;
+                case END_DOCUMENT:
+                    throw syntaxError("Unexpected end of input");
+                default:
+                    peeked = null;
+                    skipLiteral();
+                    break;
+            }
+        } while (nesting > 0);
+    }
+
+    /**
+     * Check the next token and mark it as consumed; the caller then advances past it
+     */
+    private void expect(Token expected) {
+        Token token = peek();
+        if (token != expected) {
+            throw syntaxError("Expected " + expected + " but was " + token);
+        }
+        peeked = null;
+    }
+
+    private void push(int scope) {
+        if (depth == MAX_DEPTH) throw syntaxError("Nesting too deep");
+        scopes[depth++] = scope;
+    }
+
+    private int nextNonWhitespace() {
+        while (pos < end) {
+            char c = in.charAt(pos);
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') return c;
+            pos++;
+        }
+        return -1;
+    }
+
+    /**
+     * Skip a number, boolean or null literal
+     */
+    private void skipLiteral() {
+        while (pos < end) {
+            char c = in.charAt(pos);
+            if (c == ',' || c == '}' || c == ']' || c == ':' || c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+                return;
+            }
+            pos++;
+        }
+    }
+
+    /**
+     * Skip a string starting at pos (the opening quote)
+     * @return The index of the closing quote
+     */
+    private int skipString() {
+        int i = pos + 1;
+        while (i < end) {
+            char c = in.charAt(i);
+            if (c == '"') {
+                pos = i + 1;
+                return i;
+            }
+            if (c == '\\') i++;
+            i++;
+        }
+        throw syntaxError("Unterminated string");
+    }
+
+    /**
+     * Read a string starting at pos (the opening quote), decoding escapes
+     */
+    private String readString() {
+        int start = pos + 1;
+        int close = skipString();
+        if (ProtocolTokenizer.indexOf(in, '\\', start, close) < 0) {
+            return in.subSequence(start, close).toString();
+        }
+
+        StringBuilder out = scratch;
+        out.setLength(0);
+        for (int i = start; i < close; i++) {
+            char c = in.charAt(i);
+            if (c != '\\') {
+                out.append(c);
+                continue;
+            }
+            char escaped = in.charAt(++i);
+            switch (escaped) {
+                case 'b': out.append('\b'); break;
+                case 'f': out.append('\f'); break;
+                case 'n': out.append('\n'); break;
+                case 'r': out.append('\r'); break;
+                case 't': out.append('\t'); break;
+                case 'u':
+                    if (i + 4 >= close) throw syntaxError("Bad unicode escape");
+                    out.append((char) Integer.parseInt(in.subSequence(i + 1, i + 5).toString(), 16));
+                    i += 4;
+                    break;
+                default: out.append(escaped); break;
+            }
+        }
+        return out.toString();
+    }
+
+    private IllegalStateException syntaxError(String message) {
+        return new IllegalStateException(message + " at offset " + pos);
+    }
+
+    /**
+     * CharSequence view over the last name read
+     */
+    private static final class NameView implements CharSequence {
+        private CharSequence source;
+        private int start;
+        private int end;
+
+        void set(CharSequence source, int start, int end) {
+            this.source = source;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return source.charAt(start + index);
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            return source.subSequence(start + from, start + to);
+        }
+
+        @Override
+        public String toString() {
+            return source.subSequence(start, end).toString();
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.csproject;
+
+import androidx.annotation.NonNull;
+
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.ValueEventListener;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * Moves a user's battles out of the layouts used before battle summaries existed, once.
+ * Those are the top-level {@code battles} node shared by every user, and the full records in
+ * {@code users/<uid>/battles}. Each battle is rewritten as a summary and a detail record, and
+ * the old copies are removed in the same update, so a failed migration is simply retried.
+ * <p>
+ * The shared node is only ever read through an index query on {@code userId}, never whole.
+ */
+final class LegacyBattleMigration {
+    private static final String TAG = "LegacyBattleMigration";
+
+    // Set under users/<uid> once the user's legacy battles have been moved
+    static final String MIGRATED_FLAG = "legacyBattlesMigrated";
+
+    interface Callback {
+        /**
+         * @param battleCount The number of battles moved, 0 if there were none or they
+         *                    were moved before
+         */
+        void onMigrated(int battleCount);
+        void onFailure(Exception e);
+    }
+
+    private final DatabaseReference root;
+    private final Executor decoder;
+    // Users known to be migrated, so the flag is read once per process
+    private final Set<String> migratedUsers = new HashSet<>();
+
+    /**
+     * @param root The database root
+     * @param decoder Reads the legacy records and builds the update, off the main thread
+     */
+    LegacyBattleMigration(DatabaseReference root, Executor decoder) {
+        this.root = root;
+        this.decoder = decoder;
+    }
+
+    /**
+     * Move a user's legacy battles, unless they have been moved already
+     * @param userId The user whose battles to move
+     * @param callback Called on the main thread when done
+     */
+    void migrate(String userId, Callback callback) {
+        if (migratedUsers.contains(userId)) {
+            callback.onMigrated(0);
+            return;
+        }
+
+        root.child("users").child(userId).child(MIGRATED_FLAG).addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
+                if (Boolean.TRUE.equals(dataSnapshot.getValue())) {
+                    migratedUsers.add(userId);
+                    callback.onMigrated(0);
+                } else {
+                    readUserBattles(userId, callback);
+                }
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError databaseError) {
+                callback.onFailure(databaseError.toException());
+            }
+        });
+    }
+
+    private void readUserBattles(String userId, Callback callback) {
+        root.child("users").child(userId).child("battles").addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
+                readSharedBattles(userId, dataSnapshot, callback);
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError databaseError) {
+                callback.onFailure(databaseError.toException());
+            }
+        });
+    }
+
+    private void readSharedBattles(String userId, DataSnapshot userBattles, Callback callback) {
+        // Served by the userId index, only this user's battles are sent
+        root.child("battles").orderByChild("userId").equalTo(userId).addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot dataSnapshot) {
+                decoder.execute(() -> {
+                    Map<String, Map<String, Object>> legacy = new LinkedHashMap<>();
+                    collect(userBattles, legacy);
+                    collect(dataSnapshot, legacy);
+                    Set<String> sharedKeys = new HashSet<>();
+                    for (DataSnapshot snapshot : dataSnapshot.getChildren()) {
+                        sharedKeys.add(snapshot.getKey());
+                    }
+                    write(userId, legacy.size(), buildUpdates(userId, legacy, sharedKeys), callback);
+                });
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError databaseError) {
+                callback.onFailure(databaseError.toException());
+            }
+        });
+    }
+
+    /**
+     * Apply the update. Its listeners run on the main thread, wherever this is called from.
+     */
+    private void write(String userId, int battleCount, Map<String, Object> updates, Callback callback) {
+        root.updateChildren(updates)
+                .addOnSuccessListener(aVoid -> {
+                    TraceLog.i(TAG, "Moved {} legacy battles for user {}", battleCount, userId);
+                    migratedUsers.add(userId);
+                    callback.onMigrated(battleCount);
+                })
+                .addOnFailureListener(e -> {
+                    TraceLog.w(TAG, "Error moving legacy battles", e);
+                    callback.onFailure(e);
+                });
+    }
+
+    private static void collect(DataSnapshot dataSnapshot, Map<String, Map<String, Object>> legacy) {
+        for (DataSnapshot snapshot : dataSnapshot.getChildren()) {
+            Object value = snapshot.getValue();
+            if (value instanceof Map) {
+                legacy.put(snapshot.getKey(), (Map<String, Object>) value);
+            } else {
+                TraceLog.w(TAG, "Skipping malformed legacy battle {}", snapshot.getKey());
+            }
+        }
+    }
+
+    /**
+     * The multi-path update that moves the battles: a summary and detail record for each,
+     * removal of the old copies, and the migrated flag
+     * @param userId The user the battles belong to
+     * @param legacy The legacy records by key
+     * @param sharedKeys The keys of the records that came from the shared battles node
+     * @return Update paths relative to the database root
+     */
+    static Map<String, Object> buildUpdates(String userId, Map<String, Map<String, Object>> legacy, Set<String> sharedKeys) {
+        Map<String, Object> updates = new HashMap<>();
+        String userPath = "users/" + userId + "/";
+        for (Map.Entry<String, Map<String, Object>> entry : legacy.entrySet()) {
+            BattleHistory battleHistory = BattleHistoryMapper.fromLegacy(entry.getKey(), userId, entry.getValue());
+            updates.put(userPath + "battleSummaries/" + battleHistory.getBattleId(), battleHistory.toSummaryMap());
+            updates.put(userPath + "battleDetails/" + battleHistory.getBattleId(), battleHistory.toDetailMap());
+            if (sharedKeys.contains(entry.getKey())) {
+                updates.put("battles/" + entry.getKey(), null);
+            }
+        }
+        updates.put(userPath + "battles", null);
+        updates.put(userPath + MIGRATED_FLAG, true);
+        return updates;
+    }
+}
@@ -64,6 +64,11 @@ public class MainActivity extends AppCompatActivity {
         // Ensure we're not in battle mode in the main menu
         SoundManager.getInstance(this).setInBattleMode(false);
 
+        // Upload any battles left over from an earlier session that was offline
+        if (firebaseManager.isUserSignedIn()) {
+            BattleHistoryRepository.getInstance(this).upload(firebaseManager.getCurrentUser().getUid());
+        }
+
         Button startButton = findViewById(R.id.buttonStartBattle);//start battle
         Button settingsButton = findViewById(R.id.buttonSettings);
         Button battleHistoryButton = findViewById(R.id.buttonBattleHistory);
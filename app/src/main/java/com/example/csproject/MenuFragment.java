@@ -72,9 +72,6 @@ public class MenuFragment extends Fragment {
                     if (getActivity() instanceof BattleActivity) {
                         BattleActivity battleActivity = (BattleActivity) getActivity();
                         
-                        // Add to battle log
-                        battleActivity.getBattleLog();
-                        
                         // Send forfeit command through the WebSocket
                         ShowdownWebSocketClient socketClient = battleActivity.getSocketClient();
                         if (socketClient != null) {
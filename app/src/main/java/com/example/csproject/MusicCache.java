@@ -0,0 +1,135 @@
+package com.example.csproject;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Battle music tracks downloaded to disk, least recently played first.
+ *
+ * Tracks are a few megabytes each, so the directory is bounded by total size and the
+ * least recently played tracks are deleted when a new one doesn't fit. Tracks a player
+ * is using are pinned and never deleted; pins are counted, so a track pinned twice stays
+ * pinned until it's unpinned twice. Recency survives restarts through the files'
+ * modification times. Main thread only.
+ */
+final class MusicCache {
+    private static final String TAG = "MusicCache";
+
+    static final String EXTENSION = ".mp3";
+
+    private final File dir;
+    private final long maxBytes;
+    // Track name to file size
+    private final LinkedHashMap<String, Long> tracks = new LinkedHashMap<>(32, 0.75f, true);
+    // Track name to the number of pins on it
+    private final Map<String, Integer> pinned = new HashMap<>();
+    private long totalBytes = 0;
+
+    /**
+     * @param dir The cache directory; created if missing
+     * @param maxBytes Total size of tracks to keep
+     */
+    MusicCache(File dir, long maxBytes) {
+        this.dir = dir;
+        this.maxBytes = maxBytes;
+        if (!dir.exists()) dir.mkdirs();
+
+        // Unfinished downloads have another extension and are left to the download engine
+        File[] files = dir.listFiles((d, name) -> name.endsWith(EXTENSION));
+        if (files == null) return;
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        for (File file : files) {
+            String name = file.getName();
+            String track = name.substring(0, name.length() - EXTENSION.length());
+            tracks.put(track, file.length());
+            totalBytes += file.length();
+        }
+        trim();
+    }
+
+    /**
+     * @return Where a track is (or will be) saved
+     */
+    File fileFor(String track) {
+        return new File(dir, track + EXTENSION);
+    }
+
+    /**
+     * Get a cached track and mark it as the most recently played
+     * @return The file, or null if it isn't cached
+     */
+    File get(String track) {
+        if (tracks.get(track) == null) return null;
+        File file = fileFor(track);
+        if (!file.exists()) {
+            // Deleted behind our back, e.g. by the system clearing the cache
+            totalBytes -= tracks.remove(track);
+            return null;
+        }
+        file.setLastModified(System.currentTimeMillis());
+        return file;
+    }
+
+    /**
+     * Record a track that was just downloaded, deleting the least recently played ones that
+     * no longer fit. The new track is kept even if it alone is over the bound.
+     */
+    void add(String track) {
+        File file = fileFor(track);
+        Long previous = tracks.put(track, file.length());
+        if (previous != null) totalBytes -= previous;
+        totalBytes += file.length();
+        // Pinned on top of any pins a player holds, which stay after this one is dropped
+        pin(track);
+        trim();
+        unpin(track);
+    }
+
+    /**
+     * Keep a track while it's playing or queued to play, until it's unpinned as many times
+     */
+    void pin(String track) {
+        Integer count = pinned.get(track);
+        pinned.put(track, count == null ? 1 : count + 1);
+    }
+
+    void unpin(String track) {
+        Integer count = pinned.get(track);
+        if (count == null) return;
+        if (count > 1) {
+            pinned.put(track, count - 1);
+        } else {
+            pinned.remove(track);
+        }
+    }
+
+    private void trim() {
+        Iterator<Map.Entry<String, Long>> it = tracks.entrySet().iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            Map.Entry<String, Long> eldest = it.next();
+            if (pinned.containsKey(eldest.getKey())) continue;
+            it.remove();
+            totalBytes -= eldest.getValue();
+            if (!fileFor(eldest.getKey()).delete()) {
+                TraceLog.w(TAG, "Couldn't delete cached track {}", eldest.getKey());
+            }
+        }
+    }
+
+    boolean contains(String track) {
+        return tracks.containsKey(track);
+    }
+
+    int size() {
+        return tracks.size();
+    }
+
+    long getTotalBytes() {
+        return totalBytes;
+    }
+}
@@ -2,15 +2,9 @@ package com.example.csproject;
 
 import android.content.Context;
 import android.media.MediaPlayer;
-import android.os.AsyncTask;
-import android.util.Log;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.net.HttpURLConnection;
-import java.net.URL;
 
 /**
  * Utility class to download sound files from the Pokémon Showdown API
@@ -37,9 +31,18 @@ public class PokemonShowdownSoundDownloader {
      * @param callback Callback to be notified when the sound is ready to play
      */
     public static void playPokemonCry(Context context, int pokemonId, SoundReadyCallback callback) {
-        String pokemonName = getPokemonNameFromId(pokemonId);
-        String url = SHOWDOWN_CRY_URL + pokemonName.toLowerCase() + ".mp3";
-        downloadAndPlaySound(context, url, "cry_" + pokemonId, callback);
+        SpeciesIndex species = SpeciesIndex.getInstance(context);
+        int slot = species.findByDexNumber(pokemonId);
+        if (slot < 0) {
+            // There's nothing to download for a number we don't know
+            TraceLog.w(TAG, "Unknown dex number, not playing a cry: {}", pokemonId);
+            if (callback != null) {
+                callback.onSoundReady(false);
+            }
+            return;
+        }
+        String crySlug = species.getCrySlug(slot);
+        downloadAndPlaySound(context, SHOWDOWN_CRY_URL + crySlug + ".mp3", "cry_" + crySlug, callback);
     }
     
     /**
@@ -67,31 +70,65 @@ public class PokemonShowdownSoundDownloader {
     }
     
     /**
-     * Download a sound file and play it
+     * Get a cry's file from the cache, downloading it first if needed
+     * 
+     * @param context Android context
+     * @param crySlug The species' cry slug (e.g. "pikachu")
+     * @param callback Called on the main thread with the file, or null if it couldn't be downloaded
+     */
+    public static void fetchCry(Context context, String crySlug, FileReadyCallback callback) {
+        fetchSound(context, SHOWDOWN_CRY_URL + crySlug + ".mp3", "cry_" + crySlug, callback);
+    }
+    
+    /**
+     * Get a sound file from the cache, downloading it first if needed
      * 
      * @param context Android context
      * @param url URL of the sound file
      * @param fileName Name to save the file as in the cache
-     * @param callback Callback to be notified when the sound is ready to play
+     * @param callback Called on the main thread with the file, or null if it couldn't be downloaded
      */
-    private static void downloadAndPlaySound(Context context, String url, String fileName, SoundReadyCallback callback) {
-        // Check if the file is already cached
+    private static void fetchSound(Context context, String url, String fileName, FileReadyCallback callback) {
         File cacheDir = new File(context.getCacheDir(), CACHE_DIR);
         if (!cacheDir.exists()) {
             cacheDir.mkdirs();
         }
         
         File soundFile = new File(cacheDir, fileName + ".mp3");
-        
         if (soundFile.exists()) {
-            // File already exists, play it
-            playSound(soundFile.getAbsolutePath(), callback);
+            callback.onFileReady(soundFile);
         } else {
-            // Download the file
-            new DownloadSoundTask(soundFile.getAbsolutePath(), callback).execute(url);
+            // Requests for a file that's already downloading share that download
+            DownloadEngine.getInstance().fetch(url, soundFile, callback::onFileReady);
         }
     }
     
+    /**
+     * Download a sound file and play it
+     * 
+     * @param context Android context
+     * @param url URL of the sound file
+     * @param fileName Name to save the file as in the cache
+     * @param callback Callback to be notified when the sound is ready to play
+     */
+    private static void downloadAndPlaySound(Context context, String url, String fileName, SoundReadyCallback callback) {
+        // The offline asset pack needs no download or cache file
+        AssetPack pack = AssetPack.getInstance(context);
+        int entry = pack.findUrl(url);
+        if (entry >= 0) {
+            playPackedSound(pack, entry, callback);
+            return;
+        }
+
+        fetchSound(context, url, fileName, file -> {
+            if (file != null) {
+                playSound(file.getAbsolutePath(), callback);
+            } else if (callback != null) {
+                callback.onSoundReady(false);
+            }
+        });
+    }
+    
     /**
      * Play a sound file from the given path
      * 
@@ -111,7 +148,7 @@ public class PokemonShowdownSoundDownloader {
                 callback.onSoundReady(true);
             }
         } catch (IOException e) {
-            Log.e(TAG, "Error playing sound: " + e.getMessage());
+            TraceLog.e(TAG, "Error playing sound: {}", e.getMessage());
             mediaPlayer.release();
             if (callback != null) {
                 callback.onSoundReady(false);
@@ -120,73 +157,26 @@ public class PokemonShowdownSoundDownloader {
     }
     
     /**
-     * Get the Pokémon name from its ID
+     * Play a sound straight from the asset pack
      * 
-     * @param pokemonId Pokémon ID (National Dex number)
-     * @return Pokémon name
-     */
-    private static String getPokemonNameFromId(int pokemonId) {
-        // This is a simplified implementation
-        // In a real app, you would have a complete mapping of Pokémon IDs to names
-        
-        switch (pokemonId) {
-            case 1: return "Bulbasaur";
-            case 4: return "Charmander";
-            case 7: return "Squirtle";
-            case 25: return "Pikachu";
-            case 133: return "Eevee";
-            // Add more mappings as needed
-            default: return "pikachu"; // Default to Pikachu if unknown
-        }
-    }
-    
-    /**
-     * AsyncTask to download a sound file
+     * @param pack The installed pack
+     * @param entry The sound's entry in the pack
+     * @param callback Callback to be notified when the sound is ready to play
      */
-    private static class DownloadSoundTask extends AsyncTask<String, Void, Boolean> {
-        private String filePath;
-        private SoundReadyCallback callback;
-        
-        public DownloadSoundTask(String filePath, SoundReadyCallback callback) {
-            this.filePath = filePath;
-            this.callback = callback;
-        }
-        
-        @Override
-        protected Boolean doInBackground(String... urls) {
-            try {
-                URL url = new URL(urls[0]);
-                HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-                connection.connect();
-                
-                if (connection.getResponseCode() != HttpURLConnection.HTTP_OK) {
-                    return false;
-                }
-                
-                InputStream input = connection.getInputStream();
-                FileOutputStream output = new FileOutputStream(filePath);
-                
-                byte[] buffer = new byte[1024];
-                int bytesRead;
-                while ((bytesRead = input.read(buffer)) != -1) {
-                    output.write(buffer, 0, bytesRead);
-                }
-                
-                output.close();
-                input.close();
-                
-                return true;
-            } catch (IOException e) {
-                Log.e(TAG, "Error downloading sound: " + e.getMessage());
-                return false;
+    private static void playPackedSound(AssetPack pack, int entry, SoundReadyCallback callback) {
+        MediaPlayer mediaPlayer = new MediaPlayer();
+        try {
+            mediaPlayer.setDataSource(pack.getFileDescriptor(), pack.getOffset(entry), pack.getLength(entry));
+            mediaPlayer.prepare();
+            mediaPlayer.setOnCompletionListener(MediaPlayer::release);
+            mediaPlayer.start();
+            if (callback != null) {
+                callback.onSoundReady(true);
             }
-        }
-        
-        @Override
-        protected void onPostExecute(Boolean success) {
-            if (success) {
-                playSound(filePath, callback);
-            } else if (callback != null) {
+        } catch (IOException e) {
+            TraceLog.e(TAG, "Error playing packed sound {}: {}", pack.getKey(entry), e.getMessage());
+            mediaPlayer.release();
+            if (callback != null) {
                 callback.onSoundReady(false);
             }
         }
@@ -198,4 +188,11 @@ public class PokemonShowdownSoundDownloader {
     public interface SoundReadyCallback {
         void onSoundReady(boolean success);
     }
+    
+    /**
+     * Callback interface for fetching a sound file into the cache
+     */
+    public interface FileReadyCallback {
+        void onFileReady(File file);
+    }
 }
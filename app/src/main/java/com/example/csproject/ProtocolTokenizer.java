@@ -0,0 +1,451 @@
+package com.example.csproject;
+
+/**
+ * Cursor-based tokenizer for Pokémon Showdown protocol frames.
+ * A frame is walked line by line and each line is split on '|' into index ranges,
+ * so fields can be inspected as CharSequence views without allocating a String[]
+ * or substrings. Views returned by this class are only valid until the next call
+ * to {@link #nextLine()} or {@link #beginFrame(CharSequence)}.
+ *
+ * Field numbering matches {@code line.split("\\|")}: field 0 is the (empty) text before
+ * the leading '|', field 1 is the command, and trailing empty fields are dropped.
+ */
+public final class ProtocolTokenizer {
+    // Protocol lines rarely have more than 7 fields; anything past the limit
+    // is folded into the last field
+    private static final int MAX_FIELDS = 16;
+
+    // Current frame
+    private CharSequence frame;
+    private int frameEnd;
+    private int cursor;
+
+    // Current line
+    private int lineStart;
+    private int lineEnd;
+    private final Slice lineView = new Slice();
+    private final Slice restView = new Slice();
+
+    // Fields of the current line
+    private final int[] fieldStarts = new int[MAX_FIELDS];
+    private final int[] fieldEnds = new int[MAX_FIELDS];
+    private final Slice[] fieldViews = new Slice[MAX_FIELDS];
+    private int fieldCount;
+    private boolean tokenized;
+
+    // Views for the two halves of an ident ("p1a: Pikachu")
+    private final Slice identPositionView = new Slice();
+    private final Slice identNameView = new Slice();
+
+    public ProtocolTokenizer() {
+        for (int i = 0; i < MAX_FIELDS; i++) {
+            fieldViews[i] = new Slice();
+        }
+    }
+
+    /**
+     * Start walking a new frame
+     * @param frame The raw frame received from the server
+     * @return this tokenizer
+     */
+    public ProtocolTokenizer beginFrame(CharSequence frame) {
+        this.frame = frame;
+        this.frameEnd = frame.length();
+        this.cursor = 0;
+        this.lineStart = 0;
+        this.lineEnd = 0;
+        this.fieldCount = 0;
+        this.tokenized = false;
+        return this;
+    }
+
+    /**
+     * Convenience for tokenizing a single protocol line
+     * @param line The line to tokenize
+     * @return true if the line was loaded
+     */
+    public boolean reset(CharSequence line) {
+        return beginFrame(line).nextLine();
+    }
+
+    /**
+     * Advance to the next line of the frame
+     * @return true if a line is available, false at the end of the frame
+     */
+    public boolean nextLine() {
+        if (frame == null || cursor >= frameEnd) {
+            return false;
+        }
+
+        lineStart = cursor;
+        int end = indexOf(frame, '\n', cursor, frameEnd);
+        if (end < 0) {
+            end = frameEnd;
+            cursor = frameEnd;
+        } else {
+            cursor = end + 1;
+        }
+        lineEnd = end;
+        lineView.set(frame, lineStart, lineEnd);
+        fieldCount = 0;
+        tokenized = false;
+        return true;
+    }
+
+    /**
+     * @return The current line as a view
+     */
+    public CharSequence line() {
+        return lineView;
+    }
+
+    public int lineLength() {
+        return lineEnd - lineStart;
+    }
+
+    /**
+     * @return The first character of the current line, or 0 if the line is empty
+     */
+    public char lineFirstChar() {
+        return lineEnd > lineStart ? frame.charAt(lineStart) : 0;
+    }
+
+    /**
+     * Check whether the current line contains the given text
+     */
+    public boolean lineContains(String needle) {
+        return indexOf(frame, needle, lineStart, lineEnd) >= 0;
+    }
+
+    /**
+     * Copy a trimmed part of the current line into a String
+     * @param offset Offset from the start of the line
+     * @return The trimmed remainder of the line starting at offset
+     */
+    public String lineString(int offset) {
+        int start = Math.min(lineStart + offset, lineEnd);
+        int end = lineEnd;
+        while (start < end && frame.charAt(start) <= ' ') start++;
+        while (end > start && frame.charAt(end - 1) <= ' ') end--;
+        return frame.subSequence(start, end).toString();
+    }
+
+    /**
+     * Check whether a trimmed part of the current line starts with the given prefix
+     */
+    public boolean lineStartsWith(int offset, String prefix) {
+        int start = Math.min(lineStart + offset, lineEnd);
+        while (start < lineEnd && frame.charAt(start) <= ' ') start++;
+        return regionMatches(frame, start, lineEnd, prefix);
+    }
+
+    /**
+     * Split the current line into fields on '|'
+     * @return The number of fields, with the same semantics as {@code split("\\|").length}
+     */
+    public int tokenize() {
+        if (tokenized) return fieldCount;
+        tokenized = true;
+
+        int count = 0;
+        int start = lineStart;
+        for (int i = lineStart; i < lineEnd && count < MAX_FIELDS - 1; i++) {
+            if (frame.charAt(i) == '|') {
+                fieldStarts[count] = start;
+                fieldEnds[count] = i;
+                count++;
+                start = i + 1;
+            }
+        }
+        boolean split = count > 0;
+        fieldStarts[count] = start;
+        fieldEnds[count] = lineEnd;
+        count++;
+
+        // Drop trailing empty fields like String.split does. A line without any '|' is
+        // returned whole, even when it's empty.
+        while (split && count > 0 && fieldStarts[count - 1] == fieldEnds[count - 1]) {
+            count--;
+        }
+        for (int i = 0; i < count; i++) {
+            fieldViews[i].set(frame, fieldStarts[i], fieldEnds[i]);
+        }
+        fieldCount = count;
+        return count;
+    }
+
+    public int fieldCount() {
+        return tokenize();
+    }
+
+    /**
+     * @param index The field index
+     * @return A view of the field, or an empty view if the field does not exist
+     */
+    public CharSequence field(int index) {
+        tokenize();
+        if (index >= fieldCount) {
+            return Slice.EMPTY;
+        }
+        return fieldViews[index];
+    }
+
+    /**
+     * Copy a field into a String. Only use this when the value has to outlive the line.
+     */
+    public String fieldString(int index) {
+        tokenize();
+        if (index >= fieldCount) return "";
+        return frame.subSequence(fieldStarts[index], fieldEnds[index]).toString();
+    }
+
+    /**
+     * @return A view from the start of a field to the end of the line, or an empty view
+     */
+    public CharSequence rest(int index) {
+        tokenize();
+        if (index >= fieldCount) return Slice.EMPTY;
+        restView.set(frame, fieldStarts[index], lineEnd);
+        return restView;
+    }
+
+    /**
+     * Copy everything from the start of a field to the end of the line into a String.
+     * Useful for payloads (like |request| JSON) that may themselves contain '|'.
+     */
+    public String restString(int index) {
+        tokenize();
+        if (index >= fieldCount) return "";
+        return frame.subSequence(fieldStarts[index], lineEnd).toString();
+    }
+
+    public boolean fieldEquals(int index, String value) {
+        tokenize();
+        if (index >= fieldCount) return false;
+        int start = fieldStarts[index];
+        int end = fieldEnds[index];
+        return end - start == value.length() && regionMatches(frame, start, end, value);
+    }
+
+    public boolean fieldContains(int index, String needle) {
+        tokenize();
+        if (index >= fieldCount) return false;
+        return indexOf(frame, needle, fieldStarts[index], fieldEnds[index]) >= 0;
+    }
+
+    /**
+     * Parse a field as an int
+     * @param fallback Value returned when the field is missing or not a number
+     */
+    public int fieldInt(int index, int fallback) {
+        tokenize();
+        if (index >= fieldCount) return fallback;
+        try {
+            return parseInt(frame, fieldStarts[index], fieldEnds[index]);
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+
+    /**
+     * Check whether a field is a Pokémon ident ("p1a: Pikachu")
+     */
+    public boolean isIdent(int index) {
+        tokenize();
+        if (index >= fieldCount) return false;
+        int colon = indexOf(frame, ':', fieldStarts[index], fieldEnds[index]);
+        // Mirrors split(":").length >= 2: there must be something after the colon
+        return colon > fieldStarts[index] && colon < fieldEnds[index] - 1;
+    }
+
+    /**
+     * @return A trimmed view of the position part of an ident ("p1a"), or an empty view
+     */
+    public CharSequence identPosition(int index) {
+        if (!isIdent(index)) return Slice.EMPTY;
+        int start = fieldStarts[index];
+        int colon = indexOf(frame, ':', start, fieldEnds[index]);
+        identPositionView.setTrimmed(frame, start, colon);
+        return identPositionView;
+    }
+
+    /**
+     * @return A trimmed view of the name part of an ident ("Pikachu"), or an empty view
+     */
+    public CharSequence identName(int index) {
+        if (!isIdent(index)) return Slice.EMPTY;
+        int end = fieldEnds[index];
+        int colon = indexOf(frame, ':', fieldStarts[index], end);
+        // Like split(":")[1], stop at a second colon if there is one
+        int nameEnd = indexOf(frame, ':', colon + 1, end);
+        identNameView.setTrimmed(frame, colon + 1, nameEnd < 0 ? end : nameEnd);
+        return identNameView;
+    }
+
+    /**
+     * @return The side number of an ident ("p2a: X" gives 2), or -1 if it can't be determined
+     */
+    public int identSide(int index) {
+        CharSequence position = identPosition(index);
+        if (position.length() < 2) return -1;
+        char digit = position.charAt(1);
+        return digit >= '0' && digit <= '9' ? digit - '0' : -1;
+    }
+
+    // ---------------------------------------------------------------------------------------
+    // Range helpers shared by the protocol consumers
+    // ---------------------------------------------------------------------------------------
+
+    public static int indexOf(CharSequence s, char c, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (s.charAt(i) == c) return i;
+        }
+        return -1;
+    }
+
+    public static int indexOf(CharSequence s, String needle, int from, int to) {
+        int n = needle.length();
+        if (n == 0) return from;
+        char first = needle.charAt(0);
+        for (int i = from; i <= to - n; i++) {
+            if (s.charAt(i) == first && regionMatches(s, i, to, needle)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public static boolean contains(CharSequence s, String needle) {
+        return indexOf(s, needle, 0, s.length()) >= 0;
+    }
+
+    /**
+     * Check whether the range [from, to) of s starts with the given prefix
+     */
+    public static boolean regionMatches(CharSequence s, int from, int to, String prefix) {
+        int n = prefix.length();
+        if (to - from < n) return false;
+        for (int i = 0; i < n; i++) {
+            if (s.charAt(from + i) != prefix.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Parse a base-10 int from a range, ignoring surrounding whitespace
+     * @throws NumberFormatException if the range is not a number or doesn't fit in an int
+     */
+    public static int parseInt(CharSequence s, int from, int to) {
+        while (from < to && s.charAt(from) <= ' ') from++;
+        while (to > from && s.charAt(to - 1) <= ' ') to--;
+        if (from >= to) throw new NumberFormatException("empty number");
+
+        boolean negative = false;
+        char first = s.charAt(from);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            from++;
+            if (from >= to) throw new NumberFormatException("sign without digits");
+        }
+        // Accumulate negatively so Integer.MIN_VALUE fits, like Integer.parseInt
+        int limit = negative ? Integer.MIN_VALUE : -Integer.MAX_VALUE;
+        int multiplyMin = limit / 10;
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            int digit = s.charAt(i) - '0';
+            if (digit < 0 || digit > 9) throw new NumberFormatException("not a digit at " + i);
+            if (value < multiplyMin) throw new NumberFormatException("out of range");
+            value *= 10;
+            if (value < limit + digit) throw new NumberFormatException("out of range");
+            value -= digit;
+        }
+        return negative ? value : -value;
+    }
+
+    /**
+     * Table of known words that maps a CharSequence view back to a canonical String
+     * instance without allocating. Lets callers keep {@code switch} statements on
+     * String constants while tokenizing into views.
+     */
+    public static final class Vocabulary {
+        private final String[] table;
+        private final int mask;
+
+        public Vocabulary(String... words) {
+            int size = Integer.highestOneBit(Math.max(words.length, 1) * 4);
+            table = new String[size];
+            mask = size - 1;
+            for (String word : words) {
+                int slot = word.hashCode() & mask;
+                while (table[slot] != null && !table[slot].equals(word)) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = word;
+            }
+        }
+
+        /**
+         * @return The canonical String equal to the given text, or null if it is not a known word
+         */
+        public String lookup(CharSequence text) {
+            int length = text.length();
+            // Same hash as String.hashCode so the table can be built from String constants
+            int hash = 0;
+            for (int i = 0; i < length; i++) {
+                hash = 31 * hash + text.charAt(i);
+            }
+            int slot = hash & mask;
+            String candidate;
+            while ((candidate = table[slot]) != null) {
+                if (candidate.length() == length && regionMatches(text, 0, length, candidate)) {
+                    return candidate;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Mutable CharSequence view over a range of another CharSequence
+     */
+    private static final class Slice implements CharSequence {
+        static final Slice EMPTY = new Slice();
+
+        private CharSequence source = "";
+        private int start;
+        private int end;
+
+        void set(CharSequence source, int start, int end) {
+            this.source = source;
+            this.start = start;
+            this.end = end;
+        }
+
+        void setTrimmed(CharSequence source, int start, int end) {
+            while (start < end && source.charAt(start) <= ' ') start++;
+            while (end > start && source.charAt(end - 1) <= ' ') end--;
+            set(source, start, end);
+        }
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return source.charAt(start + index);
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            return source.subSequence(start + from, start + to);
+        }
+
+        @Override
+        public String toString() {
+            return source.subSequence(start, end).toString();
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package com.example.csproject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams a |request| payload straight into a {@link RequestSnapshot}.
+ *
+ * Only the fields the snapshot needs are materialized; stats, items, abilities and the
+ * rest of side.pokemon are skipped in place. Not thread-safe: the parser thread owns one
+ * instance and reuses it for every request.
+ */
+public final class RequestDecoder {
+
+    private static final ProtocolTokenizer.Vocabulary REQUEST_NAMES = new ProtocolTokenizer.Vocabulary(
+            "active", "side", "wait", "forceSwitch");
+
+    private static final ProtocolTokenizer.Vocabulary ACTIVE_NAMES = new ProtocolTokenizer.Vocabulary(
+            "moves", "canTerastallize", "canMegaEvo", "canDynamax", "canGigantamax", "canZMove");
+
+    private static final ProtocolTokenizer.Vocabulary MOVE_NAMES = new ProtocolTokenizer.Vocabulary(
+            "move", "id", "pp", "maxpp", "disabled");
+
+    private static final ProtocolTokenizer.Vocabulary SIDE_NAMES = new ProtocolTokenizer.Vocabulary(
+            "pokemon");
+
+    private static final ProtocolTokenizer.Vocabulary POKEMON_NAMES = new ProtocolTokenizer.Vocabulary(
+            "ident", "details", "condition", "active");
+
+    private final JsonPullReader reader = new JsonPullReader();
+
+    // Scratch lists reused between requests; copied into arrays for the snapshot
+    private final List<RequestSnapshot.MoveSlot> moves = new ArrayList<>(4);
+    private final List<RequestSnapshot.PartyMember> party = new ArrayList<>(6);
+
+    // Active slot state for the request being decoded
+    private boolean hasActive;
+    private String teraType;
+    private boolean canMegaEvo;
+    private boolean canDynamax;
+    private boolean canGigantamax;
+    private boolean canZMove;
+
+    /**
+     * Decode a request payload
+     * @param json The text holding the request JSON
+     * @return The snapshot
+     * @throws IllegalStateException if the JSON is malformed
+     */
+    public RequestSnapshot decode(CharSequence json) {
+        moves.clear();
+        party.clear();
+        hasActive = false;
+        teraType = null;
+        canMegaEvo = false;
+        canDynamax = false;
+        canGigantamax = false;
+        canZMove = false;
+        boolean wait = false;
+        boolean forceSwitch = false;
+        boolean hasMoves = false;
+
+        JsonPullReader in = reader.reset(json);
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName(REQUEST_NAMES);
+            if (name == null) {
+                in.skipValue();
+                continue;
+            }
+            switch (name) {
+                case "active":
+                    if (in.peek() != JsonPullReader.Token.BEGIN_ARRAY) {
+                        in.skipValue();
+                        break;
+                    }
+                    in.beginArray();
+                    // Singles only: the first active slot is the one we show
+                    if (in.hasNext()) {
+                        hasMoves = readActive(in);
+                    }
+                    while (in.hasNext()) in.skipValue();
+                    in.endArray();
+                    break;
+                case "side":
+                    readSide(in);
+                    break;
+                case "wait":
+                    wait = readBoolean(in);
+                    break;
+                case "forceSwitch":
+                    if (in.peek() != JsonPullReader.Token.BEGIN_ARRAY) {
+                        in.skipValue();
+                        break;
+                    }
+                    in.beginArray();
+                    if (in.hasNext()) forceSwitch = readBoolean(in);
+                    while (in.hasNext()) in.skipValue();
+                    in.endArray();
+                    break;
+            }
+        }
+        in.endObject();
+
+        return new RequestSnapshot(wait, forceSwitch, hasActive,
+                hasMoves ? moves.toArray(new RequestSnapshot.MoveSlot[0]) : null,
+                party.isEmpty() ? null : party.toArray(new RequestSnapshot.PartyMember[0]),
+                teraType, canMegaEvo, canDynamax, canGigantamax, canZMove);
+    }
+
+    /**
+     * Read the first entry of "active"
+     * @return true if a moves array was present
+     */
+    private boolean readActive(JsonPullReader in) {
+        if (in.peek() != JsonPullReader.Token.BEGIN_OBJECT) {
+            in.skipValue();
+            return false;
+        }
+        hasActive = true;
+        boolean hasMoves = false;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName(ACTIVE_NAMES);
+            if (name == null) {
+                in.skipValue();
+                continue;
+            }
+            switch (name) {
+                case "moves":
+                    if (in.peek() != JsonPullReader.Token.BEGIN_ARRAY) {
+                        in.skipValue();
+                        break;
+                    }
+                    hasMoves = true;
+                    in.beginArray();
+                    while (in.hasNext()) {
+                        moves.add(readMove(in));
+                    }
+                    in.endArray();
+                    break;
+                case "canTerastallize":
+                    if (in.peek() == JsonPullReader.Token.STRING) {
+                        teraType = in.nextString();
+                    } else {
+                        in.skipValue();
+                    }
+                    break;
+                case "canMegaEvo":
+                    canMegaEvo = readBoolean(in);
+                    break;
+                case "canDynamax":
+                    canDynamax = readBoolean(in);
+                    break;
+                case "canGigantamax":
+                    // The value is the G-Max move name, so any non-null value counts
+                    canGigantamax = readPresent(in);
+                    break;
+                case "canZMove":
+                    // canZMove is a per-move array when present
+                    canZMove = readPresent(in);
+                    break;
+            }
+        }
+        in.endObject();
+        return hasMoves;
+    }
+
+    private RequestSnapshot.MoveSlot readMove(JsonPullReader in) {
+        String moveName = "";
+        String id = "";
+        int pp = 0;
+        int maxPp = 0;
+        boolean disabled = false;
+
+        if (in.peek() != JsonPullReader.Token.BEGIN_OBJECT) {
+            in.skipValue();
+            return new RequestSnapshot.MoveSlot(moveName, id, pp, maxPp, disabled);
+        }
+
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName(MOVE_NAMES);
+            if (name == null || in.peek() == JsonPullReader.Token.NULL) {
+                in.skipValue();
+                continue;
+            }
+            switch (name) {
+                case "move":
+                    moveName = in.nextString();
+                    break;
+                case "id":
+                    id = in.nextString();
+                    break;
+                case "pp":
+                    pp = in.nextInt();
+                    break;
+                case "maxpp":
+                    maxPp = in.nextInt();
+                    break;
+                case "disabled":
+                    // Usually a boolean, but some effects report the source as a string
+                    disabled = in.peek() == JsonPullReader.Token.BOOLEAN ? in.nextBoolean() : readPresent(in);
+                    break;
+            }
+        }
+        in.endObject();
+        return new RequestSnapshot.MoveSlot(moveName, id, pp, maxPp, disabled);
+    }
+
+    private void readSide(JsonPullReader in) {
+        if (in.peek() != JsonPullReader.Token.BEGIN_OBJECT) {
+            in.skipValue();
+            return;
+        }
+
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName(SIDE_NAMES);
+            if (name == null || in.peek() != JsonPullReader.Token.BEGIN_ARRAY) {
+                in.skipValue();
+                continue;
+            }
+            in.beginArray();
+            while (in.hasNext()) {
+                readPokemon(in);
+            }
+            in.endArray();
+        }
+        in.endObject();
+    }
+
+    private void readPokemon(JsonPullReader in) {
+        if (in.peek() != JsonPullReader.Token.BEGIN_OBJECT) {
+            in.skipValue();
+            return;
+        }
+
+        String ident = "";
+        String details = "";
+        String condition = "";
+        boolean active = false;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName(POKEMON_NAMES);
+            if (name == null || in.peek() == JsonPullReader.Token.NULL) {
+                in.skipValue();
+                continue;
+            }
+            switch (name) {
+                case "ident":
+                    ident = in.nextString();
+                    break;
+                case "details":
+                    details = in.nextString();
+                    break;
+                case "condition":
+                    condition = in.nextString();
+                    break;
+                case "active":
+                    active = readBoolean(in);
+                    break;
+            }
+        }
+        in.endObject();
+
+        party.add(RequestSnapshot.partyMember(ident, details, condition, active));
+    }
+
+    /**
+     * Read a value as a boolean, treating anything other than true as false
+     */
+    private static boolean readBoolean(JsonPullReader in) {
+        if (in.peek() == JsonPullReader.Token.BOOLEAN) {
+            return in.nextBoolean();
+        }
+        in.skipValue();
+        return false;
+    }
+
+    /**
+     * Skip a value and report whether it was present (not null)
+     */
+    private static boolean readPresent(JsonPullReader in) {
+        boolean present = in.peek() != JsonPullReader.Token.NULL;
+        in.skipValue();
+        return present;
+    }
+}
@@ -0,0 +1,290 @@
+package com.example.csproject;
+
+/**
+ * Compact, immutable view of a |request| payload.
+ *
+ * The request is decoded once on the parser thread so the battle UI can read moves,
+ * party and form change options without walking the JSON again.
+ */
+public final class RequestSnapshot {
+
+    /**
+     * One of the active Pokémon's moves
+     */
+    public static final class MoveSlot {
+        private final String name;
+        private final String id;
+        private final int pp;
+        private final int maxPp;
+        private final boolean disabled;
+
+        MoveSlot(String name, String id, int pp, int maxPp, boolean disabled) {
+            this.name = name;
+            this.id = id;
+            this.pp = pp;
+            this.maxPp = maxPp;
+            this.disabled = disabled;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public int getPp() {
+            return pp;
+        }
+
+        public int getMaxPp() {
+            return maxPp;
+        }
+
+        public boolean isDisabled() {
+            return disabled;
+        }
+    }
+
+    /**
+     * One Pokémon of the player's team, in request order
+     */
+    public static final class PartyMember {
+        private final String name;
+        private final String details;
+        private final String speciesId;
+        private final int level;
+        private final int hp;
+        private final int maxHp;
+        private final StatusCondition status;
+        private final boolean active;
+
+        PartyMember(String name, String details, String speciesId, int level,
+                    int hp, int maxHp, StatusCondition status, boolean active) {
+            this.name = name;
+            this.details = details;
+            this.speciesId = speciesId;
+            this.level = level;
+            this.hp = hp;
+            this.maxHp = maxHp;
+            this.status = status;
+            this.active = active;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getDetails() {
+            return details;
+        }
+
+        public String getSpeciesId() {
+            return speciesId;
+        }
+
+        public int getLevel() {
+            return level;
+        }
+
+        public int getHp() {
+            return hp;
+        }
+
+        public int getMaxHp() {
+            return maxHp;
+        }
+
+        public StatusCondition getStatus() {
+            return status;
+        }
+
+        public boolean isActive() {
+            return active;
+        }
+
+        public boolean isFainted() {
+            return status == StatusCondition.FAINTED;
+        }
+    }
+
+    private static final MoveSlot[] NO_MOVES = new MoveSlot[0];
+    private static final PartyMember[] NO_PARTY = new PartyMember[0];
+
+    private final boolean wait;
+    private final boolean forceSwitch;
+    private final boolean hasActive;
+    private final MoveSlot[] moves;
+    private final PartyMember[] party;
+    private final int activeIndex;
+    private final String teraType;
+    private final boolean canMegaEvo;
+    private final boolean canDynamax;
+    private final boolean canGigantamax;
+    private final boolean canZMove;
+
+    RequestSnapshot(boolean wait, boolean forceSwitch, boolean hasActive, MoveSlot[] moves, PartyMember[] party,
+                    String teraType, boolean canMegaEvo, boolean canDynamax, boolean canGigantamax, boolean canZMove) {
+        this.wait = wait;
+        this.forceSwitch = forceSwitch;
+        this.hasActive = hasActive;
+        this.moves = moves != null ? moves : NO_MOVES;
+        this.party = party != null ? party : NO_PARTY;
+        this.teraType = teraType;
+        this.canMegaEvo = canMegaEvo;
+        this.canDynamax = canDynamax;
+        this.canGigantamax = canGigantamax;
+        this.canZMove = canZMove;
+
+        int active = -1;
+        for (int i = 0; i < this.party.length; i++) {
+            if (this.party[i].isActive()) {
+                active = i;
+                break;
+            }
+        }
+        this.activeIndex = active;
+    }
+
+    /**
+     * @return true if this is a wait request (the opponent is still choosing)
+     */
+    public boolean isWait() {
+        return wait;
+    }
+
+    /**
+     * @return true if the first active slot must switch
+     */
+    public boolean isForceSwitch() {
+        return forceSwitch;
+    }
+
+    /**
+     * @return true if the request includes options for an active Pokémon
+     */
+    public boolean hasActive() {
+        return hasActive;
+    }
+
+    public int getMoveCount() {
+        return moves.length;
+    }
+
+    public MoveSlot getMove(int index) {
+        return moves[index];
+    }
+
+    public int getPartySize() {
+        return party.length;
+    }
+
+    public PartyMember getPartyMember(int index) {
+        return party[index];
+    }
+
+    /**
+     * @return The player's active Pokémon, or null if none is marked active
+     */
+    public PartyMember getActiveMember() {
+        return activeIndex >= 0 ? party[activeIndex] : null;
+    }
+
+    /**
+     * @return The tera type if the active Pokémon can terastallize, otherwise null
+     */
+    public String getTeraType() {
+        return teraType;
+    }
+
+    public boolean canTerastallize() {
+        return teraType != null;
+    }
+
+    public boolean canMegaEvo() {
+        return canMegaEvo;
+    }
+
+    public boolean canDynamax() {
+        return canDynamax;
+    }
+
+    public boolean canGigantamax() {
+        return canGigantamax;
+    }
+
+    public boolean canZMove() {
+        return canZMove;
+    }
+
+    /**
+     * @return true if any form change (tera, mega, dynamax or Z-Move) is available this turn
+     */
+    public boolean isFormChangeAvailable() {
+        return canTerastallize() || canMegaEvo || canDynamax || canGigantamax || canZMove;
+    }
+
+    /**
+     * Get the suffix to add to a /choose move command when form change is toggled on
+     * @return The suffix (e.g. " terastallize"), or an empty string if none is available
+     */
+    public String getFormChangeCommand() {
+        if (canTerastallize()) return " terastallize";
+        if (canMegaEvo) return " mega";
+        if (canDynamax) return " dynamax";
+        if (canGigantamax) return " gigantamax";
+        if (canZMove) return " zmove";
+        return "";
+    }
+
+    /**
+     * Get the label for the form change button
+     * @return The label (e.g. "Terastallize (Water)"), or "Form Change" if none is available
+     */
+    public String getFormChangeLabel() {
+        if (canTerastallize()) return "Terastallize (" + teraType + ")";
+        if (canMegaEvo) return "Mega Evolve";
+        if (canDynamax) return "Dynamax";
+        if (canGigantamax) return "Gigantamax";
+        if (canZMove) return "Z Move";
+        return "Form Change";
+    }
+
+    /**
+     * Decode one side.pokemon entry from its raw strings
+     * @param ident The ident ("p1: Pikachu")
+     * @param details The details ("Pikachu, L88, F")
+     * @param condition The HP status ("120/211", "0 fnt")
+     * @param active Whether this Pokémon is on the field
+     */
+    static PartyMember partyMember(String ident, String details, String condition, boolean active) {
+        int colon = ident.indexOf(':');
+        String name = (colon >= 0 ? ident.substring(colon + 1) : ident).trim();
+
+        // HP status: "current/max" with an optional status code after a space
+        int hp = 0;
+        int maxHp = 0;
+        StatusCondition status = StatusCondition.NONE;
+        int length = condition.length();
+        int space = condition.indexOf(' ');
+        int hpEnd = space < 0 ? length : space;
+        if (space >= 0) {
+            status = StatusCondition.fromCode(condition, space + 1, length);
+        }
+        try {
+            int slash = condition.indexOf('/');
+            if (slash >= 0 && slash < hpEnd) {
+                hp = ProtocolTokenizer.parseInt(condition, 0, slash);
+                maxHp = ProtocolTokenizer.parseInt(condition, slash + 1, hpEnd);
+            } else if (hpEnd > 0) {
+                hp = ProtocolTokenizer.parseInt(condition, 0, hpEnd);
+            }
+        } catch (NumberFormatException e) {
+            // Leave HP at 0; the name and level are still usable
+        }
+
+        return new PartyMember(name, details, ShowdownIds.toId(BattleProtocolParser.parseSpecies(details)),
+                BattleProtocolParser.parseLevel(details), hp, maxHp, status, active);
+    }
+}
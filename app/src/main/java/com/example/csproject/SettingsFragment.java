@@ -275,6 +275,7 @@ public class SettingsFragment extends Fragment {
             String userId = user.getUid();
             firebaseManager.deleteUserData(userId)
                     .addOnSuccessListener(aVoid -> {
+                        BattleHistoryRepository.getInstance(requireContext()).delete(userId);
                         // After data is deleted, delete the account
                         // Re-authenticate user before deletion (required by Firebase)
                         showReauthenticationDialog(user);
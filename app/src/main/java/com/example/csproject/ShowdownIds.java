@@ -0,0 +1,86 @@
+package com.example.csproject;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Turns names into Showdown ids ("Iron Valiant" -> "ironvaliant", "Mr. Mime" -> "mrmime").
+ *
+ * This is the one place names get normalized. Results go through a small LRU cache, so a
+ * species that switches in over and over during a battle is normalized once and always maps
+ * to the same String instance.
+ */
+public final class ShowdownIds {
+
+    // Comfortably more than the species and nicknames seen in one battle
+    static final int CACHE_SIZE = 256;
+
+    private static final Map<String, String> cache = new LinkedHashMap<String, String>(CACHE_SIZE * 4 / 3 + 1, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    private ShowdownIds() {
+    }
+
+    /**
+     * Map a character onto its id character
+     * @return The lowercase letter or digit, or 0 if the character is dropped from ids
+     */
+    static char idChar(char c) {
+        if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')) return c;
+        if (c >= 'A' && c <= 'Z') return (char) (c + ('a' - 'A'));
+        // Flabébé is "flabebe"
+        if (c == 'é' || c == 'É') return 'e';
+        return 0;
+    }
+
+    /**
+     * Convert a name to a Showdown id (lowercase letters and digits only)
+     * @param name Display name, nickname or id
+     * @return The id; the same instance for every call with an equal name while it's cached
+     */
+    public static String toId(String name) {
+        if (name == null) return null;
+        synchronized (cache) {
+            String id = cache.get(name);
+            if (id == null) {
+                id = normalize(name);
+                cache.put(name, id);
+            }
+            return id;
+        }
+    }
+
+    private static String normalize(String name) {
+        // Already an id, which is common for names coming back out of the cache's values
+        int i = 0;
+        while (i < name.length() && idChar(name.charAt(i)) == name.charAt(i)) i++;
+        if (i == name.length()) return name;
+
+        StringBuilder id = new StringBuilder(name.length());
+        id.append(name, 0, i);
+        for (; i < name.length(); i++) {
+            char c = idChar(name.charAt(i));
+            if (c != 0) id.append(c);
+        }
+        return id.toString();
+    }
+
+    /**
+     * @return How many names are cached, for tests
+     */
+    static int cacheSize() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    static void clearCache() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+}
@@ -5,16 +5,17 @@ import android.content.SharedPreferences;
 import android.content.res.AssetFileDescriptor;
 import android.media.AudioAttributes;
 import android.media.AudioManager;
-import android.media.MediaPlayer;
 import android.media.SoundPool;
 import android.os.Build;
-import android.util.Log;
 import android.util.SparseIntArray;
 import android.widget.Toast;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * SoundManager handles all sound effects and background music for the Pokémon battle app.
@@ -33,10 +34,18 @@ public class SoundManager {
     private SoundPool soundPool;
     private SparseIntArray soundMap;
 
+    // Cries decoded into the sound pool; cry files are about 10-40 KB each
+    private static final long MAX_CRY_BYTES = 1024 * 1024;
+    private final CrySampleCache cries = new CrySampleCache(MAX_CRY_BYTES, this::unloadSample);
+
+    // Cry slugs being downloaded, main thread only
+    private final Set<String> fetchingCries = new HashSet<>();
+
     // Background music
-    private MediaPlayer mediaPlayer;
-    private String currentMusicTrack;
-    private boolean isResettingMusic = false;
+    // Battle tracks are 1-4 MB each; this keeps most of the rotation on disk
+    private static final long MAX_MUSIC_BYTES = 48 * 1024 * 1024;
+    private static final String MUSIC_CACHE_DIR = "battle_music";
+    private final BattleMusicPlayer music;
 
     // Settings
     private boolean soundEffectsEnabled = true;
@@ -125,11 +134,18 @@ public class SoundManager {
             soundPool = new SoundPool(10, AudioManager.STREAM_MUSIC, 0);
         }
 
+        soundPool.setOnLoadCompleteListener(this::onSampleLoaded);
+
         // Initialize sound map
         soundMap = new SparseIntArray();
 
+        music = new BattleMusicPlayer(context, SHOWDOWN_AUDIO_BASE_URL,
+                new MusicCache(new File(context.getCacheDir(), MUSIC_CACHE_DIR), MAX_MUSIC_BYTES),
+                this::pickBattleTrack);
+
         // Load settings
         loadSettings();
+        music.setVolume(volume);
 
     }
 
@@ -155,19 +171,16 @@ public class SoundManager {
         int volumePercent = prefs.getInt("sound_volume", 80);
         volume = volumePercent / 100.0f;
 
-        // Apply volume to current media player if it exists
-        if (mediaPlayer != null) {
-            mediaPlayer.setVolume(volume, volume);
-        }
+        // Apply volume to the music players
+        music.setVolume(volume);
 
         // If background music is disabled, stop any playing music
-        if (!backgroundMusicEnabled && mediaPlayer != null) {
+        if (!backgroundMusicEnabled) {
             stopBackgroundMusic();
         }
 
-        Log.d(TAG, "Settings updated: sound effects=" + soundEffectsEnabled +
-              ", background music=" + backgroundMusicEnabled +
-              ", volume=" + volume);
+        TraceLog.d(TAG, "Settings updated: sound effects={}, background music={}, volume={}",
+                soundEffectsEnabled, backgroundMusicEnabled, volume);
     }
 
     /**
@@ -176,17 +189,15 @@ public class SoundManager {
     public void setVolume(float volume) {
         this.volume = Math.max(0.0f, Math.min(1.0f, volume));
 
-        // Apply to current media player if it exists
-        if (mediaPlayer != null) {
-            mediaPlayer.setVolume(this.volume, this.volume);
-        }
+        // Apply to the music players
+        music.setVolume(this.volume);
 
         // Save the setting
         SharedPreferences.Editor editor = context.getSharedPreferences("PokemonBattlePrefs", Context.MODE_PRIVATE).edit();
         editor.putInt("sound_volume", (int)(this.volume * 100));
         editor.apply();
 
-        Log.d(TAG, "Volume set to " + this.volume);
+        TraceLog.d(TAG, "Volume set to {}", this.volume);
     }
 
     /**
@@ -200,7 +211,7 @@ public class SoundManager {
         editor.putBoolean("sound_effects", enabled);
         editor.apply();
 
-        Log.d(TAG, "Sound effects " + (enabled ? "enabled" : "disabled"));
+        TraceLog.d(TAG, "Sound effects {}", (enabled ? "enabled" : "disabled"));
     }
 
     /**
@@ -213,37 +224,25 @@ public class SoundManager {
         SharedPreferences prefs = context.getSharedPreferences("PokemonBattlePrefs", Context.MODE_PRIVATE);
         prefs.edit().putBoolean("background_music", enabled).apply();
 
-        Log.d(TAG, "Background music enabled: " + enabled);
+        TraceLog.d(TAG, "Background music enabled: {}", enabled);
 
         // Only play/pause music if we're in battle mode
         if (inBattleMode) {
             if (enabled) {
-                // If we have a paused MediaPlayer, resume it
-                if (mediaPlayer != null) {
-                    try {
-                        if (!mediaPlayer.isPlaying()) {
-                            mediaPlayer.start();
-                            Log.d(TAG, "Resumed paused background music");
-                        }
-                    } catch (IllegalStateException e) {
-                        Log.e(TAG, "Error resuming music", e);
-                        // If resuming fails, try to restart
-                        playBattleMusic();
-                    }
+                // Resume the paused rotation, or start one if there is none
+                if (music.resume()) {
+                    TraceLog.d(TAG, "Resumed paused background music");
                 } else {
-                    // If no media player exists, start a new one
-                    Log.d(TAG, "Starting new background music");
+                    TraceLog.d(TAG, "Starting new background music");
                     playBattleMusic();
                 }
             } else {
                 // Pause the music instead of stopping it
-                if (mediaPlayer != null && mediaPlayer.isPlaying()) {
-                    mediaPlayer.pause();
-                    Log.d(TAG, "Paused background music");
-                }
+                music.pause();
+                TraceLog.d(TAG, "Paused background music");
             }
         } else {
-            Log.d(TAG, "Not in battle mode, music setting saved but not applied");
+            TraceLog.d(TAG, "Not in battle mode, music setting saved but not applied");
         }
     }
 
@@ -255,46 +254,110 @@ public class SoundManager {
     public void setInBattleMode(boolean inBattle) {
         this.inBattleMode = inBattle;
 
-        Log.d(TAG, "Battle mode set to: " + inBattle);
+        TraceLog.d(TAG, "Battle mode set to: {}", inBattle);
 
         // If we're entering battle mode and music is enabled, start playing
         if (inBattle && backgroundMusicEnabled) {
-            if (mediaPlayer == null || !mediaPlayer.isPlaying()) {
-                Log.d(TAG, "Starting music because entering battle mode");
+            if (!music.isPlaying() && !music.resume()) {
+                TraceLog.d(TAG, "Starting music because entering battle mode");
                 playBattleMusic();
             }
-        } else if (!inBattle && mediaPlayer != null && mediaPlayer.isPlaying()) {
+        } else if (!inBattle && music.isPlaying()) {
             // If we're leaving battle mode, pause the music
-            Log.d(TAG, "Pausing music because leaving battle mode");
+            TraceLog.d(TAG, "Pausing music because leaving battle mode");
             pauseBackgroundMusic();
         }
     }
 
     /**
      * Play a Pokémon cry by name
-     * @param pokemonName The name of the Pokémon
+     * @param pokemonName The species name or id of the Pokémon (e.g. "Iron Valiant")
      */
     public void playPokemonCryByName(String pokemonName) {
+        if (pokemonName != null && !pokemonName.isEmpty()) {
+            playPokemonCry(ShowdownIds.toId(pokemonName), pokemonName);
+        }
+    }
+
+    /**
+     * Play a Pokémon cry by the species id stored with a switch or Pokémon
+     * @param speciesId The species id (e.g. "rotomwash")
+     * @param pokemonName The species display name, used for forms the species table doesn't list
+     */
+    public void playPokemonCry(String speciesId, String pokemonName) {
         if (!soundEffectsEnabled) {
-            Log.d(TAG, "Sound effects disabled, not playing cry for: " + pokemonName);
+            TraceLog.d(TAG, "Sound effects disabled, not playing cry for: {}", pokemonName);
             return;
         }
 
-        if (pokemonName != null && !pokemonName.isEmpty()) {
-            // Format the Pokémon name for the URL
-            String formattedName = pokemonName.toLowerCase()
-                    .replace(" ", "")
-                    .replace("-", "")
-                    .replace(".", "")
-                    .replace("'", "")
-                    .replace(":", "");
-
-            String url = SHOWDOWN_CRY_URL + formattedName + ".mp3";
-            Log.d(TAG, "Playing cry for: " + pokemonName + " from URL: " + url);
-            streamSoundWithoutToast(url);
+        if (speciesId != null && !speciesId.isEmpty()) {
+            // Species we don't know have no cry on the server, so don't try to stream one
+            SpeciesIndex species = SpeciesIndex.getInstance(context);
+            int slot = species.findSpecies(speciesId, pokemonName);
+            if (slot < 0) {
+                TraceLog.w(TAG, "Unknown species, not playing a cry: {}", pokemonName);
+                return;
+            }
+
+            playCry(species.getCrySlug(slot));
+        }
+    }
+
+    /**
+     * Play a cry from the sound pool, loading it into the pool first if needed. Cries come
+     * from the asset pack if it has them, otherwise they are downloaded once into the sound
+     * cache. Call from the main thread.
+     * @param crySlug The species' cry slug (e.g. "pikachu")
+     */
+    private void playCry(String crySlug) {
+        if (soundPool == null) return;
+
+        CrySampleCache.Sample sample = cries.get(crySlug);
+        if (sample != null) {
+            if (sample.isReady()) {
+                soundPool.play(sample.getSampleId(), volume, volume, 1, 0, 1f);
+            } else {
+                cries.playWhenReady(sample);
+            }
+            return;
+        }
+
+        String url = SHOWDOWN_CRY_URL + crySlug + ".mp3";
+        AssetPack pack = AssetPack.getInstance(context);
+        int entry = pack.findUrl(url);
+        if (entry >= 0) {
+            try {
+                int sampleId = soundPool.load(pack.getFileDescriptor(), pack.getOffset(entry), pack.getLength(entry), 1);
+                cries.add(crySlug, sampleId, pack.getLength(entry), true);
+                return;
+            } catch (IOException e) {
+                TraceLog.e(TAG, "Error loading packed cry: {}", crySlug, e);
+            }
+        }
+
+        // A second switch-in of the same species while the first download runs plays nothing
+        if (!fetchingCries.add(crySlug)) return;
+        TraceLog.d(TAG, "Fetching cry: {}", url);
+        PokemonShowdownSoundDownloader.fetchCry(context, crySlug, file -> {
+            fetchingCries.remove(crySlug);
+            if (file == null || soundPool == null) return;
+            int sampleId = soundPool.load(file.getAbsolutePath(), 1);
+            cries.add(crySlug, sampleId, file.length(), true);
+        });
+    }
+
+    private void onSampleLoaded(SoundPool pool, int sampleId, int status) {
+        if (cries.onLoaded(sampleId, status == 0)) {
+            pool.play(sampleId, volume, volume, 1, 0, 1f);
+        } else if (status != 0) {
+            TraceLog.w(TAG, "Sound pool couldn't load sample {}", sampleId);
         }
     }
 
+    private void unloadSample(int sampleId) {
+        if (soundPool != null) soundPool.unload(sampleId);
+    }
+
     /**
      * Play battle music
      */
@@ -306,11 +369,11 @@ public class SoundManager {
 
         // Only play if in battle mode
         if (!inBattleMode) {
-            Log.d(TAG, "Not playing battle music because not in battle mode");
+            TraceLog.d(TAG, "Not playing battle music because not in battle mode");
             return;
         }
 
-        Log.d(TAG, "Playing battle music in battle mode");
+        TraceLog.d(TAG, "Playing battle music in battle mode");
         // Play a random battle track
         playRandomBattleMusic();
     }
@@ -319,314 +382,72 @@ public class SoundManager {
      * Play a random battle music track
      */
     private void playRandomBattleMusic() {
-        if (!backgroundMusicEnabled) {
-            return;
-        }
-
-        try {
-            // Select a random battle track
-            int randomIndex = (int) (Math.random() * BATTLE_MUSIC_TRACKS.length);
-            String randomTrack = BATTLE_MUSIC_TRACKS[randomIndex];
-
-            // Play the selected track
-            playBackgroundMusic(randomTrack);
-
-        } catch (Exception e) {
-            Log.e(TAG, "Error playing random battle music", e);
-            // Try a simpler approach as fallback
-            trySimpleRandomTrack();
-        }
+        playBackgroundMusic(pickBattleTrack(null));
     }
 
     /**
-     * Play background music from a URL
+     * Start the battle music rotation with a track. The following tracks are picked at random
+     * and queued up while the previous one plays.
      * @param musicTrack The music track name
      */
     public void playBackgroundMusic(String musicTrack) {
         // Always check if background music is enabled and we're in battle mode
         if (!backgroundMusicEnabled || !inBattleMode) {
-            Log.d(TAG, "Not playing background music: enabled=" + backgroundMusicEnabled + ", inBattle=" + inBattleMode);
+            TraceLog.d(TAG, "Not playing background music: enabled={}, inBattle={}", backgroundMusicEnabled, inBattleMode);
             return;
         }
 
-        try {
-            // Check if we're already playing this track
-            if (mediaPlayer != null && currentMusicTrack != null && currentMusicTrack.equals(musicTrack) && mediaPlayer.isPlaying()) {
-                Log.d(TAG, "Already playing " + musicTrack + ", not restarting");
-                return;
-            }
-
-            // If we have a media player that's playing a different track, don't interrupt it
-            // Let it finish naturally and the completion listener will handle the transition
-            if (mediaPlayer != null && mediaPlayer.isPlaying()) {
-                Log.d(TAG, "Currently playing " + currentMusicTrack + ", will not interrupt");
-                return;
-            }
-
-            // If we reach here, either there's no media player or it's not playing
-            // So we can safely create a new one
-            if (mediaPlayer != null) {
-                mediaPlayer.release();
-                mediaPlayer = null;
-            }
-
-            // Create a new media player
-            mediaPlayer = new MediaPlayer();
-
-            // Set up the media player
-            String url = SHOWDOWN_AUDIO_BASE_URL + musicTrack + ".mp3";
-            Log.d(TAG, "Playing background music: " + url);
-
-            // Set the audio attributes
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
-                mediaPlayer.setAudioAttributes(
-                    new AudioAttributes.Builder()
-                        .setUsage(AudioAttributes.USAGE_GAME)
-                        .setContentType(AudioAttributes.CONTENT_TYPE_MUSIC)
-                        .build()
-                );
-            } else {
-                mediaPlayer.setAudioStreamType(AudioManager.STREAM_MUSIC);
-            }
-
-            // Set the data source and prepare
-            mediaPlayer.setDataSource(url);
-            mediaPlayer.setVolume(volume, volume);
-
-            // Use asynchronous preparation to avoid UI delays
-            mediaPlayer.prepareAsync();
-
-            // Set up prepared listener to start playing when ready
-            mediaPlayer.setOnPreparedListener(mp -> {
-                // Start playing immediately if enabled and in battle mode
-                if (backgroundMusicEnabled && inBattleMode) {
-                    mp.start();
-                    Log.d(TAG, "Background music started: " + musicTrack);
-                }
-
-                // Save the current track
-                currentMusicTrack = musicTrack;
-            });
-
-            // Set up completion listener to play the next track only when the current one finishes
-            mediaPlayer.setOnCompletionListener(mp -> {
-                Log.d(TAG, "Music track completed naturally: " + musicTrack + ", playing next track");
-                // Only play the next track if we're still in battle mode and music is enabled
-                if (inBattleMode && backgroundMusicEnabled) {
-                    // Use a different track for better variety
-                    playDifferentBattleMusic();
-                }
-            });
-
-            // Set up error listener
-            mediaPlayer.setOnErrorListener((mp, what, extra) -> {
-                Log.e(TAG, "Media player error: " + what + ", " + extra);
-                // Try a different track
-                trySimpleRandomTrack();
-                return true;
-            });
-
-        } catch (Exception e) {
-            Log.e(TAG, "Error playing background music", e);
-            // Try a simpler approach as fallback
-            trySimpleRandomTrack();
-        }
-    }
-
-    /**
-     * Play a different battle music track than the current one
-     * This ensures we don't play the same track twice in a row
-     */
-    private void playDifferentBattleMusic() {
-        if (!backgroundMusicEnabled || !inBattleMode) {
+        // Don't cut off a track that's playing; the rotation moves on when it ends
+        if (music.isPlaying()) {
+            TraceLog.d(TAG, "Currently playing {}, will not interrupt", music.getCurrentTrack());
             return;
         }
 
-        try {
-            // Select a random battle track that's different from the current one
-            String randomTrack;
-            int attempts = 0;
-            int maxAttempts = 5; // Prevent infinite loop
-            
-            do {
-                int randomIndex = (int) (Math.random() * BATTLE_MUSIC_TRACKS.length);
-                randomTrack = BATTLE_MUSIC_TRACKS[randomIndex];
-                attempts++;
-            } while (randomTrack.equals(currentMusicTrack) && attempts < maxAttempts);
-
-            // Play the selected track
-            if (!randomTrack.equals(currentMusicTrack)) {
-                Log.d(TAG, "Playing different track: " + randomTrack + " (previous was " + currentMusicTrack + ")");
-                playBackgroundMusic(randomTrack);
-            } else {
-                // If we couldn't find a different track after max attempts, just play any track
-                playRandomBattleMusic();
-            }
-
-        } catch (Exception e) {
-            Log.e(TAG, "Error playing different battle music", e);
-            // Try a simpler approach as fallback
-            trySimpleRandomTrack();
-        }
+        music.setVolume(volume);
+        music.play(musicTrack);
     }
 
     /**
-     * Stream a sound from a URL without showing a toast notification
+     * Pick a random battle music track, different from the previous one
+     * @param previous The track that's playing, or null
+     * @return The track name
      */
-    private void streamSoundWithoutToast(String url) {
-        try {
-            Log.d(TAG, "Streaming sound from URL: " + url);
-
-            // Create a new media player for this sound
-            MediaPlayer player = new MediaPlayer();
-            player.setAudioAttributes(
-                    new AudioAttributes.Builder()
-                            .setContentType(AudioAttributes.CONTENT_TYPE_MUSIC)
-                            .setUsage(AudioAttributes.USAGE_MEDIA)
-                            .build()
-            );
-
-            // Set the data source to the URL
-            player.setDataSource(url);
-
-            // Set volume based on user settings
-            player.setVolume(volume, volume);
-
-            // Prepare the player asynchronously
-            player.prepareAsync();
-
-            // Start playing when prepared
-            player.setOnPreparedListener(MediaPlayer::start);
-
-            // Release resources when playback is complete
-            player.setOnCompletionListener(MediaPlayer::release);
-
-            // Handle errors
-            player.setOnErrorListener((mp, what, extra) -> {
-                Log.e(TAG, "Error streaming sound: " + what + ", " + extra);
-                mp.release();
-                return true;
-            });
-        } catch (Exception e) {
-            Log.e(TAG, "Error streaming sound: " + e.getMessage());
-        }
-    }
-
-    /**
-     * Try playing a different random track if the current one fails - simplified version
-     */
-    private void trySimpleRandomTrack() {
-        try {
-            // Select a different random track
-            String[] simpleTracks = {
-                    "bw-rival",
-                    "bw-subway-trainer",
-                    "bw-trainer",
-                    "bw2-homika-dogars",
-                    "bw2-kanto-gym-leader",
-                    "bw2-rival",
-                    "colosseum-miror-b",
-                    "dpp-rival",
-                    "dpp-trainer",
-                    "hgss-johto-trainer",
-                    "hgss-kanto-trainer",
-                    "oras-rival",
-                    "oras-trainer",
-                    "sm-rival",
-                    "sm-trainer",
-                    "spl-elite4",
-                    "xd-miror-b",
-                    "xy-rival",
-                    "xy-trainer"
-            };
-
-            int randomIndex = (int) (Math.random() * simpleTracks.length);
-            String randomTrack = simpleTracks[randomIndex];
-
-            Log.d(TAG, "Trying simple fallback track: " + randomTrack);
-
-            // Play the selected track
-            String url = SHOWDOWN_AUDIO_BASE_URL + randomTrack + ".mp3";
-
-            // Stop any existing media player
-            if (mediaPlayer != null) {
-                if (mediaPlayer.isPlaying()) {
-                    mediaPlayer.stop();
-                }
-                mediaPlayer.release();
-                mediaPlayer = null;
-            }
-
-            // Create a new media player
-            mediaPlayer = new MediaPlayer();
-            mediaPlayer.setAudioAttributes(
-                    new AudioAttributes.Builder()
-                            .setContentType(AudioAttributes.CONTENT_TYPE_MUSIC)
-                            .setUsage(AudioAttributes.USAGE_MEDIA)
-                            .build()
-            );
-
-            // Set the data source to the URL
-            mediaPlayer.setDataSource(url);
-
-            // Set volume based on user settings
-            mediaPlayer.setVolume(volume, volume);
-
-            // Set up completion listener instead of looping
-            mediaPlayer.setOnCompletionListener(mp -> {
-                Log.d(TAG, "Fallback track completed: " + randomTrack + ", playing next track");
-                // Only play the next track if we're still in battle mode and music is enabled
-                if (inBattleMode && backgroundMusicEnabled) {
-                    playRandomBattleMusic();
-                }
-            });
-
-            // Prepare and play
-            mediaPlayer.prepare(); // Synchronous preparation
-            mediaPlayer.start();
-
-            // Save the current track
-            currentMusicTrack = randomTrack;
-            
-            Log.d(TAG, "Successfully started fallback track: " + randomTrack);
-        } catch (Exception e) {
-            Log.e(TAG, "Failed to play fallback track: " + e.getMessage());
-            // Give up
-            mediaPlayer = null;
-        }
+    private String pickBattleTrack(String previous) {
+        String track;
+        int attempts = 0;
+        int maxAttempts = 5; // Prevent infinite loop
+        do {
+            int randomIndex = (int) (Math.random() * BATTLE_MUSIC_TRACKS.length);
+            track = BATTLE_MUSIC_TRACKS[randomIndex];
+            attempts++;
+        } while (track.equals(previous) && attempts < maxAttempts);
+        return track;
     }
 
-
     /**
      * Manually force music to play or pause based on current settings
      * This can be called from the battle activity to ensure music state is correct
      */
     public void updateMusicState() {
-        Log.d(TAG, "Updating music state: inBattleMode=" + inBattleMode + ", backgroundMusicEnabled=" + backgroundMusicEnabled);
+        TraceLog.d(TAG, "Updating music state: inBattleMode={}, backgroundMusicEnabled={}", inBattleMode, backgroundMusicEnabled);
         
         if (inBattleMode && backgroundMusicEnabled) {
             // We should be playing music
-            if (mediaPlayer == null) {
-                // No media player exists, start a new one
-                Log.d(TAG, "Starting music in updateMusicState - no media player exists");
+            if (!music.isActive()) {
+                // No rotation exists, start a new one
+                TraceLog.d(TAG, "Starting music in updateMusicState - no music playing");
                 playBattleMusic();
-            } else if (!mediaPlayer.isPlaying()) {
-                // Media player exists but is not playing, try to resume
-                try {
-                    Log.d(TAG, "Resuming paused music in updateMusicState");
-                    mediaPlayer.start();
-                } catch (IllegalStateException e) {
-                    // If resuming fails, create a new player
-                    Log.e(TAG, "Error resuming music, starting new player", e);
-                    playBattleMusic();
-                }
+            } else if (!music.isPlaying()) {
+                // The rotation is paused or still loading its track, so resume it
+                TraceLog.d(TAG, "Resuming paused music in updateMusicState");
+                music.resume();
             } else {
                 // Media player exists and is playing, do nothing
-                Log.d(TAG, "Music already playing in updateMusicState, doing nothing");
+                TraceLog.d(TAG, "Music already playing in updateMusicState, doing nothing");
             }
-        } else if (!backgroundMusicEnabled && mediaPlayer != null && mediaPlayer.isPlaying()) {
+        } else if (!backgroundMusicEnabled && music.isPlaying()) {
             // We should not be playing music
-            Log.d(TAG, "Pausing music in updateMusicState");
+            TraceLog.d(TAG, "Pausing music in updateMusicState");
             pauseBackgroundMusic();
         }
     }
@@ -635,23 +456,14 @@ public class SoundManager {
      * Stop background music
      */
     public void stopBackgroundMusic() {
-        if (mediaPlayer != null) {
-            if (mediaPlayer.isPlaying()) {
-                mediaPlayer.stop();
-            }
-            mediaPlayer.release();
-            mediaPlayer = null;
-            currentMusicTrack = null;
-        }
+        music.stop();
     }
     
     /**
-     * Pause background music without releasing the MediaPlayer
+     * Pause background music without releasing the players
      */
     public void pauseBackgroundMusic() {
-        if (mediaPlayer != null && mediaPlayer.isPlaying()) {
-            mediaPlayer.pause();
-        }
+        music.pause();
     }
     
     /**
@@ -662,6 +474,7 @@ public class SoundManager {
             soundPool.release();
             soundPool = null;
         }
+        cries.clear();
         
         stopBackgroundMusic();
         
@@ -0,0 +1,258 @@
+package com.example.csproject;
+
+import android.content.Context;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Every species and non-cosmetic form, with its National Dex number and the slugs Showdown
+ * uses for its sprite and cry. Loaded once from assets/species.tsv, a curated table that
+ * scripts/generate_species.py can rebuild from Showdown's pokedex.json.
+ *
+ * Lookups take a display name ("Iron Valiant", "Rotom-Wash") or an id ("ironvaliant") and
+ * normalize it with {@link ShowdownIds#idChar} while hashing, so they don't allocate. Each
+ * entry is a slot number; -1 means the species isn't known and nothing should be fetched
+ * for it.
+ */
+public final class SpeciesIndex {
+    private static final String TAG = "SpeciesIndex";
+
+    static final String ASSET_NAME = "species.tsv";
+
+    private static volatile SpeciesIndex instance;
+
+    // Parallel arrays, one entry per slot
+    private final String[] ids;
+    private final int[] dexNumbers;
+    private final String[] spriteSlugs;
+    private final String[] crySlugs;
+
+    // Open addressing: slot + 1 per bucket, 0 for empty
+    private final int[] buckets;
+    private final int mask;
+
+    // Base species slot by dex number
+    private final int[] byDexNumber;
+
+    /**
+     * Get the index, loading it from assets on first use
+     * @param context Any context, only its assets are used
+     * @return The index; empty if the asset couldn't be read
+     */
+    public static SpeciesIndex getInstance(Context context) {
+        SpeciesIndex index = instance;
+        if (index == null) {
+            synchronized (SpeciesIndex.class) {
+                index = instance;
+                if (index == null) {
+                    index = loadAsset(context);
+                    instance = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    private static SpeciesIndex loadAsset(Context context) {
+        try (InputStream in = context.getAssets().open(ASSET_NAME)) {
+            SpeciesIndex index = load(in);
+            TraceLog.d(TAG, "Loaded {} species", index.size());
+            return index;
+        } catch (IOException | IllegalArgumentException e) {
+            TraceLog.e(TAG, "Error loading species index", e);
+            return new SpeciesIndex(new ArrayList<>());
+        }
+    }
+
+    /**
+     * Read an index in the species.tsv format
+     * @param in The table; not closed
+     * @return The index
+     * @throws IllegalArgumentException if a line is malformed
+     */
+    public static SpeciesIndex load(InputStream in) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        List<String[]> rows = new ArrayList<>(1400);
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isEmpty() || line.charAt(0) == '#') continue;
+            String[] row = line.split("\t");
+            if (row.length != 2 && row.length != 4) {
+                throw new IllegalArgumentException("Bad species line: " + line);
+            }
+            rows.add(row);
+        }
+        return new SpeciesIndex(rows);
+    }
+
+    private SpeciesIndex(List<String[]> rows) {
+        int count = rows.size();
+        ids = new String[count];
+        dexNumbers = new int[count];
+        spriteSlugs = new String[count];
+        crySlugs = new String[count];
+
+        int capacity = 16;
+        while (capacity < count * 2) capacity <<= 1;
+        buckets = new int[capacity];
+        mask = capacity - 1;
+
+        int maxDex = 0;
+        boolean[] baseSpecies = new boolean[count];
+        for (int slot = 0; slot < count; slot++) {
+            String[] row = rows.get(slot);
+            String id = row[0];
+            ids[slot] = id;
+            dexNumbers[slot] = Integer.parseInt(row[1]);
+            // Base species only have the id and number, forms add their sprite and cry
+            baseSpecies[slot] = row.length == 2;
+            spriteSlugs[slot] = row.length == 4 ? row[2] : id;
+            crySlugs[slot] = row.length == 4 ? row[3] : id;
+            maxDex = Math.max(maxDex, dexNumbers[slot]);
+
+            int bucket = hash(id, 0, id.length()) & mask;
+            while (buckets[bucket] != 0) {
+                if (ids[buckets[bucket] - 1].equals(id)) {
+                    throw new IllegalArgumentException("Duplicate species " + id);
+                }
+                bucket = (bucket + 1) & mask;
+            }
+            buckets[bucket] = slot + 1;
+        }
+
+        byDexNumber = new int[maxDex + 1];
+        Arrays.fill(byDexNumber, -1);
+        for (int slot = 0; slot < count; slot++) {
+            if (baseSpecies[slot]) {
+                byDexNumber[dexNumbers[slot]] = slot;
+            }
+        }
+    }
+
+    private static int hash(CharSequence name, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            char c = ShowdownIds.idChar(name.charAt(i));
+            if (c != 0) h = 31 * h + c;
+        }
+        // Spread the low bits, the table is a power of two
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean idEquals(String id, CharSequence name, int start, int end) {
+        int j = 0;
+        for (int i = start; i < end; i++) {
+            char c = ShowdownIds.idChar(name.charAt(i));
+            if (c == 0) continue;
+            if (j >= id.length() || id.charAt(j) != c) return false;
+            j++;
+        }
+        return j == id.length();
+    }
+
+    /**
+     * Find an exact species or form
+     * @param name A display name or id
+     * @return The slot, or -1 if unknown
+     */
+    public int find(CharSequence name) {
+        return name == null ? -1 : find(name, 0, name.length());
+    }
+
+    /**
+     * Find an exact species or form in part of a string
+     * @return The slot, or -1 if unknown
+     */
+    public int find(CharSequence name, int start, int end) {
+        int bucket = hash(name, start, end) & mask;
+        int entry;
+        while ((entry = buckets[bucket]) != 0) {
+            if (idEquals(ids[entry - 1], name, start, end)) return entry - 1;
+            bucket = (bucket + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Find a species, falling back to the base species for forms the table doesn't list
+     * ("Arceus-Fire", "Vivillon-Fancy", "Kommo-o-Totem")
+     * @param name A display name with forme suffixes separated by '-'
+     * @return The slot, or -1 if unknown
+     */
+    public int resolve(CharSequence name) {
+        if (name == null) return -1;
+        int end = name.length();
+        while (end > 0) {
+            int slot = find(name, 0, end);
+            if (slot >= 0) return slot;
+            // Drop the last "-Forme" and try again
+            do {
+                end--;
+            } while (end > 0 && name.charAt(end) != '-');
+        }
+        return -1;
+    }
+
+    /**
+     * Find the species of a switch or party member by the id the parser already stored with it,
+     * so the name isn't normalized again. Forms the table doesn't list fall back to the base
+     * species through the display name.
+     * @param speciesId The species id ("rotomwash"), e.g. from {@link BattleEvent.Switch#getSpeciesId()}
+     * @param species The display name the id was made from ("Rotom-Wash")
+     * @return The slot, or -1 if unknown
+     */
+    public int findSpecies(String speciesId, CharSequence species) {
+        int slot = find(speciesId);
+        return slot >= 0 ? slot : resolve(species);
+    }
+
+    /**
+     * @return The base species slot for a dex number, or -1
+     */
+    public int findByDexNumber(int dexNumber) {
+        if (dexNumber <= 0 || dexNumber >= byDexNumber.length) return -1;
+        return byDexNumber[dexNumber];
+    }
+
+    /**
+     * @param name A display name or id
+     * @return The dex number, or 0 if the species is unknown
+     */
+    public int getDexNumber(CharSequence name) {
+        int slot = resolve(name);
+        return slot < 0 ? 0 : dexNumbers[slot];
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public String getId(int slot) {
+        return ids[slot];
+    }
+
+    public int getDexNumber(int slot) {
+        return dexNumbers[slot];
+    }
+
+    /**
+     * @return The name Showdown uses for this species' sprite files, e.g. "rotom-wash"
+     */
+    public String getSpriteSlug(int slot) {
+        return spriteSlugs[slot];
+    }
+
+    /**
+     * @return The name of this species' cry file, which forms share with their base species
+     */
+    public String getCrySlug(int slot) {
+        return crySlugs[slot];
+    }
+}
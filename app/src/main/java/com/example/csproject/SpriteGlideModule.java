@@ -0,0 +1,53 @@
+package com.example.csproject;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.GlideBuilder;
+import com.bumptech.glide.Registry;
+import com.bumptech.glide.annotation.GlideModule;
+import com.bumptech.glide.load.engine.cache.InternalCacheDiskCacheFactory;
+import com.bumptech.glide.load.engine.cache.LruResourceCache;
+import com.bumptech.glide.load.engine.cache.MemorySizeCalculator;
+import com.bumptech.glide.module.AppGlideModule;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Glide configuration: a dedicated disk cache for Showdown sprites, a memory cache large
+ * enough to keep a prefetched team decoded until it switches in, and images served from the
+ * offline {@link AssetPack} when it has them.
+ */
+@GlideModule
+public final class SpriteGlideModule extends AppGlideModule {
+
+    // A few battles' worth of animated sprites; most are 20-200 KB
+    static final long DISK_CACHE_BYTES = 64L * 1024 * 1024;
+    static final String DISK_CACHE_DIR = "sprites";
+
+    // Glide's default is two screens of bitmaps; both teams' sprites need a bit more
+    private static final float MEMORY_CACHE_SCREENS = 3;
+
+    @Override
+    public void applyOptions(@NonNull Context context, @NonNull GlideBuilder builder) {
+        builder.setDiskCache(new InternalCacheDiskCacheFactory(context, DISK_CACHE_DIR, DISK_CACHE_BYTES));
+
+        MemorySizeCalculator calculator = new MemorySizeCalculator.Builder(context)
+                .setMemoryCacheScreens(MEMORY_CACHE_SCREENS)
+                .build();
+        builder.setMemoryCache(new LruResourceCache(calculator.getMemoryCacheSize()));
+    }
+
+    @Override
+    public void registerComponents(@NonNull Context context, @NonNull Glide glide, @NonNull Registry registry) {
+        // Ahead of the network loaders, which only see URLs the pack doesn't have
+        registry.prepend(String.class, ByteBuffer.class, new AssetPackModelLoader.Factory(context));
+    }
+
+    @Override
+    public boolean isManifestParsingEnabled() {
+        return false;
+    }
+}
@@ -0,0 +1,240 @@
+package com.example.csproject;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.graphics.drawable.Drawable;
+import android.widget.ImageView;
+
+import androidx.annotation.Nullable;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.RequestManager;
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.HttpException;
+import com.bumptech.glide.load.engine.DiskCacheStrategy;
+import com.bumptech.glide.load.engine.GlideException;
+import com.bumptech.glide.request.RequestListener;
+import com.bumptech.glide.request.target.Target;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Loads Pokémon sprites from Showdown, falling back from the animated sprite to the gen 5,
+ * dex and official artwork images.
+ *
+ * Our team is listed in full by the first |request|, so its back sprites are prefetched into
+ * Glide's caches (see {@link SpriteGlideModule}) before any of them switches in. Prefetches
+ * and loads build the same request, so a prefetched sprite is a memory cache hit.
+ *
+ * Which source worked is remembered per species and facing in a {@link SpriteSourceMemo},
+ * so later loads start at that source instead of failing through the ones before it.
+ */
+public final class SpriteLoader {
+    private static final String TAG = "SpriteLoader";
+
+    static final String SPRITE_URL = "https://play.pokemonshowdown.com/sprites/";
+    static final String ARTWORK_URL =
+            "https://raw.githubusercontent.com/PokeAPI/sprites/master/sprites/pokemon/other/official-artwork/";
+
+    private static final String SOURCES_PREFS = "SpriteSources";
+
+    private static SpriteLoader instance;
+
+    private final Context context;
+    private final SharedPreferences sourcePrefs;
+    private final SpriteSourceMemo sources;
+
+    // Species ids whose back sprites were prefetched this battle, main thread only
+    private final Set<String> prefetched = new HashSet<>();
+
+    public static synchronized SpriteLoader getInstance(Context context) {
+        if (instance == null) {
+            instance = new SpriteLoader(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private SpriteLoader(Context context) {
+        this.context = context;
+        this.sourcePrefs = context.getSharedPreferences(SOURCES_PREFS, Context.MODE_PRIVATE);
+        this.sources = SpriteSourceMemo.fromSaved(sourcePrefs.getAll());
+    }
+
+    /**
+     * @param slug The species' sprite slug, e.g. "rotom-wash"
+     * @param back Whether to use the back sprite (the player's side)
+     * @return The animated sprite URL
+     */
+    static String animatedUrl(String slug, boolean back) {
+        return SPRITE_URL + (back ? "ani-back/" : "ani/") + slug + ".gif";
+    }
+
+    static String staticUrl(String slug, boolean back) {
+        return SPRITE_URL + (back ? "gen5-back/" : "gen5/") + slug + ".png";
+    }
+
+    static String dexUrl(String slug) {
+        return SPRITE_URL + "dex/" + slug + ".png";
+    }
+
+    static String artworkUrl(int dexNumber) {
+        return ARTWORK_URL + dexNumber + ".png";
+    }
+
+    private static String url(SpriteSourceMemo.Source source, SpeciesIndex species, int slot, boolean back) {
+        String slug = species.getSpriteSlug(slot);
+        switch (source) {
+            case ANIMATED: return animatedUrl(slug, back);
+            case STATIC: return staticUrl(slug, back);
+            case DEX: return dexUrl(slug);
+            default: return artworkUrl(species.getDexNumber(slot));
+        }
+    }
+
+    /**
+     * Build the request for a species' sprite, starting at the source that worked last time
+     * and falling back through the ones after it. Sprites are small, so they are decoded at
+     * their original size and left untransformed; that keeps the memory cache key independent
+     * of the view they end up in.
+     * @return The request, or null if no source had the sprite recently
+     */
+    private RequestBuilder<Drawable> request(SpeciesIndex species, int slot, boolean back) {
+        String slug = species.getSpriteSlug(slot);
+        SpriteSourceMemo.Source first = sources.lookup(slug, back, System.currentTimeMillis());
+        if (first == SpriteSourceMemo.Source.NONE) return null;
+        if (first == null) first = SpriteSourceMemo.Source.ANIMATED;
+
+        RequestManager glide = Glide.with(context);
+        RequestBuilder<Drawable> chain = null;
+        for (int i = SpriteSourceMemo.Source.ARTWORK.ordinal(); i >= first.ordinal(); i--) {
+            SpriteSourceMemo.Source source = SpriteSourceMemo.Source.fromOrdinal(i);
+            RequestBuilder<Drawable> attempt = sized(glide.load(url(source, species, slot, back)))
+                    .listener(new SourceListener(slug, back, source, chain == null));
+            chain = chain == null ? attempt : attempt.error(chain);
+        }
+        return chain;
+    }
+
+    private static RequestBuilder<Drawable> sized(RequestBuilder<Drawable> request) {
+        return request
+                // Network bytes go to the disk cache; asset pack entries are already on disk
+                .diskCacheStrategy(DiskCacheStrategy.AUTOMATIC)
+                .override(Target.SIZE_ORIGINAL)
+                .dontTransform();
+    }
+
+    /**
+     * Load a Pokémon's sprite into a view, or the placeholder if its species is unknown
+     * @param pokemon The Pokémon, looked up by its stored species id
+     * @param back Whether to use the back sprite (the player's side)
+     * @param view The view to load into
+     */
+    public void load(PokemonBattleData pokemon, boolean back, ImageView view) {
+        SpeciesIndex species = SpeciesIndex.getInstance(context);
+        int slot = pokemon.findSpecies(species);
+        if (slot < 0) {
+            // Nothing on the sprite servers for it, so don't ask
+            TraceLog.w(TAG, "Unknown species, not fetching a sprite: {}", pokemon.getSpecies());
+            Glide.with(context).clear(view);
+            view.setImageResource(R.drawable.ic_launcher_foreground);
+            return;
+        }
+        RequestBuilder<Drawable> request = request(species, slot, back);
+        if (request == null) {
+            TraceLog.d(TAG, "No sprite source had {} recently", species.getSpriteSlug(slot));
+            Glide.with(context).clear(view);
+            view.setImageResource(R.drawable.ic_launcher_foreground);
+            return;
+        }
+        TraceLog.d(TAG, "Loading {} sprite for {}", back ? "back" : "front", species.getSpriteSlug(slot));
+        request.into(view);
+    }
+
+    /**
+     * Fetch and decode the back sprites of our team so switch-ins don't wait on the network.
+     * Members already prefetched this battle are skipped. Call from the main thread.
+     * @param request A request listing our team
+     */
+    public void prefetchTeam(RequestSnapshot request) {
+        if (request == null) return;
+        SpeciesIndex species = SpeciesIndex.getInstance(context);
+        for (int i = 0; i < request.getPartySize(); i++) {
+            RequestSnapshot.PartyMember member = request.getPartyMember(i);
+            if (prefetched.contains(member.getSpeciesId())) continue;
+            int slot = species.findSpecies(member.getSpeciesId(),
+                    BattleProtocolParser.parseSpecies(member.getDetails()));
+            if (slot < 0) continue;
+            prefetched.add(member.getSpeciesId());
+            RequestBuilder<Drawable> sprite = request(species, slot, true);
+            if (sprite == null) continue;
+            TraceLog.d(TAG, "Prefetching back sprite for {}", species.getSpriteSlug(slot));
+            sprite.preload();
+        }
+    }
+
+    /**
+     * Forget which sprites were prefetched, e.g. when a new battle starts. The caches keep them.
+     */
+    public void reset() {
+        prefetched.clear();
+    }
+
+    /**
+     * Record the source a sprite was loaded from
+     */
+    private void remember(String slug, boolean back, SpriteSourceMemo.Source source) {
+        String saved = sources.record(slug, back, source, System.currentTimeMillis());
+        if (saved != null) {
+            sourcePrefs.edit().putString(SpriteSourceMemo.key(slug, back), saved).apply();
+        }
+    }
+
+    /**
+     * @return true if the server answered that the image doesn't exist, rather than the
+     * request failing for a reason that may not last (no network, a timeout)
+     */
+    private static boolean isMissing(@Nullable GlideException e) {
+        if (e == null) return false;
+        for (Throwable cause : e.getRootCauses()) {
+            if (!(cause instanceof HttpException) || ((HttpException) cause).getStatusCode() != 404) {
+                return false;
+            }
+        }
+        return !e.getRootCauses().isEmpty();
+    }
+
+    /**
+     * Records which source of a fallback chain produced the sprite
+     */
+    private final class SourceListener implements RequestListener<Drawable> {
+        private final String slug;
+        private final boolean back;
+        private final SpriteSourceMemo.Source source;
+        private final boolean last;
+
+        SourceListener(String slug, boolean back, SpriteSourceMemo.Source source, boolean last) {
+            this.slug = slug;
+            this.back = back;
+            this.source = source;
+            this.last = last;
+        }
+
+        @Override
+        public boolean onLoadFailed(@Nullable GlideException e, Object model, Target<Drawable> target, boolean isFirstResource) {
+            // Only the last source's failure means none of them has the sprite
+            if (last && isMissing(e)) {
+                TraceLog.w(TAG, "No sprite source has {}", slug);
+                remember(slug, back, SpriteSourceMemo.Source.NONE);
+            }
+            return false;
+        }
+
+        @Override
+        public boolean onResourceReady(Drawable resource, Object model, Target<Drawable> target, DataSource dataSource, boolean isFirstResource) {
+            remember(slug, back, source);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.csproject;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Remembers which sprite source worked for each species and facing, so later loads can go
+ * straight to it instead of failing through the sources before it again.
+ *
+ * Entries expire: a source found some time ago may have been joined by a better one (new
+ * animated sprites get added), and a species with no sprite anywhere is retried sooner.
+ * The memo itself is plain Java; {@link SpriteLoader} persists the entries it reports as
+ * changed.
+ */
+public final class SpriteSourceMemo {
+
+    /**
+     * Where a sprite comes from, in the order they are tried
+     */
+    public enum Source {
+        ANIMATED, STATIC, DEX, ARTWORK,
+        /** Every source failed */
+        NONE;
+
+        private static final Source[] VALUES = values();
+
+        static Source fromOrdinal(int ordinal) {
+            return ordinal >= 0 && ordinal < VALUES.length ? VALUES[ordinal] : null;
+        }
+    }
+
+    static final long FOUND_MAX_AGE_MS = 7L * 24 * 60 * 60 * 1000;
+    static final long MISSING_MAX_AGE_MS = 24L * 60 * 60 * 1000;
+
+    private static final class Entry {
+        final Source source;
+        final long recordedAt;
+
+        Entry(Source source, long recordedAt) {
+            this.source = source;
+            this.recordedAt = recordedAt;
+        }
+    }
+
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    /**
+     * Restore a memo from saved entries. Entries that can't be read are skipped.
+     * @param saved Keys from {@link #key} with values from {@link #encode}
+     * @return The memo
+     */
+    public static SpriteSourceMemo fromSaved(Map<String, ?> saved) {
+        SpriteSourceMemo memo = new SpriteSourceMemo();
+        for (Map.Entry<String, ?> item : saved.entrySet()) {
+            Entry entry = decode(item.getValue());
+            if (entry != null) memo.entries.put(item.getKey(), entry);
+        }
+        return memo;
+    }
+
+    /**
+     * @param slug The species' sprite slug, e.g. "rotom-wash"
+     * @param back Whether this is the back sprite
+     * @return The key the entry is stored under
+     */
+    public static String key(String slug, boolean back) {
+        return (back ? "back/" : "front/") + slug;
+    }
+
+    /**
+     * Find the source that last worked for a sprite
+     * @param now The current time in milliseconds
+     * @return The source, {@link Source#NONE} if none worked, or null if unknown or expired
+     */
+    public synchronized Source lookup(String slug, boolean back, long now) {
+        String key = key(slug, back);
+        Entry entry = entries.get(key);
+        if (entry == null) return null;
+        long maxAge = entry.source == Source.NONE ? MISSING_MAX_AGE_MS : FOUND_MAX_AGE_MS;
+        // A clock that went backwards also makes the entry stale
+        if (now - entry.recordedAt > maxAge || now < entry.recordedAt) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.source;
+    }
+
+    /**
+     * Record the source a sprite was loaded from. Recording the source the memo already has
+     * keeps the original time, so a fallback is still re-checked once it expires.
+     * @param now The current time in milliseconds
+     * @return The encoded entry to persist under {@link #key}, or null if nothing changed
+     */
+    public synchronized String record(String slug, boolean back, Source source, long now) {
+        String key = key(slug, back);
+        Entry entry = entries.get(key);
+        if (entry != null && entry.source == source) return null;
+        entry = new Entry(source, now);
+        entries.put(key, entry);
+        return encode(entry);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    // "<source ordinal>:<time recorded>"
+    private static String encode(Entry entry) {
+        return entry.source.ordinal() + ":" + entry.recordedAt;
+    }
+
+    private static Entry decode(Object value) {
+        if (!(value instanceof String)) return null;
+        String text = (String) value;
+        int colon = text.indexOf(':');
+        if (colon <= 0) return null;
+        try {
+            Source source = Source.fromOrdinal(ProtocolTokenizer.parseInt(text, 0, colon));
+            long recordedAt = Long.parseLong(text.substring(colon + 1));
+            return source == null ? null : new Entry(source, recordedAt);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.csproject;
+
+/**
+ * Non-volatile status conditions as they appear after the HP in a protocol HP status ("45/100 par")
+ */
+public enum StatusCondition {
+    NONE(""),
+    BURN("brn"),
+    PARALYSIS("par"),
+    SLEEP("slp"),
+    FREEZE("frz"),
+    POISON("psn"),
+    TOXIC("tox"),
+    FAINTED("fnt");
+
+    private static final StatusCondition[] VALUES = values();
+
+    private final String code;
+
+    StatusCondition(String code) {
+        this.code = code;
+    }
+
+    /**
+     * @return The protocol code of this condition (e.g. "par"), empty for NONE
+     */
+    public String getCode() {
+        return code;
+    }
+
+    /**
+     * Look up a condition by its protocol code
+     * @param text The text holding the code
+     * @param from Start of the code in text
+     * @param to End of the code in text
+     * @return The condition, or NONE if the code is unknown
+     */
+    public static StatusCondition fromCode(CharSequence text, int from, int to) {
+        if (to - from != 3) return NONE;
+        for (int i = 1; i < VALUES.length; i++) {
+            if (ProtocolTokenizer.regionMatches(text, from, to, VALUES[i].code)) {
+                return VALUES[i];
+            }
+        }
+        return NONE;
+    }
+}
@@ -0,0 +1,230 @@
+package com.example.csproject;
+
+import android.os.Build;
+import android.os.Trace;
+import android.util.Log;
+
+/**
+ * Logging and tracing front end for the app.
+ *
+ * Messages are gated twice before any string is built: by {@link BuildConfig#TRACE_LEVEL},
+ * a compile-time floor (release builds drop debug logging entirely), and by a runtime level
+ * that can be raised or lowered while the app runs. Messages take "{}" placeholders that are
+ * only filled in when the message is actually logged, so a disabled call costs a branch.
+ * Callers with primitive arguments on hot paths should check {@link #isDebugEnabled()} first
+ * to avoid boxing.
+ *
+ * Spans map onto android.os.Trace so they show up in Perfetto/systrace captures, including
+ * release builds when {@link BuildConfig#TRACE_SPANS} is set.
+ */
+public final class TraceLog {
+
+    // Anything below this level is compiled out
+    private static final int COMPILED_LEVEL = BuildConfig.TRACE_LEVEL;
+
+    /**
+     * Constant so that {@code if (TraceLog.DEBUG_COMPILED)} blocks are removed from builds that don't log debug
+     */
+    public static final boolean DEBUG_COMPILED = COMPILED_LEVEL <= Log.DEBUG;
+
+    private static final boolean SPANS_COMPILED = BuildConfig.TRACE_SPANS;
+
+    private static volatile int level = COMPILED_LEVEL;
+
+    private TraceLog() {
+    }
+
+    /**
+     * Set the runtime level. It can't go below the compile-time level.
+     * @param priority One of the android.util.Log priorities (Log.DEBUG, Log.WARN, ...)
+     */
+    public static void setLevel(int priority) {
+        level = Math.max(priority, COMPILED_LEVEL);
+    }
+
+    public static int getLevel() {
+        return level;
+    }
+
+    /**
+     * @param priority One of the android.util.Log priorities
+     * @return true if a message at this priority would be logged
+     */
+    public static boolean isLoggable(int priority) {
+        return priority >= COMPILED_LEVEL && priority >= level;
+    }
+
+    public static boolean isDebugEnabled() {
+        return DEBUG_COMPILED && level <= Log.DEBUG;
+    }
+
+    public static void d(String tag, String message) {
+        if (isDebugEnabled()) Log.d(tag, message);
+    }
+
+    public static void d(String tag, String template, Object arg1) {
+        if (isDebugEnabled()) Log.d(tag, format(template, arg1, null, null, null));
+    }
+
+    public static void d(String tag, String template, Object arg1, Object arg2) {
+        if (isDebugEnabled()) Log.d(tag, format(template, arg1, arg2, null, null));
+    }
+
+    public static void d(String tag, String template, Object arg1, Object arg2, Object arg3) {
+        if (isDebugEnabled()) Log.d(tag, format(template, arg1, arg2, arg3, null));
+    }
+
+    public static void d(String tag, String template, Object arg1, Object arg2, Object arg3, Object arg4) {
+        if (isDebugEnabled()) Log.d(tag, format(template, arg1, arg2, arg3, arg4));
+    }
+
+    public static void i(String tag, String message) {
+        if (isLoggable(Log.INFO)) Log.i(tag, message);
+    }
+
+    public static void i(String tag, String template, Object arg1) {
+        if (isLoggable(Log.INFO)) Log.i(tag, format(template, arg1, null, null, null));
+    }
+
+    public static void i(String tag, String template, Object arg1, Object arg2) {
+        if (isLoggable(Log.INFO)) Log.i(tag, format(template, arg1, arg2, null, null));
+    }
+
+    public static void w(String tag, String message) {
+        if (isLoggable(Log.WARN)) Log.w(tag, message);
+    }
+
+    public static void w(String tag, String message, Throwable throwable) {
+        if (isLoggable(Log.WARN)) Log.w(tag, message, throwable);
+    }
+
+    public static void w(String tag, String template, Object arg1) {
+        if (isLoggable(Log.WARN)) Log.w(tag, format(template, arg1, null, null, null));
+    }
+
+    public static void w(String tag, String template, Object arg1, Object arg2) {
+        if (isLoggable(Log.WARN)) Log.w(tag, format(template, arg1, arg2, null, null));
+    }
+
+    public static void w(String tag, String template, Object arg1, Object arg2, Object arg3) {
+        if (isLoggable(Log.WARN)) Log.w(tag, format(template, arg1, arg2, arg3, null));
+    }
+
+    public static void e(String tag, String message) {
+        if (isLoggable(Log.ERROR)) Log.e(tag, message);
+    }
+
+    public static void e(String tag, String message, Throwable throwable) {
+        if (isLoggable(Log.ERROR)) Log.e(tag, message, throwable);
+    }
+
+    public static void e(String tag, String template, Object arg1) {
+        if (isLoggable(Log.ERROR)) Log.e(tag, format(template, arg1, null, null, null));
+    }
+
+    public static void e(String tag, String template, Object arg1, Object arg2) {
+        if (isLoggable(Log.ERROR)) Log.e(tag, format(template, arg1, arg2, null, null));
+    }
+
+    public static void e(String tag, String template, Object arg1, Object arg2, Object arg3) {
+        if (isLoggable(Log.ERROR)) Log.e(tag, format(template, arg1, arg2, arg3, null));
+    }
+
+    public static void e(String tag, String template, Object arg1, Throwable throwable) {
+        if (isLoggable(Log.ERROR)) Log.e(tag, format(template, arg1, null, null, null), throwable);
+    }
+
+    /**
+     * Replace each "{}" in the template with the next argument
+     */
+    static String format(String template, Object arg1, Object arg2, Object arg3, Object arg4) {
+        StringBuilder out = new StringBuilder(template.length() + 32);
+        int argIndex = 0;
+        int start = 0;
+        int placeholder;
+        while ((placeholder = template.indexOf("{}", start)) >= 0) {
+            out.append(template, start, placeholder);
+            switch (argIndex++) {
+                case 0: out.append(arg1); break;
+                case 1: out.append(arg2); break;
+                case 2: out.append(arg3); break;
+                case 3: out.append(arg4); break;
+                default: out.append("{}"); break;
+            }
+            start = placeholder + 2;
+        }
+        out.append(template, start, template.length());
+        return out.toString();
+    }
+
+    /**
+     * Start a synchronous span on the current thread. Must be ended on the same thread.
+     * @param name Span name, at most 127 characters
+     */
+    public static void beginSection(String name) {
+        if (SPANS_COMPILED) Trace.beginSection(name);
+    }
+
+    public static void endSection() {
+        if (SPANS_COMPILED) Trace.endSection();
+    }
+
+    /**
+     * Start a span that may end on another thread or in a later frame, like a battle turn.
+     * The duration is also logged at debug level when the span ends.
+     * @param name Span name
+     * @param cookie Distinguishes overlapping spans with the same name (e.g. the turn number)
+     * @return The span, or null if spans are compiled out
+     */
+    public static Span beginSpan(String name, int cookie) {
+        if (!SPANS_COMPILED) return null;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            Trace.beginAsyncSection(name, cookie);
+        }
+        return new Span(name, cookie, System.nanoTime());
+    }
+
+    /**
+     * End a span from {@link #beginSpan}. Does nothing for null.
+     */
+    public static void endSpan(Span span) {
+        if (span == null) return;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            Trace.endAsyncSection(span.name, span.cookie);
+        }
+        if (isDebugEnabled()) {
+            Log.d("TraceLog", format("{} {} took {} ms", span.name, span.cookie,
+                    (System.nanoTime() - span.startNanos) / 1_000_000L, null));
+        }
+    }
+
+    /**
+     * A span started with {@link #beginSpan}
+     */
+    public static final class Span {
+        private final String name;
+        private final int cookie;
+        private final long startNanos;
+
+        private Span(String name, int cookie, long startNanos) {
+            this.name = name;
+            this.cookie = cookie;
+            this.startNanos = startNanos;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getCookie() {
+            return cookie;
+        }
+
+        /**
+         * @return How long the span has been open, in nanoseconds
+         */
+        public long getElapsedNanos() {
+            return System.nanoTime() - startNanos;
+        }
+    }
+}
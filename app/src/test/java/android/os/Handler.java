@@ -0,0 +1,25 @@
+package android.os;
+
+/**
+ * Stand-in for android.os.Handler in JVM unit tests. Replays deliver events directly on the
+ * parser thread, so nothing is ever run from here; posts are dropped and report failure.
+ */
+public class Handler {
+
+    public Handler(Looper looper) {
+    }
+
+    public boolean post(Runnable r) {
+        return false;
+    }
+
+    public boolean postDelayed(Runnable r, long delayMillis) {
+        return false;
+    }
+
+    public void removeCallbacks(Runnable r) {
+    }
+
+    public void removeCallbacksAndMessages(Object token) {
+    }
+}
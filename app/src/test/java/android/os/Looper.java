@@ -0,0 +1,16 @@
+package android.os;
+
+/**
+ * Stand-in for android.os.Looper in JVM unit tests. There is no main looper; code under test
+ * only passes it to {@link Handler}.
+ */
+public final class Looper {
+    private static final Looper MAIN = new Looper();
+
+    private Looper() {
+    }
+
+    public static Looper getMainLooper() {
+        return MAIN;
+    }
+}
@@ -0,0 +1,21 @@
+package android.os;
+
+/**
+ * No-op stand-in for android.os.Trace, used by TraceLog sections and spans.
+ */
+public final class Trace {
+    private Trace() {
+    }
+
+    public static void beginSection(String sectionName) {
+    }
+
+    public static void endSection() {
+    }
+
+    public static void beginAsyncSection(String methodName, int cookie) {
+    }
+
+    public static void endAsyncSection(String methodName, int cookie) {
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.csproject;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import static org.junit.Assert.*;
+
+/**
+ * Writes small packs and reads them back through the mapping.
+ */
+public class AssetPackTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private File writePack(SortedMap<String, byte[]> entries) throws IOException {
+        File file = folder.newFile();
+        AssetPack.write(file, entries);
+        return file;
+    }
+
+    private static SortedMap<String, byte[]> sampleEntries() {
+        SortedMap<String, byte[]> entries = new TreeMap<>();
+        entries.put("sprites/ani/pikachu.gif", bytes("GIF89a pikachu"));
+        entries.put("sprites/ani-back/pikachu.gif", bytes("GIF89a pikachu back"));
+        entries.put("audio/cries/pikachu.mp3", bytes("ID3 pika"));
+        entries.put("sprites/gen6bgs/bg-beach.jpg", new byte[0]);
+        entries.put("sprites/dex/flabébé.png", bytes("PNG flabébé"));
+        return entries;
+    }
+
+    @Test
+    public void open_readsEveryEntryBack() throws IOException {
+        SortedMap<String, byte[]> entries = sampleEntries();
+        File file = writePack(entries);
+
+        try (AssetPack pack = AssetPack.open(file); RandomAccessFile raw = new RandomAccessFile(file, "r")) {
+            assertEquals(entries.size(), pack.size());
+            for (String key : entries.keySet()) {
+                int entry = pack.find(key);
+                assertTrue(key, entry >= 0);
+                assertEquals(key, pack.getKey(entry));
+
+                ByteBuffer data = pack.read(entry);
+                byte[] read = new byte[data.remaining()];
+                data.get(read);
+                assertArrayEquals(key, entries.get(key), read);
+
+                // MediaPlayer reads the same range from the file
+                byte[] ranged = new byte[pack.getLength(entry)];
+                raw.seek(pack.getOffset(entry));
+                raw.readFully(ranged);
+                assertArrayEquals(key, entries.get(key), ranged);
+            }
+            assertEquals(-1, pack.find("sprites/ani/raichu.gif"));
+            assertEquals(-1, pack.find(null));
+        }
+    }
+
+    @Test
+    public void read_isAReadOnlySliceOfTheEntry() throws IOException {
+        try (AssetPack pack = AssetPack.open(writePack(sampleEntries()))) {
+            ByteBuffer data = pack.read(pack.find("audio/cries/pikachu.mp3"));
+            assertTrue(data.isReadOnly());
+            assertEquals(0, data.position());
+            assertEquals(bytes("ID3 pika").length, data.limit());
+            assertEquals('I', data.get(0));
+        }
+    }
+
+    @Test
+    public void findUrl_mapsShowdownUrlsToKeys() throws IOException {
+        assertEquals("sprites/ani/pikachu.gif", AssetPack.keyFor("https://play.pokemonshowdown.com/sprites/ani/pikachu.gif"));
+        assertNull(AssetPack.keyFor("https://raw.githubusercontent.com/PokeAPI/sprites/master/25.png"));
+        assertNull(AssetPack.keyFor(null));
+
+        try (AssetPack pack = AssetPack.open(writePack(sampleEntries()))) {
+            assertTrue(pack.findUrl("https://play.pokemonshowdown.com/audio/cries/pikachu.mp3") >= 0);
+            assertEquals(-1, pack.findUrl("https://play.pokemonshowdown.com/audio/cries/raichu.mp3"));
+            assertEquals(-1, pack.findUrl("https://example.com/audio/cries/pikachu.mp3"));
+        }
+    }
+
+    @Test
+    public void open_rejectsBrokenPacks() throws IOException {
+        File notAPack = folder.newFile();
+        try (RandomAccessFile raw = new RandomAccessFile(notAPack, "rw")) {
+            raw.write(bytes("GIF89a, not a pack"));
+        }
+        assertOpenFails(notAPack);
+
+        // Cut off in the middle of the data, so the last entry points past the end
+        File truncated = writePack(sampleEntries());
+        try (RandomAccessFile raw = new RandomAccessFile(truncated, "rw")) {
+            raw.setLength(raw.length() - 3);
+        }
+        assertOpenFails(truncated);
+
+        assertOpenFails(folder.newFile());
+    }
+
+    private static void assertOpenFails(File file) {
+        try {
+            AssetPack.open(file).close();
+            fail("Opened " + file);
+        } catch (IOException expected) {
+            // expected
+        }
+    }
+}
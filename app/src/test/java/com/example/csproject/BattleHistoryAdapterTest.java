@@ -0,0 +1,70 @@
+package com.example.csproject;
+
+import org.junit.Test;
+
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+public class BattleHistoryAdapterTest {
+
+    private static final DateFormat DATE_FORMAT = new SimpleDateFormat("MM/dd/yyyy HH:mm", Locale.US);
+
+    static {
+        DATE_FORMAT.setTimeZone(TimeZone.getTimeZone("UTC"));
+    }
+
+    private static BattleHistory battle(String outcome, long timestamp) {
+        BattleHistory battle = new BattleHistory("-a", "alice", "Red", outcome, new Date(timestamp), null, null, null);
+        battle.setDetailLoaded(false);
+        return battle;
+    }
+
+    @Test
+    public void format_buildsTheRowTextOnce() {
+        BattleHistoryAdapter.Row row = BattleHistoryAdapter.Row.format(7, battle("win", 0), false, DATE_FORMAT);
+
+        assertEquals(7, row.id);
+        assertEquals("vs. Red", row.opponentText);
+        assertEquals("WIN", row.outcomeText);
+        assertEquals(android.R.color.holo_green_dark, row.outcomeColor);
+        assertEquals("Date: 01/01/1970 00:00", row.dateText);
+        assertEquals("", BattleHistoryAdapter.Row.format(7, battle(null, 0), false, DATE_FORMAT).outcomeText);
+    }
+
+    @Test
+    public void with_keepsTheTextUntilTheSummaryChanges() {
+        BattleHistoryAdapter.Row row = BattleHistoryAdapter.Row.format(7, battle("win", 0), false, DATE_FORMAT);
+
+        // A fresh copy of the same summary from a sync
+        BattleHistoryAdapter.Row synced = row.with(battle("win", 0), false);
+        assertSame(row.dateText, synced.dateText);
+        assertEquals(7, synced.id);
+        assertSame(row, row.with(row.battle, false));
+        assertNull(row.with(battle("loss", 0), false));
+    }
+
+    @Test
+    public void diff_rebindsOnlyTheDetailsWhenExpanding() {
+        BattleHistoryAdapter.Row collapsed = BattleHistoryAdapter.Row.format(7, battle("win", 0), false, DATE_FORMAT);
+        BattleHistoryAdapter.Row expanded = collapsed.with(collapsed.battle, true);
+        BattleHistory loaded = BattleHistoryMapper.withDetail(collapsed.battle, null);
+        BattleHistoryAdapter.Row withDetails = expanded.with(loaded, true);
+        BattleHistoryAdapter.Row reformatted = BattleHistoryAdapter.Row.format(7, battle("loss", 0), false, DATE_FORMAT);
+
+        assertTrue(BattleHistoryAdapter.DIFF_CALLBACK.areItemsTheSame(collapsed, reformatted));
+        assertTrue(BattleHistoryAdapter.DIFF_CALLBACK.areContentsTheSame(collapsed, collapsed.with(battle("win", 0), false)));
+
+        assertFalse(BattleHistoryAdapter.DIFF_CALLBACK.areContentsTheSame(collapsed, expanded));
+        assertSame(BattleHistoryAdapter.PAYLOAD_DETAILS, BattleHistoryAdapter.DIFF_CALLBACK.getChangePayload(collapsed, expanded));
+        assertFalse(BattleHistoryAdapter.DIFF_CALLBACK.areContentsTheSame(expanded, withDetails));
+        assertSame(BattleHistoryAdapter.PAYLOAD_DETAILS, BattleHistoryAdapter.DIFF_CALLBACK.getChangePayload(expanded, withDetails));
+
+        // A changed summary rebinds the whole row
+        assertNull(BattleHistoryAdapter.DIFF_CALLBACK.getChangePayload(collapsed, reformatted));
+    }
+}
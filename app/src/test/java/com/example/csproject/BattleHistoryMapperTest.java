@@ -0,0 +1,61 @@
+package com.example.csproject;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class BattleHistoryMapperTest {
+
+    @Test
+    public void fromSummary_readsFieldsAndSkipsWrongTypes() {
+        Map<String, Object> raw = new HashMap<>();
+        raw.put("opponentName", "Red");
+        raw.put("outcome", 3L);
+        raw.put("timestamp", 1700000000000L);
+
+        BattleHistory battle = BattleHistoryMapper.fromSummary("-a", "alice", raw);
+
+        assertEquals("-a", battle.getBattleId());
+        assertEquals("alice", battle.getUserId());
+        assertEquals("Red", battle.getOpponentName());
+        assertNull(battle.getOutcome());
+        assertEquals(1700000000000L, battle.getTimestamp().getTime());
+        assertFalse(battle.isDetailLoaded());
+    }
+
+    @Test
+    public void withDetail_copiesTheSummaryAndDecodesTheLog() {
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("opponentName", "Red");
+        summary.put("timestamp", 1000L);
+        BattleHistory battle = BattleHistoryMapper.fromSummary("-a", "alice", summary);
+        Map<String, Object> detail = new HashMap<>();
+        detail.put("encodedLog", BattleHistory.encodeLog("Pikachu used Thunderbolt!\n"));
+        detail.put("playerTeam", "Pikachu");
+
+        BattleHistory loaded = BattleHistoryMapper.withDetail(battle, detail);
+
+        assertNotSame(battle, loaded);
+        assertFalse(battle.isDetailLoaded());
+        assertTrue(loaded.isDetailLoaded());
+        assertEquals("Red", loaded.getOpponentName());
+        assertEquals("Pikachu", loaded.getPlayerTeam());
+        assertEquals("Pikachu used Thunderbolt!\n", loaded.getLogText());
+
+        // A battle with no detail record still opens, just empty
+        assertNull(BattleHistoryMapper.withDetail(battle, null).getLogText());
+    }
+
+    @Test
+    public void readTimestamp_acceptsMillisAndDateBeans() {
+        Map<String, Object> dateBean = new HashMap<>();
+        dateBean.put("time", 1234L);
+
+        assertEquals(1234L, BattleHistoryMapper.readTimestamp(1234L).getTime());
+        assertEquals(1234L, BattleHistoryMapper.readTimestamp(dateBean).getTime());
+        assertEquals(0L, BattleHistoryMapper.readTimestamp("yesterday").getTime());
+    }
+}
@@ -0,0 +1,238 @@
+package com.example.csproject;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import static org.junit.Assert.*;
+
+/**
+ * Syncs against a fake database holding summaries in timestamp order, with every executor
+ * running tasks on the test thread and retries run when the test says so.
+ */
+public class BattleHistoryRepositoryTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final List<BattleHistory> remoteBattles = new ArrayList<>();
+    private final List<BattleHistory> requestedAfter = new ArrayList<>();
+    private int migratedCount = 0;
+    private int nextId = 0;
+    private final List<List<BattleHistory>> uploads = new ArrayList<>();
+    private int failuresLeft = 0;
+    private final List<Runnable> retries = new ArrayList<>();
+    private final List<Long> retryDelays = new ArrayList<>();
+    private BattleHistoryRepository repository;
+
+    private final BattleHistoryRepository.Remote remote = new BattleHistoryRepository.Remote() {
+        @Override
+        public void migrateLegacyBattles(String userId, LegacyBattleMigration.Callback callback) {
+            callback.onMigrated(migratedCount);
+            migratedCount = 0;
+        }
+
+        @Override
+        public String newBattleId(String userId) {
+            return String.format("-new%03d", nextId++);
+        }
+
+        @Override
+        public void uploadBattles(String userId, List<BattleHistory> battles,
+                                  FirebaseManager.BattleUploadCallback callback) {
+            uploads.add(new ArrayList<>(battles));
+            if (failuresLeft > 0) {
+                failuresLeft--;
+                callback.onFailure(new Exception("Offline"));
+            } else {
+                for (BattleHistory battle : battles) remoteBattles.add(summary(battle));
+                remoteBattles.sort((a, b) -> BattleHistoryStore.NEWEST_FIRST.compare(b, a));
+                callback.onSuccess();
+            }
+        }
+
+        @Override
+        public void getBattleSummariesAfter(String userId, BattleHistory after, int limit,
+                                            FirebaseManager.BattleHistoryPageCallback callback) {
+            requestedAfter.add(after);
+            List<BattleHistory> page = new ArrayList<>();
+            for (BattleHistory battle : remoteBattles) {
+                if (after == null || BattleHistoryStore.NEWEST_FIRST.compare(battle, after) < 0) {
+                    page.add(summary(battle));
+                }
+                if (page.size() == limit) break;
+            }
+            callback.onPageLoaded(page, page.size() == limit);
+        }
+    };
+
+    private static class Recorder implements BattleHistoryRepository.Listener {
+        final List<List<BattleHistory>> lists = new ArrayList<>();
+        boolean finished = false;
+
+        @Override
+        public void onBattleHistoryChanged(List<BattleHistory> battles) {
+            lists.add(battles);
+        }
+
+        @Override
+        public void onSyncFinished() {
+            finished = true;
+        }
+
+        @Override
+        public void onSyncFailed(Exception e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    @Before
+    public void setUp() {
+        repository = new BattleHistoryRepository(folder.getRoot(), remote, Runnable::run, Runnable::run, this::schedule);
+    }
+
+    private void schedule(Runnable task, long delayMs) {
+        retries.add(task);
+        retryDelays.add(delayMs);
+    }
+
+    private void runRetries() {
+        List<Runnable> due = new ArrayList<>(retries);
+        retries.clear();
+        for (Runnable retry : due) retry.run();
+    }
+
+    private static Future<String> log(String text) {
+        FutureTask<String> read = new FutureTask<>(() -> text);
+        read.run();
+        return read;
+    }
+
+    private static BattleHistory summary(BattleHistory battle) {
+        return new BattleHistory(battle.getBattleId(), "alice", battle.getOpponentName(), battle.getOutcome(),
+                battle.getTimestamp(), null, null, null);
+    }
+
+    private void addRemote(int from, int to) {
+        for (int i = from; i < to; i++) {
+            remoteBattles.add(new BattleHistory(String.format("-%04d", i), "alice", "Red", "win",
+                    new Date(i * 1000L), null, null, null));
+        }
+    }
+
+    @Test
+    public void load_syncsInBatchesThenOnlyNewBattles() {
+        int total = BattleHistoryRepository.SYNC_BATCH_SIZE + 30;
+        addRemote(0, total);
+        Recorder first = new Recorder();
+        repository.load("alice", first);
+
+        assertTrue(first.finished);
+        assertTrue(first.lists.get(0).isEmpty());
+        List<BattleHistory> synced = first.lists.get(first.lists.size() - 1);
+        assertEquals(total, synced.size());
+        assertEquals(String.format("-%04d", total - 1), synced.get(0).getBattleId());
+
+        // A new repository reads the file, then asks only for what's newer
+        addRemote(total, total + 2);
+        requestedAfter.clear();
+        Recorder second = new Recorder();
+        new BattleHistoryRepository(folder.getRoot(), remote, Runnable::run, Runnable::run, this::schedule).load("alice", second);
+
+        assertEquals(total, second.lists.get(0).size());
+        assertEquals(String.format("-%04d", total - 1), requestedAfter.get(0).getBattleId());
+        assertEquals(total + 2, second.lists.get(second.lists.size() - 1).size());
+    }
+
+    @Test
+    public void load_syncsFromTheStartAfterMovingLegacyBattles() {
+        addRemote(50, 60);
+        repository.load("alice", new Recorder());
+
+        // Moved battles land before the high-water mark
+        addRemote(0, 5);
+        remoteBattles.sort((a, b) -> BattleHistoryStore.NEWEST_FIRST.compare(b, a));
+        migratedCount = 5;
+        requestedAfter.clear();
+        Recorder recorder = new Recorder();
+        repository.load("alice", recorder);
+
+        assertNull(requestedAfter.get(0));
+        assertEquals(15, recorder.lists.get(recorder.lists.size() - 1).size());
+    }
+
+    @Test
+    public void load_syncsOlderBattlesAfterABattleIsRecorded() {
+        // A fresh install, where the first battle is played before the history is opened
+        addRemote(0, 5);
+        repository.record("alice", "Red", "win", null, "", "");
+        assertEquals(1, uploads.size());
+
+        Recorder recorder = new Recorder();
+        repository.load("alice", recorder);
+
+        assertNull(requestedAfter.get(0));
+        List<BattleHistory> synced = recorder.lists.get(recorder.lists.size() - 1);
+        assertEquals(6, synced.size());
+        assertEquals("-new000", synced.get(0).getBattleId());
+
+        // Once synced back, the recorded battle is where the next sync picks up
+        requestedAfter.clear();
+        Recorder next = new Recorder();
+        repository.load("alice", next);
+        assertEquals("-new000", requestedAfter.get(0).getBattleId());
+    }
+
+    @Test
+    public void record_storesTheBattleThenUploadsIt() throws Exception {
+        repository.record("alice", "Red", "win", log("Pikachu used Thunderbolt!\n"), "Pikachu", "Gyarados");
+
+        assertEquals(1, uploads.size());
+        BattleHistory uploaded = uploads.get(0).get(0);
+        assertEquals("-new000", uploaded.getBattleId());
+        assertEquals("Pikachu used Thunderbolt!\n", uploaded.getLogText());
+
+        // Kept as a summary once it's in the database
+        BattleHistoryStore store = new BattleHistoryStore(new File(folder.getRoot(), "battle_history_alice"), "alice");
+        assertTrue(store.getPending().isEmpty());
+        assertEquals("Red", store.getAll().get(0).getOpponentName());
+    }
+
+    @Test
+    public void upload_retriesWithGrowingDelaysAndTheSameIds() throws Exception {
+        failuresLeft = 3;
+        for (int i = 0; i < BattleHistoryRepository.UPLOAD_BATCH_SIZE + 2; i++) {
+            repository.record("alice", "Red", "loss", log(""), "", "");
+        }
+        // Only the first battle's upload ran, the rest queued behind it
+        assertEquals(1, uploads.size());
+        runRetries();
+        runRetries();
+        assertEquals(Arrays.asList(BattleHistoryRepository.FIRST_RETRY_DELAY_MS,
+                BattleHistoryRepository.FIRST_RETRY_DELAY_MS * 2,
+                BattleHistoryRepository.FIRST_RETRY_DELAY_MS * 4), retryDelays);
+
+        // The next try gets through, then the rest go in batches
+        runRetries();
+        assertEquals(5, uploads.size());
+        assertEquals(BattleHistoryRepository.UPLOAD_BATCH_SIZE, uploads.get(3).size());
+        assertEquals("-new000", uploads.get(3).get(0).getBattleId());
+        assertEquals(uploads.get(0).get(0).getBattleId(), uploads.get(3).get(0).getBattleId());
+        assertEquals(2, uploads.get(4).size());
+        assertTrue(retries.isEmpty());
+
+        // Pending battles stay on the device across restarts until uploaded
+        BattleHistoryStore store = new BattleHistoryStore(new File(folder.getRoot(), "battle_history_alice"), "alice");
+        assertTrue(store.getPending().isEmpty());
+        assertEquals(BattleHistoryRepository.UPLOAD_BATCH_SIZE + 2, store.getAll().size());
+    }
+}
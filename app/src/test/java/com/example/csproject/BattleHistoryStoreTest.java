@@ -0,0 +1,147 @@
+package com.example.csproject;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class BattleHistoryStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static BattleHistory battle(String battleId, long timestamp, String outcome) {
+        return new BattleHistory(battleId, "alice", "Red", outcome, new Date(timestamp), null, null, null);
+    }
+
+    @Test
+    public void putAll_survivesReopeningNewestFirst() throws IOException {
+        File file = new File(folder.getRoot(), "battle_history_alice");
+        BattleHistoryStore store = new BattleHistoryStore(file, "alice");
+        store.putAll(Arrays.asList(battle("-a", 1000, "win"), battle("-c", 3000, "loss")));
+        store.putAll(Collections.singletonList(battle("-b", 3000, "tie")));
+
+        List<BattleHistory> battles = new BattleHistoryStore(file, "alice").getAll();
+
+        assertEquals(3, battles.size());
+        // Same millisecond, ordered by ID like the database
+        assertEquals("-c", battles.get(0).getBattleId());
+        assertEquals("-b", battles.get(1).getBattleId());
+        assertEquals("-a", battles.get(2).getBattleId());
+        assertEquals("tie", battles.get(1).getOutcome());
+        assertEquals("alice", battles.get(1).getUserId());
+        assertFalse(battles.get(1).isDetailLoaded());
+        assertEquals("-c", store.getHighWaterMark().getBattleId());
+    }
+
+    @Test
+    public void putAll_replacesBattlesAndCompacts() throws IOException {
+        File file = new File(folder.getRoot(), "battle_history_alice");
+        BattleHistoryStore store = new BattleHistoryStore(file, "alice");
+        store.putAll(Collections.singletonList(battle("-a", 1000, "win")));
+        long oneRecord = file.length();
+        for (int i = 0; i < 200; i++) {
+            store.putAll(Collections.singletonList(battle("-a", 1000, i % 2 == 0 ? "loss" : "win")));
+        }
+
+        assertTrue(file.length() < oneRecord * 100);
+        List<BattleHistory> battles = new BattleHistoryStore(file, "alice").getAll();
+        assertEquals(1, battles.size());
+        assertEquals("win", battles.get(0).getOutcome());
+    }
+
+    @Test
+    public void getAll_dropsARecordCutShort() throws IOException {
+        File file = new File(folder.getRoot(), "battle_history_alice");
+        BattleHistoryStore store = new BattleHistoryStore(file, "alice");
+        List<BattleHistory> written = new ArrayList<>();
+        for (int i = 0; i < 5; i++) written.add(battle("-" + i, i * 1000L, "win"));
+        store.putAll(written);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 3);
+        }
+
+        BattleHistoryStore reopened = new BattleHistoryStore(file, "alice");
+        assertEquals(4, reopened.getAll().size());
+
+        // Appends continue after the last whole record
+        reopened.putAll(Collections.singletonList(battle("-9", 9000, "loss")));
+        assertEquals(5, new BattleHistoryStore(file, "alice").getAll().size());
+    }
+
+    @Test
+    public void getAll_startsOverFromAnUnknownFile() throws IOException {
+        File file = new File(folder.getRoot(), "battle_history_alice");
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.writeBytes("not a history file");
+        }
+        BattleHistoryStore store = new BattleHistoryStore(file, "alice");
+
+        assertTrue(store.getAll().isEmpty());
+        assertNull(store.getHighWaterMark());
+        store.putAll(Collections.singletonList(battle("-a", 1000, "win")));
+        assertEquals(1, new BattleHistoryStore(file, "alice").getAll().size());
+    }
+
+    @Test
+    public void putPending_keepsDetailsUntilUploaded() throws IOException {
+        File file = new File(folder.getRoot(), "battle_history_alice");
+        BattleHistoryStore store = new BattleHistoryStore(file, "alice");
+        store.putAll(Collections.singletonList(battle("-a", 1000, "win")));
+        BattleHistory played = battle("-b", 2000, "loss");
+        played.setEncodedLog("AQAB");
+        played.setPlayerTeam("Pikachu");
+        store.putPending(played);
+
+        BattleHistoryStore reopened = new BattleHistoryStore(file, "alice");
+        List<BattleHistory> pending = reopened.getPending();
+        assertEquals(1, pending.size());
+        assertEquals("AQAB", pending.get(0).getEncodedLog());
+        assertEquals("Pikachu", pending.get(0).getPlayerTeam());
+        assertTrue(pending.get(0).isDetailLoaded());
+        // Not synced from the database, so syncing still starts after "-a"
+        assertEquals("-a", reopened.getHighWaterMark().getBattleId());
+
+        reopened.markUploaded(pending);
+        BattleHistoryStore uploaded = new BattleHistoryStore(file, "alice");
+        assertTrue(uploaded.getPending().isEmpty());
+        assertNull(uploaded.getAll().get(0).getEncodedLog());
+        // Battles other devices saved before "-b" may not be synced yet
+        assertEquals("-a", uploaded.getHighWaterMark().getBattleId());
+
+        // Until a sync brings it back
+        uploaded.putAll(Collections.singletonList(battle("-b", 2000, "loss")));
+        assertEquals("-b", new BattleHistoryStore(file, "alice").getHighWaterMark().getBattleId());
+    }
+
+    @Test
+    public void getAll_upgradesAFileWithoutLocalFlags() throws IOException {
+        File file = new File(folder.getRoot(), "battle_history_alice");
+        BattleHistoryStore store = new BattleHistoryStore(file, "alice");
+        store.putAll(Collections.singletonList(battle("-a", 1000, "win")));
+        BattleHistory played = battle("-b", 2000, "loss");
+        played.setEncodedLog("AQAB");
+        store.putPending(played);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(4);
+            raf.writeInt(2);
+        }
+
+        BattleHistoryStore upgraded = new BattleHistoryStore(file, "alice");
+        assertEquals(2, upgraded.getAll().size());
+        assertEquals("AQAB", upgraded.getPending().get(0).getEncodedLog());
+        // Where the old file's syncs got to isn't known, so the next sync starts over
+        assertNull(upgraded.getHighWaterMark());
+        assertNull(new BattleHistoryStore(file, "alice").getHighWaterMark());
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.csproject;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+/**
+ * Drives the buffer with a scheduler that runs frames when the test says so, and a log
+ * file that writes on the test thread.
+ */
+public class BattleLogBufferTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final List<int[]> changes = new ArrayList<>();
+    private final List<Runnable> frames = new ArrayList<>();
+    private int cancels = 0;
+    private BattleLogRing ring;
+    private BattleLogFile file;
+    private BattleLogBuffer buffer;
+
+    @Before
+    public void setUp() throws IOException {
+        ring = new BattleLogRing(10);
+        file = new BattleLogFile(new File(folder.getRoot(), "battle_log.txt"), Runnable::run);
+        buffer = new BattleLogBuffer(ring, file, (removed, inserted) -> changes.add(new int[]{removed, inserted}),
+                new BattleLogBuffer.FrameScheduler() {
+                    @Override
+                    public void schedule(Runnable flush) {
+                        frames.add(flush);
+                    }
+
+                    @Override
+                    public void cancel(Runnable flush) {
+                        frames.remove(flush);
+                        cancels++;
+                    }
+                });
+    }
+
+    private void runFrame() {
+        List<Runnable> due = new ArrayList<>(frames);
+        frames.clear();
+        for (Runnable frame : due) {
+            frame.run();
+        }
+    }
+
+    @Test
+    public void append_movesABusyTurnInOneFrame() throws IOException {
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 8; i++) {
+            String line = "The opposing Garchomp lost " + i + "% of its health!";
+            buffer.append(line);
+            expected.append(line).append('\n');
+        }
+
+        assertEquals(1, frames.size());
+        assertEquals(0, ring.size());
+        assertTrue(changes.isEmpty());
+
+        runFrame();
+
+        assertEquals(1, changes.size());
+        assertArrayEquals(new int[]{0, 8}, changes.get(0));
+        assertEquals(8, ring.size());
+        assertEquals("The opposing Garchomp lost 7% of its health!", ring.getText(7));
+        assertEquals(expected.toString(), file.read());
+    }
+
+    @Test
+    public void flush_reportsEntriesPushedOutOfTheRing() throws IOException {
+        for (int i = 0; i < 6; i++) buffer.append("Turn " + i);
+        runFrame();
+        for (int i = 6; i < 12; i++) buffer.append("Turn " + i);
+        runFrame();
+
+        assertArrayEquals(new int[]{2, 6}, changes.get(1));
+        assertEquals("Turn 2", ring.getText(0));
+
+        // A batch bigger than the ring replaces everything
+        for (int i = 12; i < 27; i++) buffer.append("Turn " + i);
+        runFrame();
+
+        assertArrayEquals(new int[]{10, 10}, changes.get(2));
+        assertEquals("Turn 17", ring.getText(0));
+        // The file still has every line
+        assertEquals(27, file.read().split("\n").length);
+    }
+
+    @Test
+    public void flush_movesPendingLinesNowAndCancelsTheFrame() throws IOException {
+        buffer.append(BattleLogRing.EntryType.LOCAL, "You canceled your action.");
+        buffer.flush();
+
+        assertEquals(1, ring.size());
+        assertEquals(BattleLogRing.EntryType.LOCAL, ring.getType(0));
+        assertTrue(frames.isEmpty());
+        assertEquals(1, cancels);
+        assertEquals("You canceled your action.\n", file.read());
+
+        // Nothing left for the frame or a second flush
+        buffer.flush();
+        runFrame();
+        assertEquals(1, changes.size());
+    }
+
+    @Test
+    public void clear_dropsPendingLines() throws IOException {
+        buffer.append("Searching for an opponent...");
+        buffer.clear();
+        runFrame();
+        buffer.flush();
+
+        assertEquals(0, ring.size());
+        assertTrue(changes.isEmpty());
+        assertEquals("", file.read());
+    }
+
+    @Test
+    public void file_startsOverForEachBattle() throws IOException {
+        File previous = new File(folder.getRoot(), "battle_log.txt");
+        Files.write(previous.toPath(), "Last battle\n".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals("", file.read());
+        buffer.append("Battle started!");
+        buffer.flush();
+        assertEquals("Battle started!\n", file.read());
+
+        file.close();
+        try {
+            file.read();
+            fail("Read a closed log");
+        } catch (IOException expected) {
+            // Closed with the activity
+        }
+    }
+
+    @Test
+    public void readLater_finishesAfterTheLogIsClosed() throws IOException {
+        List<Runnable> queued = new ArrayList<>();
+        BattleLogFile queuedFile = new BattleLogFile(new File(folder.getRoot(), "queued_log.txt"), queued::add);
+        queuedFile.append("Red won the battle!\n");
+
+        // Queued on the main thread as the battle ends, then the activity closes the log
+        Future<String> read = queuedFile.readLater();
+        queuedFile.close();
+        assertFalse(read.isDone());
+
+        for (Runnable task : queued) task.run();
+        assertEquals("Red won the battle!\n", BattleLogFile.await(read));
+    }
+}
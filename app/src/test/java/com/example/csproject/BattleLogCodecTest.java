@@ -0,0 +1,117 @@
+package com.example.csproject;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Round trips logs through the codec, including the logs of the fixture battles.
+ */
+public class BattleLogCodecTest {
+
+    /**
+     * The log a battle's messages would leave in the log file
+     */
+    private static String replayLog(String fixture) throws Exception {
+        ReplayRecorder recorder = new ReplayRecorder();
+        ShowdownWebSocketClient client = new ShowdownWebSocketClient(null, recorder, true);
+        client.setBattleDataCallback(recorder);
+        client.startOffline();
+        try {
+            new BattleReplayer(client, BattleReplayer.AS_FAST_AS_POSSIBLE).replay(BattleReplay.load(fixture));
+        } finally {
+            client.close();
+        }
+        StringBuilder log = new StringBuilder();
+        for (String message : recorder.getMessages()) {
+            log.append(message).append('\n');
+        }
+        return log.toString();
+    }
+
+    @Test
+    public void encode_roundTripsFixtureBattles() throws Exception {
+        for (String fixture : BattleReplay.FIXTURES) {
+            String log = replayLog(fixture);
+            int textBytes = log.getBytes(StandardCharsets.UTF_8).length;
+
+            byte[] plain = BattleLogCodec.encode(log, false);
+            byte[] deflated = BattleLogCodec.encode(log, true);
+
+            assertEquals(fixture, log, BattleLogCodec.decode(plain));
+            assertEquals(fixture, log, BattleLogCodec.decode(deflated));
+            // Templates and the dictionary alone should beat the text by a wide margin
+            assertTrue(fixture + ": " + plain.length + " of " + textBytes, plain.length * 3 < textBytes);
+            assertTrue(fixture, deflated.length <= plain.length);
+            assertEquals(BattleLogCodec.FLAG_DEFLATED, deflated[1]);
+        }
+    }
+
+    @Test
+    public void encode_roundTripsLinesOutsideTheTemplates() throws IOException {
+        String[] logs = {
+            "",
+            "\n",
+            "⏱️ Turn 1",
+            "⏱️ Turn 007\n⏱️ Turn -1\n⏱️ Turn 123456789012345678901234\n",
+            "💢 The opposing Garchomp took damage! (-5% damage)\n💢 Pikachu took damage! (0% damage)",
+            "🏆 \n🏆 You won the battle against !\n{} used {}!\n⚡  used !",
+            "Mr. Mime protected itself!\nSomething the parser has never said",
+            "You chose: Thunderbolt\nYou switched to: Flabébé\nYou canceled your action.\n",
+        };
+        for (String log : logs) {
+            assertEquals(log, BattleLogCodec.decode(BattleLogCodec.encode(log, false)));
+            assertEquals(log, BattleLogCodec.decode(BattleLogCodec.encode(log, true)));
+        }
+    }
+
+    @Test
+    public void encode_writesRepeatedNamesOnce() {
+        StringBuilder log = new StringBuilder();
+        for (int turn = 1; turn <= 30; turn++) {
+            log.append("⏱️ Turn ").append(turn).append('\n');
+            log.append("⚡ The opposing Iron Valiant used Moonblast!\n");
+            log.append("💢 Great Tusk took damage! (").append(turn).append("% damage)\n");
+        }
+        byte[] encoded = BattleLogCodec.encode(log.toString(), false);
+
+        String text = new String(encoded, StandardCharsets.ISO_8859_1);
+        assertEquals(text.indexOf("Iron Valiant"), text.lastIndexOf("Iron Valiant"));
+        assertEquals(text.indexOf("Moonblast"), text.lastIndexOf("Moonblast"));
+        assertEquals(text.indexOf("Great Tusk"), text.lastIndexOf("Great Tusk"));
+    }
+
+    @Test
+    public void decode_rejectsDamagedData() {
+        byte[] encoded = BattleLogCodec.encode("⚡ Pikachu used Thunderbolt!\n💀 The opposing Gyarados fainted!", false);
+        byte[][] damaged = {
+            new byte[0],
+            Arrays.copyOf(encoded, encoded.length - 3),
+            Arrays.copyOf(encoded, encoded.length + 1),
+            versioned(encoded, 2),
+            // An opcode past the templates
+            {BattleLogCodec.VERSION, 0, 1, 127},
+            // A reference to a string that was never written
+            {BattleLogCodec.VERSION, 0, 1, 0, (5 << 2) | 1},
+            {BattleLogCodec.VERSION, BattleLogCodec.FLAG_DEFLATED, 1, 2, 3},
+        };
+        for (byte[] data : damaged) {
+            try {
+                BattleLogCodec.decode(data);
+                fail("Decoded " + Arrays.toString(data));
+            } catch (IOException expected) {
+                // Damaged logs fail cleanly
+            }
+        }
+    }
+
+    private static byte[] versioned(byte[] encoded, int version) {
+        byte[] copy = encoded.clone();
+        copy[0] = (byte) version;
+        return copy;
+    }
+}
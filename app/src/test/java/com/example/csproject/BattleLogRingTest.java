@@ -0,0 +1,45 @@
+package com.example.csproject;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class BattleLogRingTest {
+
+    @Test
+    public void add_keepsTheNewestEntriesInOrder() {
+        BattleLogRing ring = new BattleLogRing(3);
+        assertFalse(ring.add(BattleLogRing.EntryType.LOCAL, "Searching for an opponent..."));
+        assertFalse(ring.add(BattleLogRing.EntryType.BATTLE, "Battle started!"));
+        assertFalse(ring.add(BattleLogRing.EntryType.BATTLE, "Turn 1"));
+        assertTrue(ring.add(BattleLogRing.EntryType.BATTLE, "Pikachu used Thunderbolt!"));
+
+        assertEquals(3, ring.size());
+        assertEquals("Battle started!", ring.getText(0));
+        assertEquals("Turn 1", ring.getText(1));
+        assertEquals("Pikachu used Thunderbolt!", ring.getText(2));
+        assertEquals(BattleLogRing.EntryType.BATTLE, ring.getType(0));
+    }
+
+    @Test
+    public void getId_followsAnEntryThroughTheRing() {
+        BattleLogRing ring = new BattleLogRing(4);
+        for (int i = 0; i < 4; i++) ring.add(BattleLogRing.EntryType.BATTLE, "Turn " + i);
+        assertEquals(3, ring.getId(3));
+
+        ring.add(BattleLogRing.EntryType.BATTLE, "Turn 4");
+        ring.add(BattleLogRing.EntryType.BATTLE, "Turn 5");
+
+        // "Turn 3" moved up two rows but kept its id
+        assertEquals("Turn 3", ring.getText(1));
+        assertEquals(3, ring.getId(1));
+        assertEquals(5, ring.getId(3));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void getText_rejectsPositionsPastTheEnd() {
+        BattleLogRing ring = new BattleLogRing(4);
+        ring.add(BattleLogRing.EntryType.BATTLE, "Turn 1");
+        ring.getText(1);
+    }
+}
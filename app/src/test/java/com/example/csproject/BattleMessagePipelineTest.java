@@ -0,0 +1,107 @@
+package com.example.csproject;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs the pipeline with direct delivery, where each parsed frame is handed to the handler
+ * as one batch on the parser thread.
+ */
+public class BattleMessagePipelineTest {
+
+    private final List<String> delivered = Collections.synchronizedList(new ArrayList<>());
+    private final List<Thread> deliveryThreads = Collections.synchronizedList(new ArrayList<>());
+
+    private BattleMessagePipeline pipeline;
+
+    private final BattleMessagePipeline.EventHandler handler = event -> {
+        delivered.add(((BattleEvent.Message) event).getText());
+        deliveryThreads.add(Thread.currentThread());
+    };
+
+    /**
+     * Publishes one message per line of the frame
+     */
+    private void publishLines(String frame) {
+        for (String line : frame.split("\n")) {
+            pipeline.publish(new BattleEvent.Message(line));
+        }
+    }
+
+    @Test
+    public void directDelivery_deliversBurstInOneBatch() throws Exception {
+        pipeline = new BattleMessagePipeline(this::publishLines, handler, true);
+        pipeline.start();
+
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            lines.add("|-damage|p2a: Garchomp|" + (100 - i) + "/100");
+        }
+        pipeline.enqueue(String.join("\n", lines));
+
+        assertTrue(pipeline.awaitIdle(5000));
+        assertEquals(lines, delivered);
+        assertEquals(1, pipeline.getBatchCount());
+        // Delivered together, on the parser thread
+        assertNotSame(Thread.currentThread(), deliveryThreads.get(0));
+        for (Thread thread : deliveryThreads) {
+            assertSame(deliveryThreads.get(0), thread);
+        }
+
+        pipeline.enqueue("|turn|2\n|upkeep");
+        assertTrue(pipeline.awaitIdle(5000));
+        assertEquals(42, delivered.size());
+        assertEquals(2, pipeline.getBatchCount());
+        pipeline.stop();
+    }
+
+    @Test
+    public void stop_dropsPendingWorkAndRestarts() throws Exception {
+        CountDownLatch parsing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        pipeline = new BattleMessagePipeline(frame -> {
+            if (frame.equals("block")) {
+                parsing.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                // Published after stop() began, so it must be dropped
+                pipeline.publish(new BattleEvent.Message("late"));
+                return;
+            }
+            publishLines(frame);
+        }, handler, true);
+
+        pipeline.start();
+        pipeline.enqueue("block");
+        pipeline.enqueue("|queued");
+        assertTrue(parsing.await(5, TimeUnit.SECONDS));
+        assertFalse(pipeline.awaitIdle(50));
+
+        pipeline.stop();
+        assertTrue(pipeline.awaitIdle(0));
+        assertTrue(delivered.isEmpty());
+
+        // Ignored while stopped, and doesn't leave anything in flight
+        pipeline.enqueue("|ignored");
+        assertTrue(pipeline.awaitIdle(0));
+
+        pipeline.start();
+        pipeline.enqueue("|a\n|b");
+        assertTrue(pipeline.awaitIdle(5000));
+        assertEquals(2, delivered.size());
+        assertEquals("|a", delivered.get(0));
+        assertEquals("|b", delivered.get(1));
+        assertEquals(1, pipeline.getBatchCount());
+        pipeline.stop();
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.csproject;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A timed sequence of raw websocket frames, as the client receives them from the Showdown server.
+ *
+ * Fixtures live in src/test/resources/replays. Each frame starts with a line "@<ms>" giving
+ * its arrival time relative to the start of the recording, followed by the frame text
+ * exactly as received. Protocol lines always start with '|' or '>', so the marker can't
+ * clash with them.
+ *
+ * The bundled fixtures are synthetic: scripts/generate_replays.py simulates each battle and
+ * writes the frames the server would send for it. Real captures in the same format can be
+ * dropped next to them.
+ */
+public final class BattleReplay {
+
+    // Fixture corpus, in src/test/resources/replays
+    public static final String[] FIXTURES = {
+            "synthetic-gen9randombattle-1.log",
+            "synthetic-gen9randombattle-2.log",
+            "synthetic-gen9randombattle-3.log"
+    };
+
+    private final String name;
+    private final List<String> frames;
+    private final long[] offsetsMs;
+    private final int lineCount;
+
+    private BattleReplay(String name, List<String> frames, List<Long> offsets, int lineCount) {
+        this.name = name;
+        this.frames = frames;
+        this.offsetsMs = new long[offsets.size()];
+        for (int i = 0; i < offsetsMs.length; i++) {
+            offsetsMs[i] = offsets.get(i);
+        }
+        this.lineCount = lineCount;
+    }
+
+    /**
+     * Load a fixture from the test resources
+     * @param name The file name inside replays/
+     */
+    public static BattleReplay load(String name) throws IOException {
+        InputStream in = BattleReplay.class.getClassLoader().getResourceAsStream("replays/" + name);
+        if (in == null) {
+            throw new IOException("Missing replay fixture " + name);
+        }
+        try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            return read(name, reader);
+        }
+    }
+
+    /**
+     * Load every fixture in {@link #FIXTURES}
+     */
+    public static List<BattleReplay> loadAll() throws IOException {
+        List<BattleReplay> replays = new ArrayList<>(FIXTURES.length);
+        for (String fixture : FIXTURES) {
+            replays.add(load(fixture));
+        }
+        return replays;
+    }
+
+    /**
+     * Parse a recording in the "@<ms>" frame format
+     * @param name Name used in reports
+     * @param reader The recording
+     */
+    public static BattleReplay read(String name, Reader reader) throws IOException {
+        List<String> frames = new ArrayList<>();
+        List<Long> offsets = new ArrayList<>();
+        StringBuilder frame = null;
+        int lineCount = 0;
+
+        BufferedReader lines = new BufferedReader(reader);
+        String line;
+        while ((line = lines.readLine()) != null) {
+            if (line.startsWith("@")) {
+                if (frame != null) frames.add(frame.toString());
+                offsets.add(Long.parseLong(line.substring(1).trim()));
+                frame = new StringBuilder();
+            } else if (frame != null) {
+                // Frames are sent without a trailing newline
+                if (frame.length() > 0) frame.append('\n');
+                frame.append(line);
+                lineCount++;
+            } else if (!line.isEmpty()) {
+                throw new IOException(name + ": expected a frame marker before " + line);
+            }
+        }
+        if (frame != null) frames.add(frame.toString());
+
+        return new BattleReplay(name, frames, offsets, lineCount);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getFrameCount() {
+        return frames.size();
+    }
+
+    public String getFrame(int index) {
+        return frames.get(index);
+    }
+
+    /**
+     * @return When the frame arrived, in ms since the start of the recording
+     */
+    public long getOffsetMs(int index) {
+        return offsetsMs[index];
+    }
+
+    /**
+     * @return The total number of protocol lines across all frames
+     */
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * @return The recording's length in ms of wall clock time
+     */
+    public long getDurationMs() {
+        return offsetsMs.length == 0 ? 0 : offsetsMs[offsetsMs.length - 1];
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.csproject;
+
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Replays the fixture battles through {@link ShowdownWebSocketClient} on the JVM.
+ */
+public class BattleReplayTest {
+
+    // Player slot, final turn and result for each fixture in BattleReplay.FIXTURES
+    private static final int[] EXPECTED_SLOT = {1, 2, 1};
+    private static final int[] EXPECTED_TURNS = {43, 34, 32};
+    private static final boolean[] EXPECTED_WIN = {true, true, false};
+
+    private static ShowdownWebSocketClient newClient(ReplayRecorder recorder) {
+        ShowdownWebSocketClient client = new ShowdownWebSocketClient(null, recorder, true);
+        client.setBattleDataCallback(recorder);
+        client.startOffline();
+        return client;
+    }
+
+    @Test
+    public void replay_reachesFinalResult() throws Exception {
+        List<BattleReplay> replays = BattleReplay.loadAll();
+        for (int i = 0; i < replays.size(); i++) {
+            BattleReplay replay = replays.get(i);
+            ReplayRecorder recorder = new ReplayRecorder();
+            ShowdownWebSocketClient client = newClient(recorder);
+            try {
+                new BattleReplayer(client, BattleReplayer.AS_FAST_AS_POSSIBLE).replay(replay);
+            } finally {
+                client.close();
+            }
+
+            String name = replay.getName();
+            assertEquals(name, 1, recorder.getBattleStarts());
+            assertEquals(name, EXPECTED_SLOT[i], client.getPlayerSlot());
+            assertEquals(name, EXPECTED_SLOT[i], recorder.getState().getPlayerSlot());
+            assertEquals(name, EXPECTED_TURNS[i], recorder.getState().getTurn());
+            assertEquals(name, 0, recorder.getUnknownPositions());
+            // The loser's whole team faints
+            assertTrue(name, recorder.getFaints() >= 6);
+            assertTrue(name, recorder.getSwitches() >= recorder.getFaints());
+            assertTrue(name, recorder.getHpChanges() > 0);
+            assertTrue(name, recorder.getRequests() >= EXPECTED_TURNS[i]);
+            assertNotNull(name, client.getLastRequest());
+
+            String result = recorder.findLastMessage(EXPECTED_WIN[i] ? "You won the battle" : "You lost the battle");
+            assertNotNull(name + " should end with a result message", result);
+        }
+    }
+
+    @Test
+    public void replay_tracksActivePokemon() throws Exception {
+        ReplayRecorder recorder = new ReplayRecorder();
+        ShowdownWebSocketClient client = newClient(recorder);
+        try {
+            new BattleReplayer(client, BattleReplayer.AS_FAST_AS_POSSIBLE).replay(BattleReplay.load(BattleReplay.FIXTURES[2]));
+        } finally {
+            client.close();
+        }
+
+        // The player lost, so their last Pokémon on the field has fainted
+        PokemonBattleData player = recorder.getState().getPlayerPokemon();
+        assertNotNull(player);
+        assertTrue(player.isFainted());
+        assertEquals(0, player.getHPPercentage());
+
+        PokemonBattleData opponent = recorder.getState().getOpponentPokemon();
+        assertNotNull(opponent);
+        assertFalse(opponent.isFainted());
+        assertTrue(opponent.getHPPercentage() > 0);
+    }
+
+    @Test
+    public void replay_followsRecordedTiming() throws Exception {
+        BattleReplay replay = BattleReplay.read("timing", new StringReader(
+                "@0\n|updatesearch|{\"searching\":[],\"games\":null}\n"
+                        + "@100\n>battle-gen9randombattle-1\n|init|battle\n"
+                        + "@200\n>battle-gen9randombattle-1\n|turn|1\n"));
+        assertEquals(3, replay.getFrameCount());
+        assertEquals(2, replay.getFrame(1).split("\n").length);
+
+        ReplayRecorder recorder = new ReplayRecorder();
+        ShowdownWebSocketClient client = newClient(recorder);
+        long elapsedNanos;
+        try {
+            // Twice as fast: the last frame is due 100ms in
+            elapsedNanos = new BattleReplayer(client, 2).replay(replay);
+        } finally {
+            client.close();
+        }
+
+        assertTrue("Replay finished too early: " + elapsedNanos + "ns", elapsedNanos >= 100_000_000L);
+        assertEquals(1, recorder.getBattleStarts());
+        assertEquals(1, recorder.getState().getTurn());
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.csproject;
+
+/**
+ * Feeds a {@link BattleReplay} into {@link ShowdownWebSocketClient#onMessage} the same way
+ * OkHttp's reader thread would, either at the recorded pace (scaled by a speed factor) or
+ * as fast as possible.
+ *
+ * The client should be created with direct delivery and started with
+ * {@link ShowdownWebSocketClient#startOffline()}, so events reach its callbacks without a
+ * main looper.
+ */
+public final class BattleReplayer {
+
+    /**
+     * Speed factor that ignores the recorded timing and sends frames back to back
+     */
+    public static final double AS_FAST_AS_POSSIBLE = 0;
+
+    // Generous, a full battle parses in well under a second
+    private static final long IDLE_TIMEOUT_MS = 30_000;
+
+    private final ShowdownWebSocketClient client;
+    private final double speed;
+
+    /**
+     * @param client The client to feed
+     * @param speed 1 for real time, 2 for twice as fast, and so on; {@link #AS_FAST_AS_POSSIBLE}
+     *              to skip the delays entirely
+     */
+    public BattleReplayer(ShowdownWebSocketClient client, double speed) {
+        this.client = client;
+        this.speed = speed;
+    }
+
+    /**
+     * Replay every frame and wait until the client has parsed and dispatched all of them
+     * @param replay The recording
+     * @return Wall clock time taken, in nanoseconds
+     */
+    public long replay(BattleReplay replay) throws InterruptedException {
+        long start = System.nanoTime();
+
+        for (int i = 0; i < replay.getFrameCount(); i++) {
+            if (speed > 0) {
+                long dueNanos = start + (long) (replay.getOffsetMs(i) * 1_000_000L / speed);
+                long waitNanos = dueNanos - System.nanoTime();
+                if (waitNanos > 0) {
+                    Thread.sleep(waitNanos / 1_000_000L, (int) (waitNanos % 1_000_000L));
+                }
+            }
+            // The socket isn't used by onMessage, so there's nothing to pass here
+            client.onMessage(null, replay.getFrame(i));
+        }
+
+        if (!client.awaitIdle(IDLE_TIMEOUT_MS)) {
+            throw new IllegalStateException("Timed out waiting for " + replay.getName() + " to be parsed");
+        }
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.csproject;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Eviction order and load tracking of the cry sample cache.
+ */
+public class CrySampleCacheTest {
+
+    private final List<Integer> unloaded = new ArrayList<>();
+    private final CrySampleCache cache = new CrySampleCache(100, unloaded::add);
+
+    @Test
+    public void add_evictsLeastRecentlyUsedPastTheBound() {
+        cache.add("pikachu", 1, 40, false);
+        cache.add("garchomp", 2, 40, false);
+        // Playing Pikachu again makes Garchomp the eldest
+        assertNotNull(cache.get("pikachu"));
+        cache.add("blissey", 3, 40, false);
+
+        assertNull(cache.get("garchomp"));
+        assertEquals(Arrays.asList(2), unloaded);
+        assertEquals(2, cache.size());
+        assertEquals(80, cache.getTotalBytes());
+    }
+
+    @Test
+    public void add_keepsAnOversizedCryOnItsOwn() {
+        cache.add("pikachu", 1, 40, false);
+        cache.add("eternatus", 2, 150, false);
+
+        assertNotNull(cache.get("eternatus"));
+        assertEquals(Arrays.asList(1), unloaded);
+        assertEquals(150, cache.getTotalBytes());
+    }
+
+    @Test
+    public void add_replacesAReloadedCry() {
+        cache.add("pikachu", 1, 40, false);
+        cache.add("pikachu", 5, 30, false);
+
+        assertEquals(5, cache.get("pikachu").getSampleId());
+        assertEquals(Arrays.asList(1), unloaded);
+        assertEquals(30, cache.getTotalBytes());
+    }
+
+    @Test
+    public void onLoaded_playsOnlyWhenAsked() {
+        CrySampleCache.Sample quiet = cache.add("pikachu", 1, 10, false);
+        CrySampleCache.Sample loud = cache.add("garchomp", 2, 10, true);
+
+        assertFalse(cache.onLoaded(1, true));
+        assertTrue(quiet.isReady());
+        assertTrue(cache.onLoaded(2, true));
+        assertTrue(loud.isReady());
+        // Only once
+        assertFalse(cache.onLoaded(2, true));
+        assertFalse(cache.onLoaded(99, true));
+
+        CrySampleCache.Sample pending = cache.add("blissey", 3, 10, false);
+        cache.playWhenReady(pending);
+        assertTrue(cache.onLoaded(3, true));
+    }
+
+    @Test
+    public void onLoaded_dropsFailedCries() {
+        cache.add("pikachu", 1, 10, true);
+        assertFalse(cache.onLoaded(1, false));
+
+        assertNull(cache.get("pikachu"));
+        assertEquals(Arrays.asList(1), unloaded);
+        assertEquals(0, cache.getTotalBytes());
+    }
+}
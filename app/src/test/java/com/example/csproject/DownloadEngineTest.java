@@ -0,0 +1,228 @@
+package com.example.csproject;
+
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.OkHttpClient;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs the engine against a local HTTP server whose handlers count and hold requests.
+ */
+public class DownloadEngineTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private HttpServer server;
+    private String baseUrl;
+    private final AtomicInteger requests = new AtomicInteger();
+    private final AtomicInteger running = new AtomicInteger();
+    private final AtomicInteger maxRunning = new AtomicInteger();
+    // Responses wait for this, so tests can line up concurrent requests
+    private volatile CountDownLatch release = new CountDownLatch(0);
+    // Status codes to answer with before succeeding
+    private final List<Integer> failures = Collections.synchronizedList(new ArrayList<>());
+
+    private final List<File> results = Collections.synchronizedList(new ArrayList<>());
+    private CountDownLatch done;
+
+    @Before
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", exchange -> {
+            requests.incrementAndGet();
+            int now = running.incrementAndGet();
+            maxRunning.accumulateAndGet(now, Math::max);
+            try {
+                release.await(5, TimeUnit.SECONDS);
+                int status = failures.isEmpty() ? 200 : failures.remove(0);
+                byte[] body = status == 200
+                        ? exchange.getRequestURI().getPath().getBytes(StandardCharsets.UTF_8)
+                        : new byte[0];
+                exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                running.decrementAndGet();
+                exchange.close();
+            }
+        });
+        server.start();
+        baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    private DownloadEngine engine(int threads, int perHost) {
+        // Callbacks run on the download thread, there's no main looper here
+        return new DownloadEngine(new OkHttpClient(), threads, perHost, 3, 10, Runnable::run);
+    }
+
+    private void fetch(DownloadEngine engine, String path, File target) {
+        engine.fetch(baseUrl + path, target, file -> {
+            results.add(file);
+            done.countDown();
+        });
+    }
+
+    private void await() throws InterruptedException {
+        assertTrue("Downloads didn't finish", done.await(10, TimeUnit.SECONDS));
+    }
+
+    private static String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void fetch_writesTheFileWithoutLeavingTempFiles() throws Exception {
+        File dir = folder.newFolder();
+        File target = new File(dir, "cry_pikachu.mp3");
+        done = new CountDownLatch(1);
+
+        fetch(engine(2, 2), "/audio/cries/pikachu.mp3", target);
+        await();
+
+        assertEquals(target, results.get(0));
+        assertEquals("/audio/cries/pikachu.mp3", read(target));
+        String[] names = dir.list();
+        assertArrayEquals(new String[]{"cry_pikachu.mp3"}, names);
+    }
+
+    @Test
+    public void fetch_coalescesRequestsForTheSameFile() throws Exception {
+        File target = new File(folder.newFolder(), "bgm_battle.mp3");
+        DownloadEngine engine = engine(4, 4);
+        release = new CountDownLatch(1);
+        done = new CountDownLatch(3);
+
+        for (int i = 0; i < 3; i++) {
+            fetch(engine, "/audio/bgm/battle.mp3", target);
+        }
+        assertEquals(1, engine.getInFlightCount());
+        release.countDown();
+        await();
+
+        assertEquals(1, requests.get());
+        assertEquals(3, results.size());
+        for (File result : results) {
+            assertEquals(target, result);
+        }
+        assertEquals(0, engine.getInFlightCount());
+    }
+
+    @Test
+    public void fetch_limitsConnectionsPerHost() throws Exception {
+        File dir = folder.newFolder();
+        DownloadEngine engine = engine(4, 2);
+        release = new CountDownLatch(1);
+        done = new CountDownLatch(6);
+
+        for (int i = 0; i < 6; i++) {
+            fetch(engine, "/audio/sfx/" + i + ".mp3", new File(dir, "sfx_" + i + ".mp3"));
+        }
+        // Give the pool time to start everything it's allowed to
+        Thread.sleep(200);
+        assertEquals(2, running.get());
+        release.countDown();
+        await();
+
+        assertEquals(6, requests.get());
+        assertEquals(2, maxRunning.get());
+        assertFalse(results.contains(null));
+    }
+
+    @Test
+    public void fetch_retriesServerErrors() throws Exception {
+        File target = new File(folder.newFolder(), "cry_eevee.mp3");
+        failures.add(503);
+        failures.add(500);
+        done = new CountDownLatch(1);
+
+        fetch(engine(2, 2), "/audio/cries/eevee.mp3", target);
+        await();
+
+        assertEquals(3, requests.get());
+        assertEquals(target, results.get(0));
+        assertEquals("/audio/cries/eevee.mp3", read(target));
+    }
+
+    @Test
+    public void fetch_retriesTimeoutsAndRateLimits() throws Exception {
+        File target = new File(folder.newFolder(), "cry_jolteon.mp3");
+        failures.add(429);
+        failures.add(408);
+        done = new CountDownLatch(1);
+
+        fetch(engine(2, 2), "/audio/cries/jolteon.mp3", target);
+        await();
+
+        assertEquals(3, requests.get());
+        assertEquals(target, results.get(0));
+    }
+
+    @Test
+    public void parseRetryAfter_readsSecondsOnly() {
+        assertEquals(2000, DownloadEngine.parseRetryAfter("2"));
+        assertEquals(-1, DownloadEngine.parseRetryAfter(null));
+        assertEquals(-1, DownloadEngine.parseRetryAfter("Wed, 21 Oct 2015 07:28:00 GMT"));
+        assertFalse(DownloadEngine.isRetryable(404));
+        assertTrue(DownloadEngine.isRetryable(503));
+    }
+
+    @Test
+    public void fetch_doesNotRetryMissingFiles() throws Exception {
+        File dir = folder.newFolder();
+        File target = new File(dir, "cry_missingno.mp3");
+        failures.add(404);
+        done = new CountDownLatch(1);
+
+        fetch(engine(2, 2), "/audio/cries/missingno.mp3", target);
+        await();
+
+        assertEquals(1, requests.get());
+        assertNull(results.get(0));
+        assertFalse(target.exists());
+        assertEquals(0, dir.list().length);
+    }
+
+    @Test
+    public void fetch_usesTheCachedFile() throws Exception {
+        File target = folder.newFile("cry_ditto.mp3");
+        done = new CountDownLatch(1);
+
+        fetch(engine(2, 2), "/audio/cries/ditto.mp3", target);
+        await();
+
+        assertEquals(0, requests.get());
+        assertEquals(target, results.get(0));
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.csproject;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Builds {@link RequestSnapshot}s with org.json, the way requests were read before
+ * {@link RequestDecoder}. The tests use it as the reference the decoder must match, and the
+ * benchmarks as the baseline it's compared with.
+ */
+final class JsonRequestSnapshots {
+
+    private JsonRequestSnapshots() {
+    }
+
+    /**
+     * Build a snapshot from an already parsed request
+     * @param json The request JSON
+     * @return The snapshot
+     */
+    static RequestSnapshot fromJson(JSONObject json) {
+        boolean wait = json.optBoolean("wait", false);
+
+        JSONArray forceSwitchArray = json.optJSONArray("forceSwitch");
+        boolean forceSwitch = forceSwitchArray != null && forceSwitchArray.optBoolean(0, false);
+
+        RequestSnapshot.MoveSlot[] moves = null;
+        String teraType = null;
+        boolean canMegaEvo = false;
+        boolean canDynamax = false;
+        boolean canGigantamax = false;
+        boolean canZMove = false;
+
+        JSONArray active = json.optJSONArray("active");
+        JSONObject activePokemon = active != null ? active.optJSONObject(0) : null;
+        if (activePokemon != null) {
+            JSONArray moveArray = activePokemon.optJSONArray("moves");
+            if (moveArray != null) {
+                moves = new RequestSnapshot.MoveSlot[moveArray.length()];
+                for (int i = 0; i < moves.length; i++) {
+                    JSONObject move = moveArray.optJSONObject(i);
+                    if (move == null) move = new JSONObject();
+                    // Usually a boolean, but some effects report the source as a string
+                    Object disabled = move.opt("disabled");
+                    moves[i] = new RequestSnapshot.MoveSlot(
+                            move.optString("move", ""),
+                            move.optString("id", ""),
+                            move.optInt("pp", 0),
+                            move.optInt("maxpp", 0),
+                            disabled instanceof Boolean ? (Boolean) disabled : disabled instanceof String);
+                }
+            }
+
+            Object tera = activePokemon.opt("canTerastallize");
+            if (tera instanceof String) {
+                teraType = (String) tera;
+            }
+            canMegaEvo = activePokemon.optBoolean("canMegaEvo", false);
+            canDynamax = activePokemon.optBoolean("canDynamax", false);
+            canGigantamax = !activePokemon.isNull("canGigantamax");
+            // canZMove is a per-move array when present
+            canZMove = !activePokemon.isNull("canZMove");
+        }
+
+        RequestSnapshot.PartyMember[] party = null;
+        JSONObject side = json.optJSONObject("side");
+        JSONArray pokemon = side != null ? side.optJSONArray("pokemon") : null;
+        if (pokemon != null) {
+            party = new RequestSnapshot.PartyMember[pokemon.length()];
+            for (int i = 0; i < party.length; i++) {
+                JSONObject poke = pokemon.optJSONObject(i);
+                if (poke == null) poke = new JSONObject();
+                party[i] = RequestSnapshot.partyMember(
+                        poke.optString("ident", ""),
+                        poke.optString("details", ""),
+                        poke.optString("condition", ""),
+                        poke.optBoolean("active", false));
+            }
+        }
+
+        return new RequestSnapshot(wait, forceSwitch, activePokemon != null, moves, party,
+                teraType, canMegaEvo, canDynamax, canGigantamax, canZMove);
+    }
+}
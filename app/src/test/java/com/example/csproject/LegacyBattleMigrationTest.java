@@ -0,0 +1,67 @@
+package com.example.csproject;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class LegacyBattleMigrationTest {
+
+    private static Map<String, Object> legacyBattle(String battleId, Object timestamp) {
+        Map<String, Object> battle = new HashMap<>();
+        battle.put("battleId", battleId);
+        battle.put("userId", "alice");
+        battle.put("opponentName", "Red");
+        battle.put("outcome", "win");
+        battle.put("timestamp", timestamp);
+        battle.put("battleLog", "Pikachu used Thunderbolt!\n");
+        battle.put("playerTeam", "Pikachu");
+        battle.put("opponentTeam", "Gyarados");
+        return battle;
+    }
+
+    @Test
+    public void buildUpdates_movesBattlesAndRemovesTheOldCopies() {
+        Map<String, Object> dateBean = new HashMap<>();
+        dateBean.put("time", 1700000000000L);
+        dateBean.put("year", 123);
+        Map<String, Map<String, Object>> legacy = new LinkedHashMap<>();
+        legacy.put("-own", legacyBattle("-own", 1690000000000L));
+        legacy.put("-shared", legacyBattle(null, dateBean));
+        Set<String> sharedKeys = new HashSet<>(Collections.singleton("-shared"));
+
+        Map<String, Object> updates = LegacyBattleMigration.buildUpdates("alice", legacy, sharedKeys);
+
+        Map<?, ?> summary = (Map<?, ?>) updates.get("users/alice/battleSummaries/-shared");
+        assertEquals("Red", summary.get("opponentName"));
+        assertEquals(1700000000000L, summary.get("timestamp"));
+        assertFalse(summary.containsKey("battleLog"));
+        Map<?, ?> detail = (Map<?, ?>) updates.get("users/alice/battleDetails/-own");
+        assertEquals("Pikachu used Thunderbolt!\n", detail.get("battleLog"));
+        assertEquals("Gyarados", detail.get("opponentTeam"));
+        assertEquals(1690000000000L, ((Map<?, ?>) updates.get("users/alice/battleSummaries/-own")).get("timestamp"));
+
+        // Only the shared record is removed one by one, the user's own node goes whole
+        assertTrue(updates.containsKey("battles/-shared"));
+        assertNull(updates.get("battles/-shared"));
+        assertFalse(updates.containsKey("battles/-own"));
+        assertTrue(updates.containsKey("users/alice/battles"));
+        assertEquals(true, updates.get("users/alice/" + LegacyBattleMigration.MIGRATED_FLAG));
+        assertEquals(7, updates.size());
+    }
+
+    @Test
+    public void buildUpdates_marksUsersWithoutLegacyBattles() {
+        Map<String, Object> updates = LegacyBattleMigration.buildUpdates("bob",
+                new LinkedHashMap<>(), Collections.emptySet());
+
+        assertEquals(2, updates.size());
+        assertEquals(true, updates.get("users/bob/" + LegacyBattleMigration.MIGRATED_FLAG));
+    }
+}
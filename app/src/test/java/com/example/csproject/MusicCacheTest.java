@@ -0,0 +1,124 @@
+package com.example.csproject;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+/**
+ * Fills a music cache directory with small fake tracks and checks what gets deleted.
+ */
+public class MusicCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static void writeTrack(MusicCache cache, String track, int bytes) throws IOException {
+        Files.write(cache.fileFor(track).toPath(), new byte[bytes]);
+        cache.add(track);
+    }
+
+    @Test
+    public void add_deletesLeastRecentlyPlayedTracks() throws IOException {
+        MusicCache cache = new MusicCache(folder.newFolder(), 300);
+        writeTrack(cache, "bw-rival", 100);
+        writeTrack(cache, "dpp-trainer", 100);
+        writeTrack(cache, "xy-rival", 100);
+        // Playing bw-rival again makes dpp-trainer the oldest
+        assertNotNull(cache.get("bw-rival"));
+
+        writeTrack(cache, "sm-trainer", 100);
+
+        assertEquals(300, cache.getTotalBytes());
+        assertFalse(cache.contains("dpp-trainer"));
+        assertFalse(cache.fileFor("dpp-trainer").exists());
+        assertNull(cache.get("dpp-trainer"));
+        assertTrue(cache.contains("bw-rival"));
+        assertTrue(cache.contains("sm-trainer"));
+    }
+
+    @Test
+    public void add_keepsPinnedTracks() throws IOException {
+        MusicCache cache = new MusicCache(folder.newFolder(), 200);
+        writeTrack(cache, "bw-rival", 100);
+        writeTrack(cache, "dpp-trainer", 100);
+        cache.pin("bw-rival");
+
+        writeTrack(cache, "xy-rival", 100);
+
+        assertTrue(cache.fileFor("bw-rival").exists());
+        assertFalse(cache.contains("dpp-trainer"));
+        assertEquals(200, cache.getTotalBytes());
+    }
+
+    @Test
+    public void add_keepsATrackPinnedBeforeItsDownload() throws IOException {
+        MusicCache cache = new MusicCache(folder.newFolder(), 200);
+        // A player pins a track, then it's downloaded
+        cache.pin("bw-rival");
+        writeTrack(cache, "bw-rival", 100);
+
+        writeTrack(cache, "dpp-trainer", 100);
+        writeTrack(cache, "xy-rival", 100);
+
+        assertTrue(cache.fileFor("bw-rival").exists());
+        assertTrue(cache.contains("bw-rival"));
+        assertFalse(cache.contains("dpp-trainer"));
+    }
+
+    @Test
+    public void unpin_keepsATrackPinnedTwice() throws IOException {
+        MusicCache cache = new MusicCache(folder.newFolder(), 100);
+        writeTrack(cache, "bw-rival", 100);
+        // Both playing and queued next
+        cache.pin("bw-rival");
+        cache.pin("bw-rival");
+        cache.unpin("bw-rival");
+
+        writeTrack(cache, "dpp-trainer", 100);
+        assertTrue(cache.contains("bw-rival"));
+
+        cache.unpin("bw-rival");
+        writeTrack(cache, "xy-rival", 100);
+        assertFalse(cache.contains("bw-rival"));
+    }
+
+    @Test
+    public void add_keepsATrackBiggerThanTheBound() throws IOException {
+        MusicCache cache = new MusicCache(folder.newFolder(), 100);
+        writeTrack(cache, "bw-rival", 50);
+
+        writeTrack(cache, "spl-elite4", 150);
+
+        assertEquals(1, cache.size());
+        assertTrue(cache.contains("spl-elite4"));
+        assertEquals(150, cache.getTotalBytes());
+    }
+
+    @Test
+    public void constructor_ordersExistingTracksByModificationTime() throws IOException {
+        File dir = folder.newFolder();
+        long now = System.currentTimeMillis();
+        String[] tracks = {"xy-rival", "bw-rival", "dpp-trainer"};
+        for (int i = 0; i < tracks.length; i++) {
+            File file = new File(dir, tracks[i] + MusicCache.EXTENSION);
+            Files.write(file.toPath(), new byte[100]);
+            assertTrue(file.setLastModified(now - (tracks.length - i) * 60_000L));
+        }
+        // A download that never finished
+        Files.write(new File(dir, "sm-rival.mp3123.part").toPath(), new byte[100]);
+
+        MusicCache cache = new MusicCache(dir, 200);
+
+        assertEquals(2, cache.size());
+        assertFalse(cache.contains("xy-rival"));
+        assertFalse(new File(dir, "xy-rival" + MusicCache.EXTENSION).exists());
+        assertNotNull(cache.get("bw-rival"));
+        assertNotNull(cache.get("dpp-trainer"));
+    }
+}
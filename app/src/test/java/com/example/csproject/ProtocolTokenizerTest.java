@@ -0,0 +1,206 @@
+package com.example.csproject;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the tokenizer against {@code String.split("\\|")}, which is what the protocol
+ * handling used before it.
+ */
+public class ProtocolTokenizerTest {
+
+    private static final String[] LINES = {
+            "|switch|p1a: Garchomp|Garchomp, L74, M|248/248",
+            "|-damage|p2a: Iron Valiant|0 fnt",
+            "|move|p1a: Garchomp|Earthquake|p2a: Iron Valiant|[spread] p2a",
+            "|turn|12",
+            "|win|Guest 12345",
+            "|tie",
+            "|",
+            "||",
+            "|||turn||",
+            "|c|☆Guest 1|gl hf|",
+            "|-heal|p1a: Blissey|100/100||[from] item: Leftovers",
+            "no pipes at all",
+            "trailing text|",
+            "",
+            " |spaced| fields |",
+    };
+
+    private static void assertSplitParity(String line) {
+        String[] expected = line.split("\\|");
+        // Terminate the line so an empty one is still walked
+        ProtocolTokenizer tokenizer = new ProtocolTokenizer().beginFrame(line + "\n");
+        assertTrue(tokenizer.nextLine());
+
+        assertEquals(line, expected.length, tokenizer.tokenize());
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(line, expected[i], tokenizer.field(i).toString());
+            assertEquals(line, expected[i], tokenizer.fieldString(i));
+            assertTrue(line, tokenizer.fieldEquals(i, expected[i]));
+        }
+        // Past the end behaves like a missing field
+        assertEquals("", tokenizer.field(expected.length).toString());
+        assertEquals("", tokenizer.fieldString(expected.length));
+        assertFalse(tokenizer.fieldEquals(expected.length, ""));
+    }
+
+    @Test
+    public void tokenize_matchesSplit() {
+        for (String line : LINES) {
+            assertSplitParity(line);
+        }
+    }
+
+    @Test
+    public void tokenize_matchesSplitOnRandomLines() {
+        Random random = new Random(42);
+        char[] alphabet = {'|', '|', '|', 'a', 'b', ' ', ':', '/'};
+        for (int n = 0; n < 2000; n++) {
+            char[] line = new char[random.nextInt(14)];
+            for (int i = 0; i < line.length; i++) {
+                line[i] = alphabet[random.nextInt(alphabet.length)];
+            }
+            assertSplitParity(new String(line));
+        }
+    }
+
+    @Test
+    public void tokenize_dropsTrailingEmptyFields() {
+        ProtocolTokenizer tokenizer = new ProtocolTokenizer();
+        tokenizer.reset("|upkeep|||");
+        assertEquals(2, tokenizer.tokenize());
+        assertEquals("upkeep", tokenizer.field(1).toString());
+
+        // Empty fields in the middle are kept
+        tokenizer.reset("|-heal|p1a: Blissey|100/100||[from] item: Leftovers");
+        assertEquals(6, tokenizer.tokenize());
+        assertEquals("", tokenizer.field(4).toString());
+    }
+
+    @Test
+    public void tokenize_foldsFieldsPastTheLimit() {
+        StringBuilder line = new StringBuilder();
+        for (int i = 1; i <= 20; i++) {
+            line.append('|').append(i);
+        }
+        ProtocolTokenizer tokenizer = new ProtocolTokenizer();
+        tokenizer.reset(line);
+
+        // 16 fields: the empty field 0, "1" to "14", then everything else in the last one
+        assertEquals(16, tokenizer.tokenize());
+        assertEquals("14", tokenizer.field(14).toString());
+        assertEquals("15|16|17|18|19|20", tokenizer.field(15).toString());
+        assertEquals(14, tokenizer.fieldInt(14, -1));
+        // The folded field isn't a number
+        assertEquals(-1, tokenizer.fieldInt(15, -1));
+    }
+
+    @Test
+    public void nextLine_walksFrame() {
+        ProtocolTokenizer tokenizer = new ProtocolTokenizer();
+        tokenizer.beginFrame(">battle-gen9randombattle-1\n|turn|3\n\n|upkeep");
+
+        assertTrue(tokenizer.nextLine());
+        assertEquals('>', tokenizer.lineFirstChar());
+        assertTrue(tokenizer.lineStartsWith(1, "battle-"));
+        assertEquals("battle-gen9randombattle-1", tokenizer.lineString(1));
+
+        assertTrue(tokenizer.nextLine());
+        assertEquals(3, tokenizer.fieldInt(2, 0));
+
+        assertTrue(tokenizer.nextLine());
+        assertEquals(0, tokenizer.lineFirstChar());
+        assertEquals(0, tokenizer.lineLength());
+
+        assertTrue(tokenizer.nextLine());
+        assertEquals("|upkeep", tokenizer.line().toString());
+        assertFalse(tokenizer.nextLine());
+    }
+
+    @Test
+    public void rest_keepsPipesInPayload() {
+        ProtocolTokenizer tokenizer = new ProtocolTokenizer();
+        tokenizer.reset("|request|{\"side\":{\"name\":\"a|b\"}}");
+        assertEquals("{\"side\":{\"name\":\"a|b\"}}", tokenizer.rest(2).toString());
+        assertEquals("{\"side\":{\"name\":\"a|b\"}}", tokenizer.restString(2));
+        assertEquals("", tokenizer.rest(9).toString());
+    }
+
+    @Test
+    public void ident_matchesSplitOnColon() {
+        ProtocolTokenizer tokenizer = new ProtocolTokenizer();
+        tokenizer.reset("|switch|p2a: Iron Valiant|Iron Valiant, L80|100/100");
+        assertTrue(tokenizer.isIdent(2));
+        assertEquals("p2a", tokenizer.identPosition(2).toString());
+        assertEquals("Iron Valiant", tokenizer.identName(2).toString());
+        assertEquals(2, tokenizer.identSide(2));
+        assertEquals(BattlePosition.P2A, BattlePosition.parse(tokenizer.identPosition(2)));
+
+        // Like split(":")[1], a second colon ends the name
+        tokenizer.reset("|move|p1a: Type: Null|Swords Dance");
+        assertEquals("Type", tokenizer.identName(2).toString());
+
+        // Nothing after the colon, no colon, or nothing before it
+        for (String field : new String[]{"p1a:", "Garchomp", ": Garchomp"}) {
+            tokenizer.reset("|faint|" + field);
+            assertFalse(field, tokenizer.isIdent(2));
+            assertEquals("", tokenizer.identPosition(2).toString());
+            assertEquals("", tokenizer.identName(2).toString());
+            assertEquals(-1, tokenizer.identSide(2));
+        }
+
+        // Missing field
+        tokenizer.reset("|faint");
+        assertFalse(tokenizer.isIdent(2));
+    }
+
+    @Test
+    public void parseInt_matchesIntegerParseInt() {
+        String[] numbers = {"0", "7", "-7", "+7", "248", "-0", "2147483647", "-2147483648", "007"};
+        for (String number : numbers) {
+            assertEquals(number, Integer.parseInt(number),
+                    ProtocolTokenizer.parseInt(number, 0, number.length()));
+        }
+        // Surrounding whitespace is ignored
+        assertEquals(35, ProtocolTokenizer.parseInt(" 35 ", 0, 4));
+        // Only the given range is read
+        assertEquals(100, ProtocolTokenizer.parseInt("100/248", 0, 3));
+    }
+
+    @Test
+    public void parseInt_rejectsBadInput() {
+        String[] bad = {"", "   ", "-", "+", "1a", "--1", "1 2", "2147483648", "-2147483649", "99999999999"};
+        for (String number : bad) {
+            try {
+                ProtocolTokenizer.parseInt(number, 0, number.length());
+                fail("Parsed \"" + number + "\"");
+            } catch (NumberFormatException expected) {
+                // Integer.parseInt rejects these too (after trimming)
+            }
+        }
+    }
+
+    @Test
+    public void vocabulary_mapsViewsToConstants() {
+        String move = "move";
+        ProtocolTokenizer.Vocabulary vocabulary = new ProtocolTokenizer.Vocabulary(
+                move, "switch", "-damage", "turn", "win");
+        ProtocolTokenizer tokenizer = new ProtocolTokenizer();
+
+        tokenizer.reset("|move|p1a: Garchomp|Earthquake");
+        assertSame(move, vocabulary.lookup(tokenizer.field(1)));
+
+        tokenizer.reset("|-damage|p2a: Iron Valiant|0 fnt");
+        assertEquals("-damage", vocabulary.lookup(tokenizer.field(1)));
+
+        // Prefixes, longer words and empty fields aren't words
+        tokenizer.reset("|mov|movement||");
+        assertNull(vocabulary.lookup(tokenizer.field(1)));
+        assertNull(vocabulary.lookup(tokenizer.field(2)));
+        assertNull(vocabulary.lookup(tokenizer.field(0)));
+    }
+}
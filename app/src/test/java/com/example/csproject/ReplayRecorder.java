@@ -0,0 +1,111 @@
+package com.example.csproject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Client callbacks for replays: applies battle events to a {@link BattleState} the way
+ * {@link BattleManager} does and keeps what the UI would have shown, so tests can check the
+ * outcome of a replay.
+ */
+public final class ReplayRecorder implements ShowdownWebSocketClient.MessageCallback,
+        ShowdownWebSocketClient.BattleDataCallback {
+
+    private final BattleState state = new BattleState();
+    private final List<String> messages = new ArrayList<>();
+
+    private int battleStarts = 0;
+    private int switches = 0;
+    private int hpChanges = 0;
+    private int faints = 0;
+    private int requests = 0;
+
+    // HP changes or faints for a position nothing had switched into
+    private int unknownPositions = 0;
+
+    @Override
+    public void onMessageReceived(String msg) {
+        messages.add(msg);
+    }
+
+    @Override
+    public void onPokemonSwitch(BattleEvent.Switch event) {
+        switches++;
+        state.applySwitch(event);
+    }
+
+    @Override
+    public void onHPChange(BattleEvent.HpChange event) {
+        hpChanges++;
+        if (state.applyHPChange(event) == null) unknownPositions++;
+    }
+
+    @Override
+    public void onFaint(BattleEvent.Faint event) {
+        faints++;
+        if (state.applyFaint(event) == null) unknownPositions++;
+    }
+
+    @Override
+    public void onPlayerSlotSet(int slot) {
+        state.setPlayerSlot(slot);
+    }
+
+    @Override
+    public void onBattleStart() {
+        battleStarts++;
+        state.reset();
+    }
+
+    @Override
+    public void onTurnChange(int turnNumber) {
+        state.setTurn(turnNumber);
+    }
+
+    @Override
+    public void onRequest(RequestSnapshot request) {
+        requests++;
+    }
+
+    public BattleState getState() {
+        return state;
+    }
+
+    public List<String> getMessages() {
+        return messages;
+    }
+
+    /**
+     * @return The last message containing the given text, or null
+     */
+    public String findLastMessage(String text) {
+        for (int i = messages.size() - 1; i >= 0; i--) {
+            if (messages.get(i).contains(text)) return messages.get(i);
+        }
+        return null;
+    }
+
+    public int getBattleStarts() {
+        return battleStarts;
+    }
+
+    public int getSwitches() {
+        return switches;
+    }
+
+    public int getHpChanges() {
+        return hpChanges;
+    }
+
+    public int getFaints() {
+        return faints;
+    }
+
+    public int getRequests() {
+        return requests;
+    }
+
+    public int getUnknownPositions() {
+        return unknownPositions;
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.csproject;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks the streaming request decoder against the org.json path on recorded payloads.
+ */
+public class RequestDecoderTest {
+
+    private static final String[] PAYLOADS = {"move.json", "force_switch.json", "wait.json"};
+
+    @Test
+    public void decode_matchesJsonObject() throws Exception {
+        RequestDecoder decoder = new RequestDecoder();
+        for (String payload : PAYLOADS) {
+            String json = load(payload);
+            assertSnapshotEquals(payload, JsonRequestSnapshots.fromJson(new JSONObject(json)), decoder.decode(json));
+        }
+    }
+
+    @Test
+    public void decode_readsMoveRequest() throws Exception {
+        RequestSnapshot request = new RequestDecoder().decode(load("move.json"));
+
+        assertFalse(request.isWait());
+        assertTrue(request.hasActive());
+        assertEquals(4, request.getMoveCount());
+        assertEquals("earthquake", request.getMove(1).getId());
+        assertEquals(15, request.getMove(1).getPp());
+        assertEquals("Terastallize (Fire)", request.getFormChangeLabel());
+        assertEquals(6, request.getPartySize());
+        assertEquals("Garchomp", request.getActiveMember().getName());
+        assertTrue(request.getPartyMember(1).isFainted());
+        assertEquals(StatusCondition.PARALYSIS, request.getPartyMember(2).getStatus());
+        assertEquals(77, request.getPartyMember(2).getLevel());
+    }
+
+    @Test
+    public void decode_handlesEscapesAndNulls() throws Exception {
+        String json = "{\"active\":[{\"moves\":[{\"move\":\"Hidden Power\",\"id\":\"hiddenpower\",\"pp\":null,"
+                + "\"disabled\":\"Imprison\"}],\"canTerastallize\":null}],"
+                + "\"side\":{\"name\":\"A \\\"quoted\\\" name\",\"pokemon\":[{\"ident\":\"p1: Flab\\u00e9b\\u00e9\","
+                + "\"details\":\"Flab\\u00e9b\\u00e9-Blue, L90\",\"condition\":\"150/150\",\"active\":true}]}}";
+        RequestSnapshot request = new RequestDecoder().decode(json);
+
+        assertSnapshotEquals("inline", JsonRequestSnapshots.fromJson(new JSONObject(json)), request);
+        assertTrue(request.getMove(0).isDisabled());
+        assertFalse(request.canTerastallize());
+        assertEquals("Flabébé", request.getActiveMember().getName());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void decode_rejectsMalformedJson() {
+        new RequestDecoder().decode("{\"side\":{\"pokemon\":[1,2}}");
+    }
+
+    private static void assertSnapshotEquals(String label, RequestSnapshot expected, RequestSnapshot actual) {
+        assertEquals(label, expected.isWait(), actual.isWait());
+        assertEquals(label, expected.isForceSwitch(), actual.isForceSwitch());
+        assertEquals(label, expected.hasActive(), actual.hasActive());
+        assertEquals(label, expected.getTeraType(), actual.getTeraType());
+        assertEquals(label, expected.canMegaEvo(), actual.canMegaEvo());
+        assertEquals(label, expected.canDynamax(), actual.canDynamax());
+        assertEquals(label, expected.canGigantamax(), actual.canGigantamax());
+        assertEquals(label, expected.canZMove(), actual.canZMove());
+
+        assertEquals(label, expected.getMoveCount(), actual.getMoveCount());
+        for (int i = 0; i < expected.getMoveCount(); i++) {
+            RequestSnapshot.MoveSlot e = expected.getMove(i);
+            RequestSnapshot.MoveSlot a = actual.getMove(i);
+            assertEquals(label, e.getName(), a.getName());
+            assertEquals(label, e.getId(), a.getId());
+            assertEquals(label, e.getPp(), a.getPp());
+            assertEquals(label, e.getMaxPp(), a.getMaxPp());
+            assertEquals(label, e.isDisabled(), a.isDisabled());
+        }
+
+        assertEquals(label, expected.getPartySize(), actual.getPartySize());
+        for (int i = 0; i < expected.getPartySize(); i++) {
+            RequestSnapshot.PartyMember e = expected.getPartyMember(i);
+            RequestSnapshot.PartyMember a = actual.getPartyMember(i);
+            assertEquals(label, e.getName(), a.getName());
+            assertEquals(label, e.getDetails(), a.getDetails());
+            assertEquals(label, e.getSpeciesId(), a.getSpeciesId());
+            assertEquals(label, e.getLevel(), a.getLevel());
+            assertEquals(label, e.getHp(), a.getHp());
+            assertEquals(label, e.getMaxHp(), a.getMaxHp());
+            assertEquals(label, e.getStatus(), a.getStatus());
+            assertEquals(label, e.isActive(), a.isActive());
+        }
+    }
+
+    static String load(String name) throws IOException {
+        try (InputStream in = RequestDecoderTest.class.getClassLoader().getResourceAsStream("requests/" + name)) {
+            assertNotNull("Missing fixture " + name, in);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toString(StandardCharsets.UTF_8.name()).trim();
+        }
+    }
+}
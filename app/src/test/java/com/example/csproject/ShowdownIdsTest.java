@@ -0,0 +1,51 @@
+package com.example.csproject;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Name normalization and its cache.
+ */
+public class ShowdownIdsTest {
+
+    @Before
+    public void clearCache() {
+        ShowdownIds.clearCache();
+    }
+
+    @Test
+    public void toId_matchesShowdown() {
+        assertEquals("ironvaliant", ShowdownIds.toId("Iron Valiant"));
+        assertEquals("mrmime", ShowdownIds.toId("Mr. Mime"));
+        assertEquals("farfetchd", ShowdownIds.toId("Farfetch’d"));
+        assertEquals("typenull", ShowdownIds.toId("Type: Null"));
+        assertEquals("urshifurapidstrike", ShowdownIds.toId("Urshifu-Rapid-Strike"));
+        assertEquals("porygon2", ShowdownIds.toId("Porygon2"));
+        assertEquals("flabebe", ShowdownIds.toId("Flabébé"));
+        assertEquals("", ShowdownIds.toId("???"));
+        assertNull(ShowdownIds.toId(null));
+    }
+
+    @Test
+    public void toId_reusesCachedIds() {
+        String first = ShowdownIds.toId("Great Tusk");
+        // A different String with the same text, as a new protocol line would give us
+        String second = ShowdownIds.toId(new String("Great Tusk"));
+        assertSame(first, second);
+        assertEquals(1, ShowdownIds.cacheSize());
+
+        // Ids come back as they are
+        String id = "greattusk";
+        assertSame(id, ShowdownIds.toId(id));
+    }
+
+    @Test
+    public void cache_isBounded() {
+        for (int i = 0; i < ShowdownIds.CACHE_SIZE * 2; i++) {
+            ShowdownIds.toId("Pokemon " + i);
+        }
+        assertEquals(ShowdownIds.CACHE_SIZE, ShowdownIds.cacheSize());
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.csproject;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Lookups against the bundled species table.
+ */
+public class SpeciesIndexTest {
+
+    // Unit tests run from the module directory
+    private static final String ASSET = "src/main/assets/" + SpeciesIndex.ASSET_NAME;
+
+    private static SpeciesIndex species;
+
+    @BeforeClass
+    public static void loadTable() throws IOException {
+        try (InputStream in = new FileInputStream(ASSET)) {
+            species = SpeciesIndex.load(in);
+        }
+    }
+
+    @Test
+    public void coversTheNationalDex() {
+        for (int dex = 1; dex <= 1025; dex++) {
+            int slot = species.findByDexNumber(dex);
+            assertTrue("No species for #" + dex, slot >= 0);
+            assertEquals(dex, species.getDexNumber(slot));
+        }
+        assertEquals(-1, species.findByDexNumber(0));
+        assertEquals(-1, species.findByDexNumber(1026));
+    }
+
+    @Test
+    public void find_normalizesDisplayNames() {
+        assertEquals(1006, species.getDexNumber("Iron Valiant"));
+        assertEquals(1006, species.getDexNumber("ironvaliant"));
+        assertEquals(122, species.getDexNumber("Mr. Mime"));
+        assertEquals(83, species.getDexNumber("Farfetch’d"));
+        assertEquals(772, species.getDexNumber("Type: Null"));
+        assertEquals(250, species.getDexNumber("Ho-Oh"));
+        assertEquals(669, species.getDexNumber("Flabébé"));
+        assertEquals(29, species.getDexNumber("Nidoran-F"));
+        assertEquals(1004, species.getDexNumber("Chi-Yu"));
+    }
+
+    @Test
+    public void forms_useShowdownSpriteNames() {
+        int slot = species.find("Rotom-Wash");
+        assertEquals("rotomwash", species.getId(slot));
+        assertEquals(479, species.getDexNumber(slot));
+        assertEquals("rotom-wash", species.getSpriteSlug(slot));
+        assertEquals("rotom", species.getCrySlug(slot));
+
+        slot = species.find("Urshifu-Rapid-Strike");
+        assertEquals("urshifu-rapidstrike", species.getSpriteSlug(slot));
+
+        slot = species.find("Arceus-Fire");
+        assertEquals(493, species.getDexNumber(slot));
+        assertEquals("arceus-fire", species.getSpriteSlug(slot));
+        assertEquals("arceus", species.getCrySlug(slot));
+
+        for (String form : new String[]{"Silvally-Dark", "Greninja-Bond", "Polteageist-Antique",
+                "Genesect-Douse", "Ogerpon-Wellspring-Tera", "Urshifu-Rapid-Strike-Gmax"}) {
+            assertTrue(form, species.find(form) >= 0);
+        }
+
+        slot = species.find("Great Tusk");
+        assertEquals("greattusk", species.getSpriteSlug(slot));
+        assertEquals("greattusk", species.getCrySlug(slot));
+    }
+
+    @Test
+    public void resolve_fallsBackToBaseSpecies() {
+        // Cosmetic forms have no row of their own
+        assertEquals(-1, species.find("Gastrodon-East"));
+        assertEquals("gastrodon", species.getId(species.resolve("Gastrodon-East")));
+        assertEquals("kommoo", species.getId(species.resolve("Kommo-o-Totem")));
+        assertEquals("porygonz", species.getId(species.resolve("Porygon-Z")));
+    }
+
+    @Test
+    public void findSpecies_usesStoredIdThenDisplayName() {
+        assertEquals("rotomwash", species.getId(species.findSpecies("rotomwash", "Rotom-Wash")));
+        // Cosmetic forms aren't in the table under their own id
+        assertEquals("vivillon", species.getId(species.findSpecies("vivillonfancy", "Vivillon-Fancy")));
+        assertEquals(-1, species.findSpecies("missingno", "MissingNo."));
+    }
+
+    @Test
+    public void unknownSpecies() {
+        assertEquals(-1, species.resolve("MissingNo."));
+        assertEquals(-1, species.resolve(""));
+        assertEquals(-1, species.resolve(null));
+        assertEquals(0, species.getDexNumber("Not A Pokemon"));
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.csproject;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Recording, expiry and saved-entry round trips of the sprite source memo.
+ */
+public class SpriteSourceMemoTest {
+
+    private static final long NOW = 1_700_000_000_000L;
+
+    @Test
+    public void lookup_returnsRecordedSourcePerFacing() {
+        SpriteSourceMemo memo = new SpriteSourceMemo();
+        assertNull(memo.lookup("ogerpon-wellspring", true, NOW));
+
+        assertNotNull(memo.record("ogerpon-wellspring", true, SpriteSourceMemo.Source.DEX, NOW));
+        assertEquals(SpriteSourceMemo.Source.DEX, memo.lookup("ogerpon-wellspring", true, NOW + 1000));
+        assertNull(memo.lookup("ogerpon-wellspring", false, NOW + 1000));
+    }
+
+    @Test
+    public void record_onlyReportsChanges() {
+        SpriteSourceMemo memo = new SpriteSourceMemo();
+        assertNotNull(memo.record("pikachu", false, SpriteSourceMemo.Source.STATIC, NOW));
+        // The same source keeps its first time, so it still expires on schedule
+        assertNull(memo.record("pikachu", false, SpriteSourceMemo.Source.STATIC, NOW + 5000));
+        assertNotNull(memo.record("pikachu", false, SpriteSourceMemo.Source.ANIMATED, NOW + 5000));
+        assertEquals(SpriteSourceMemo.Source.ANIMATED, memo.lookup("pikachu", false, NOW + 5000));
+    }
+
+    @Test
+    public void lookup_expiresByAge() {
+        SpriteSourceMemo memo = new SpriteSourceMemo();
+        memo.record("pikachu", false, SpriteSourceMemo.Source.STATIC, NOW);
+        memo.record("missingno", false, SpriteSourceMemo.Source.NONE, NOW);
+
+        long afterMissing = NOW + SpriteSourceMemo.MISSING_MAX_AGE_MS + 1;
+        assertNull(memo.lookup("missingno", false, afterMissing));
+        assertEquals(SpriteSourceMemo.Source.STATIC, memo.lookup("pikachu", false, afterMissing));
+
+        assertNull(memo.lookup("pikachu", false, NOW + SpriteSourceMemo.FOUND_MAX_AGE_MS + 1));
+        assertEquals(0, memo.size());
+
+        // A clock set back past the entry doesn't keep it forever
+        memo.record("pikachu", false, SpriteSourceMemo.Source.DEX, NOW);
+        assertNull(memo.lookup("pikachu", false, NOW - 1));
+    }
+
+    @Test
+    public void fromSaved_roundTripsAndSkipsBadEntries() {
+        SpriteSourceMemo memo = new SpriteSourceMemo();
+        Map<String, Object> saved = new HashMap<>();
+        saved.put(SpriteSourceMemo.key("rotom-wash", true),
+                memo.record("rotom-wash", true, SpriteSourceMemo.Source.ARTWORK, NOW));
+        saved.put(SpriteSourceMemo.key("greattusk", false),
+                memo.record("greattusk", false, SpriteSourceMemo.Source.NONE, NOW));
+        saved.put("front/bad", "nine:100");
+        saved.put("front/range", "42:100");
+        saved.put("front/type", 7);
+
+        SpriteSourceMemo restored = SpriteSourceMemo.fromSaved(saved);
+        assertEquals(2, restored.size());
+        assertEquals(SpriteSourceMemo.Source.ARTWORK, restored.lookup("rotom-wash", true, NOW));
+        assertEquals(SpriteSourceMemo.Source.NONE, restored.lookup("greattusk", false, NOW));
+    }
+}
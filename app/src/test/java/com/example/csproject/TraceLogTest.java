@@ -0,0 +1,90 @@
+package com.example.csproject;
+
+import android.util.Log;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks "{}" substitution and that messages below the runtime level are never built.
+ */
+public class TraceLogTest {
+
+    /**
+     * Counts how often a message argument is turned into a string
+     */
+    private static final class CountingArg {
+        int formatted = 0;
+
+        @Override
+        public String toString() {
+            formatted++;
+            return "arg";
+        }
+    }
+
+    @After
+    public void restoreLevel() {
+        TraceLog.setLevel(BuildConfig.TRACE_LEVEL);
+    }
+
+    @Test
+    public void format_substitutesArgumentsInOrder() {
+        assertEquals("no placeholders", TraceLog.format("no placeholders", "a", null, null, null));
+        assertEquals("a", TraceLog.format("{}", "a", null, null, null));
+        assertEquals("p1a 120/211", TraceLog.format("{} {}/{}", "p1a", 120, 211, null));
+        assertEquals("1-2-3-4", TraceLog.format("{}-{}-{}-{}", 1, 2, 3, 4));
+        assertEquals("[x] took 3 ms", TraceLog.format("[{}] took {} ms", "x", 3L, null, null));
+    }
+
+    @Test
+    public void format_handlesMismatchedPlaceholders() {
+        // Arguments without a placeholder are ignored
+        assertEquals("only a", TraceLog.format("only {}", "a", "b", null, null));
+        // Placeholders past the fourth argument are kept as written
+        assertEquals("1 2 3 4 {}", TraceLog.format("{} {} {} {} {}", 1, 2, 3, 4));
+        // A missing argument is written as null, like string concatenation
+        assertEquals("a null", TraceLog.format("{} {}", "a", null, null, null));
+        assertEquals("{", TraceLog.format("{", "a", null, null, null));
+        assertEquals("", TraceLog.format("", "a", null, null, null));
+    }
+
+    @Test
+    public void setLevel_cannotGoBelowCompiledLevel() {
+        TraceLog.setLevel(Log.VERBOSE);
+        assertEquals(Math.max(Log.VERBOSE, BuildConfig.TRACE_LEVEL), TraceLog.getLevel());
+
+        TraceLog.setLevel(Log.ERROR);
+        assertEquals(Log.ERROR, TraceLog.getLevel());
+    }
+
+    @Test
+    public void levelGating_skipsMessagesBelowLevel() {
+        TraceLog.setLevel(Log.WARN);
+        assertFalse(TraceLog.isDebugEnabled());
+        assertFalse(TraceLog.isLoggable(Log.INFO));
+        assertTrue(TraceLog.isLoggable(Log.WARN));
+        assertTrue(TraceLog.isLoggable(Log.ERROR));
+
+        CountingArg arg = new CountingArg();
+        TraceLog.d("TraceLogTest", "debug {}", arg);
+        TraceLog.i("TraceLogTest", "info {}", arg);
+        assertEquals("disabled messages must not be formatted", 0, arg.formatted);
+
+        TraceLog.w("TraceLogTest", "warn {}", arg);
+        TraceLog.e("TraceLogTest", "error {}", arg);
+        assertEquals(2, arg.formatted);
+    }
+
+    @Test
+    public void levelGating_debugFollowsCompiledLevel() {
+        TraceLog.setLevel(Log.DEBUG);
+        assertEquals(TraceLog.DEBUG_COMPILED, TraceLog.isDebugEnabled());
+
+        CountingArg arg = new CountingArg();
+        TraceLog.d("TraceLogTest", "debug {}", arg);
+        assertEquals(TraceLog.DEBUG_COMPILED ? 1 : 0, arg.formatted);
+    }
+}
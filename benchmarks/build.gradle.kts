@@ -0,0 +1,69 @@
+plugins {
+    java
+    alias(libs.plugins.jmh)
+}
+
+// The app is an Android module, so a JVM module can't depend on it. Instead the benchmarks
+// compile the app's plain Java protocol and battle-state classes directly, next to the no-op
+// android.* stand-ins from the app's tests, Context stubs and a release-like BuildConfig, and read
+// the fixture battles from the app's test resources and the species table from its assets.
+// The org.json request baseline comes from the app's tests as well.
+val appProtocolSources = listOf(
+    "BattleEvent.java",
+    "BattlePosition.java",
+    "BattleProtocolParser.java",
+    "BattleState.java",
+    "JsonPullReader.java",
+    "PokemonBattleData.java",
+    "ProtocolTokenizer.java",
+    "RequestDecoder.java",
+    "RequestSnapshot.java",
+    "ShowdownIds.java",
+    "SpeciesIndex.java",
+    "StatusCondition.java",
+    "TraceLog.java",
+).map { "com/example/csproject/$it" }
+
+sourceSets {
+    main {
+        java {
+            srcDir("../app/src/main/java")
+            srcDir("../app/src/test/java")
+            include("android/**")
+            include(appProtocolSources)
+            include("com/example/csproject/BuildConfig.java")
+            include("com/example/csproject/BattleReplay.java")
+            include("com/example/csproject/JsonRequestSnapshots.java")
+        }
+        resources {
+            srcDir("../app/src/test/resources")
+            // The species table
+            srcDir("../app/src/main/assets")
+        }
+    }
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_17
+    targetCompatibility = JavaVersion.VERSION_17
+}
+
+tasks.withType<JavaCompile>().configureEach {
+    options.encoding = "UTF-8"
+}
+
+dependencies {
+    implementation(libs.org.json)
+}
+
+jmh {
+    jmhVersion.set(libs.versions.jmh)
+    benchmarkMode.add("avgt")
+    timeUnit.set("ns")
+    warmupIterations.set(3)
+    iterations.set(5)
+    fork.set(1)
+    // Allocation rate next to ns/op, so changes to the hot paths can be judged on both
+    profilers.add("gc")
+    resultFormat.set("JSON")
+}
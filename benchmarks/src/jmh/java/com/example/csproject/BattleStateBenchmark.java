@@ -0,0 +1,110 @@
+package com.example.csproject;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Battle-state updates for the switches, HP changes and faints of a fixture battle. Each
+ * benchmark handles all of the battle's events of its kind per operation.
+ */
+@State(Scope.Thread)
+public class BattleStateBenchmark {
+
+    @Param({"synthetic-gen9randombattle-1.log", "synthetic-gen9randombattle-2.log", "synthetic-gen9randombattle-3.log"})
+    public String fixture;
+
+    private BattleEvent[] stateEvents;
+    private BattleEvent.Switch[] switches;
+    private String[] details;
+    private PokemonBattleData[] pokemon;
+    private SpeciesIndex species;
+    private final BattleState state = new BattleState();
+
+    @Setup
+    public void loadTrace() throws IOException {
+        List<BattleEvent> stateList = new ArrayList<>();
+        List<BattleEvent.Switch> switchList = new ArrayList<>();
+        for (BattleEvent event : BattleTraces.events(fixture)) {
+            if (event instanceof BattleEvent.Switch) {
+                switchList.add((BattleEvent.Switch) event);
+                stateList.add(event);
+            } else if (event instanceof BattleEvent.HpChange || event instanceof BattleEvent.Faint) {
+                stateList.add(event);
+            }
+        }
+        stateEvents = stateList.toArray(new BattleEvent[0]);
+        switches = switchList.toArray(new BattleEvent.Switch[0]);
+
+        details = new String[switches.length];
+        pokemon = new PokemonBattleData[switches.length];
+        for (int i = 0; i < switches.length; i++) {
+            details[i] = switches[i].getDetails();
+            pokemon[i] = new PokemonBattleData(switches[i]);
+        }
+
+        try (InputStream in = BattleStateBenchmark.class.getClassLoader().getResourceAsStream(SpeciesIndex.ASSET_NAME)) {
+            species = SpeciesIndex.load(in);
+        }
+    }
+
+    /**
+     * The battle's switches, HP changes and faints in order, through BattleState as
+     * BattleManager applies them
+     */
+    @Benchmark
+    public int applyEvents() {
+        state.reset();
+        int known = 0;
+        for (BattleEvent event : stateEvents) {
+            PokemonBattleData updated;
+            if (event instanceof BattleEvent.Switch) {
+                updated = state.applySwitch((BattleEvent.Switch) event);
+            } else if (event instanceof BattleEvent.HpChange) {
+                updated = state.applyHPChange((BattleEvent.HpChange) event);
+            } else {
+                updated = state.applyFaint((BattleEvent.Faint) event);
+            }
+            if (updated != null) known++;
+        }
+        return known;
+    }
+
+    @Benchmark
+    public void switchIn(Blackhole blackhole) {
+        for (BattleEvent.Switch event : switches) {
+            blackhole.consume(new PokemonBattleData(event));
+        }
+    }
+
+    /**
+     * The details decoding the parser does once per switch
+     */
+    @Benchmark
+    public void parseDetails(Blackhole blackhole) {
+        for (String detail : details) {
+            blackhole.consume(ShowdownIds.toId(BattleProtocolParser.parseSpecies(detail)));
+            blackhole.consume(BattleProtocolParser.parseLevel(detail));
+        }
+    }
+
+    /**
+     * Species table lookup by display name, forms included
+     */
+    @Benchmark
+    public int getDexNumber() {
+        int sum = 0;
+        for (PokemonBattleData data : pokemon) {
+            sum += data.getDexNumber(species);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.csproject;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Inputs for the benchmarks, pulled out of the fixture battles in the app's test resources
+ */
+final class BattleTraces {
+
+    private BattleTraces() {
+    }
+
+    /**
+     * @return Every raw frame of a fixture battle, in arrival order
+     */
+    static String[] frames(String fixture) throws IOException {
+        BattleReplay replay = BattleReplay.load(fixture);
+        String[] frames = new String[replay.getFrameCount()];
+        for (int i = 0; i < frames.length; i++) {
+            frames[i] = replay.getFrame(i);
+        }
+        return frames;
+    }
+
+    /**
+     * @return Every event the parser produces for a fixture battle
+     */
+    static List<BattleEvent> events(String fixture) throws IOException {
+        List<BattleEvent> events = new ArrayList<>();
+        BattleProtocolParser parser = new BattleProtocolParser(events::add);
+        for (String frame : frames(fixture)) {
+            parser.parseFrame(frame);
+        }
+        return events;
+    }
+
+    /**
+     * @return The JSON of every |request| in a fixture battle
+     */
+    static String[] requestPayloads(String fixture) throws IOException {
+        List<String> payloads = new ArrayList<>();
+        for (String frame : frames(fixture)) {
+            for (String line : frame.split("\n")) {
+                if (line.startsWith("|request|")) {
+                    payloads.add(line.substring("|request|".length()));
+                }
+            }
+        }
+        return payloads.toArray(new String[0]);
+    }
+}
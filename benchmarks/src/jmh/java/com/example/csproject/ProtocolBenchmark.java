@@ -0,0 +1,38 @@
+package com.example.csproject;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+
+/**
+ * Parses a whole fixture battle per operation, so ns/op is the parser-thread cost of one
+ * battle. Every protocol line goes through processBattleMessage, including the |request|
+ * payloads.
+ */
+@State(Scope.Thread)
+public class ProtocolBenchmark {
+
+    @Param({"synthetic-gen9randombattle-1.log", "synthetic-gen9randombattle-2.log", "synthetic-gen9randombattle-3.log"})
+    public String fixture;
+
+    private String[] frames;
+
+    @Setup
+    public void loadTrace() throws IOException {
+        frames = BattleTraces.frames(fixture);
+    }
+
+    @Benchmark
+    public int parseBattle(Blackhole blackhole) {
+        BattleProtocolParser parser = new BattleProtocolParser(blackhole::consume);
+        for (String frame : frames) {
+            parser.parseFrame(frame);
+        }
+        return parser.getPlayerSlot();
+    }
+}
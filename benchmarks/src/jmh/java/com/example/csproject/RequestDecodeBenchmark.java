@@ -0,0 +1,54 @@
+package com.example.csproject;
+
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+
+/**
+ * Decodes every |request| payload of a fixture battle per operation, with the streaming
+ * decoder the parser uses and with org.json for comparison.
+ */
+@State(Scope.Thread)
+public class RequestDecodeBenchmark {
+
+    @Param({"synthetic-gen9randombattle-1.log", "synthetic-gen9randombattle-2.log", "synthetic-gen9randombattle-3.log"})
+    public String fixture;
+
+    private String[] payloads;
+    private final RequestDecoder decoder = new RequestDecoder();
+
+    @Setup
+    public void loadTrace() throws IOException {
+        payloads = BattleTraces.requestPayloads(fixture);
+    }
+
+    @Benchmark
+    public void requestDecoder(Blackhole blackhole) {
+        for (String payload : payloads) {
+            blackhole.consume(decoder.decode(payload));
+        }
+    }
+
+    @Benchmark
+    public void jsonObjectSnapshot(Blackhole blackhole) throws Exception {
+        for (String payload : payloads) {
+            blackhole.consume(JsonRequestSnapshots.fromJson(new JSONObject(payload)));
+        }
+    }
+
+    /**
+     * Just building the tree, as the parser did before requests were decoded into snapshots
+     */
+    @Benchmark
+    public void jsonObjectTree(Blackhole blackhole) throws Exception {
+        for (String payload : payloads) {
+            blackhole.consume(new JSONObject(payload));
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package android.content;
+
+import android.content.res.AssetManager;
+
+/**
+ * Just enough of android.content.Context for SpeciesIndex.getInstance to compile. The
+ * benchmarks load the species table with SpeciesIndex.load instead.
+ */
+public abstract class Context {
+    public abstract AssetManager getAssets();
+}
@@ -0,0 +1,11 @@
+package android.content.res;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Stand-in for android.content.res.AssetManager, see android.content.Context.
+ */
+public abstract class AssetManager {
+    public abstract InputStream open(String fileName) throws IOException;
+}
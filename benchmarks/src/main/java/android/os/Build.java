@@ -0,0 +1,14 @@
+package android.os;
+
+/**
+ * Just enough of android.os.Build for the SDK checks in TraceLog.
+ */
+public class Build {
+    public static class VERSION {
+        public static final int SDK_INT = VERSION_CODES.Q;
+    }
+
+    public static class VERSION_CODES {
+        public static final int Q = 29;
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.csproject;
+
+/**
+ * Matches the app's release BuildConfig, so the benchmarks measure what ships: debug
+ * logging compiled out, trace spans on.
+ */
+public final class BuildConfig {
+    public static final boolean DEBUG = false;
+    public static final int TRACE_LEVEL = android.util.Log.WARN;
+    public static final boolean TRACE_SPANS = true;
+
+    private BuildConfig() {
+    }
+}
@@ -0,0 +1,59 @@
+#!/usr/bin/env python3
+"""Build an offline asset pack for the app from a directory laid out like play.pokemonshowdown.com.
+
+    mkdir -p pack/sprites/ani pack/audio/cries
+    curl -o pack/sprites/ani/pikachu.gif https://play.pokemonshowdown.com/sprites/ani/pikachu.gif
+    ...
+    python3 scripts/build_asset_pack.py pack assets.pack
+
+    # On a debug build, put it where AssetPack looks for it, then restart the app
+    adb push assets.pack /data/local/tmp/
+    adb shell run-as com.example.csproject cp /data/local/tmp/assets.pack files/assets.pack
+
+A downloaded pack can be installed at runtime with AssetPack.install instead.
+
+Each file becomes an entry keyed by its path relative to the directory, with '/' separators.
+The format is described in AssetPack.java.
+"""
+import os
+import struct
+import sys
+
+MAGIC = 0x43534150  # "CSAP"
+VERSION = 1
+HEADER = struct.Struct(">iii")
+MAX_BYTES = 2 ** 31 - 1
+
+
+def collect(root):
+    entries = {}
+    for directory, _, files in os.walk(root):
+        for name in files:
+            path = os.path.join(directory, name)
+            key = os.path.relpath(path, root).replace(os.sep, "/")
+            with open(path, "rb") as f:
+                entries[key] = f.read()
+    return entries
+
+
+def write(entries, out_path):
+    keys = sorted(entries)
+    encoded = [k.encode("utf-8") for k in keys]
+    index_bytes = sum(2 + len(k) + 8 + 4 for k in encoded)
+    offset = HEADER.size + index_bytes
+    if offset + sum(len(v) for v in entries.values()) > MAX_BYTES:
+        sys.exit("pack would be larger than 2 GB")
+    with open(out_path, "wb") as out:
+        out.write(HEADER.pack(MAGIC, VERSION, len(keys)))
+        for key, raw in zip(keys, encoded):
+            out.write(struct.pack(">H", len(raw)) + raw + struct.pack(">qi", offset, len(entries[key])))
+            offset += len(entries[key])
+        for key in keys:
+            out.write(entries[key])
+    return len(keys)
+
+
+if __name__ == "__main__":
+    if len(sys.argv) != 3:
+        sys.exit(__doc__)
+    print("wrote %d entries" % write(collect(sys.argv[1]), sys.argv[2]))
@@ -0,0 +1,753 @@
+#!/usr/bin/env python3
+"""Regenerate the synthetic battle fixtures in app/src/test/resources/replays.
+
+    python3 scripts/generate_replays.py
+
+These are not captures of real battles. A small simulator plays out a [Gen 9] Random Battle
+from the client's side and writes the websocket frames in the format BattleReplay reads: an
+"@<ms>" marker with the frame's arrival time, then the frame text. The simulator uses the
+real type chart, move order, pivot and faint switch requests, hazards, weather, items and
+switch-in abilities, so every protocol line the client sees has the shape the server would
+send. Stats, damage and the AI are made up.
+
+The output is deterministic. Each fixture is checked for a minimum set of protocol commands
+and for a result; a seed that misses one is skipped for the next, so editing the simulator
+can change which seed a fixture uses but never silently drops coverage.
+"""
+import json
+import os
+import random
+
+OUT_DIR = os.path.join(os.path.dirname(__file__), "..", "app", "src", "test", "resources", "replays")
+
+# Protocol commands every fixture must contain
+REQUIRED = ["request", "switch", "move", "-damage", "-heal", "faint", "turn", "upkeep", "cant", "c",
+            "inactive", "-supereffective", "-resisted", "-crit", "-hitcount", "-immune", "-miss",
+            "-enditem", "-ability", "-item", "-weather", "-activate", "-terastallize"]
+
+# Attacking type -> (super effective against, resisted by, no effect on)
+CHART = {
+    "Normal": ([], ["Rock", "Steel"], ["Ghost"]),
+    "Fire": (["Grass", "Ice", "Bug", "Steel"], ["Fire", "Water", "Rock", "Dragon"], []),
+    "Water": (["Fire", "Ground", "Rock"], ["Water", "Grass", "Dragon"], []),
+    "Electric": (["Water", "Flying"], ["Electric", "Grass", "Dragon"], ["Ground"]),
+    "Grass": (["Water", "Ground", "Rock"], ["Fire", "Grass", "Poison", "Flying", "Bug", "Dragon", "Steel"], []),
+    "Ice": (["Grass", "Ground", "Flying", "Dragon"], ["Fire", "Water", "Ice", "Steel"], []),
+    "Fighting": (["Normal", "Ice", "Rock", "Dark", "Steel"], ["Poison", "Flying", "Psychic", "Bug", "Fairy"], ["Ghost"]),
+    "Poison": (["Grass", "Fairy"], ["Poison", "Ground", "Rock", "Ghost"], ["Steel"]),
+    "Ground": (["Fire", "Electric", "Poison", "Rock", "Steel"], ["Grass", "Bug"], ["Flying"]),
+    "Flying": (["Grass", "Fighting", "Bug"], ["Electric", "Rock", "Steel"], []),
+    "Psychic": (["Fighting", "Poison"], ["Psychic", "Steel"], ["Dark"]),
+    "Bug": (["Grass", "Psychic", "Dark"], ["Fire", "Fighting", "Poison", "Flying", "Ghost", "Steel", "Fairy"], []),
+    "Rock": (["Fire", "Ice", "Flying", "Bug"], ["Fighting", "Ground", "Steel"], []),
+    "Ghost": (["Psychic", "Ghost"], ["Dark"], ["Normal"]),
+    "Dragon": (["Dragon"], ["Steel"], ["Fairy"]),
+    "Dark": (["Psychic", "Ghost"], ["Fighting", "Dark", "Fairy"], []),
+    "Steel": (["Ice", "Rock", "Fairy"], ["Fire", "Water", "Electric", "Steel"], []),
+    "Fairy": (["Fighting", "Dragon", "Dark"], ["Fire", "Poison", "Steel"], []),
+}
+
+# name: (type, category, power, accuracy, priority, effects)
+MOVES = {
+    "Acrobatics": ("Flying", "Physical", 55, 100, 0, {}),
+    "Aqua Jet": ("Water", "Physical", 40, 100, 1, {}),
+    "Brave Bird": ("Flying", "Physical", 120, 100, 0, {"recoil": 3}),
+    "Calm Mind": ("Psychic", "Status", 0, 0, 0, {"boost": [("spa", 1), ("spd", 1)]}),
+    "Close Combat": ("Fighting", "Physical", 120, 100, 0, {"drop": [("def", 1), ("spd", 1)]}),
+    "Dazzling Gleam": ("Fairy", "Special", 80, 100, 0, {}),
+    "Defog": ("Flying", "Status", 0, 0, 0, {"defog": True}),
+    "Draco Meteor": ("Dragon", "Special", 130, 90, 0, {"drop": [("spa", 2)]}),
+    "Dragon Dance": ("Dragon", "Status", 0, 0, 0, {"boost": [("atk", 1), ("spe", 1)]}),
+    "Earthquake": ("Ground", "Physical", 100, 100, 0, {}),
+    "Energy Ball": ("Grass", "Special", 90, 100, 0, {}),
+    "Fire Blast": ("Fire", "Special", 110, 85, 0, {}),
+    "Flamethrower": ("Fire", "Special", 90, 100, 0, {}),
+    "Flip Turn": ("Water", "Physical", 60, 100, 0, {"pivot": True}),
+    "Flower Trick": ("Grass", "Physical", 70, 0, 0, {"crit": True}),
+    "Focus Blast": ("Fighting", "Special", 120, 70, 0, {}),
+    "Grass Knot": ("Grass", "Special", 80, 100, 0, {}),
+    "Haze": ("Ice", "Status", 0, 0, 0, {"haze": True}),
+    "Headlong Rush": ("Ground", "Physical", 120, 100, 0, {"drop": [("def", 1), ("spd", 1)]}),
+    "Horn Leech": ("Grass", "Physical", 75, 100, 0, {"drain": True}),
+    "Hydro Pump": ("Water", "Special", 110, 80, 0, {}),
+    "Hydro Steam": ("Water", "Special", 80, 100, 0, {}),
+    "Ice Spinner": ("Ice", "Physical", 80, 100, 0, {}),
+    "Iron Head": ("Steel", "Physical", 80, 100, 0, {}),
+    "Ivy Cudgel": ("Water", "Physical", 100, 100, 0, {}),
+    "Knock Off": ("Dark", "Physical", 65, 100, 0, {"knock": True}),
+    "Kowtow Cleave": ("Dark", "Physical", 85, 0, 0, {}),
+    "Make It Rain": ("Steel", "Special", 120, 100, 0, {"drop": [("spa", 1)]}),
+    "Moonblast": ("Fairy", "Special", 95, 100, 0, {}),
+    "Mystical Fire": ("Fire", "Special", 75, 100, 0, {"lower": ("spa", 1)}),
+    "Nasty Plot": ("Dark", "Status", 0, 0, 0, {"boost": [("spa", 2)]}),
+    "Play Rough": ("Fairy", "Physical", 90, 90, 0, {}),
+    "Poison Jab": ("Poison", "Physical", 80, 100, 0, {}),
+    "Psychic": ("Psychic", "Special", 90, 100, 0, {}),
+    "Psyshock": ("Psychic", "Special", 80, 100, 0, {}),
+    "Rapid Spin": ("Normal", "Physical", 50, 100, 0, {"spin": True, "boost": [("spe", 1)]}),
+    "Recover": ("Normal", "Status", 0, 0, 0, {"heal": True}),
+    "Roost": ("Flying", "Status", 0, 0, 0, {"heal": True}),
+    "Ruination": ("Dark", "Special", 0, 90, 0, {"halve": True}),
+    "Scale Shot": ("Dragon", "Physical", 25, 90, 0, {"hits": (2, 5)}),
+    "Seismic Toss": ("Fighting", "Physical", 0, 100, 0, {"level": True}),
+    "Shadow Ball": ("Ghost", "Special", 80, 100, 0, {}),
+    "Shadow Claw": ("Ghost", "Physical", 70, 100, 0, {}),
+    "Shadow Sneak": ("Ghost", "Physical", 40, 100, 1, {}),
+    "Slack Off": ("Normal", "Status", 0, 0, 0, {"heal": True}),
+    "Soft-Boiled": ("Normal", "Status", 0, 0, 0, {"heal": True}),
+    "Spikes": ("Ground", "Status", 0, 0, 0, {"hazard": "Spikes"}),
+    "Stealth Rock": ("Rock", "Status", 0, 0, 0, {"hazard": "Stealth Rock"}),
+    "Stone Edge": ("Rock", "Physical", 100, 80, 0, {}),
+    "Sucker Punch": ("Dark", "Physical", 70, 100, 1, {}),
+    "Surf": ("Water", "Special", 90, 100, 0, {}),
+    "Surging Strikes": ("Water", "Physical", 25, 100, 0, {"hits": (3, 3), "crit": True}),
+    "Swords Dance": ("Normal", "Status", 0, 0, 0, {"boost": [("atk", 2)]}),
+    "Synthesis": ("Grass", "Status", 0, 0, 0, {"heal": True}),
+    "Thunder Wave": ("Electric", "Status", 0, 90, 0, {"status": "par"}),
+    "Thunderbolt": ("Electric", "Special", 90, 100, 0, {}),
+    "Torch Song": ("Fire", "Special", 80, 100, 0, {"raise": [("spa", 1)]}),
+    "Toxic": ("Poison", "Status", 0, 90, 0, {"status": "tox"}),
+    "Triple Axel": ("Ice", "Physical", 20, 90, 0, {"hits": (3, 3)}),
+    "U-turn": ("Bug", "Physical", 70, 100, 0, {"pivot": True}),
+    "Volt Switch": ("Electric", "Special", 70, 100, 0, {"pivot": True}),
+    "Volt Tackle": ("Electric", "Physical", 120, 100, 0, {"recoil": 3}),
+    "Will-O-Wisp": ("Fire", "Status", 0, 85, 0, {"status": "brn"}),
+}
+
+# species, level, gender, max HP, stats, types, moves, ability, item, tera type
+POOL = [
+    ("Garchomp", 77, "F", 261, (237, 191, 153, 168, 202), ["Dragon", "Ground"],
+     ["Swords Dance", "Earthquake", "Scale Shot", "Fire Blast"], "Rough Skin", "Loaded Dice", "Fire"),
+    ("Pikachu", 92, "F", 211, (180, 120, 170, 150, 250), ["Electric"],
+     ["Volt Switch", "Surf", "Grass Knot", "Volt Tackle"], "Lightning Rod", "Light Ball", "Grass"),
+    ("Ting-Lu", 77, "", 355, (200, 250, 130, 170, 100), ["Dark", "Ground"],
+     ["Spikes", "Earthquake", "Ruination", "Stealth Rock"], "Vessel of Ruin", "Leftovers", "Poison"),
+    ("Toxapex", 85, "M", 227, (125, 356, 125, 278, 86), ["Poison", "Water"],
+     ["Haze", "Recover", "Toxic", "Surf"], "Regenerator", "Black Sludge", "Fairy"),
+    ("Iron Valiant", 79, "", 237, (235, 172, 235, 188, 235), ["Fairy", "Fighting"],
+     ["Moonblast", "Psyshock", "Shadow Ball", "Close Combat"], "Quark Drive", "Booster Energy", "Fairy"),
+    ("Kingambit", 75, "M", 259, (235, 211, 136, 151, 113), ["Dark", "Steel"],
+     ["Swords Dance", "Kowtow Cleave", "Sucker Punch", "Iron Head"], "Supreme Overlord", "Black Glasses", "Dark"),
+    ("Urshifu-Rapid-Strike", 80, "M", 250, (240, 200, 130, 160, 210), ["Fighting", "Water"],
+     ["Surging Strikes", "Close Combat", "U-turn", "Aqua Jet"], "Unseen Fist", "Choice Band", "Water"),
+    ("Great Tusk", 78, "", 289, (250, 246, 111, 152, 199), ["Ground", "Fighting"],
+     ["Headlong Rush", "Ice Spinner", "Rapid Spin", "Close Combat"], "Protosynthesis", "Booster Energy", "Ground"),
+    ("Dragapult", 76, "F", 238, (214, 149, 199, 149, 267), ["Dragon", "Ghost"],
+     ["Draco Meteor", "Shadow Ball", "U-turn", "Fire Blast"], "Infiltrator", "Choice Specs", "Ghost"),
+    ("Corviknight", 82, "M", 297, (200, 240, 130, 198, 168), ["Flying", "Steel"],
+     ["Brave Bird", "Roost", "Defog", "U-turn"], "Pressure", "Leftovers", "Dragon"),
+    ("Gholdengo", 78, "", 240, (114, 222, 246, 199, 184), ["Steel", "Ghost"],
+     ["Make It Rain", "Shadow Ball", "Nasty Plot", "Recover"], "Good as Gold", "Leftovers", "Steel"),
+    ("Flutter Mane", 78, "", 206, (92, 120, 246, 246, 246), ["Ghost", "Fairy"],
+     ["Moonblast", "Shadow Ball", "Mystical Fire", "Calm Mind"], "Protosynthesis", "Booster Energy", "Fairy"),
+    ("Skeledirge", 80, "F", 296, (162, 224, 218, 165, 136), ["Fire", "Ghost"],
+     ["Torch Song", "Shadow Ball", "Slack Off", "Will-O-Wisp"], "Unaware", "Heavy-Duty Boots", "Fairy"),
+    ("Clodsire", 85, "M", 336, (193, 193, 125, 227, 57), ["Poison", "Ground"],
+     ["Earthquake", "Poison Jab", "Recover", "Toxic"], "Water Absorb", "Leftovers", "Flying"),
+    ("Meowscarada", 79, "F", 237, (238, 168, 177, 168, 245), ["Grass", "Dark"],
+     ["Flower Trick", "Knock Off", "U-turn", "Triple Axel"], "Protean", "Choice Band", "Grass"),
+    ("Roaring Moon", 76, "", 267, (246, 163, 128, 189, 217), ["Dragon", "Dark"],
+     ["Dragon Dance", "Acrobatics", "Knock Off", "Earthquake"], "Protosynthesis", "Booster Energy", "Flying"),
+    ("Walking Wake", 79, "", 260, (163, 180, 216, 180, 205), ["Water", "Dragon"],
+     ["Hydro Steam", "Draco Meteor", "Flamethrower", "Flip Turn"], "Protosynthesis", "Choice Specs", "Water"),
+    ("Mimikyu", 79, "F", 206, (201, 162, 106, 210, 188), ["Ghost", "Fairy"],
+     ["Swords Dance", "Play Rough", "Shadow Sneak", "Shadow Claw"], "Disguise", "Life Orb", "Ghost"),
+    ("Blissey", 88, "F", 589, (40, 40, 169, 301, 134), ["Normal"],
+     ["Seismic Toss", "Soft-Boiled", "Thunder Wave", "Stealth Rock"], "Natural Cure", "Heavy-Duty Boots", "Ghost"),
+    ("Rotom-Wash", 84, "", 234, (115, 203, 195, 203, 168), ["Electric", "Water"],
+     ["Hydro Pump", "Volt Switch", "Will-O-Wisp", "Thunder Wave"], "Levitate", "Leftovers", "Water"),
+    ("Flabébé", 100, "F", 213, (119, 129, 192, 241, 139), ["Fairy"],
+     ["Moonblast", "Synthesis", "Calm Mind", "Energy Ball"], "Flower Veil", "Eviolite", "Fairy"),
+    ("Mr. Mime", 91, "M", 229, (94, 158, 222, 259, 204), ["Psychic", "Fairy"],
+     ["Psychic", "Dazzling Gleam", "Focus Blast", "Nasty Plot"], "Filter", "Life Orb", "Fighting"),
+    ("Farfetch’d", 100, "M", 243, (194, 146, 150, 166, 156), ["Normal", "Flying"],
+     ["Brave Bird", "Close Combat", "Knock Off", "Swords Dance"], "Defiant", "Leek", "Flying"),
+    ("Ogerpon-Wellspring", 76, "F", 254, (230, 192, 131, 192, 215), ["Grass", "Water"],
+     ["Ivy Cudgel", "Horn Leech", "Knock Off", "Swords Dance"], "Water Absorb", "Wellspring Mask", "Water"),
+    ("Tyranitar", 78, "M", 284, (246, 225, 175, 205, 141), ["Rock", "Dark"],
+     ["Stone Edge", "Knock Off", "Stealth Rock", "Earthquake"], "Sand Stream", "Leftovers", "Ghost"),
+    ("Excadrill", 81, "F", 282, (256, 148, 115, 164, 194), ["Ground", "Steel"],
+     ["Earthquake", "Iron Head", "Rapid Spin", "Swords Dance"], "Mold Breaker", "Air Balloon", "Water"),
+]
+
+# Always in the battle, split between the sides, so weather, items, paralysis and multi-hit
+# moves show up in every fixture
+FEATURED = ["Tyranitar", "Excadrill", "Blissey", "Urshifu-Rapid-Strike"]
+
+# Forms whose ident drops the forme name
+IDENT_NAMES = {"Urshifu-Rapid-Strike": "Urshifu", "Rotom-Wash": "Rotom", "Ogerpon-Wellspring": "Ogerpon"}
+
+# Switch-in abilities announced with |-ability|
+ANNOUNCED = {"Pressure", "Mold Breaker", "Vessel of Ruin"}
+
+# Items that can't be knocked off
+FIXED_ITEMS = {"Wellspring Mask", "Booster Energy"}
+
+STAT_NAMES = ["atk", "def", "spa", "spd", "spe"]
+
+
+def to_id(name):
+    return "".join(ch for ch in name.lower().replace("é", "e") if ch.isalnum())
+
+
+def compact(obj):
+    return json.dumps(obj, separators=(",", ":"), ensure_ascii=False)
+
+
+def effectiveness(move_type, defender_types):
+    result = 1.0
+    for t in defender_types:
+        strong, weak, immune = CHART[move_type]
+        if t in immune:
+            return 0.0
+        if t in strong:
+            result *= 2
+        elif t in weak:
+            result /= 2
+    return result
+
+
+class Mon:
+    def __init__(self, entry, side, rng):
+        (self.species, self.level, self.gender, self.maxhp, stats, self.types, self.moves,
+         self.ability, self.item, self.tera) = entry
+        self.stats = dict(zip(STAT_NAMES, stats))
+        self.name = IDENT_NAMES.get(self.species, self.species)
+        self.side = side
+        self.hp = self.maxhp
+        self.status = ""
+        self.toxic_turns = 0
+        self.boosts = {}
+        self.terastallized = False
+        self.busted = False
+        self.balloon = self.item == "Air Balloon"
+        self.maxpp = {m: rng.choice([8, 16, 24, 32]) for m in self.moves}
+        self.pp = dict(self.maxpp)
+
+    def current_species(self):
+        return "Mimikyu-Busted" if self.busted else self.species
+
+    def details(self):
+        return self.current_species() + ", L%d" % self.level + (", " + self.gender if self.gender else "")
+
+    def condition(self, own):
+        if self.hp <= 0:
+            return "0 fnt"
+        hp = "%d/%d" % (self.hp, self.maxhp) if own else "%d/100" % max(1, self.hp * 100 // self.maxhp)
+        return hp + (" " + self.status if self.status else "")
+
+    def defensive_types(self):
+        return [self.tera] if self.terastallized else self.types
+
+    def grounded(self):
+        return "Flying" not in self.defensive_types() and self.ability != "Levitate" and not self.balloon
+
+
+class Battle:
+    def __init__(self, seed, room, me, opponent, my_side):
+        self.rng = random.Random(seed)
+        featured = [e for e in POOL if e[0] in FEATURED]
+        others = self.rng.sample([e for e in POOL if e[0] not in FEATURED], 8)
+        self.rng.shuffle(featured)
+        teams = {1: featured[:2] + others[:4], 2: featured[2:] + others[4:]}
+        for team in teams.values():
+            self.rng.shuffle(team)
+        self.sides = {side: [Mon(e, side, self.rng) for e in team] for side, team in teams.items()}
+        self.room = room
+        self.mine = my_side
+        self.names = {my_side: me, 3 - my_side: opponent}
+        self.active = {1: 0, 2: 0}
+        self.hazards = {1: set(), 2: set()}
+        self.weather = None
+        self.weather_turns = 0
+        self.tera_used = {1: False, 2: False}
+        self.frames = []
+        self.clock = 0
+        self.rqid = 0
+        self.timestamp = 1697040000 + seed * 1000
+        self.turn = 0
+
+    # Output
+
+    def frame(self, lines, delay):
+        self.clock += delay
+        self.frames.append((self.clock, lines))
+
+    def battle_frame(self, lines, delay):
+        self.frame([">" + self.room] + lines, delay)
+
+    def ident(self, mon, active=True):
+        return "p%d%s: %s" % (mon.side, "a" if active else "", mon.name)
+
+    def side_ident(self, side):
+        return "p%d: %s" % (side, self.names[side])
+
+    def on_field(self, side):
+        return self.sides[side][self.active[side]]
+
+    def alive(self, side):
+        return [i for i, m in enumerate(self.sides[side]) if m.hp > 0]
+
+    def request(self, kind, delay):
+        self.rqid += 1
+        team = self.sides[self.mine]
+        current = self.on_field(self.mine)
+        pokemon = []
+        for i, m in enumerate(team):
+            pokemon.append({
+                "ident": self.ident(m, False), "details": m.details(), "condition": m.condition(True),
+                "active": i == self.active[self.mine], "stats": m.stats, "moves": [to_id(x) for x in m.moves],
+                "baseAbility": to_id(m.ability), "item": to_id(m.item) if m.item else "",
+                "pokeball": "pokeball", "ability": to_id(m.ability), "commanding": False, "reviving": False,
+                "teraType": m.tera, "terastallized": m.tera if m.terastallized else ""})
+        side = {"name": self.names[self.mine], "id": "p%d" % self.mine, "pokemon": pokemon}
+        if kind == "wait":
+            req = {"wait": True, "side": side, "rqid": self.rqid}
+        elif kind == "switch":
+            req = {"forceSwitch": [True], "side": side, "noCancel": True, "rqid": self.rqid}
+        else:
+            moves = []
+            for x in current.moves:
+                move_type, category, _, _, _, _ = MOVES[x]
+                moves.append({"move": x, "id": to_id(x), "pp": current.pp[x], "maxpp": current.maxpp[x],
+                              "target": "self" if category == "Status" and x not in ("Thunder Wave", "Toxic", "Will-O-Wisp")
+                              else "normal", "disabled": False})
+            active = {"moves": moves}
+            if not self.tera_used[self.mine]:
+                active["canTerastallize"] = current.tera
+            req = {"active": [active], "side": side, "rqid": self.rqid}
+        self.battle_frame(["|request|" + compact(req)], delay)
+
+    # Battle mechanics
+
+    def damage_line(self, mon, suffix=""):
+        return "|-damage|%s|%s%s" % (self.ident(mon), mon.condition(mon.side == self.mine), suffix)
+
+    def heal_line(self, mon, suffix=""):
+        return "|-heal|%s|%s%s" % (self.ident(mon), mon.condition(mon.side == self.mine), suffix)
+
+    def switch_in(self, side, index, lines, start=True):
+        self.active[side] = index
+        mon = self.on_field(side)
+        mon.boosts = {}
+        mon.toxic_turns = 0
+        lines.append("|switch|%s|%s|%s" % (self.ident(mon), mon.details(), mon.condition(side == self.mine)))
+        if start:
+            self.start(mon, lines)
+
+    def start(self, mon, lines):
+        """Entry hazards, then switch-in abilities and items"""
+        side = mon.side
+        if mon.item != "Heavy-Duty Boots":
+            if "Stealth Rock" in self.hazards[side]:
+                mon.hp = max(0, mon.hp - int(mon.maxhp / 8 * effectiveness("Rock", mon.defensive_types())))
+                lines.append(self.damage_line(mon, "|[from] Stealth Rock"))
+            if "Spikes" in self.hazards[side] and mon.grounded() and mon.hp > 0:
+                mon.hp = max(0, mon.hp - mon.maxhp // 8)
+                lines.append(self.damage_line(mon, "|[from] Spikes"))
+            if mon.hp <= 0:
+                lines.append("|faint|%s" % self.ident(mon))
+                return
+        if mon.ability in ANNOUNCED:
+            lines.append("|-ability|%s|%s" % (self.ident(mon), mon.ability))
+        if mon.ability == "Sand Stream" and self.weather != "Sandstorm":
+            self.weather = "Sandstorm"
+            self.weather_turns = 5
+            lines.append("|-weather|Sandstorm|[from] ability: Sand Stream|[of] %s" % self.ident(mon))
+        if mon.balloon:
+            lines.append("|-item|%s|Air Balloon" % self.ident(mon))
+        if mon.item == "Booster Energy":
+            mon.item = ""
+            best = max(STAT_NAMES, key=lambda s: mon.stats[s])
+            ability = mon.ability
+            lines.append("|-enditem|%s|Booster Energy" % self.ident(mon))
+            lines.append("|-activate|%s|ability: %s|[fromitem]" % (self.ident(mon), ability))
+            lines.append("|-start|%s|%s%s" % (self.ident(mon), to_id(ability), best))
+
+    def choose_move(self, mon, target):
+        options = [m for m in mon.moves if mon.pp[m] > 0] or mon.moves
+        move = self.rng.choice(options)
+        move_type, category = MOVES[move][0], MOVES[move][1]
+        # Re-roll once if the target is obviously immune
+        if category != "Status" and effectiveness(move_type, target.defensive_types()) == 0:
+            move = self.rng.choice(options)
+        return move
+
+    def speed(self, mon):
+        spe = mon.stats["spe"] * (1 + 0.5 * mon.boosts.get("spe", 0))
+        return spe / 2 if mon.status == "par" else spe
+
+    def boost(self, mon, changes, lines, verb="-boost"):
+        for stat, amount in changes:
+            mon.boosts[stat] = mon.boosts.get(stat, 0) + (amount if verb == "-boost" else -amount)
+            lines.append("|%s|%s|%s|%d" % (verb, self.ident(mon), stat, amount))
+
+    def status_move(self, user, target, move, lines):
+        effects = MOVES[move][5]
+        if "status" in effects:
+            lines.append("|move|%s|%s|%s" % (self.ident(user), move, self.ident(target)))
+            status = effects["status"]
+            immune = ((status == "brn" and "Fire" in target.defensive_types())
+                      or (status == "par" and ("Electric" in target.defensive_types()
+                                               or effectiveness("Electric", target.defensive_types()) == 0))
+                      or (status == "tox" and ("Poison" in target.defensive_types()
+                                               or "Steel" in target.defensive_types())))
+            if target.ability == "Good as Gold":
+                lines.append("|-immune|%s|[from] ability: Good as Gold" % self.ident(target))
+            elif immune:
+                lines.append("|-immune|%s" % self.ident(target))
+            elif target.status:
+                lines.append("|-fail|%s|%s" % (self.ident(target), target.status))
+            elif self.rng.random() * 100 >= MOVES[move][3]:
+                lines.append("|-miss|%s|%s" % (self.ident(user), self.ident(target)))
+            else:
+                target.status = status
+                lines.append("|-status|%s|%s" % (self.ident(target), status))
+            return
+
+        if "hazard" in effects:
+            foe = 3 - user.side
+            lines.append("|move|%s|%s|%s" % (self.ident(user), move, self.ident(target)))
+            hazard = effects["hazard"]
+            if hazard in self.hazards[foe]:
+                lines.append("|-fail|%s" % self.ident(user))
+            else:
+                self.hazards[foe].add(hazard)
+                lines.append("|-sidestart|%s|%s" % (self.side_ident(foe), "move: " + hazard if hazard == "Stealth Rock" else hazard))
+            return
+
+        if "defog" in effects:
+            lines.append("|move|%s|%s|%s" % (self.ident(user), move, self.ident(target)))
+            lines.append("|-unboost|%s|evasion|1" % self.ident(target))
+            for side in (1, 2):
+                for hazard in sorted(self.hazards[side]):
+                    lines.append("|-sideend|%s|%s|[from] move: Defog|[of] %s"
+                                 % (self.side_ident(side), hazard, self.ident(user)))
+                self.hazards[side].clear()
+            return
+
+        lines.append("|move|%s|%s|%s" % (self.ident(user), move, self.ident(user)))
+        if "heal" in effects:
+            if user.hp == user.maxhp:
+                lines.append("|-fail|%s|heal" % self.ident(user))
+            else:
+                user.hp = min(user.maxhp, user.hp + user.maxhp // 2)
+                lines.append(self.heal_line(user))
+        elif "boost" in effects:
+            self.boost(user, effects["boost"], lines)
+        elif "haze" in effects:
+            user.boosts = {}
+            target.boosts = {}
+            lines.append("|-clearallboost")
+
+    def attack(self, user, target, move, lines):
+        move_type, category, power, accuracy, _, effects = MOVES[move]
+        lines.append("|move|%s|%s|%s" % (self.ident(user), move, self.ident(target)))
+
+        if accuracy and self.rng.random() * 100 >= accuracy:
+            lines.append("|-miss|%s|%s" % (self.ident(user), self.ident(target)))
+            return False
+
+        # Immunities from abilities and items come before the type chart
+        if move_type == "Ground" and target.balloon:
+            lines.append("|-immune|%s" % self.ident(target))
+            return False
+        if move_type == "Ground" and target.ability == "Levitate" and user.ability != "Mold Breaker":
+            lines.append("|-immune|%s|[from] ability: Levitate" % self.ident(target))
+            return False
+        if move_type == "Water" and target.ability == "Water Absorb" and user.ability != "Mold Breaker":
+            if target.hp == target.maxhp:
+                lines.append("|-immune|%s|[from] ability: Water Absorb" % self.ident(target))
+            else:
+                target.hp = min(target.maxhp, target.hp + target.maxhp // 4)
+                lines.append(self.heal_line(target, "|[from] ability: Water Absorb|[of] %s" % self.ident(user)))
+            return False
+        if move_type == "Electric" and target.ability == "Lightning Rod":
+            self.boost(target, [("spa", 1)], lines)
+            lines[-1] += "|[from] ability: Lightning Rod"
+            return False
+
+        types = target.defensive_types()
+        multiplier = 1.0 if effects.get("level") and "Ghost" not in types else effectiveness(move_type, types)
+        if multiplier == 0:
+            lines.append("|-immune|%s" % self.ident(target))
+            return False
+
+        low, high = effects.get("hits", (1, 1))
+        hits = low if low == high else self.rng.choice([2, 2, 3, 3, 4, 5])
+        hit = 0
+        total = 0
+        while hit < hits and target.hp > 0:
+            hit += 1
+            if target.ability == "Disguise" and not target.busted and user.ability != "Mold Breaker":
+                target.busted = True
+                lines.append("|-activate|%s|ability: Disguise" % self.ident(target))
+                lines.append("|detailschange|%s|%s" % (self.ident(target), target.details()))
+                target.hp = max(1, target.hp - target.maxhp // 8)
+                lines.append(self.damage_line(target, "|[from] pokemon: Mimikyu-Busted"))
+                continue
+
+            if effects.get("level"):
+                dealt = user.level
+            elif effects.get("halve"):
+                dealt = max(1, target.hp // 2)
+            else:
+                attack = user.stats["atk" if category == "Physical" else "spa"]
+                defense = target.stats["def" if category == "Physical" else "spd"]
+                stab = 1.5 if move_type in user.types or (user.terastallized and move_type == user.tera) else 1.0
+                dealt = target.maxhp * self.rng.uniform(0.16, 0.3) * power / 80 * attack / defense * stab
+                if multiplier > 1:
+                    lines.append("|-supereffective|%s" % self.ident(target))
+                elif multiplier < 1:
+                    lines.append("|-resisted|%s" % self.ident(target))
+                dealt *= multiplier
+                if effects.get("crit") or self.rng.random() < 1 / 24:
+                    lines.append("|-crit|%s" % self.ident(target))
+                    dealt *= 1.5
+                dealt = max(1, int(dealt))
+            target.hp = max(0, target.hp - dealt)
+            total += dealt
+            lines.append(self.damage_line(target))
+            if target.balloon:
+                target.balloon = False
+                target.item = ""
+                lines.append("|-enditem|%s|Air Balloon" % self.ident(target))
+        if low != high or hits > 1:
+            lines.append("|-hitcount|%s|%d" % (self.ident(target), hit))
+
+        if effects.get("drain") and user.hp < user.maxhp and total:
+            user.hp = min(user.maxhp, user.hp + total // 2)
+            lines.append(self.heal_line(user, "|[from] drain|[of] %s" % self.ident(target)))
+        if effects.get("knock") and target.item and target.item not in FIXED_ITEMS and target.hp > 0:
+            lines.append("|-enditem|%s|%s|[from] move: Knock Off|[of] %s" % (self.ident(target), target.item, self.ident(user)))
+            target.item = ""
+        if "lower" in effects and target.hp > 0:
+            self.boost(target, [effects["lower"]], lines, "-unboost")
+        if "raise" in effects:
+            self.boost(user, effects["raise"], lines)
+        if "drop" in effects:
+            self.boost(user, effects["drop"], lines, "-unboost")
+        if effects.get("spin"):
+            for hazard in sorted(self.hazards[user.side]):
+                lines.append("|-sideend|%s|%s|[from] move: Rapid Spin|[of] %s"
+                             % (self.side_ident(user.side), hazard, self.ident(user)))
+            self.hazards[user.side].clear()
+            self.boost(user, effects["boost"], lines)
+        if effects.get("recoil") and total:
+            user.hp = max(0, user.hp - total // effects["recoil"])
+            lines.append(self.damage_line(user, "|[from] Recoil"))
+        if user.item == "Life Orb" and user.hp > 0:
+            user.hp = max(0, user.hp - user.maxhp // 10)
+            lines.append(self.damage_line(user, "|[from] item: Life Orb"))
+        return True
+
+    def pivot(self, user, lines):
+        """U-turn and friends: the user's side picks a replacement before the turn goes on."""
+        side = user.side
+        bench = [i for i in self.alive(side) if i != self.active[side]]
+        if user.hp <= 0 or not bench:
+            return lines
+        # The log so far goes out once both sides have chosen, with the request (or a wait)
+        # ahead of it. The rest of the turn follows once the switch is chosen.
+        self.request("switch" if side == self.mine else "wait", self.next_delay)
+        self.battle_frame(lines, 5)
+        self.next_delay = self.rng.randint(2000, 9000)
+        rest = []
+        self.switch_in(side, self.rng.choice(bench), rest)
+        return rest
+
+    def residual(self, order, lines):
+        if self.weather:
+            self.weather_turns -= 1
+            if self.weather_turns == 0:
+                lines.append("|-weather|none")
+                self.weather = None
+            else:
+                lines.append("|-weather|Sandstorm|[upkeep]")
+                for side in order:
+                    mon = self.on_field(side)
+                    if mon.hp > 0 and not set(mon.defensive_types()) & {"Rock", "Ground", "Steel"}:
+                        mon.hp = max(0, mon.hp - mon.maxhp // 16)
+                        lines.append(self.damage_line(mon, "|[from] Sandstorm"))
+                        if mon.hp <= 0:
+                            lines.append("|faint|%s" % self.ident(mon))
+        for side in order:
+            mon = self.on_field(side)
+            if mon.hp <= 0:
+                continue
+            if mon.item in ("Leftovers", "Black Sludge") and mon.hp < mon.maxhp:
+                mon.hp = min(mon.maxhp, mon.hp + mon.maxhp // 16)
+                lines.append(self.heal_line(mon, "|[from] item: " + mon.item))
+            if mon.status in ("brn", "tox"):
+                if mon.status == "tox":
+                    mon.toxic_turns += 1
+                    loss = mon.maxhp * mon.toxic_turns // 16
+                else:
+                    loss = mon.maxhp // 16
+                mon.hp = max(0, mon.hp - max(1, loss))
+                lines.append(self.damage_line(mon, "|[from] " + mon.status))
+                if mon.hp <= 0:
+                    lines.append("|faint|%s" % self.ident(mon))
+
+    def play(self, chat):
+        me = self.names[self.mine]
+        opponent = self.names[3 - self.mine]
+        self.frame(['|updateuser| %s|0|170|{"blockChallenges":false,"blockPMs":false,"ignoreTickets":false,'
+                    '"hideBattlesFromTrainerCard":false,"blockInvites":false,"doNotDisturb":false,'
+                    '"blockFriendRequests":false,"allowFriendNotifications":false,"displayBattlesToFriends":false,'
+                    '"hideLogins":false,"hiddenNextBattle":false,"inviteOnlyNextBattle":false,"language":null}' % me], 0)
+        self.frame(['|updatesearch|{"searching":["gen9randombattle"],"games":null}'], 180)
+        self.frame(['|updatesearch|{"searching":[],"games":{"%s":"[Gen 9] Random Battle"}}' % self.room], 2400)
+        self.battle_frame(["|init|battle", "|title|%s vs. %s" % (self.names[1], self.names[2]), "|j|☆" + me], 40)
+        self.request("move", 60)
+
+        lines = ["|j|☆" + opponent, "|", "|t:|%d" % self.timestamp, "|gametype|singles"]
+        for side in (1, 2):
+            rating = "" if side == self.mine else "1253"
+            lines.append("|player|p%d|%s|%s|%s" % (side, self.names[side], "170" if side == self.mine else "265", rating))
+        lines += ["|teamsize|p1|6", "|teamsize|p2|6", "|gen|9", "|tier|[Gen 9] Random Battle",
+                  "|rule|Species Clause: Limit one of each Pokémon",
+                  "|rule|HP Percentage Mod: HP is shown in percentages",
+                  "|rule|Sleep Clause Mod: Limit one foe put to sleep",
+                  "|rule|Illusion Level Mod: Illusion disguises the Pokémon's true level",
+                  "|", "|t:|%d" % self.timestamp, "|start"]
+        for side in (1, 2):
+            self.switch_in(side, 0, lines, start=False)
+        for side in sorted((1, 2), key=lambda s: -self.speed(self.sides[s][0])):
+            self.start(self.on_field(side), lines)
+        self.turn = 1
+        lines.append("|turn|1")
+        self.battle_frame(lines, 20)
+        self.battle_frame(["|c|☆%s|%s" % (opponent, chat[0])], 1500)
+
+        timer_turn = self.rng.randint(3, 6)
+        while True:
+            if self.turn == timer_turn:
+                self.battle_frame(["|inactive|Battle timer is ON: inactive players will automatically lose "
+                                   "when time's up. (requested by %s)" % opponent], 900)
+                self.battle_frame(["|inactive|%s has 120 seconds left." % me], 30)
+            if self.turn > 200:
+                raise RuntimeError("battle did not end")
+
+            self.timestamp += self.rng.randint(8, 25)
+            lines = ["|", "|t:|%d" % self.timestamp]
+            choices = {}
+            for side in (1, 2):
+                user, target = self.on_field(side), self.on_field(3 - side)
+                choices[side] = self.choose_move(user, target)
+            for side in (1, 2):
+                user = self.on_field(side)
+                if not self.tera_used[side] and self.rng.random() < 0.12:
+                    self.tera_used[side] = True
+                    user.terastallized = True
+                    lines.append("|-terastallize|%s|%s" % (self.ident(user), user.tera))
+            order = sorted((1, 2), key=lambda s: (-MOVES[choices[s]][4], -self.speed(self.on_field(s)), s))
+
+            # Time until the server sends the next frame: both sides choosing, or a switch
+            self.next_delay = self.rng.randint(3000, 16000)
+            for side in order:
+                user, target = self.on_field(side), self.on_field(3 - side)
+                move = choices[side]
+                if user.hp <= 0 or target.hp <= 0:
+                    continue
+                if user.status == "par" and self.rng.random() < 0.25:
+                    lines.append("|cant|%s|par" % self.ident(user))
+                    continue
+                user.pp[move] = max(0, user.pp[move] - 1)
+                landed = False
+                if MOVES[move][1] == "Status":
+                    self.status_move(user, target, move, lines)
+                else:
+                    landed = self.attack(user, target, move, lines)
+                for mon in (target, user):
+                    if mon.hp <= 0:
+                        lines.append("|faint|%s" % self.ident(mon))
+                if landed and MOVES[move][5].get("pivot"):
+                    lines = self.pivot(user, lines)
+
+            lines.append("|")
+            self.residual(order, lines)
+            lines.append("|upkeep")
+
+            delay = self.next_delay
+            while True:
+                finished = [s for s in (1, 2) if not self.alive(s)]
+                if finished:
+                    if len(finished) == 2:
+                        lines.append("|tie")
+                    else:
+                        lines.append("|win|%s" % self.names[3 - finished[0]])
+                    self.battle_frame(lines, delay)
+                    self.battle_frame(["|c|☆%s|%s" % (me, chat[1])], 2500)
+                    self.battle_frame(["|c|☆%s|%s" % (opponent, chat[1])], 1200)
+                    return
+
+                need = [s for s in (1, 2) if self.on_field(s).hp <= 0]
+                if not need:
+                    break
+                # The fainted side chooses a replacement while the other side waits. Hazards
+                # can knock the replacement out too, which starts another round of this.
+                self.request("switch" if self.mine in need else "wait", 0)
+                self.battle_frame(lines, delay)
+                lines = ["|", "|t:|%d" % (self.timestamp + 5)]
+                for side in need:
+                    self.switch_in(side, self.rng.choice(self.alive(side)), lines)
+                delay = self.rng.randint(2000, 6000)
+
+            self.turn += 1
+            lines.append("|turn|%d" % self.turn)
+            self.request("move", delay)
+            self.battle_frame(lines, 5)
+
+
+def commands(frames):
+    found = set()
+    for _, lines in frames:
+        for line in lines:
+            if line.startswith("|") and len(line) > 1:
+                found.add(line.split("|")[1])
+    return found
+
+
+def write(path, frames):
+    with open(path, "w", encoding="utf-8", newline="\n") as out:
+        for offset, lines in frames:
+            out.write("@%d\n" % offset)
+            for line in lines:
+                out.write(line + "\n")
+
+
+# File name, first seed to try, room, player, opponent, player's side, chat lines
+FIXTURES = [
+    ("synthetic-gen9randombattle-1.log", 1000, "battle-gen9randombattle-2012345678", "Guest 4471", "mossdeep", 1,
+     ("gl hf", "gg")),
+    ("synthetic-gen9randombattle-2.log", 2000, "battle-gen9randombattle-2012349911", "Guest 812", "Kalos Trainer", 2,
+     ("hi, good luck", "gg wp")),
+    ("synthetic-gen9randombattle-3.log", 3000, "battle-gen9randombattle-2012357240", "Guest 30517", "zubatfan", 1,
+     ("glhf", "ggs")),
+]
+
+MAX_SEED_TRIES = 500
+
+
+def main():
+    os.makedirs(OUT_DIR, exist_ok=True)
+    for name, first_seed, room, me, opponent, side, chat in FIXTURES:
+        for seed in range(first_seed, first_seed + MAX_SEED_TRIES):
+            battle = Battle(seed, room, me, opponent, side)
+            try:
+                battle.play(chat)
+            except RuntimeError:
+                continue
+            missing = [c for c in REQUIRED if c not in commands(battle.frames)]
+            if not missing:
+                break
+        else:
+            raise SystemExit("%s: no seed covers every required command" % name)
+        write(os.path.join(OUT_DIR, name), battle.frames)
+        result = [l for l in battle.frames[-3][1] if l.startswith("|win|") or l == "|tie"]
+        print("%s: seed %d, %d frames, %d turns, %s" % (name, seed, len(battle.frames), battle.turn, result[0]))
+
+
+if __name__ == "__main__":
+    main()
@@ -0,0 +1,64 @@
+#!/usr/bin/env python3
+"""Regenerate app/src/main/assets/species.tsv from Pokemon Showdown's pokedex.json.
+
+    curl -o pokedex.json https://play.pokemonshowdown.com/data/pokedex.json
+    python3 scripts/generate_species.py pokedex.json
+
+Each line is "<id>\t<dex number>[\t<sprite slug>\t<cry slug>]", sorted by id. The slugs are
+left out when both equal the id, which covers every base species. Forms use Showdown's
+sprite naming (base id, a dash, then the forme id) and the base species' cry.
+"""
+import json
+import os
+import re
+import sys
+
+ASSET = os.path.join(os.path.dirname(__file__), "..", "app", "src", "main", "assets", "species.tsv")
+
+# Showdown leaves a few forms out of the dex numbering (CAP, Pokestar) with num <= 0
+MIN_NUM = 1
+
+
+def to_id(name):
+    """Same rules as ShowdownIds/SpeciesIndex on the app side: é folds to e, then anything
+    outside a-z0-9 is dropped."""
+    return re.sub(r"[^a-z0-9]", "", name.lower().replace("é", "e"))
+
+
+def row(species_id, num, sprite, cry):
+    if sprite == species_id and cry == species_id:
+        return "%s\t%d" % (species_id, num)
+    return "%s\t%d\t%s\t%s" % (species_id, num, sprite, cry)
+
+
+def rows_from_pokedex(pokedex):
+    rows = []
+    for species_id, entry in pokedex.items():
+        num = entry.get("num", 0)
+        if num < MIN_NUM:
+            continue
+        base = entry.get("baseSpecies")
+        forme = entry.get("forme")
+        if base and forme:
+            base_id = to_id(base)
+            rows.append(row(species_id, num, base_id + "-" + to_id(forme), base_id))
+        else:
+            rows.append(row(species_id, num, species_id, species_id))
+    return rows
+
+
+def write(rows, path=ASSET, header="Generated by scripts/generate_species.py, do not edit"):
+    rows = sorted(set(rows), key=lambda r: r.split("\t", 1)[0])
+    os.makedirs(os.path.dirname(path), exist_ok=True)
+    with open(path, "w", encoding="utf-8", newline="\n") as out:
+        out.write("# %s\n" % header)
+        for r in rows:
+            out.write(r + "\n")
+    return len(rows)
+
+
+if __name__ == "__main__":
+    if len(sys.argv) != 2:
+        sys.exit(__doc__)
+    with open(sys.argv[1], encoding="utf-8") as f:
+        print("wrote %d species" % write(rows_from_pokedex(json.load(f))))
@@ -21,3 +21,4 @@ dependencyResolutionManagement {
 
 rootProject.name = "CSproject"
 include(":app")
+include(":benchmarks")